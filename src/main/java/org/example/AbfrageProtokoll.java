@@ -0,0 +1,466 @@
+package org.example;
+
+import org.example.spur.Spur;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Misst jede Anweisung, die über {@link DB#prepare(Connection, String)} bzw. {@link DB#statement(Connection)}
+ * entsteht (alle Abfragen aus {@code PatientCrud}, {@code StationCrud} und {@code PatientArchivCrud}),
+ * ohne das Slow-Query-Log des MySQL-Servers einzuschalten.
+ * <p>
+ * Jede Ausführung wird ihrer Abfrageform zugeordnet (SQL ohne Werte, Listen von Platzhaltern
+ * zusammengefasst) und dort gezählt: Anzahl, Gesamt- und Höchstdauer, Zeilen und wie oft die
+ * Schwelle überschritten wurde ({@link #getStatistik()}). Bei Abfragen zählt die Zeit bis zur letzten
+ * gelesenen Zeile bzw. bis zum Schließen des ResultSets.
+ * <p>
+ * Dauert eine Ausführung länger als {@code db.langsam.ms} (Standard 500, negativ = nie), wird sie
+ * in {@code db.langsam.datei} (Standard {@code ~/.patientenaufnahme/langsame-abfragen.log}) protokolliert:
+ * Dauer, Zeilen, Abfrageform und Parameter. Von den Parametern stehen nur Zahlen (IDs, Versionen,
+ * Limits) im Klartext; Texte, Datumswerte und alles andere wird geschwärzt, denn das sind Namen,
+ * Adressen, Geburtsdaten, Aufnahmegründe usw. Zur Fehlersuche auf einer Testdatenbank zeigt
+ * {@code db.langsam.klartext=true} alle Werte. Zusätzlich wird im Hintergrund der Ausführungsplan ({@code EXPLAIN}) mit den
+ * echten Werten geholt, pro Abfrageform höchstens alle {@code db.langsam.explain.minuten} Minuten
+ * (Standard 10), und ebenfalls protokolliert. Protokoll und EXPLAIN laufen in einem eigenen Thread
+ * mit begrenzter Warteschlange; ist sie voll, wird der Eintrag nur gezählt.
+ */
+public final class AbfrageProtokoll {
+
+    private static final Logger LOG = Logger.getLogger(AbfrageProtokoll.class.getName());
+    private static final Konfiguration KONFIG = Konfiguration.get();
+
+    private static final long SCHWELLE_NS = TimeUnit.MILLISECONDS.toNanos(KONFIG.getLong("db.langsam.ms", 500));
+    private static final boolean PROTOKOLL = KONFIG.getLong("db.langsam.ms", 500) >= 0;
+    private static final long EXPLAIN_ABSTAND_MS = TimeUnit.MINUTES.toMillis(KONFIG.getLong("db.langsam.explain.minuten", 10));
+    private static final boolean KLARTEXT = KONFIG.getBoolean("db.langsam.klartext", false);
+    private static final Path DATEI = Paths.get(KONFIG.get("db.langsam.datei",
+            System.getProperty("user.home") + "/.patientenaufnahme/langsame-abfragen.log"));
+
+    /**
+     * Ab so vielen Abfrageformen werden neue nur noch unter {@link #WEITERE} gezählt.
+     */
+    private static final int MAX_FORMEN = 2_000;
+    private static final String WEITERE = "(weitere Abfrageformen)";
+
+    private static final Pattern LEER = Pattern.compile("\\s+");
+    private static final Pattern TEXT = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'");
+    private static final Pattern ZAHL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern LISTE = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern ZEILEN = Pattern.compile("(\\(\\?…\\)|\\(\\?\\))(?:\\s*,\\s*\\((?:\\?…|\\?)\\))+");
+
+    private static final DateTimeFormatter ZEIT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    /**
+     * Kennzahlen einer Abfrageform.
+     *
+     * @param form SQL ohne Werte
+     * @param quelle Klasse und Methode, die die Form zuerst ausgeführt hat
+     * @param anzahl Ausführungen
+     * @param gesamtMs Summe der Dauer in Millisekunden
+     * @param maxMs längste Dauer in Millisekunden
+     * @param zeilen gelesene bzw. geänderte Zeilen insgesamt
+     * @param langsam Ausführungen über der Schwelle
+     * @param plan letzter Ausführungsplan (EXPLAIN) oder null
+     */
+    public record Abfrageform(String form, String quelle, long anzahl, double gesamtMs, double maxMs,
+                              long zeilen, long langsam, String plan) {
+
+        /**
+         * Gibt die mittlere Dauer zurück.
+         *
+         * @return Millisekunden pro Ausführung
+         */
+        public double getMittelMs() {
+            return anzahl == 0 ? 0 : gesamtMs / anzahl;
+        }
+    }
+
+    /**
+     * Laufende Zähler einer Abfrageform.
+     */
+    private static final class Zaehler {
+        final String form;
+        final String quelle;
+        final LongAdder anzahl = new LongAdder();
+        final LongAdder gesamtNs = new LongAdder();
+        final LongAdder zeilen = new LongAdder();
+        final LongAdder langsam = new LongAdder();
+        final AtomicLong maxNs = new AtomicLong();
+        final AtomicLong letzterPlan = new AtomicLong();
+        volatile String plan;
+
+        Zaehler(String form, String quelle) {
+            this.form = form;
+            this.quelle = quelle;
+        }
+    }
+
+    private static final Map<String, Zaehler> FORMEN = new ConcurrentHashMap<>();
+    private static final Map<String, String> FORM_ZU_SQL = new ConcurrentHashMap<>();
+
+    private static final ThreadPoolExecutor HINTERGRUND = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(200), r -> {
+        Thread t = new Thread(r, "langsame-abfragen");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    }, new ThreadPoolExecutor.DiscardPolicy());
+
+    private AbfrageProtokoll() {
+    }
+
+    /**
+     * Legt einen messenden Stellvertreter um ein vorbereitetes Statement.
+     *
+     * @param ps Statement des Treibers
+     * @param sql SQL-Text des Statements
+     * @return Stellvertreter
+     */
+    static PreparedStatement messen(PreparedStatement ps, String sql) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, new Messung(ps, sql));
+    }
+
+    /**
+     * Legt einen messenden Stellvertreter um ein einfaches Statement (SQL kommt mit jedem Aufruf).
+     *
+     * @param st Statement des Treibers
+     * @return Stellvertreter
+     */
+    static Statement messen(Statement st) {
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                new Class<?>[]{Statement.class}, new Messung(st, null));
+    }
+
+    /**
+     * Gibt die Kennzahlen aller bisher gesehenen Abfrageformen zurück, die teuerste (Gesamtdauer) zuerst.
+     *
+     * @return Kopie der Kennzahlen
+     */
+    public static List<Abfrageform> getStatistik() {
+        List<Abfrageform> out = new ArrayList<>(FORMEN.size());
+        for (Zaehler z : FORMEN.values()) {
+            out.add(new Abfrageform(z.form, z.quelle, z.anzahl.sum(), z.gesamtNs.sum() / 1e6, z.maxNs.get() / 1e6,
+                    z.zeilen.sum(), z.langsam.sum(), z.plan));
+        }
+        out.sort(Comparator.comparingDouble(Abfrageform::gesamtMs).reversed());
+        return out;
+    }
+
+    /**
+     * Setzt alle Kennzahlen zurück (z.B. vor einem Lasttest).
+     */
+    public static void zuruecksetzen() {
+        FORMEN.clear();
+    }
+
+    /**
+     * Gibt die Abfrageform eines SQL-Texts zurück: Leerraum zusammengefasst, Text- und Zahlenwerte
+     * durch {@code ?} ersetzt, Platzhalterlisten {@code (?, ?, ?)} als {@code (?…)} und mehrere
+     * Wertezeilen eines INSERT als eine.
+     *
+     * @param sql SQL-Text
+     * @return Abfrageform
+     */
+    static String form(String sql) {
+        String f = FORM_ZU_SQL.get(sql);
+        if (f != null) return f;
+        f = LEER.matcher(sql.strip()).replaceAll(" ");
+        f = TEXT.matcher(f).replaceAll("?");
+        f = ZAHL.matcher(f).replaceAll("?");
+        f = LISTE.matcher(f).replaceAll("(?…)");
+        f = ZEILEN.matcher(f).replaceAll("$1");
+        if (FORM_ZU_SQL.size() >= MAX_FORMEN) FORM_ZU_SQL.clear();
+        FORM_ZU_SQL.put(sql, f);
+        return f;
+    }
+
+    /**
+     * Schwärzt alles außer Zahlen und Wahrheitswerten (außer mit {@code db.langsam.klartext}).
+     *
+     * @param v Parameterwert
+     * @return Text für das Protokoll
+     */
+    static String schwaerzen(Object v) {
+        if (v == null) return "NULL";
+        if (v instanceof Number || v instanceof Boolean) return v.toString();
+        if (!KLARTEXT) return "'***'";
+        String s = v.toString();
+        return "'" + (s.length() > 40 ? s.substring(0, 40) + "…" : s) + "'";
+    }
+
+    /**
+     * Gibt die aufrufende Methode zurück, wenn die Abfrageform noch nicht bekannt ist, sonst null.
+     * Muss während der Ausführung aufgerufen werden, solange die CRUD-Methode noch auf dem Stack liegt.
+     */
+    private static String quelleWennNeu(String sql) {
+        return FORMEN.containsKey(form(sql)) ? null : quelle();
+    }
+
+    /**
+     * Übernimmt eine abgeschlossene Ausführung.
+     */
+    private static void erfasst(String sql, Object[] parameter, long dauerNs, long zeilen, String quelle) {
+        String form = form(sql);
+        Zaehler z = FORMEN.get(form);
+        if (z == null) {
+            if (FORMEN.size() >= MAX_FORMEN) form = WEITERE;
+            String q = quelle != null ? quelle : "?";
+            z = FORMEN.computeIfAbsent(form, f -> new Zaehler(f, q));
+        }
+        z.anzahl.increment();
+        z.gesamtNs.add(dauerNs);
+        if (zeilen > 0) z.zeilen.add(zeilen);
+        z.maxNs.accumulateAndGet(dauerNs, Math::max);
+
+        if (!PROTOKOLL || dauerNs < SCHWELLE_NS) return;
+        z.langsam.increment();
+
+        StringBuilder sb = new StringBuilder(256);
+        sb.append(ZEIT.format(LocalDateTime.now())).append(' ')
+                .append(String.format(Locale.ROOT, "%.1f ms", dauerNs / 1e6))
+                .append(", ").append(zeilen < 0 ? "?" : Long.toString(zeilen)).append(" Zeilen, ")
+                .append(z.quelle).append(": ").append(form);
+        if (parameter != null && parameter.length > 0) {
+            sb.append(" | Parameter: ");
+            for (int i = 0; i < parameter.length; i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(schwaerzen(parameter[i]));
+            }
+        }
+        String zeile = sb.append('\n').toString();
+
+        long jetzt = System.currentTimeMillis();
+        long zuletzt = z.letzterPlan.get();
+        boolean erklaeren = erklaerbar(form) && jetzt - zuletzt >= EXPLAIN_ABSTAND_MS
+                && z.letzterPlan.compareAndSet(zuletzt, jetzt);
+        Zaehler zz = z;
+        HINTERGRUND.execute(() -> {
+            String plan = erklaeren ? erklaeren(sql, parameter) : null;
+            if (plan != null) zz.plan = plan;
+            schreiben(plan == null ? zeile : zeile + plan);
+        });
+    }
+
+    private static boolean erklaerbar(String form) {
+        return form.regionMatches(true, 0, "SELECT", 0, 6) || form.regionMatches(true, 0, "UPDATE", 0, 6)
+                || form.regionMatches(true, 0, "DELETE", 0, 6);
+    }
+
+    /**
+     * Holt den Ausführungsplan mit den echten Parametern über eine eigene, nicht gemessene Verbindung.
+     */
+    private static String erklaeren(String sql, Object[] parameter) {
+        try (Connection con = DB.getConnection();
+             PreparedStatement ps = con.prepareStatement("EXPLAIN " + sql)) {
+            if (parameter != null) {
+                for (int i = 0; i < parameter.length; i++) ps.setObject(i + 1, parameter[i]);
+            }
+            StringBuilder sb = new StringBuilder();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    sb.append("    EXPLAIN ").append(rs.getString("table"))
+                            .append(" type=").append(rs.getString("type"))
+                            .append(" key=").append(rs.getString("key"))
+                            .append(" rows=").append(rs.getString("rows"))
+                            .append(" Extra=").append(rs.getString("Extra")).append('\n');
+                }
+            }
+            return sb.toString();
+        } catch (SQLException | RuntimeException e) {
+            return "    EXPLAIN nicht möglich: " + e.getMessage() + "\n";
+        }
+    }
+
+    private static void schreiben(String text) {
+        try {
+            Files.createDirectories(DATEI.toAbsolutePath().getParent());
+            Files.writeString(DATEI, text, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Langsame Abfrage (Protokoll nicht schreibbar): " + text.stripTrailing(), e);
+        }
+    }
+
+    /**
+     * Sucht die aufrufende Methode außerhalb dieser Klasse und {@link DB}, z.B. {@code PatientCrud.search}.
+     * Wird nur beim ersten Auftreten einer Abfrageform bestimmt.
+     */
+    private static String quelle() {
+        return StackWalker.getInstance().walk(s -> s
+                .filter(f -> f.getClassName().startsWith("org.example.")
+                        && !f.getClassName().equals(AbfrageProtokoll.class.getName())
+                        && !f.getClassName().startsWith(AbfrageProtokoll.class.getName() + "$")
+                        && !f.getClassName().equals(DB.class.getName()))
+                .findFirst()
+                .map(f -> f.getClassName().substring(f.getClassName().lastIndexOf('.') + 1) + "." + f.getMethodName())
+                .orElse("?"));
+    }
+
+    /**
+     * Stellvertreter für ein Statement: merkt sich die gesetzten Parameter, misst die Ausführung
+     * und zählt bei Abfragen die gelesenen Zeilen über einen Stellvertreter für das ResultSet.
+     */
+    private static final class Messung implements InvocationHandler {
+
+        private final Statement ziel;
+        private final String sql;
+        private Object[] parameter = new Object[8];
+        private int parameterAnzahl;
+        private int batchZeilen;
+        private Lesen offen;
+
+        Messung(Statement ziel, String sql) {
+            this.ziel = ziel;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+            String name = m.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer idx
+                    && m.getDeclaringClass() == PreparedStatement.class) {
+                merken(idx, name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                Arrays.fill(parameter, null);
+                parameterAnzahl = 0;
+            } else if (name.equals("addBatch") && sql != null) {
+                batchZeilen++;
+            } else if (name.startsWith("execute")) {
+                return ausfuehren(m, args, name);
+            } else if (name.equals("close") && offen != null) {
+                offen.fertig();
+            }
+            return aufrufen(ziel, m, args);
+        }
+
+        private void merken(int idx, Object wert) {
+            if (idx > parameter.length) parameter = Arrays.copyOf(parameter, Math.max(idx, parameter.length * 2));
+            parameter[idx - 1] = wert;
+            parameterAnzahl = Math.max(parameterAnzahl, idx);
+        }
+
+        private Object ausfuehren(Method m, Object[] args, String name) throws Throwable {
+            String text = sql != null ? sql : args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+            if (text == null) return aufrufen(ziel, m, args);
+            Object[] werte = sql != null ? Arrays.copyOf(parameter, parameterAnzahl) : null;
+            String quelle = quelleWennNeu(text);
+
+            long t0 = System.nanoTime();
+            Object ergebnis;
+            Spur s = Spur.start("jdbc." + name);
+            try {
+                ergebnis = aufrufen(ziel, m, args);
+            } catch (Throwable t) {
+                s.fehler(t);
+                throw t;
+            } finally {
+                s.close();
+            }
+            long dauer = System.nanoTime() - t0;
+
+            if (ergebnis instanceof ResultSet rs) {
+                if (offen != null) offen.fertig();
+                offen = new Lesen(text, werte, t0, quelle);
+                return Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class}, offen.mit(rs));
+            }
+            long zeilen = -1;
+            if (ergebnis instanceof int[] n) zeilen = summe(Arrays.stream(n).asLongStream().toArray());
+            else if (ergebnis instanceof long[] n) zeilen = summe(n);
+            else if (ergebnis instanceof Number n) zeilen = n.longValue();
+            if (name.endsWith("Batch")) {
+                // mit rewriteBatchedStatements meldet der Treiber oft nur SUCCESS_NO_INFO
+                if (zeilen <= 0) zeilen = batchZeilen;
+                werte = null;
+                batchZeilen = 0;
+            }
+            erfasst(text, werte, dauer, zeilen, quelle);
+            return ergebnis;
+        }
+
+        private static long summe(long[] n) {
+            long s = 0;
+            for (long x : n) if (x > 0) s += x;
+            return s;
+        }
+    }
+
+    /**
+     * Ein offenes ResultSet: zählt Zeilen, bis es zu Ende gelesen oder geschlossen ist.
+     */
+    private static final class Lesen {
+        private final String sql;
+        private final Object[] parameter;
+        private final long t0;
+        private final String quelle;
+        private long zeilen;
+        private boolean fertig;
+
+        Lesen(String sql, Object[] parameter, long t0, String quelle) {
+            this.sql = sql;
+            this.parameter = parameter;
+            this.t0 = t0;
+            this.quelle = quelle;
+        }
+
+        InvocationHandler mit(ResultSet rs) {
+            return (proxy, m, args) -> {
+                String name = m.getName();
+                if (name.equals("close")) {
+                    fertig();
+                    return aufrufen(rs, m, args);
+                }
+                Object r = aufrufen(rs, m, args);
+                if (name.equals("next")) {
+                    if ((Boolean) r) zeilen++;
+                    else fertig();
+                }
+                return r;
+            };
+        }
+
+        void fertig() {
+            if (fertig) return;
+            fertig = true;
+            erfasst(sql, parameter, System.nanoTime() - t0, zeilen, quelle);
+        }
+    }
+
+    private static Object aufrufen(Object ziel, Method m, Object[] args) throws Throwable {
+        try {
+            return m.invoke(ziel, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
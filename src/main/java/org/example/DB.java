@@ -1,31 +1,101 @@
 package org.example;
 
+import org.example.schema.SchemaMigration;
+import org.example.spur.Spur;
+
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Hilfsklasse für den Datenbankzugriff.
  * Diese Klasse kapselt die Verbindungsdaten (URL, Benutzer, Passwort) und stellt
  * eine zentrale Methode bereit, um eine JDBC-Verbindung zur Datenbank aufzubauen.
+ * Geschrieben wird immer auf den Primärserver ({@link #getConnection()}). Reine Lesezugriffe
+ * können über {@link #getReadConnection()} auf Lese-Replikate verteilt werden
+ * (System-Property {@code patienten.db.replikate}, JDBC-URLs mit Komma getrennt, gleicher Benutzer).
+ * Damit ein Arbeitsplatz seine eigenen Änderungen sofort sieht, liest er nach einem
+ * Schreibzugriff ({@link #geschrieben()}) eine Zeit lang wieder vom Primärserver
+ * (Standard 5 Sekunden, {@code patienten.db.primaer.nach.schreiben.ms}).
+ * <p>
+ * Alle Verbindungsdaten kommen aus der {@link Konfiguration} (Datei, Umgebung, System-Properties):
+ * {@code db.url}, {@code db.benutzer}, {@code db.passwort}, {@code db.replikate},
+ * {@code db.pool.wartezeit.ms}, {@code db.fetch.groesse} (Standard 0), {@code db.abfrage.timeout.s}
+ * (Standard 30), {@code db.connect.timeout.ms} (Standard 5000) und {@code db.socket.timeout.ms}
+ * (Standard 60000, damit ein hängender Server keinen Thread für immer blockiert).
+ * Für MySQL Connector/J sind serverseitige, gecachte Prepared Statements, zusammengefasste Batches
+ * ({@code rewriteBatchedStatements}) und Cursor-Fetch voreingestellt. Einen Cursor auf dem Server
+ * benutzt der Treiber aber nur für Statements mit Fetch-Größe über 0; die ist standardmäßig aus,
+ * damit Einzelabfragen ihr Ergebnis in einer Runde bekommen, und wird nur von streamenden Lesern
+ * (z.B. {@code PatientCrud.searchStream}) pro Statement gesetzt. Weitere oder abweichende
+ * Treibereigenschaften über {@code db.treiber.<name>}.
+ * Statements sollen über {@link #prepare(Connection, String)} erzeugt werden, damit Timeout und
+ * Fetch-Größe gesetzt sind.
  */
 public class DB {
 
+    private static final Konfiguration KONFIG = Konfiguration.get();
+
+    /**
+     * JDBC-URL zur MySQL-Datenbank ({@code db.url}).
+     */
+    private static final String URL = KONFIG.get("db.url", "jdbc:mysql://10.25.2.145:3306/24abfa");
+
+    /**
+     * Benutzer, Passwort und Treibereigenschaften für jede Verbindung (auch zu den Replikaten).
+     */
+    private static final Properties TREIBER = treiberEigenschaften();
+
+    /**
+     * Zeilen, die der Treiber pro Runde vom Server holt ({@code db.fetch.groesse}); 0 heißt
+     * alles auf einmal, ohne Cursor.
+     */
+    private static final int FETCH_GROESSE = KONFIG.getInt("db.fetch.groesse", 0);
+
+    /**
+     * Höchstdauer einer Abfrage in Sekunden ({@code db.abfrage.timeout.s}, 0 = unbegrenzt).
+     */
+    private static final int ABFRAGE_TIMEOUT_S = KONFIG.getInt("db.abfrage.timeout.s", 30);
+
+    /**
+     * Gemeinsamer Verbindungspool, wenn er mit {@link #enablePool(int)} eingeschaltet wurde.
+     * Ohne Pool wird wie bisher für jeden Zugriff eine neue Verbindung geöffnet.
+     */
+    private static volatile VerbindungsPool pool;
+
+    /**
+     * Lese-Replikate oder null, wenn keine eingestellt sind.
+     */
+    private static final LeseReplikate REPLIKATE = replikate();
+
+    private static final long PRIMAER_NACH_SCHREIBEN_MS = KONFIG.getLong("db.primaer.nach.schreiben.ms", 5_000);
+
     /**
-     * JDBC-URL zur MySQL-Datenbank inkl. benötigter Parameter.
+     * Letzter Schreibzugriff pro Sitzung (Arbeitsplatz), für Read-your-writes. Abgelaufene
+     * Einträge werden beim Lesen und bei jedem Schreibzugriff entfernt.
      */
-    private static final String URL =
-            "jdbc:mysql://10.25.2.145:3306/24abfa";
+    private static final Map<String, Long> letzterSchreibzugriff = new ConcurrentHashMap<>();
 
     /**
-     * Benutzername für den Datenbanklogin.
+     * Sitzung des aktuellen Threads. Im Desktop-Client ist das der ganze Prozess (""),
+     * im Server setzt jede Anfrage den aufrufenden Schalter.
      */
-    private static final String USER = "24fama";
+    private static final ThreadLocal<String> SITZUNG = ThreadLocal.withInitial(() -> "");
 
     /**
-     * Passwort für den Datenbanklogin.
+     * Ob das Schema in diesem Prozess schon geprüft bzw. migriert wurde.
      */
-    private static final String PASS = "geb24";
+    private static volatile boolean schemaAktuell;
 
     /**
      * Erstellt und liefert eine neue Verbindung zur Datenbank
@@ -35,9 +105,205 @@ public class DB {
      * @throws SQLException wenn keine Verbindung aufgebaut werden kann
      */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(URL, USER, PASS);
+        try (Spur s = Spur.start("DB.getConnection")) {
+            VerbindungsPool p = pool;
+            s.attribut("pool", p != null);
+            if (p != null) return p.getConnection();
+            return DriverManager.getConnection(URL, TREIBER);
+        }
+    }
+
+    /**
+     * Liefert eine Verbindung für reine Lesezugriffe: reihum von einem gesunden Replikat oder,
+     * wenn keines eingestellt bzw. erreichbar ist oder die Sitzung gerade geschrieben hat,
+     * vom Primärserver. Die Daten eines Replikats können einige Sekunden alt sein.
+     * @return {@link Connection}, nur zum Lesen verwenden
+     * @throws SQLException wenn auch zum Primärserver keine Verbindung aufgebaut werden kann
+     */
+    public static Connection getReadConnection() throws SQLException {
+        try (Spur s = Spur.start("DB.getReadConnection")) {
+            if (REPLIKATE != null) {
+                String sitzung = SITZUNG.get();
+                Long zuletzt = letzterSchreibzugriff.get(sitzung);
+                if (zuletzt != null && abgelaufen(zuletzt, System.currentTimeMillis())) {
+                    letzterSchreibzugriff.remove(sitzung, zuletzt);
+                    zuletzt = null;
+                }
+                if (zuletzt == null) {
+                    Connection con = REPLIKATE.getConnection();
+                    if (con != null) {
+                        s.attribut("replikat", true);
+                        return con;
+                    }
+                }
+            }
+            s.attribut("replikat", false);
+            return getConnection();
+        }
+    }
+
+    /**
+     * Merkt, dass die aktuelle Sitzung gerade geschrieben hat; ihre Lesezugriffe gehen
+     * danach eine Zeit lang an den Primärserver.
+     */
+    public static void geschrieben() {
+        if (REPLIKATE == null) return;
+        long jetzt = System.currentTimeMillis();
+        letzterSchreibzugriff.values().removeIf(zuletzt -> abgelaufen(zuletzt, jetzt));
+        letzterSchreibzugriff.put(SITZUNG.get(), jetzt);
+    }
+
+    private static boolean abgelaufen(long zuletzt, long jetzt) {
+        return jetzt - zuletzt > PRIMAER_NACH_SCHREIBEN_MS;
+    }
+
+    /**
+     * Setzt die Sitzung (den Arbeitsplatz) des aktuellen Threads für {@link #geschrieben()}.
+     * @param sitzung Kennung des Arbeitsplatzes, null für den ganzen Prozess
+     */
+    public static void setSitzung(String sitzung) {
+        if (sitzung == null) SITZUNG.remove();
+        else SITZUNG.set(sitzung);
+    }
+
+    /**
+     * Gibt die Sitzung des aktuellen Threads zurück, z.B. um sie an einen anderen Thread weiterzugeben.
+     *
+     * @return Kennung des Arbeitsplatzes, leer für den ganzen Prozess
+     */
+    public static String getSitzung() {
+        return SITZUNG.get();
+    }
+
+    /**
+     * Schaltet den gemeinsamen Verbindungspool ein (z.B. für den Serverbetrieb, wo viele
+     * Anfragen gleichzeitig laufen). Danach liefert {@link #getConnection()} Verbindungen
+     * aus dem Pool; {@code close()} gibt sie zurück.
+     * @param groesse maximale Anzahl gleichzeitig offener Verbindungen
+     */
+    public static synchronized void enablePool(int groesse) {
+        if (pool != null) return;
+        long wartezeit = KONFIG.getLong("db.pool.wartezeit.ms", 10_000);
+        pool = new VerbindungsPool(() -> DriverManager.getConnection(URL, TREIBER), groesse, wartezeit);
+        if (REPLIKATE != null) REPLIKATE.enablePool(groesse);
+    }
+
+    /**
+     * Bringt beim Start das Datenbankschema auf den aktuellen Stand ({@link SchemaMigration}).
+     * Wird pro Prozess nur einmal ausgeführt. Mit der System-Property
+     * {@code patienten.schema.migrieren=false} wird es übersprungen (z.B. für Arbeitsplätze
+     * ohne DDL-Rechte, wenn das Schema zentral gepflegt wird).
+     * @throws RuntimeException wenn die Migration scheitert oder keine Verbindung besteht
+     */
+    public static synchronized void init() {
+        if (schemaAktuell || !KONFIG.getBoolean("schema.migrieren", true)) return;
+        try (Connection con = getConnection()) {
+            new SchemaMigration(con).migrate();
+            schemaAktuell = true;
+        } catch (SQLException e) {
+            throw new RuntimeException("Datenbankschema konnte nicht aktualisiert werden.", e);
+        }
+    }
+
+    /**
+     * Prüft, ob ein Fehler (oder eine seiner Ursachen) bedeutet, dass der Datenbankserver
+     * nicht erreichbar ist, z.B. weil die Netzwerkverbindung weg ist.
+     * SQL-Fehler wie Syntax- oder Constraint-Verletzungen zählen nicht dazu.
+     * @param t aufgetretener Fehler
+     * @return true, wenn es ein Verbindungsproblem ist
+     */
+    public static boolean istVerbindungsfehler(Throwable t) {
+        for (Throwable c = t; c != null; c = c.getCause()) {
+            if (c instanceof SQLTransientConnectionException
+                    || c instanceof SQLNonTransientConnectionException
+                    || c instanceof SQLRecoverableException) return true;
+            if (c instanceof SQLException se && se.getSQLState() != null && se.getSQLState().startsWith("08")) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Prüft, ob ein Fehler (oder eine seiner Ursachen) daher kommt, dass im Verbindungspool
+     * keine Verbindung frei wurde. Der Server ist dann erreichbar, aber ausgelastet.
+     * @param t aufgetretener Fehler
+     * @return true, wenn der Pool erschöpft war
+     */
+    public static boolean istPoolErschoepft(Throwable t) {
+        for (Throwable c = t; c != null; c = c.getCause()) {
+            if (c instanceof SQLException se && VerbindungsPool.ERSCHOEPFT.equals(se.getSQLState())) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Bereitet ein Statement mit Abfrage-Timeout und Fetch-Größe aus der Konfiguration vor.
+     *
+     * @param con Verbindung
+     * @param sql SQL-Text
+     * @return vorbereitetes Statement
+     * @throws SQLException wie {@link Connection#prepareStatement(String)}
+     */
+    public static PreparedStatement prepare(Connection con, String sql) throws SQLException {
+        return AbfrageProtokoll.messen(einstellen(con.prepareStatement(sql)), sql);
+    }
+
+    /**
+     * Wie {@link #prepare(Connection, String)}, liefert aber die erzeugten Schlüssel.
+     *
+     * @param con Verbindung
+     * @param sql SQL-Text (INSERT)
+     * @param schluessel z.B. {@link Statement#RETURN_GENERATED_KEYS}
+     * @return vorbereitetes Statement
+     * @throws SQLException wie {@link Connection#prepareStatement(String, int)}
+     */
+    public static PreparedStatement prepare(Connection con, String sql, int schluessel) throws SQLException {
+        return AbfrageProtokoll.messen(einstellen(con.prepareStatement(sql, schluessel)), sql);
     }
 
+    /**
+     * Erzeugt ein einfaches Statement mit Abfrage-Timeout und Fetch-Größe aus der Konfiguration.
+     *
+     * @param con Verbindung
+     * @return Statement
+     * @throws SQLException wie {@link Connection#createStatement()}
+     */
+    public static Statement statement(Connection con) throws SQLException {
+        return AbfrageProtokoll.messen(einstellen(con.createStatement()));
+    }
 
+    private static <S extends Statement> S einstellen(S st) throws SQLException {
+        st.setQueryTimeout(ABFRAGE_TIMEOUT_S);
+        if (FETCH_GROESSE > 0) st.setFetchSize(FETCH_GROESSE);
+        return st;
+    }
 
+    /**
+     * Baut die Eigenschaften für den JDBC-Treiber: Login, Timeouts und die voreingestellten
+     * Leistungsoptionen, überschrieben durch {@code db.treiber.*}.
+     */
+    private static Properties treiberEigenschaften() {
+        Properties p = new Properties();
+        p.setProperty("user", KONFIG.get("db.benutzer", "24fama"));
+        p.setProperty("password", KONFIG.get("db.passwort", "geb24"));
+        p.setProperty("connectTimeout", Long.toString(KONFIG.getLong("db.connect.timeout.ms", 5_000)));
+        p.setProperty("socketTimeout", Long.toString(KONFIG.getLong("db.socket.timeout.ms", 60_000)));
+        p.setProperty("tcpKeepAlive", "true");
+        p.setProperty("useServerPrepStmts", "true");
+        p.setProperty("cachePrepStmts", "true");
+        p.setProperty("prepStmtCacheSize", "250");
+        p.setProperty("prepStmtCacheSqlLimit", "2048");
+        p.setProperty("rewriteBatchedStatements", "true");
+        p.setProperty("useCursorFetch", "true");
+        p.setProperty("cacheResultSetMetadata", "true");
+        p.setProperty("elideSetAutoCommits", "true");
+        p.putAll(KONFIG.mitPraefix("db.treiber."));
+        return p;
+    }
+
+    private static LeseReplikate replikate() {
+        String urls = KONFIG.get("db.replikate", "");
+        if (urls.isEmpty()) return null;
+        List<String> liste = Arrays.stream(urls.split(",")).map(String::strip).filter(u -> !u.isEmpty()).toList();
+        return new LeseReplikate(liste, url -> () -> DriverManager.getConnection(url, TREIBER));
+    }
 }
@@ -0,0 +1,150 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Einstellungen der Anwendung, einmal beim ersten Zugriff geladen.
+ * Ein Schlüssel wie {@code db.url} wird in dieser Reihenfolge gesucht (das erste gewinnt):
+ * <ol>
+ *     <li>System-Property mit Präfix: {@code -Dpatienten.db.url=...}</li>
+ *     <li>Umgebungsvariable: {@code PATIENTEN_DB_URL}</li>
+ *     <li>Konfigurationsdatei (Properties, UTF-8): Pfad aus {@code patienten.konfiguration} bzw.
+ *         {@code PATIENTEN_KONFIGURATION}, sonst {@code ~/.patientenaufnahme/patienten.properties},
+ *         wenn vorhanden</li>
+ *     <li>der Standardwert im Code</li>
+ * </ol>
+ * So bleiben die bisherigen {@code -Dpatienten....}-Schalter gültig.
+ */
+public final class Konfiguration {
+
+    private static final String PRAEFIX = "patienten.";
+
+    private static final Konfiguration INSTANCE = new Konfiguration(System.getenv(), System.getProperties());
+
+    /**
+     * Gibt die beim Start geladene Konfiguration zurück.
+     * @return Konfiguration
+     */
+    public static Konfiguration get() {
+        return INSTANCE;
+    }
+
+    private final Map<String, String> umgebung;
+    private final Properties system;
+    private final Properties datei = new Properties();
+    private final Path dateiPfad;
+
+    private Konfiguration(Map<String, String> umgebung, Properties system) {
+        this.umgebung = umgebung;
+        this.system = system;
+
+        String pfad = system.getProperty(PRAEFIX + "konfiguration", umgebung.get("PATIENTEN_KONFIGURATION"));
+        this.dateiPfad = pfad != null ? Paths.get(pfad)
+                : Paths.get(system.getProperty("user.home"), ".patientenaufnahme", "patienten.properties");
+        if (pfad != null || Files.exists(dateiPfad)) {
+            try (Reader r = Files.newBufferedReader(dateiPfad, StandardCharsets.UTF_8)) {
+                datei.load(r);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Konfiguration konnte nicht gelesen werden: " + dateiPfad, e);
+            }
+        }
+    }
+
+    /**
+     * Liest einen Wert.
+     *
+     * @param schluessel Schlüssel ohne Präfix, z.B. {@code db.url}
+     * @param standard Wert, wenn nirgends etwas eingetragen ist
+     * @return Wert (ohne Leerzeichen am Rand)
+     */
+    public String get(String schluessel, String standard) {
+        String v = system.getProperty(PRAEFIX + schluessel);
+        if (v == null) v = umgebung.get(umgebungsName(schluessel));
+        if (v == null) v = datei.getProperty(schluessel);
+        return v == null ? standard : v.strip();
+    }
+
+    /**
+     * Liest eine ganze Zahl.
+     *
+     * @param schluessel Schlüssel ohne Präfix
+     * @param standard Standardwert
+     * @return Wert
+     * @throws IllegalArgumentException wenn der eingetragene Wert keine Zahl ist
+     */
+    public int getInt(String schluessel, int standard) {
+        return (int) getLong(schluessel, standard);
+    }
+
+    /**
+     * Liest eine ganze Zahl.
+     *
+     * @param schluessel Schlüssel ohne Präfix
+     * @param standard Standardwert
+     * @return Wert
+     * @throws IllegalArgumentException wenn der eingetragene Wert keine Zahl ist
+     */
+    public long getLong(String schluessel, long standard) {
+        String v = get(schluessel, null);
+        if (v == null || v.isEmpty()) return standard;
+        try {
+            return Long.parseLong(v);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Konfiguration " + schluessel + " ist keine Zahl: " + v);
+        }
+    }
+
+    /**
+     * Liest einen Wahrheitswert ({@code true}/{@code false}).
+     *
+     * @param schluessel Schlüssel ohne Präfix
+     * @param standard Standardwert
+     * @return Wert
+     */
+    public boolean getBoolean(String schluessel, boolean standard) {
+        String v = get(schluessel, null);
+        return v == null || v.isEmpty() ? standard : Boolean.parseBoolean(v);
+    }
+
+    /**
+     * Sammelt alle Einträge unter einem Präfix aus allen Quellen (mit derselben Rangfolge),
+     * z.B. {@code db.treiber.} für zusätzliche JDBC-Treibereigenschaften.
+     * Umgebungsvariablen kommen hier nicht in Frage, weil ihre Namen die Schreibweise verlieren.
+     *
+     * @param praefix Präfix ohne {@code patienten.}
+     * @return Schlüssel ohne Präfix → Wert
+     */
+    public Properties mitPraefix(String praefix) {
+        Properties out = new Properties();
+        for (String k : datei.stringPropertyNames()) {
+            if (k.startsWith(praefix)) out.setProperty(k.substring(praefix.length()), datei.getProperty(k).strip());
+        }
+        for (String k : system.stringPropertyNames()) {
+            if (k.startsWith(PRAEFIX + praefix)) {
+                out.setProperty(k.substring(PRAEFIX.length() + praefix.length()), system.getProperty(k).strip());
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Gibt den Pfad der Konfigurationsdatei zurück (auch wenn es sie nicht gibt).
+     * @return Pfad
+     */
+    public Path getDatei() {
+        return dateiPfad;
+    }
+
+    private static String umgebungsName(String schluessel) {
+        return "PATIENTEN_" + schluessel.toUpperCase(Locale.ROOT).replace('.', '_');
+    }
+}
@@ -0,0 +1,147 @@
+package org.example;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Lesende Datenbankserver (MySQL-Replikate) mit Lastverteilung und Ausfallerkennung.
+ * Die Verbindungen werden reihum auf die gesunden Replikate verteilt. Schlägt der
+ * Verbindungsaufbau fehl, gilt das Replikat als ausgefallen und es wird das nächste versucht;
+ * ist nur sein Pool erschöpft, wird ebenfalls das nächste versucht, ohne es als ausgefallen
+ * zu markieren. Sind alle ausgefallen oder ausgelastet, liefert {@link #getConnection()} null und {@link DB} liest vom Primärserver.
+ * Ein Hintergrund-Thread prüft alle 10 Sekunden jedes Replikat ({@code isValid}) und, wenn
+ * der Benutzer das darf, den Replikationsrückstand ({@code SHOW REPLICA STATUS}); ein Replikat
+ * mit mehr als {@code patienten.db.replikat.maxlag.s} Sekunden Rückstand (Standard 30) wird
+ * ebenfalls übersprungen, bis es aufgeholt hat.
+ */
+class LeseReplikate {
+
+    private static final Logger LOG = Logger.getLogger(LeseReplikate.class.getName());
+    private static final int PRUEF_SEKUNDEN = 10;
+
+    /**
+     * Auf ein ausgelastetes Replikat wird nicht gewartet: es geht sofort zum nächsten und
+     * zuletzt zum Primärserver, der dann {@code db.pool.wartezeit.ms} wartet.
+     */
+    private static final long POOL_WARTEZEIT_MS = 0;
+
+    /**
+     * Ein Replikat und sein zuletzt geprüfter Zustand.
+     */
+    private static final class Replikat {
+        final String url;
+        final VerbindungsPool.Fabrik fabrik;
+        volatile VerbindungsPool pool;
+        volatile boolean gesund = true;
+
+        Replikat(String url, VerbindungsPool.Fabrik fabrik) {
+            this.url = url;
+            this.fabrik = fabrik;
+        }
+
+        Connection oeffnen() throws SQLException {
+            VerbindungsPool p = pool;
+            return p != null ? p.getConnection() : fabrik.oeffnen();
+        }
+    }
+
+    private final List<Replikat> replikate = new ArrayList<>();
+    private final AtomicInteger reihum = new AtomicInteger();
+    private final long maxRueckstandS = Konfiguration.get().getLong("db.replikat.maxlag.s", 30);
+
+    /**
+     * @param urls JDBC-URLs der Replikate
+     * @param fabrik öffnet eine echte Verbindung zu einer URL
+     */
+    LeseReplikate(List<String> urls, Function<String, VerbindungsPool.Fabrik> fabrik) {
+        for (String url : urls) replikate.add(new Replikat(url, fabrik.apply(url)));
+
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "replikat-pruefung");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.scheduleWithFixedDelay(this::pruefen, PRUEF_SEKUNDEN, PRUEF_SEKUNDEN, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Gibt jedem Replikat einen eigenen Verbindungspool.
+     *
+     * @param groesse maximale Anzahl offener Verbindungen pro Replikat
+     */
+    void enablePool(int groesse) {
+        for (Replikat r : replikate) {
+            if (r.pool == null) r.pool = new VerbindungsPool(r.fabrik, groesse, POOL_WARTEZEIT_MS);
+        }
+    }
+
+    /**
+     * Öffnet eine Verbindung zum nächsten gesunden Replikat.
+     *
+     * @return Verbindung oder null, wenn kein Replikat erreichbar ist
+     */
+    Connection getConnection() {
+        int n = replikate.size();
+        int start = Math.floorMod(reihum.getAndIncrement(), n);
+        for (int i = 0; i < n; i++) {
+            Replikat r = replikate.get((start + i) % n);
+            if (!r.gesund) continue;
+            try {
+                return r.oeffnen();
+            } catch (SQLException e) {
+                // ein ausgelasteter Pool ist kein Ausfall: nur weiter zum nächsten Replikat
+                if (DB.istPoolErschoepft(e)) continue;
+                if (DB.istVerbindungsfehler(e)) ausgefallen(r, e);
+                else return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Prüft alle Replikate und nimmt erholte wieder auf.
+     */
+    private void pruefen() {
+        for (Replikat r : replikate) {
+            try (Connection con = r.fabrik.oeffnen()) {
+                boolean ok = con.isValid(2) && rueckstandOk(con);
+                if (ok && !r.gesund) LOG.info("Lese-Replikat wieder verfügbar: " + r.url);
+                if (!ok && r.gesund) LOG.warning("Lese-Replikat zu weit zurück: " + r.url);
+                r.gesund = ok;
+            } catch (SQLException | RuntimeException e) {
+                if (r.gesund) ausgefallen(r, e);
+            }
+        }
+    }
+
+    /**
+     * Liest den Replikationsrückstand. Ohne Berechtigung oder ohne Replikationsstatus
+     * wird das Replikat nur über die Erreichbarkeit beurteilt.
+     */
+    private boolean rueckstandOk(Connection con) {
+        try (Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery("SHOW REPLICA STATUS")) {
+            if (!rs.next()) return true;
+            long s = rs.getLong("Seconds_Behind_Source");
+            // NULL heißt: Replikation läuft nicht, die Daten werden also nicht mehr aktuell
+            return !rs.wasNull() && s <= maxRueckstandS;
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    private static void ausgefallen(Replikat r, Exception e) {
+        r.gesund = false;
+        LOG.warning("Lese-Replikat nicht erreichbar: " + r.url + " (" + e.getMessage() + ")");
+    }
+}
@@ -1,12 +1,28 @@
 package org.example;
 
 
+import org.example.audit.AuditLog;
+import org.example.crud.Repositories;
+import org.example.kontrolle.PatientArchivierer;
+import org.example.offline.OfflineSpeicher;
+import org.example.statistik.StationStatistik;
+
+import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
 
 /**
  * Einstiegspunkt der Anwendung.
- * Startet die Swing-Oberfläche für die Patientenaufnahme. Der GUI-Start wird über SwingUI
- * in den Event-dispatch-Thread gelegt, damit Swing korrekt und thread-sicher initialisiert wird
+ * Bringt zuerst das Datenbankschema auf den aktuellen Stand ({@link DB#init()}) und startet dann
+ * die Swing-Oberfläche für die Patientenaufnahme. Ist der Server nicht erreichbar, wird trotzdem
+ * gestartet (Offline-Betrieb); scheitert die Migration selbst, wird abgebrochen.
+ * Der GUI-Start wird über SwingUI in den Event-dispatch-Thread gelegt, damit Swing korrekt und thread-sicher initialisiert wird
+ * Außerdem laufen im Hintergrund der Archivierer für entlassene und gelöschte Patienten,
+ * der Offline-Abgleich (lokale Replik und Schreibjournal), der Abgleich der Stationsstatistik
+ * und das Schreiben des Auditprotokolls.
+ * Verbindungsdaten und Pool ({@code db.pool.groesse}, Standard ohne Pool) kommen aus der
+ * {@link Konfiguration}.
+ * Mit {@code -Dpatienten.backend=memory} läuft alles ohne MySQL; Schema, Archivierer und
+ * Offline-Abgleich entfallen dann.
  */
 public class Main {
 
@@ -16,6 +32,26 @@ public class Main {
      * @param args Kommandozeilenargumente
      */
     public static void main(String[] args) {
+        if (!Repositories.istSpeicher()) {
+            int pool = Konfiguration.get().getInt("db.pool.groesse", 0);
+            if (pool > 0) DB.enablePool(pool);
+            try {
+                DB.init();
+            } catch (RuntimeException e) {
+                if (!DB.istVerbindungsfehler(e)) {
+                    String text = e.getCause() == null ? e.getMessage() : e.getMessage() + "\n\n" + e.getCause().getMessage();
+                    JOptionPane.showMessageDialog(null, text, "Datenbankschema", JOptionPane.ERROR_MESSAGE);
+                    System.exit(1);
+                }
+                System.err.println("Schema nicht geprüft (keine Verbindung): " + e.getMessage());
+            }
+        }
+        AuditLog.getInstance().start();
+        if (!Repositories.istSpeicher()) {
+            new PatientArchivierer().start();
+            OfflineSpeicher.getInstance().start();
+        }
+        StationStatistik.getInstance().start();
         SwingUtilities.invokeLater(() -> new PatientenAufnahme().setVisible(true));
 
     }
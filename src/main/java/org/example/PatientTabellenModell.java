@@ -0,0 +1,145 @@
+package org.example;
+
+import org.example.model.Patient;
+
+import javax.swing.JTable;
+import javax.swing.SwingConstants;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableColumn;
+import java.awt.FontMetrics;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Tabellenmodell für die Patientenliste.
+ * Alle Zellen werden beim ersten Zeichnen einer Zeile einmal als Text formatiert und gemerkt,
+ * beim Scrollen entstehen also keine neuen Objekte mehr. Das Modell bleibt für die ganze Laufzeit
+ * dasselbe: eine neue Liste wird mit der alten verglichen, und es werden nur die Zeilen gemeldet,
+ * die sich zwischen gleichem Anfang und gleichem Ende unterscheiden. Spaltenbreiten und
+ * Zeilenhöhe werden nur einmal in {@link #einrichten(JTable)} festgelegt.
+ */
+public class PatientTabellenModell extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String[] COLS = {"Patient-ID", "Raum", "Nachname", "Vorname", "Geburtsdatum", "SVNR", "Station"};
+
+    /**
+     * Beispieltexte für die Spaltenbreiten (statt die Breite aus allen Zeilen zu berechnen).
+     */
+    private static final String[] PROTOTYP = {"0000000", "0000", "Mustermann-Beispiel", "Maximilian", "00.00.0000", "0000000000", "Stationsname Lang"};
+
+    private static final DateTimeFormatter DATUM = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+
+    private transient List<Patient> zeilen = List.of();
+    private transient Map<Integer, String> stationMap = Map.of();
+    private String[][] text = new String[0][];
+
+    /**
+     * Übernimmt eine neue Liste und meldet der Tabelle nur die geänderten Zeilen.
+     *
+     * @param neu anzuzeigende Patienten
+     * @param stationen Raumnummer → Stationsname
+     */
+    public void setZeilen(List<Patient> neu, Map<Integer, String> stationen) {
+        List<Patient> alt = zeilen;
+        String[][] altText = text;
+        boolean gleicheStationen = stationMap.equals(stationen);
+
+        zeilen = neu;
+        stationMap = stationen;
+        text = new String[neu.size()][];
+
+        if (!gleicheStationen || alt.isEmpty() || neu.isEmpty()) {
+            fireTableDataChanged();
+            return;
+        }
+
+        int anfang = 0;
+        int max = Math.min(alt.size(), neu.size());
+        while (anfang < max && gleich(alt.get(anfang), neu.get(anfang))) anfang++;
+        int ende = 0;
+        while (ende < max - anfang && gleich(alt.get(alt.size() - 1 - ende), neu.get(neu.size() - 1 - ende))) ende++;
+
+        // unveränderte Zeilen behalten ihren formatierten Text
+        System.arraycopy(altText, 0, text, 0, anfang);
+        System.arraycopy(altText, alt.size() - ende, text, neu.size() - ende, ende);
+
+        int altBis = alt.size() - ende;
+        int neuBis = neu.size() - ende;
+        int gemeinsam = Math.min(altBis, neuBis);
+        if (gemeinsam > anfang) fireTableRowsUpdated(anfang, gemeinsam - 1);
+        if (neuBis > altBis) fireTableRowsInserted(altBis, neuBis - 1);
+        else if (altBis > neuBis) fireTableRowsDeleted(neuBis, altBis - 1);
+    }
+
+    /**
+     * Gleiche Zeile, wenn ID und Version übereinstimmen (jede Änderung erhöht die Version).
+     * Offline geänderte Patienten behalten ihre Version, deshalb zusätzlich die angezeigten Felder.
+     */
+    private static boolean gleich(Patient a, Patient b) {
+        return a.getId() == b.getId() && a.getVersion() == b.getVersion()
+                && Objects.equals(a.getLastName(), b.getLastName())
+                && Objects.equals(a.getFirstName(), b.getFirstName())
+                && Objects.equals(a.getBirthDate(), b.getBirthDate())
+                && Objects.equals(a.getSvnr(), b.getSvnr())
+                && Objects.equals(a.getStationId(), b.getStationId());
+    }
+
+    @Override public int getRowCount() { return zeilen.size(); }
+    @Override public int getColumnCount() { return COLS.length; }
+    @Override public String getColumnName(int c) { return COLS[c]; }
+    @Override public Class<?> getColumnClass(int c) { return String.class; }
+    @Override public boolean isCellEditable(int r, int c) { return false; }
+
+    @Override
+    public Object getValueAt(int r, int c) {
+        String[] t = text[r];
+        if (t == null) {
+            t = formatieren(zeilen.get(r));
+            text[r] = t;
+        }
+        return t[c];
+    }
+
+    private String[] formatieren(Patient p) {
+        Integer raum = p.getStationId();
+        return new String[]{
+                String.valueOf(p.getId()),
+                raum == null ? "" : raum.toString(),
+                nz(p.getLastName()),
+                nz(p.getFirstName()),
+                p.getBirthDate() == null ? "" : DATUM.format(p.getBirthDate()),
+                nz(p.getSvnr()),
+                raum == null ? "" : stationMap.getOrDefault(raum, "")
+        };
+    }
+
+    private static String nz(String s) {
+        return s == null ? "" : s;
+    }
+
+    /**
+     * Stellt die Tabelle auf dieses Modell ein: feste Zeilenhöhe, Spaltenbreiten aus den
+     * Beispieltexten, Zahlen rechtsbündig.
+     *
+     * @param tbl Tabelle, die dieses Modell bereits verwendet
+     */
+    public void einrichten(JTable tbl) {
+        FontMetrics fm = tbl.getFontMetrics(tbl.getFont());
+        tbl.setRowHeight(fm.getHeight() + 4);
+        tbl.setAutoCreateColumnsFromModel(false);
+        tbl.setFillsViewportHeight(true);
+
+        DefaultTableCellRenderer rechts = new DefaultTableCellRenderer();
+        rechts.setHorizontalAlignment(SwingConstants.RIGHT);
+        for (int c = 0; c < COLS.length; c++) {
+            TableColumn col = tbl.getColumnModel().getColumn(c);
+            col.setPreferredWidth(Math.max(fm.stringWidth(PROTOTYP[c]), fm.stringWidth(COLS[c])) + 16);
+            if (c <= 1) col.setCellRenderer(rechts);
+        }
+    }
+}
@@ -1,26 +1,43 @@
 package org.example;
 
+import org.example.crud.PatientKonfliktException;
+import org.example.crud.PatientRepository.SuchErgebnis;
+import org.example.kontrolle.PatientDetailLader;
 import org.example.kontrolle.PatientKontrolle;
 import org.example.kontrolle.StationKontrolle;
 import org.example.model.Patient;
+import org.example.model.PatientFeld;
 import org.example.model.Station;
+import org.example.spur.Spur;
+import org.example.spur.Spuren;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.text.*;
+import java.awt.event.ActionEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.NumberFormat;
 import java.text.ParseException;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 
 /**
  * Hauptfenster für die Patientenaufnahme.
  * Man kann suchen, anzeigen, anlegen, bearbeiten und löschen.
+ * Jede dieser Aktionen wird als {@link Spur} gemessen (EDT, Warteschlange des SwingWorkers,
+ * Kontrolle, Datenbank); mit F12 werden die letzten Spuren in eine Datei exportiert.
+ * Eine Suche zeigt höchstens {@code ui.suche.limit} Treffer (Standard 200, siehe {@link Konfiguration}),
+ * die besten zuerst; gibt es mehr, wird um eine genauere Suche gebeten.
  */
 public class PatientenAufnahme extends JFrame {
 
+    private static final int SUCHE_LIMIT = Konfiguration.get().getInt("ui.suche.limit", 200);
+
     private JPanel panel1;
     private JTextField tfSearch;
     private JButton suchenButton;
@@ -34,9 +51,11 @@ public class PatientenAufnahme extends JFrame {
 
     private final PatientKontrolle pk = new PatientKontrolle();
     private final StationKontrolle sk = new StationKontrolle();
+    private final PatientDetailLader details = new PatientDetailLader(pk, 256);
+    private final PatientTabellenModell tabelle = new PatientTabellenModell();
 
     private List<Patient> currentPatients = new ArrayList<>();
-    private List<Station> stations = new ArrayList<>();
+    private volatile List<Station> stations = new ArrayList<>();
     private Map<Integer, String> stationMap = Map.of();
 
     private SwingWorker<List<Patient>, Void> loadWorker;
@@ -58,6 +77,12 @@ public class PatientenAufnahme extends JFrame {
 
         if (taDetails != null) taDetails.setEditable(false);
 
+        tblPatients.setModel(tabelle);
+        tabelle.einrichten(tblPatients);
+
+        // Stationsübersicht rechts neben Tabelle und Details
+        panel1.add(new StationDashboard(() -> stations), java.awt.BorderLayout.EAST);
+
         suchenButton.addActionListener(e -> loadTable(tfSearch.getText(), true));
         tfSearch.addActionListener(e -> loadTable(tfSearch.getText(), true));
         refresh.addActionListener(e -> {
@@ -69,18 +94,26 @@ public class PatientenAufnahme extends JFrame {
         bearbeitenButton.addActionListener(e -> editSelectedPatient());
         löschenButton.addActionListener(e -> deleteSelectedPatient());
 
+        panel1.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("F12"), "spurenExport");
+        panel1.getActionMap().put("spurenExport", new AbstractAction() {
+            @Override public void actionPerformed(ActionEvent e) { exportSpuren(); }
+        });
+
         tblPatients.getSelectionModel().addListSelectionListener(e -> {
             if (e.getValueIsAdjusting()) return;
-            Patient p = getSelectedPatientSilent();
-            if (p != null) showDetails(p);
+            onSelectionChanged();
         });
 
+        // letzte Liste sofort zeigen, der Abgleich mit dem Server läuft danach im Hintergrund
+        currentPatients = pk.loadListSnapshot();
+        if (!currentPatients.isEmpty()) fillTable(currentPatients);
         loadTable("", false);
     }
 
     /**
      * Lädt Patienten im Hintergrund und füllt die Tabelle.
      * Wenn gerade geladen wird, wird die Suche gemerkt.
+     * Findet eine Suche nichts, wird unscharf (ähnliche Namen) gesucht, bevor "Nicht gefunden" kommt.
      */
     private void loadTable(String query, boolean userInitiated) {
         String q = query == null ? "" : query;
@@ -95,26 +128,66 @@ public class PatientenAufnahme extends JFrame {
         setActionsEnabled(false);
         showInfo("Daten werden geladen …");
 
+        Spur aktion = Spur.aktion(q.isEmpty() ? "ui.liste" : "ui.suche").attribut("zeichen", q.length());
+        Spur.Uebergabe anWorker = aktion.weitergeben();
+
         loadWorker = new SwingWorker<>() {
+            private boolean unscharf;
+            private SuchErgebnis gekuerzt;
+            private Spur.Uebergabe zurueck = anWorker;
+
             @Override
             protected List<Patient> doInBackground() {
-                ensureStationsLoaded();
-                return pk.search(q);
+                try (Spur s = anWorker.fortsetzen("hintergrund")) {
+                    ensureStationsLoaded();
+                    if (q.isEmpty()) return pk.reconcileList();
+                    SuchErgebnis e = pk.searchTopK(q, SUCHE_LIMIT);
+                    if (e.istGekuerzt()) gekuerzt = e;
+                    List<Patient> out = e.treffer();
+                    if (out.isEmpty() && userInitiated) {
+                        out = pk.searchFuzzy(q, 50);
+                        unscharf = !out.isEmpty();
+                        s.attribut("unscharf", unscharf);
+                    }
+                    return out;
+                } finally {
+                    zurueck = aktion.weitergeben();
+                }
             }
 
             @Override
             protected void done() {
+                Spur s = zurueck.fortsetzen("anzeigen");
+                try {
+                    anzeigen();
+                } finally {
+                    s.close();
+                    aktion.close();
+                }
+            }
+
+            private void anzeigen() {
                 try {
                     currentPatients = get();
                     fillTable(currentPatients);
-                    clearInfo();
+                    if (pk.isOffline()) showInfo("Keine Verbindung zum Server – es werden lokale Daten angezeigt.\nÄnderungen werden übertragen, sobald der Server wieder erreichbar ist.");
+                    else if (unscharf) showInfo("Kein genauer Treffer für \"" + q + "\" – ähnliche Namen werden angezeigt.");
+                    else if (gekuerzt != null) showInfo(gekuerztText(gekuerzt));
+                    else clearInfo();
 
                     if (currentPatients.isEmpty() && firstLoadDone && userInitiated && !q.isEmpty()) {
                         showNotFoundWithCreate(q);
                     }
                     firstLoadDone = true;
 
+                    List<String> konflikte = pk.abholenOfflineKonflikte();
+                    if (!konflikte.isEmpty()) {
+                        JOptionPane.showMessageDialog(PatientenAufnahme.this, String.join("\n", konflikte),
+                                "Offline-Änderungen nicht übernommen", JOptionPane.WARNING_MESSAGE);
+                    }
+
                 } catch (Exception ex) {
+                    aktion.fehler(unwrap(ex));
                     showDbError("Daten konnten nicht geladen werden.", unwrap(ex));
                 } finally {
                     setActionsEnabled(true);
@@ -170,30 +243,65 @@ public class PatientenAufnahme extends JFrame {
 
     /**
      * Schreibt alle Patienten in die Tabelle.
+     * Telefon, Adresse und Grund stehen nur in den Details.
      */
     private void fillTable(List<Patient> patients) {
-        String[] cols = {"Patient-ID", "Raum", "Nachname", "Vorname", "Geburtsdatum", "SVNR", "Telefon", "Adresse", "Station", "Grund"};
-        Object[][] rows = new Object[patients.size()][cols.length];
-
-        for (int i = 0; i < patients.size(); i++) {
-            Patient p = patients.get(i);
-            Integer raum = p.getStationId();
-
-            rows[i][0] = p.getId();
-            rows[i][1] = raum == null ? "" : raum;
-            rows[i][2] = p.getLastName();
-            rows[i][3] = p.getFirstName();
-            rows[i][4] = p.getBirthDate();
-            rows[i][5] = p.getSvnr();
-            rows[i][6] = p.getPhone();
-            rows[i][7] = p.getAddress();
-            rows[i][8] = raum == null ? "" : stationMap.getOrDefault(raum, "");
-            rows[i][9] = p.getReason();
-        }
 
-        tblPatients.setModel(new DefaultTableModel(rows, cols) {
-            @Override public boolean isCellEditable(int r, int c) { return false; }
+        tabelle.setZeilen(patients, stationMap);
+    }
+
+    /**
+     * Zeigt die Details zur ausgewählten Zeile an.
+     * Sind sie schon im Cache, sofort; sonst werden sie im Hintergrund geladen.
+     * Danach werden die Nachbarzeilen vorgeladen.
+     */
+    private void onSelectionChanged() {
+        int row = tblPatients.getSelectedRow();
+        Patient p = getSelectedPatientSilent();
+        if (p == null) return;
+
+        Patient cached = details.getCached(p);
+        if (cached != null) showDetails(cached);
+        else withDetails(p, d -> {
+            if (getSelectedPatientSilent() == p) showDetails(d);
         });
+
+        details.prefetch(rowAt(row - 1), rowAt(row + 1), rowAt(row - 2), rowAt(row + 2));
+    }
+
+    /**
+     * Gibt die Listenzeile an der Position zurück oder null, wenn es sie nicht gibt.
+     */
+    private Patient rowAt(int row) {
+        if (row < 0 || row >= currentPatients.size()) return null;
+        return currentPatients.get(row);
+    }
+
+    /**
+     * Holt die vollständigen Daten zu einer Listenzeile und ruft dann die Aktion im EDT auf.
+     * Ist der Patient nicht im Cache, wird im Hintergrund geladen.
+     */
+    private void withDetails(Patient listenZeile, Consumer<Patient> action) {
+        Patient cached = details.getCached(listenZeile);
+        if (cached != null) {
+            action.accept(cached);
+            return;
+        }
+
+        showInfo("Details werden geladen …");
+        new SwingWorker<Patient, Void>() {
+            @Override protected Patient doInBackground() { return details.load(listenZeile); }
+
+            @Override protected void done() {
+                try {
+                    Patient d = get();
+                    if (d == null) showInfo("Patient wurde inzwischen entfernt.");
+                    else action.accept(d);
+                } catch (Exception ex) {
+                    showDbError("Details konnten nicht geladen werden.", unwrap(ex));
+                }
+            }
+        }.execute();
     }
 
     /**
@@ -202,18 +310,18 @@ public class PatientenAufnahme extends JFrame {
     private void showDetails(Patient p) {
         Integer raum = p.getStationId();
 
-        taDetails.setText(
-                "Patient-ID: " + p.getId() + "\n" +
-                        "Raum: " + (raum == null ? "" : raum) + "\n" +
-                        "Vorname: " + safe(p.getFirstName()) + "\n" +
-                        "Nachname: " + safe(p.getLastName()) + "\n" +
-                        "Geburtsdatum: " + p.getBirthDate() + "\n" +
-                        "SVNR: " + safe(p.getSvnr()) + "\n" +
-                        "Telefon: " + safe(p.getPhone()) + "\n" +
-                        "Adresse: " + safe(p.getAddress()) + "\n" +
-                        "Station: " + (raum == null ? "" : stationMap.getOrDefault(raum, "")) + "\n" +
-                        "Grund: " + safe(p.getReason())
-        );
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("Patient-ID: ").append(p.getId()).append('\n')
+                .append("Raum: ").append(raum == null ? "" : raum).append('\n')
+                .append("Vorname: ").append(safe(p.getFirstName())).append('\n')
+                .append("Nachname: ").append(safe(p.getLastName())).append('\n')
+                .append("Geburtsdatum: ").append(p.getBirthDate()).append('\n')
+                .append("SVNR: ").append(safe(p.getSvnr())).append('\n')
+                .append("Telefon: ").append(safe(p.getPhone())).append('\n')
+                .append("Adresse: ").append(safe(p.getAddress())).append('\n')
+                .append("Station: ").append(raum == null ? "" : stationMap.getOrDefault(raum, "")).append('\n')
+                .append("Grund: ").append(safe(p.getReason()));
+        taDetails.setText(sb.toString());
     }
 
     /**
@@ -226,6 +334,7 @@ public class PatientenAufnahme extends JFrame {
         if (p == null) return;
 
         runDbAction(
+                "ui.anlegen",
                 "Patient wird angelegt …",
                 () -> pk.save(p),
                 () -> {
@@ -239,20 +348,29 @@ public class PatientenAufnahme extends JFrame {
 
     /**
      * Öffnet den Dialog und speichert Änderungen.
+     * Gespeichert werden nur die Felder, die im Dialog wirklich geändert wurden.
      */
     private void editSelectedPatient() {
-        Patient old = getSelectedPatientOrWarn();
-        if (old == null) return;
+        Patient row = getSelectedPatientOrWarn();
+        if (row == null) return;
+        withDetails(row, this::editPatient);
+    }
 
+    /**
+     * Zeigt den Bearbeiten-Dialog für einen vollständig geladenen Patienten und speichert.
+     */
+    private void editPatient(Patient old) {
         Patient updated = showPatientDialogLoop(old);
         if (updated == null) return;
 
         updated.setId(old.getId());
 
         runDbAction(
+                "ui.bearbeiten",
                 "Änderungen werden gespeichert …",
                 () -> pk.save(updated),
                 () -> {
+                    details.invalidate(old.getId());
                     JOptionPane.showMessageDialog(this, "Änderungen wurden gespeichert.", "Erfolg", JOptionPane.INFORMATION_MESSAGE);
                     loadTable(tfSearch.getText(), true);
                 }
@@ -276,9 +394,11 @@ public class PatientenAufnahme extends JFrame {
         if (ok != JOptionPane.YES_OPTION) return;
 
         runDbAction(
+                "ui.loeschen",
                 "Patient wird gelöscht …",
                 () -> pk.delete(p.getId()),
                 () -> {
+                    details.invalidate(p.getId());
                     JOptionPane.showMessageDialog(this, "Patient wurde gelöscht.", "Erfolg", JOptionPane.INFORMATION_MESSAGE);
                     loadTable(tfSearch.getText(), true);
                 }
@@ -315,21 +435,50 @@ public class PatientenAufnahme extends JFrame {
     /**
      * Führt DB-Arbeit im Hintergrund aus.
      * Zeigt bei Fehlern eine einfache Meldung.
+     *
+     * @param spurName Name der Aktion für die {@link Spur}
      */
-    private void runDbAction(String infoText, Runnable dbWork, Runnable onSuccess) {
+    private void runDbAction(String spurName, String infoText, Runnable dbWork, Runnable onSuccess) {
         setActionsEnabled(false);
         showInfo(infoText);
 
+        Spur aktion = Spur.aktion(spurName);
+        Spur.Uebergabe anWorker = aktion.weitergeben();
+
         new SwingWorker<Void, Void>() {
-            @Override protected Void doInBackground() { dbWork.run(); return null; }
+            private Spur.Uebergabe zurueck = anWorker;
+
+            @Override protected Void doInBackground() {
+                Spur s = anWorker.fortsetzen("hintergrund");
+                try {
+                    dbWork.run();
+                    return null;
+                } finally {
+                    s.close();
+                    zurueck = aktion.weitergeben();
+                }
+            }
 
             @Override protected void done() {
+                Spur s = zurueck.fortsetzen("anzeigen");
+                try {
+                    anzeigen();
+                } finally {
+                    s.close();
+                    aktion.close();
+                }
+            }
+
+            private void anzeigen() {
                 try {
                     get();
                     onSuccess.run();
                 } catch (Exception ex) {
                     Throwable cause = unwrap(ex);
-                    if (cause instanceof IllegalArgumentException) {
+                    aktion.fehler(cause);
+                    if (cause instanceof PatientKonfliktException k) {
+                        handleConflict(k);
+                    } else if (cause instanceof IllegalArgumentException) {
                         showInfo("Eingabe passt noch nicht – bitte korrigieren.");
                         JOptionPane.showMessageDialog(
                                 PatientenAufnahme.this,
@@ -347,6 +496,47 @@ public class PatientenAufnahme extends JFrame {
         }.execute();
     }
 
+    /**
+     * Reagiert auf einen Speicherkonflikt (Patient wurde an einem anderen Platz geändert).
+     * Man kann die eigenen Änderungen auf den aktuellen Stand übernehmen oder sie verwerfen.
+     */
+    private void handleConflict(PatientKonfliktException k) {
+        details.invalidate(k.getEigene().getId());
+        if (k.istGeloescht()) {
+            JOptionPane.showMessageDialog(this, "Der Patient wurde inzwischen an einem anderen Platz gelöscht.", "Konflikt", JOptionPane.WARNING_MESSAGE);
+            loadTable(tfSearch.getText(), false);
+            return;
+        }
+
+        StringBuilder sb = new StringBuilder("Der Patient wurde inzwischen an einem anderen Platz geändert.\n\nIhre Änderungen:\n");
+        for (PatientFeld f : k.getEigeneFelder()) {
+            sb.append(f.getSpalte()).append(": ")
+                    .append(k.getAktuell().getWert(f)).append(" → ").append(k.getEigene().getWert(f)).append("\n");
+        }
+        sb.append("\nSollen Ihre Änderungen auf den aktuellen Stand übernommen werden?");
+
+        Object[] options = {"Übernehmen", "Verwerfen"};
+        int choice = JOptionPane.showOptionDialog(this, sb.toString(), "Konflikt",
+                JOptionPane.DEFAULT_OPTION, JOptionPane.WARNING_MESSAGE, null, options, options[0]);
+
+        if (choice != 0) {
+            loadTable(tfSearch.getText(), false);
+            return;
+        }
+
+        Patient merged = k.zusammenfuehren();
+        // erst nach dem laufenden done() starten, damit die Buttons richtig gesperrt bleiben
+        SwingUtilities.invokeLater(() -> runDbAction(
+                "ui.konflikt",
+                "Änderungen werden gespeichert …",
+                () -> pk.save(merged),
+                () -> {
+                    JOptionPane.showMessageDialog(this, "Änderungen wurden gespeichert.", "Erfolg", JOptionPane.INFORMATION_MESSAGE);
+                    loadTable(tfSearch.getText(), true);
+                }
+        ));
+    }
+
     /**
      * Zeigt den Dialog zum Anlegen/Bearbeiten.
      * Wiederholt sich, bis es passt oder Abbruch.
@@ -390,7 +580,8 @@ public class PatientenAufnahme extends JFrame {
             if (res != JOptionPane.OK_OPTION) return null;
 
             try {
-                Patient out = new Patient();
+                // beim Bearbeiten auf einer Kopie arbeiten, damit nur echte Änderungen gespeichert werden
+                Patient out = existing == null ? new Patient() : new Patient(existing);
                 out.setFirstName(tfFirst.getText());
                 out.setLastName(tfLast.getText());
                 out.setBirthDate(parseBirthSafe(tfBirth.getText()));
@@ -464,6 +655,18 @@ public class PatientenAufnahme extends JFrame {
         }
     }
 
+    /**
+     * Schreibt die Spuren der letzten Aktionen in eine Datei (für chrome://tracing oder Perfetto).
+     */
+    private void exportSpuren() {
+        try {
+            Path datei = Spuren.exportieren();
+            showInfo("Spuren gespeichert:\n" + datei);
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this, "Spuren konnten nicht gespeichert werden:\n" + ex.getMessage(), "Spuren", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
     /**
      * Holt die eigentliche Ursache aus einer Exception.
      */
@@ -483,6 +686,22 @@ public class PatientenAufnahme extends JFrame {
     /**
      * Zeigt Text im Detailfeld an.
      */
+    /**
+     * Hinweis für eine gekürzte Trefferliste, z.B. "Zeige 200 von ~48.000 Treffern".
+     * Geschätzte Zahlen werden auf zwei Stellen gerundet, mehr Genauigkeit hat die Schätzung nicht.
+     */
+    private static String gekuerztText(SuchErgebnis e) {
+        long gesamt = e.gesamt();
+        if (e.geschaetzt() && gesamt >= 100) {
+            long stelle = 1;
+            while (gesamt / stelle >= 100) stelle *= 10;
+            gesamt = Math.max(Math.round((double) gesamt / stelle) * stelle, e.treffer().size() + 1L);
+        }
+        NumberFormat zahl = NumberFormat.getIntegerInstance(Locale.GERMANY);
+        return "Zeige " + zahl.format(e.treffer().size()) + " von " + (e.geschaetzt() ? "~" : "")
+                + zahl.format(gesamt) + " Treffern – bitte Suche verfeinern.";
+    }
+
     private void showInfo(String text) { if (taDetails != null) taDetails.setText(text); }
 
     /**
@@ -0,0 +1,99 @@
+package org.example;
+
+import org.example.model.Station;
+import org.example.statistik.StationStatistik;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Übersicht neben der Patiententabelle: Belegung und freie Betten pro Station sowie
+ * Aufnahmen nach Grund. Die Werte kommen aus der {@link StationStatistik}, eine Aktualisierung
+ * kostet also keine Datenbankabfrage. Es wird nur neu gezeichnet, wenn sich die Zähler geändert haben.
+ */
+public final class StationDashboard extends JPanel {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient StationStatistik statistik = StationStatistik.getInstance();
+    private final transient Supplier<List<Station>> stationen;
+
+    private final BelegungModel belegung = new BelegungModel();
+    private final DefaultListModel<String> gruende = new DefaultListModel<>();
+
+    private long letzterStand = -1;
+
+    /**
+     * Baut die Übersicht auf.
+     *
+     * @param stationen liefert die aktuell bekannten Stationen (für Namen und Bettenanzahl)
+     */
+    public StationDashboard(Supplier<List<Station>> stationen) {
+        super(new BorderLayout(0, 6));
+        this.stationen = stationen;
+
+        JTable tbl = new JTable(belegung);
+        tbl.setFillsViewportHeight(true);
+        JScrollPane spStationen = new JScrollPane(tbl);
+        spStationen.setBorder(BorderFactory.createTitledBorder("Belegung"));
+
+        JScrollPane spGruende = new JScrollPane(new JList<>(gruende));
+        spGruende.setBorder(BorderFactory.createTitledBorder("Aufnahmen nach Grund"));
+        spGruende.setPreferredSize(new Dimension(260, 160));
+
+        add(spStationen, BorderLayout.CENTER);
+        add(spGruende, BorderLayout.SOUTH);
+        setPreferredSize(new Dimension(280, 400));
+
+        new Timer(1000, e -> refresh()).start();
+    }
+
+    /**
+     * Übernimmt die aktuellen Zähler, wenn sich seit dem letzten Mal etwas geändert hat.
+     */
+    private void refresh() {
+        List<Station> st = stationen.get();
+        long stand = statistik.getStand();
+        if (stand == letzterStand && st.size() == belegung.zeilen.size()) return;
+        letzterStand = stand;
+
+        List<Object[]> zeilen = new ArrayList<>(st.size());
+        for (Station s : st) {
+            long belegt = statistik.getBelegt(s.getRaum());
+            zeilen.add(new Object[]{s.getName(), belegt, Math.max(0, s.getMaxBetten() - belegt), s.getMaxBetten()});
+        }
+        belegung.setZeilen(zeilen);
+
+        gruende.clear();
+        statistik.getProGrund().entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(e -> gruende.addElement(e.getKey() + ": " + e.getValue()));
+    }
+
+    /**
+     * Tabellenmodell für die Belegung pro Station.
+     */
+    private static class BelegungModel extends AbstractTableModel {
+        private static final long serialVersionUID = 1L;
+        private static final String[] COLS = {"Station", "Belegt", "Frei", "Betten"};
+        private transient List<Object[]> zeilen = new ArrayList<>();
+
+        void setZeilen(List<Object[]> neu) {
+            boolean gleicheAnzahl = neu.size() == zeilen.size();
+            zeilen = neu;
+            if (gleicheAnzahl && !neu.isEmpty()) fireTableRowsUpdated(0, neu.size() - 1);
+            else fireTableDataChanged();
+        }
+
+        @Override public int getRowCount() { return zeilen.size(); }
+        @Override public int getColumnCount() { return COLS.length; }
+        @Override public String getColumnName(int c) { return COLS[c]; }
+        @Override public Object getValueAt(int r, int c) { return zeilen.get(r)[c]; }
+    }
+}
@@ -0,0 +1,151 @@
+package org.example;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Einfacher Verbindungspool für den Serverbetrieb.
+ * Es gibt höchstens {@code groesse} offene Verbindungen. Die ausgegebenen Verbindungen sind
+ * Stellvertreter: {@code close()} gibt die echte Verbindung an den Pool zurück, statt sie zu
+ * schließen. So kann der bestehende Code mit try-with-resources unverändert bleiben.
+ */
+public class VerbindungsPool {
+
+    /**
+     * SQLState, wenn keine Verbindung frei wird. Bewusst kein Verbindungsfehler (Klasse 08):
+     * der Server ist erreichbar, nur der Pool ist ausgelastet.
+     */
+    public static final String ERSCHOEPFT = "HYT00";
+
+    /**
+     * Liefert eine neue echte Verbindung.
+     */
+    @FunctionalInterface
+    public interface Fabrik {
+        Connection oeffnen() throws SQLException;
+    }
+
+    private final Fabrik fabrik;
+    private final Semaphore plaetze;
+    private final BlockingQueue<Connection> frei = new LinkedBlockingQueue<>();
+    private final long wartezeitMs;
+
+    /**
+     * Erstellt einen Pool.
+     *
+     * @param fabrik öffnet bei Bedarf neue Verbindungen
+     * @param groesse maximale Anzahl gleichzeitig offener Verbindungen
+     * @param wartezeitMs wie lange auf eine freie Verbindung gewartet wird (0 = gar nicht)
+     */
+    public VerbindungsPool(Fabrik fabrik, int groesse, long wartezeitMs) {
+        this.fabrik = fabrik;
+        this.plaetze = new Semaphore(groesse, true);
+        this.wartezeitMs = wartezeitMs;
+    }
+
+    /**
+     * Holt eine Verbindung aus dem Pool oder öffnet eine neue.
+     * Verbindungen, die im Pool kaputt gegangen sind, werden verworfen.
+     *
+     * @return Verbindung, deren {@code close()} sie zurück in den Pool legt
+     * @throws SQLException wenn keine Verbindung frei wird oder geöffnet werden kann
+     */
+    public Connection getConnection() throws SQLException {
+        try {
+            if (!plaetze.tryAcquire(wartezeitMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("Keine freie Datenbankverbindung im Pool.", ERSCHOEPFT);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTimeoutException("Warten auf Datenbankverbindung unterbrochen.", ERSCHOEPFT, e);
+        }
+
+        try {
+            Connection con;
+            while ((con = frei.poll()) != null) {
+                if (con.isValid(1)) return wrap(con);
+                closeQuietly(con);
+            }
+            return wrap(fabrik.oeffnen());
+        } catch (SQLException | RuntimeException e) {
+            plaetze.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Schließt alle freien Verbindungen.
+     */
+    public void close() {
+        Connection con;
+        while ((con = frei.poll()) != null) closeQuietly(con);
+    }
+
+    /**
+     * Baut den Stellvertreter um eine echte Verbindung.
+     */
+    private Connection wrap(Connection echt) {
+        boolean[] zurueck = {false};
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close" -> {
+                            if (!zurueck[0]) {
+                                zurueck[0] = true;
+                                zurueckgeben(echt);
+                            }
+                            return null;
+                        }
+                        case "isClosed" -> {
+                            if (zurueck[0]) return true;
+                        }
+                        case "unwrap" -> {
+                            if (((Class<?>) args[0]).isInstance(echt)) return echt;
+                        }
+                        default -> { }
+                    }
+                    if (zurueck[0]) throw new SQLException("Verbindung wurde bereits zurückgegeben.");
+                    try {
+                        return method.invoke(echt, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * Legt eine Verbindung zurück in den Pool (im Auto-Commit-Modus) oder verwirft sie,
+     * wenn sie nicht mehr brauchbar ist.
+     */
+    private void zurueckgeben(Connection echt) {
+        try {
+            if (echt.isClosed()) return;
+            if (!echt.getAutoCommit()) {
+                echt.rollback();
+                echt.setAutoCommit(true);
+            }
+            frei.offer(echt);
+        } catch (SQLException e) {
+            closeQuietly(echt);
+        } finally {
+            plaetze.release();
+        }
+    }
+
+    private static void closeQuietly(Connection con) {
+        try {
+            con.close();
+        } catch (SQLException ignored) {
+            // Verbindung ist ohnehin nicht mehr brauchbar
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.audit;
+
+/**
+ * Art einer protokollierten Änderung an einem Patienten.
+ */
+public enum AuditAktion {
+    ANGELEGT,
+    GEAENDERT,
+    GELOESCHT,
+    ENTLASSEN
+}
@@ -0,0 +1,107 @@
+package org.example.audit;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Lokale, rollierende Auditdatei über einen speichergemappten Bereich.
+ * Jede Datei ({@code audit-<Zeitstempel>-<Nr>.log}) wird mit fester Größe angelegt und gemappt;
+ * Einträge werden als Textzeilen direkt in den Speicher geschrieben, {@link #flush()} schreibt
+ * sie mit {@link MappedByteBuffer#force()} auf die Platte. Ist die Datei voll, wird sie geschlossen
+ * und eine neue angefangen; gekürzt wird nicht (das ginge erst nach dem Freigeben des gemappten
+ * Bereichs). Der gültige Inhalt einer Datei endet an der ersten Null-Byte-Stelle, auch nach einem Absturz.
+ * Synchronisiert: schreibt der Schreib-Thread des {@link AuditLog} nicht schnell genug, schreiben die
+ * Aufrufer selbst.
+ */
+final class AuditDatei {
+
+    private static final Logger LOG = Logger.getLogger(AuditDatei.class.getName());
+    private static final DateTimeFormatter NAME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private final Path dir;
+    private final int groesse;
+
+    private int nr;
+    private FileChannel channel;
+    private MappedByteBuffer buf;
+
+    /**
+     * @param dir Verzeichnis für die Dateien
+     * @param groesse Größe einer Datei in Bytes
+     * @throws IOException wenn das Verzeichnis oder die erste Datei nicht angelegt werden kann
+     */
+    AuditDatei(Path dir, int groesse) throws IOException {
+        this.dir = dir;
+        this.groesse = groesse;
+        Files.createDirectories(dir);
+        neueDatei();
+    }
+
+    /**
+     * Hängt eine Zeile an (ohne sie schon auf die Platte zu bringen).
+     *
+     * @param zeile UTF-8-Bytes der Zeile inklusive Zeilenumbruch
+     * @throws IOException wenn nicht auf eine neue Datei gewechselt werden kann
+     */
+    synchronized void schreibe(byte[] zeile) throws IOException {
+        if (buf == null) neueDatei();
+        if (zeile.length > buf.remaining()) {
+            rollen();
+            if (zeile.length > buf.remaining()) throw new IOException("Auditeintrag größer als eine Datei.");
+        }
+        buf.put(zeile);
+    }
+
+    /**
+     * Bringt alles bisher Geschriebene auf die Platte.
+     */
+    synchronized void flush() {
+        if (buf != null) buf.force();
+    }
+
+    /**
+     * Schreibt den Rest weg und schließt die aktuelle Datei.
+     *
+     * @throws IOException wenn die Datei nicht geschlossen werden kann
+     */
+    synchronized void close() throws IOException {
+        if (buf != null) abschliessen();
+    }
+
+    /**
+     * Schließt die volle Datei und fängt eine neue an, auch wenn das Schließen scheitert.
+     */
+    private void rollen() throws IOException {
+        try {
+            abschliessen();
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Auditdatei konnte nicht abgeschlossen werden.", e);
+        }
+        neueDatei();
+    }
+
+    private void abschliessen() throws IOException {
+        MappedByteBuffer b = buf;
+        FileChannel c = channel;
+        buf = null;
+        channel = null;
+        try (c) {
+            b.force();
+        }
+    }
+
+    private void neueDatei() throws IOException {
+        Path datei = dir.resolve("audit-" + LocalDateTime.now().format(NAME) + "-" + (nr++) + ".log");
+        channel = FileChannel.open(datei, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, groesse);
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.audit;
+
+import org.example.model.PatientFeld;
+
+/**
+ * Ein Eintrag im Auditprotokoll: wer hat wann welchen Patienten wie geändert.
+ * Es werden nur die Namen der geänderten Felder protokolliert, keine Werte,
+ * damit im Protokoll keine Patientendaten stehen.
+ */
+public final class AuditEreignis {
+
+    private final long zeit;
+    private final AuditAktion aktion;
+    private final int patientId;
+    private final int felder;
+    private final String benutzer;
+    private final String arbeitsplatz;
+
+    AuditEreignis(long zeit, AuditAktion aktion, int patientId, int felder, String benutzer, String arbeitsplatz) {
+        this.zeit = zeit;
+        this.aktion = aktion;
+        this.patientId = patientId;
+        this.felder = felder;
+        this.benutzer = benutzer;
+        this.arbeitsplatz = arbeitsplatz;
+    }
+
+    /**
+     * Gibt den Zeitpunkt in Millisekunden seit 1970 zurück.
+     * @return Zeitpunkt
+     */
+    public long getZeit() {
+        return zeit;
+    }
+
+    /**
+     * Gibt die Art der Änderung zurück.
+     * @return Aktion
+     */
+    public AuditAktion getAktion() {
+        return aktion;
+    }
+
+    /**
+     * Gibt die ID des betroffenen Patienten zurück.
+     * @return Patienten-ID
+     */
+    public int getPatientId() {
+        return patientId;
+    }
+
+    /**
+     * Gibt den angemeldeten Benutzer zurück.
+     * @return Benutzername
+     */
+    public String getBenutzer() {
+        return benutzer;
+    }
+
+    /**
+     * Gibt den Rechnernamen des Arbeitsplatzes zurück.
+     * @return Arbeitsplatz
+     */
+    public String getArbeitsplatz() {
+        return arbeitsplatz;
+    }
+
+    /**
+     * Gibt die Bitmaske der geänderten Felder zurück.
+     * @return Bitmaske ({@link PatientFeld#bit()}), 0 für alle bzw. keine
+     */
+    int getFelder() {
+        return felder;
+    }
+
+    /**
+     * Gibt die geänderten Spalten als kommagetrennte Liste zurück.
+     * @return Spaltennamen (leer, wenn keine einzelnen Felder betroffen sind)
+     */
+    public String getFelderText() {
+        if (felder == 0) return "";
+        StringBuilder sb = new StringBuilder();
+        for (PatientFeld f : PatientFeld.values()) {
+            if ((felder & f.bit()) == 0) continue;
+            if (sb.length() > 0) sb.append(',');
+            sb.append(f.getSpalte());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,390 @@
+package org.example.audit;
+
+import org.example.DB;
+import org.example.Konfiguration;
+import org.example.crud.Repositories;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Auditprotokoll für Änderungen an Patienten (anlegen, ändern, löschen, entlassen).
+ * Der aufrufende Thread legt nur ein {@link AuditEreignis} in einen sperrfreien Ringpuffer und
+ * kehrt sofort zurück. Ein einzelner Hintergrund-Thread nimmt die Ereignisse gesammelt heraus,
+ * hängt sie an die lokale Auditdatei an (danach {@code force}, d.h. bis dahin absturzsicher) und
+ * schreibt sie per JDBC-Batch in die Tabelle {@code patient_audit}:
+ * <pre>
+ * CREATE TABLE patient_audit (
+ *     id BIGINT AUTO_INCREMENT PRIMARY KEY,
+ *     zeit DATETIME(3) NOT NULL,
+ *     aktion VARCHAR(16) NOT NULL,
+ *     patient_id INT NOT NULL,
+ *     benutzer VARCHAR(64),
+ *     arbeitsplatz VARCHAR(64),
+ *     felder VARCHAR(255)
+ * )
+ * </pre>
+ * Ist die Datenbank nicht erreichbar, bleiben die Einträge bis {@value #MAX_OFFEN} Stück im Speicher,
+ * darüber hinaus kommen sie in den {@link AuditRueckstand} auf der Platte (Unterverzeichnis
+ * {@code offen}); nachgetragen wird beides, sobald die Datenbank wieder antwortet, auch nach einem
+ * Neustart. Verloren geht dabei kein Eintrag.
+ * Ist der Puffer voll, wartet der Aufrufer höchstens {@value #MAX_WARTEN_MS} ms und schreibt den
+ * Eintrag dann selbst in Datei und Rückstand ({@link #getDirektGeschrieben()}); nur wenn auch das
+ * scheitert, wartet er, bis im Puffer wieder Platz ist.
+ * Mit dem In-Memory-Backend gibt es keine Tabelle, dann wird nur die Datei geschrieben.
+ * Wer geändert hat, kommt aus {@link #setAufrufer(String, String)} des aufrufenden Threads (im
+ * Server pro Anfrage gesetzt), sonst aus dem Benutzerkonto und Rechnernamen des Prozesses.
+ * Verzeichnis über {@code patienten.audit.dir} ({@link Konfiguration})
+ * (Standard {@code ~/.patientenaufnahme/audit}).
+ */
+public class AuditLog {
+
+    private static final Logger LOG = Logger.getLogger(AuditLog.class.getName());
+
+    private static final AuditLog INSTANCE = new AuditLog();
+
+    /**
+     * Gibt die gemeinsame Instanz zurück.
+     * @return AuditLog
+     */
+    public static AuditLog getInstance() {
+        return INSTANCE;
+    }
+
+    private static final int MAX_BATCH = 512;
+    private static final int DATEI_GROESSE = 8 * 1024 * 1024;
+    private static final int MAX_OFFEN = 10_000;
+    private static final long LEERLAUF_NS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final long DB_PAUSE_MS = 30_000;
+    private static final long MAX_WARTEN_MS = 50;
+
+    /**
+     * Benutzer und Arbeitsplatz des aktuellen Threads, null = der Prozess selbst.
+     */
+    private static final ThreadLocal<String[]> AUFRUFER = new ThreadLocal<>();
+
+    private static final String INSERT_SQL = """
+            INSERT INTO patient_audit (zeit, aktion, patient_id, benutzer, arbeitsplatz, felder)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    private final String benutzer = System.getProperty("user.name", "?");
+    private final String arbeitsplatz = rechnername();
+
+    private final AuditRingPuffer puffer = new AuditRingPuffer(Konfiguration.get().getInt("audit.puffer", 8192));
+
+    /**
+     * Noch nicht in die Datenbank geschriebene Einträge (nur vom Schreib-Thread benutzt).
+     */
+    private final List<AuditEreignis> offenFuerDb = new ArrayList<>();
+    private final boolean nurDatei = Repositories.istSpeicher();
+    private long naechsterDbVersuch;
+
+    private final AtomicLong direkt = new AtomicLong();
+    private long gemeldetDirekt;
+
+    private volatile AuditDatei datei;
+    private volatile AuditRueckstand rueckstand;
+
+    /**
+     * Ob im Rückstand vielleicht noch Dateien liegen (auch aus einem früheren Lauf).
+     */
+    private volatile boolean rueckstandOffen = true;
+    private boolean dbGestoert;
+
+    private volatile Thread schreiber;
+    private volatile boolean beenden;
+
+    private AuditLog() {
+    }
+
+    /**
+     * Startet den Schreib-Thread (falls noch nicht geschehen). Beim Beenden der JVM wird
+     * der Puffer noch geleert.
+     */
+    public synchronized void start() {
+        if (schreiber != null) return;
+        Path dir = Paths.get(Konfiguration.get().get("audit.dir",
+                System.getProperty("user.home") + "/.patientenaufnahme/audit"));
+        try {
+            datei = new AuditDatei(dir, DATEI_GROESSE);
+        } catch (IOException e) {
+            LOG.log(Level.SEVERE, "Auditdatei konnte nicht angelegt werden.", e);
+        }
+        if (!nurDatei) {
+            try {
+                rueckstand = new AuditRueckstand(dir.resolve("offen"));
+            } catch (IOException e) {
+                LOG.log(Level.SEVERE, "Verzeichnis für den Audit-Rückstand konnte nicht angelegt werden.", e);
+            }
+        }
+        Thread t = new Thread(this::laufen, "audit-log");
+        t.setDaemon(true);
+        schreiber = t;
+        t.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::stoppen, "audit-log-ende"));
+    }
+
+    /**
+     * Setzt, wer im aktuellen Thread Änderungen macht (z.B. im Server für die Dauer einer Anfrage).
+     *
+     * @param benutzer Benutzername, null = wieder der Prozess
+     * @param arbeitsplatz Arbeitsplatz bzw. Schalter
+     */
+    public static void setAufrufer(String benutzer, String arbeitsplatz) {
+        if (benutzer == null) AUFRUFER.remove();
+        else AUFRUFER.set(new String[]{benutzer, arbeitsplatz});
+    }
+
+    /**
+     * Protokolliert eine Änderung im Namen des Aufrufers des aktuellen Threads
+     * (siehe {@link #setAufrufer(String, String)}).
+     *
+     * @param aktion Art der Änderung
+     * @param patientId betroffener Patient
+     * @param felder Bitmaske der geänderten Felder ({@link org.example.model.PatientFeld#bit()}), 0 für alle bzw. keine
+     */
+    public void protokolliere(AuditAktion aktion, int patientId, int felder) {
+        String[] a = AUFRUFER.get();
+        if (a == null) protokolliere(aktion, patientId, felder, benutzer, arbeitsplatz);
+        else protokolliere(aktion, patientId, felder, a[0], a[1]);
+    }
+
+    /**
+     * Protokolliert eine Änderung. Kostet den Aufrufer nur das Anlegen des Ereignisses
+     * und einen CAS auf den Ringpuffer; bei vollem Puffer nach {@value #MAX_WARTEN_MS} ms das
+     * Schreiben in die Datei.
+     *
+     * @param aktion Art der Änderung
+     * @param patientId betroffener Patient
+     * @param felder Bitmaske der geänderten Felder, 0 für alle bzw. keine
+     * @param benutzer wer geändert hat
+     * @param arbeitsplatz von wo aus
+     */
+    public void protokolliere(AuditAktion aktion, int patientId, int felder, String benutzer, String arbeitsplatz) {
+        if (schreiber == null) start();
+        AuditEreignis e = new AuditEreignis(System.currentTimeMillis(), aktion, patientId, felder, benutzer, arbeitsplatz);
+        long bis = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_WARTEN_MS);
+        boolean direktVersucht = false;
+        while (!puffer.offer(e)) {
+            if (!direktVersucht && System.nanoTime() - bis > 0) {
+                direktVersucht = true;
+                if (direktSchreiben(e)) return;
+            }
+            LockSupport.unpark(schreiber);
+            LockSupport.parkNanos(LEERLAUF_NS);
+        }
+    }
+
+    /**
+     * Schreibt einen Eintrag am Puffer vorbei in die Datei und, für die Datenbank, in den Rückstand.
+     *
+     * @return false, wenn er nicht sicher auf der Platte steht
+     */
+    private boolean direktSchreiben(AuditEreignis e) {
+        AuditDatei d = datei;
+        AuditRueckstand r = rueckstand;
+        if (d == null || (!nurDatei && r == null)) return false;
+        try {
+            d.schreibe(zeile(e));
+            d.flush();
+            if (!nurDatei) {
+                r.anhaengen(List.of(e));
+                rueckstandOffen = true;
+            }
+        } catch (IOException ex) {
+            LOG.log(Level.WARNING, "Auditeintrag konnte nicht direkt geschrieben werden, warte auf den Puffer.", ex);
+            return false;
+        }
+        direkt.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Gibt zurück, wie viele Einträge wegen vollem Puffer vom Aufrufer selbst geschrieben wurden.
+     *
+     * @return Anzahl seit dem Start
+     */
+    public long getDirektGeschrieben() {
+        return direkt.get();
+    }
+
+    /**
+     * Schleife des Schreib-Threads. Ein unerwarteter Fehler wird gemeldet und der Thread
+     * läuft weiter; stirbt er, liefe der Puffer voll.
+     */
+    private void laufen() {
+        List<AuditEreignis> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            try {
+                batch.clear();
+                meldeDirekte();
+                if (puffer.drain(batch, MAX_BATCH) == 0) {
+                    if (beenden && puffer.isEmpty()) break;
+                    if (!nurDatei && (!offenFuerDb.isEmpty() || rueckstandOffen)) inDatenbank();
+                    LockSupport.parkNanos(LEERLAUF_NS);
+                    continue;
+                }
+                inDatei(batch);
+                if (nurDatei) continue;
+                offenFuerDb.addAll(batch);
+                // beim Beenden nicht mehr auf die Datenbank warten, der Rückstand kommt beim nächsten Start
+                if (offenFuerDb.size() >= MAX_BATCH && !beenden) inDatenbank();
+            } catch (Throwable t) {
+                LOG.log(Level.SEVERE, "Auditprotokoll: unerwarteter Fehler im Schreib-Thread.", t);
+                LockSupport.parkNanos(LEERLAUF_NS);
+            }
+        }
+        // was die Datenbank bis jetzt nicht bekommen hat, kommt beim nächsten Start
+        zurueckstellen();
+        if (datei != null) {
+            try {
+                datei.close();
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "Auditdatei konnte nicht geschlossen werden.", e);
+            }
+        }
+    }
+
+    private void meldeDirekte() {
+        long n = direkt.get();
+        if (n == gemeldetDirekt) return;
+        LOG.warning((n - gemeldetDirekt) + " Auditeinträge vom Aufrufer direkt geschrieben (Puffer voll).");
+        gemeldetDirekt = n;
+    }
+
+    /**
+     * Hängt die Einträge an die lokale Datei an und bringt sie auf die Platte.
+     */
+    private void inDatei(List<AuditEreignis> batch) {
+        if (datei == null) return;
+        try {
+            for (AuditEreignis e : batch) datei.schreibe(zeile(e));
+            datei.flush();
+        } catch (IOException e) {
+            LOG.log(Level.SEVERE, "Auditdatei konnte nicht geschrieben werden.", e);
+        }
+    }
+
+    /**
+     * Schreibt die offenen Einträge per Batch in die Tabelle, danach eine Datei aus dem Rückstand.
+     * Schlägt das fehl, wird es frühestens nach {@link #DB_PAUSE_MS} erneut versucht; sind dann
+     * mehr als {@value #MAX_OFFEN} Einträge offen, kommen sie in den Rückstand.
+     */
+    private void inDatenbank() {
+        long jetzt = System.currentTimeMillis();
+        if (jetzt < naechsterDbVersuch) return;
+
+        try (Connection con = DB.getConnection()) {
+            if (!offenFuerDb.isEmpty()) {
+                einfuegen(con, offenFuerDb);
+                offenFuerDb.clear();
+            }
+            AuditRueckstand r = rueckstand;
+            if (r != null && rueckstandOffen) {
+                Path p = r.aelteste();
+                if (p == null) {
+                    rueckstandOffen = false;
+                } else {
+                    einfuegen(con, AuditRueckstand.lesen(p));
+                    r.erledigt(p);
+                }
+            }
+            if (dbGestoert) LOG.info("Auditprotokoll: Datenbank wieder erreichbar, Rückstand wird nachgetragen.");
+            dbGestoert = false;
+
+        } catch (SQLException | IOException e) {
+            naechsterDbVersuch = jetzt + DB_PAUSE_MS;
+            if (!dbGestoert) LOG.log(Level.WARNING, "Auditprotokoll: Einträge konnten nicht in die Datenbank geschrieben werden.", e);
+            dbGestoert = true;
+            if (offenFuerDb.size() > MAX_OFFEN) zurueckstellen();
+        }
+    }
+
+    /**
+     * Schreibt Einträge in einer Transaktion in die Tabelle.
+     */
+    private static void einfuegen(Connection con, List<AuditEreignis> ereignisse) throws SQLException {
+        con.setAutoCommit(false);
+        try (PreparedStatement ps = DB.prepare(con, INSERT_SQL)) {
+            for (AuditEreignis e : ereignisse) {
+                ps.setTimestamp(1, new Timestamp(e.getZeit()));
+                ps.setString(2, e.getAktion().name());
+                ps.setInt(3, e.getPatientId());
+                ps.setString(4, e.getBenutzer());
+                ps.setString(5, e.getArbeitsplatz());
+                ps.setString(6, e.getFelderText());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            con.commit();
+        } catch (SQLException e) {
+            con.rollback();
+            throw e;
+        } finally {
+            con.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Legt die offenen Einträge in den Rückstand auf der Platte. Geht das nicht, bleiben sie im Speicher.
+     */
+    private void zurueckstellen() {
+        AuditRueckstand r = rueckstand;
+        if (offenFuerDb.isEmpty() || r == null) return;
+        try {
+            r.anhaengen(offenFuerDb);
+            offenFuerDb.clear();
+            rueckstandOffen = true;
+        } catch (IOException e) {
+            LOG.log(Level.SEVERE, "Audit-Rückstand konnte nicht geschrieben werden, " + offenFuerDb.size()
+                    + " Einträge bleiben im Speicher.", e);
+        }
+    }
+
+    /**
+     * Lässt den Schreib-Thread den Puffer leeren und wartet kurz darauf.
+     */
+    private void stoppen() {
+        Thread t = schreiber;
+        beenden = true;
+        LockSupport.unpark(t);
+        try {
+            t.join(3000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Eine Zeile der Auditdatei: Zeit, Aktion, Patient, Benutzer, Arbeitsplatz, Felder (Tab-getrennt).
+     */
+    private static byte[] zeile(AuditEreignis e) {
+        String s = Instant.ofEpochMilli(e.getZeit()) + "\t" + e.getAktion() + "\t" + e.getPatientId()
+                + "\t" + e.getBenutzer() + "\t" + e.getArbeitsplatz() + "\t" + e.getFelderText() + "\n";
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String rechnername() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            return "?";
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.audit;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Sperrfreier Ringpuffer mit fester Größe für viele Schreiber und genau einen Leser.
+ * Ein Schreiber reserviert einen Platz per CAS auf {@code tail} und legt das Ereignis dann
+ * in den Platz. Der Leser nimmt Plätze der Reihe nach heraus, bis er auf einen noch leeren
+ * (reserviert, aber noch nicht befüllten) Platz trifft.
+ */
+final class AuditRingPuffer {
+
+    private final AtomicReferenceArray<AuditEreignis> plaetze;
+    private final int maske;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * @param groesse Anzahl Plätze, wird auf die nächste Zweierpotenz aufgerundet
+     */
+    AuditRingPuffer(int groesse) {
+        int n = Integer.highestOneBit(Math.max(2, groesse - 1)) << 1;
+        plaetze = new AtomicReferenceArray<>(n);
+        maske = n - 1;
+    }
+
+    /**
+     * Legt ein Ereignis in den Puffer.
+     *
+     * @param e Ereignis
+     * @return false, wenn der Puffer voll ist
+     */
+    boolean offer(AuditEreignis e) {
+        long t;
+        do {
+            t = tail.get();
+            if (t - head.get() > maske) return false;
+        } while (!tail.compareAndSet(t, t + 1));
+        plaetze.lazySet((int) t & maske, e);
+        return true;
+    }
+
+    /**
+     * Nimmt bis zu {@code max} Ereignisse heraus (nur vom Leser-Thread aufrufen).
+     *
+     * @param ziel Liste, an die angehängt wird
+     * @param max maximale Anzahl
+     * @return Anzahl herausgenommener Ereignisse
+     */
+    int drain(List<AuditEreignis> ziel, int max) {
+        long h = head.get();
+        int n = 0;
+        while (n < max) {
+            int i = (int) h & maske;
+            AuditEreignis e = plaetze.get(i);
+            if (e == null) break;
+            plaetze.lazySet(i, null);
+            ziel.add(e);
+            h++;
+            n++;
+        }
+        if (n > 0) head.lazySet(h);
+        return n;
+    }
+
+    /**
+     * Gibt zurück, ob gerade nichts im Puffer liegt.
+     * @return true, wenn leer
+     */
+    boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.audit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Auditeinträge, die noch nicht in der Datenbank stehen, auf der Platte statt im Speicher.
+ * Jede Portion wird als eigene Datei ({@code offen-<Zeitstempel>-<Nr>.log}) geschrieben und mit
+ * {@code force} gesichert; übertragen wird dateiweise, die älteste zuerst, gelöscht erst nach dem
+ * Commit. Dateien aus einem früheren Lauf werden beim nächsten Mal mit übertragen.
+ * Eine Zeile: Zeit (ms), Aktion, Patient, Feld-Bitmaske, Benutzer, Arbeitsplatz (Tab-getrennt).
+ * Alle Methoden sind synchronisiert (Schreib-Thread und Aufrufer bei vollem Puffer).
+ */
+final class AuditRueckstand {
+
+    private static final DateTimeFormatter NAME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private final Path dir;
+    private int nr;
+
+    /**
+     * @param dir Verzeichnis für die Dateien
+     * @throws IOException wenn das Verzeichnis nicht angelegt werden kann
+     */
+    AuditRueckstand(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+    }
+
+    /**
+     * Schreibt Einträge als neue Datei und bringt sie auf die Platte.
+     *
+     * @param ereignisse Einträge
+     * @throws IOException wenn nicht geschrieben werden kann
+     */
+    synchronized void anhaengen(List<AuditEreignis> ereignisse) throws IOException {
+        if (ereignisse.isEmpty()) return;
+        StringBuilder sb = new StringBuilder(ereignisse.size() * 64);
+        for (AuditEreignis e : ereignisse) {
+            sb.append(e.getZeit()).append('\t').append(e.getAktion().name()).append('\t').append(e.getPatientId())
+                    .append('\t').append(e.getFelder()).append('\t').append(feld(e.getBenutzer()))
+                    .append('\t').append(feld(e.getArbeitsplatz())).append('\n');
+        }
+        Path datei = dir.resolve("offen-" + LocalDateTime.now().format(NAME) + "-" + (nr++) + ".log");
+        Path tmp = datei.resolveSibling(datei.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+            while (b.hasRemaining()) ch.write(b);
+            ch.force(true);
+        }
+        Files.move(tmp, datei);
+    }
+
+    /**
+     * Gibt die älteste Datei zurück.
+     *
+     * @return Datei oder null, wenn nichts offen ist
+     * @throws IOException wenn das Verzeichnis nicht gelesen werden kann
+     */
+    synchronized Path aelteste() throws IOException {
+        Path out = null;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "offen-*.log")) {
+            for (Path p : ds) {
+                if (out == null || p.getFileName().toString().compareTo(out.getFileName().toString()) < 0) out = p;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Liest die Einträge einer Datei.
+     *
+     * @param datei Datei aus {@link #aelteste()}
+     * @return Einträge; unlesbare Zeilen (z.B. abgeschnitten) werden übersprungen
+     * @throws IOException wenn die Datei nicht gelesen werden kann
+     */
+    static List<AuditEreignis> lesen(Path datei) throws IOException {
+        List<AuditEreignis> out = new ArrayList<>();
+        for (String z : Files.readAllLines(datei, StandardCharsets.UTF_8)) {
+            String[] t = z.split("\t", -1);
+            if (t.length != 6) continue;
+            try {
+                out.add(new AuditEreignis(Long.parseLong(t[0]), AuditAktion.valueOf(t[1]), Integer.parseInt(t[2]),
+                        Integer.parseInt(t[3]), t[4], t[5]));
+            } catch (IllegalArgumentException e) {
+                // Zeile überspringen
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Entfernt eine übertragene Datei.
+     *
+     * @param datei Datei aus {@link #aelteste()}
+     * @throws IOException wenn nicht gelöscht werden kann
+     */
+    synchronized void erledigt(Path datei) throws IOException {
+        Files.deleteIfExists(datei);
+    }
+
+    private static String feld(String s) {
+        return s == null ? "" : s.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+}
@@ -0,0 +1,182 @@
+package org.example.crud;
+
+import org.example.DB;
+import org.example.model.Patient;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * CRUD-Klasse für das Patientenarchiv.
+ * Entlassene Patienten werden in Portionen aus der Tabelle {@code patient} in die Tabelle
+ * {@code patient_archive} verschoben, gelöschte werden nach Ablauf der Frist endgültig entfernt.
+ * So bleibt die Tabelle {@code patient} klein und die normalen Suchen schnell.
+ * Die Archivtabelle hat dieselben Spalten wie {@code patient} plus {@code archived_at DATETIME}
+ * und kann z.B. nach Jahr von {@code discharged_at} partitioniert werden.
+ */
+public class PatientArchivCrud {
+
+    private static final String SPALTEN =
+            "id, first_name, last_name, birth_date, svnr, phone, address, reason, station_id, version, discharged_at";
+
+    /**
+     * Eine Portion vor der Grenze entlassener Patienten, gesperrt: Grenze, Anzahl
+     * ({@link #archiveDischarged(LocalDateTime, int)}).
+     */
+    public static final String ARCHIVE_SELECT_SQL = """
+            SELECT id FROM patient
+            WHERE discharged_at < ? AND deleted_at IS NULL
+            ORDER BY id
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+            """;
+
+    /**
+     * Endgültiges Entfernen vor der Grenze gelöschter Patienten: Grenze, Anzahl
+     * ({@link #purgeDeleted(LocalDateTime, int)}).
+     */
+    public static final String PURGE_SQL = "DELETE FROM patient WHERE deleted_at < ? ORDER BY id LIMIT ?";
+
+    /**
+     * Archiv und entlassene, noch nicht archivierte Patienten; zweimal sechs Platzhalter für das
+     * LIKE-Muster ({@link #search(String)}).
+     */
+    public static final String SEARCH_SQL = """
+            SELECT id, first_name, last_name, birth_date, svnr, phone, address, reason, station_id, version
+            FROM patient_archive
+            WHERE LOWER(first_name) LIKE ?
+               OR LOWER(last_name) LIKE ?
+               OR svnr LIKE ?
+               OR phone LIKE ?
+               OR LOWER(address) LIKE ?
+               OR LOWER(reason) LIKE ?
+            UNION ALL
+            SELECT id, first_name, last_name, birth_date, svnr, phone, address, reason, station_id, version
+            FROM patient
+            WHERE discharged_at IS NOT NULL AND deleted_at IS NULL
+              AND (LOWER(first_name) LIKE ?
+               OR LOWER(last_name) LIKE ?
+               OR svnr LIKE ?
+               OR phone LIKE ?
+               OR LOWER(address) LIKE ?
+               OR LOWER(reason) LIKE ?)
+            ORDER BY last_name, first_name
+            """;
+
+    /**
+     * Verschiebt eine Portion von Patienten, die vor der Grenze entlassen wurden, ins Archiv.
+     * Auswahl, Kopieren und Löschen laufen in einer Transaktion. Zeilen, die gerade von einem
+     * anderen Platz gesperrt sind, werden übersprungen, damit mehrere Archivierer sich nicht blockieren.
+     *
+     * @param grenze nur Patienten, die vor diesem Zeitpunkt entlassen wurden
+     * @param batch maximale Anzahl Zeilen in dieser Portion
+     * @return Anzahl verschobener Patienten
+     * @throws RuntimeException wenn die Archivierung nicht durchgeführt werden kann
+     */
+    public int archiveDischarged(LocalDateTime grenze, int batch) {
+        try (Connection con = DB.getConnection()) {
+            con.setAutoCommit(false);
+            try {
+                List<Integer> ids = new ArrayList<>();
+                try (PreparedStatement ps = DB.prepare(con, ARCHIVE_SELECT_SQL)) {
+                    ps.setTimestamp(1, Timestamp.valueOf(grenze));
+                    ps.setInt(2, batch);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) ids.add(rs.getInt(1));
+                    }
+                }
+
+                if (ids.isEmpty()) {
+                    con.commit();
+                    return 0;
+                }
+
+                String in = placeholders(ids.size());
+                String copy = "INSERT INTO patient_archive (" + SPALTEN + ", archived_at) SELECT "
+                        + SPALTEN + ", NOW() FROM patient WHERE id IN (" + in + ")";
+                try (PreparedStatement ps = DB.prepare(con, copy)) {
+                    bindIds(ps, ids);
+                    ps.executeUpdate();
+                }
+                try (PreparedStatement ps = DB.prepare(con, "DELETE FROM patient WHERE id IN (" + in + ")")) {
+                    bindIds(ps, ids);
+                    ps.executeUpdate();
+                }
+
+                con.commit();
+                return ids.size();
+
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Patienten konnten nicht archiviert werden.", e);
+        }
+    }
+
+    /**
+     * Entfernt eine Portion von Patienten endgültig, die vor der Grenze gelöscht wurden.
+     *
+     * @param grenze nur Patienten, die vor diesem Zeitpunkt gelöscht wurden
+     * @param batch maximale Anzahl Zeilen in dieser Portion
+     * @return Anzahl entfernter Patienten
+     * @throws RuntimeException wenn die Bereinigung nicht durchgeführt werden kann
+     */
+    public int purgeDeleted(LocalDateTime grenze, int batch) {
+        try (Connection con = DB.getConnection();
+             PreparedStatement ps = DB.prepare(con, PURGE_SQL)) {
+
+            ps.setTimestamp(1, Timestamp.valueOf(grenze));
+            ps.setInt(2, batch);
+            return ps.executeUpdate();
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Gelöschte Patienten konnten nicht bereinigt werden.", e);
+        }
+    }
+
+    /**
+     * Sucht entlassene Patienten (nur auf ausdrücklichen Wunsch, nicht bei der normalen Suche):
+     * im Archiv und unter den entlassenen, noch nicht archivierten Patienten in {@code patient}
+     * (die bleiben dort bis zur Archivierungsfrist stehen, die normale Suche sieht sie nicht).
+     * Es wird wie bei {@link PatientCrud#search(String)} in mehreren Feldern gesucht.
+     *
+     * @param q Suchbegriff
+     * @return Trefferliste der entlassenen Patienten
+     * @throws RuntimeException wenn die Suche nicht durchgeführt werden kann
+     */
+    public List<Patient> search(String q) {
+        String query = (q == null) ? "" : q.toLowerCase();
+        String like = "%" + query + "%";
+        try (Connection con = DB.getConnection();
+             PreparedStatement ps = DB.prepare(con, SEARCH_SQL)) {
+
+            for (int i = 1; i <= 12; i++) ps.setString(i, like);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return PatientMapper.mapAll(rs);
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Archivsuche konnte nicht durchgeführt werden.", e);
+        }
+    }
+
+    /**
+     * Baut eine Platzhalterliste "?, ?, ?" für eine IN-Klausel.
+     */
+    private static String placeholders(int n) {
+        return String.join(", ", Collections.nCopies(n, "?"));
+    }
+
+    /**
+     * Setzt die IDs der Reihe nach als Parameter.
+     */
+    private static void bindIds(PreparedStatement ps, List<Integer> ids) throws SQLException {
+        for (int i = 0; i < ids.size(); i++) ps.setInt(i + 1, ids.get(i));
+    }
+}
@@ -1,66 +1,274 @@
 package org.example.crud;
 
 import org.example.DB;
+import org.example.audit.AuditAktion;
+import org.example.audit.AuditLog;
 import org.example.model.Patient;
+import org.example.model.PatientFeld;
+import org.example.suche.KoelnerPhonetik;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * CRUD-Klasse für Patienten
  * Laden, Suchen, Einfügen, Aktualisieren und Löschen. Die Daten werden dabei zwischen
+ * Tabelle und Objekten über den {@link PatientMapper} übertragen.
+ * Für das optimistische Sperren braucht die Tabelle {@code patient} die Spalte
+ * {@code version INT NOT NULL DEFAULT 0}.
+ * Gelöscht und entlassen wird nur "weich" über die Spalten {@code deleted_at} und
+ * {@code discharged_at} (beide {@code DATETIME NULL}); Lesezugriffe sehen nur aktive Patienten.
+ * Alte Zeilen räumt der {@link PatientArchivCrud} weg.
+ * Für den Abgleich der Liste seit einem Zeitpunkt ({@link #findListChangedSince(Timestamp)}) braucht
+ * die Tabelle außerdem
+ * {@code updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3)}.
+ * Zu den Namen werden die Kölner-Phonetik-Codes in {@code first_name_phon} und {@code last_name_phon}
+ * (je {@code VARCHAR(64)}, mit Index) mitgeschrieben; darüber sucht {@link #searchPhonetic(String)}.
+ * Dies ist das MySQL-Backend von {@link PatientRepository}.
+ * Jede erfolgreiche Änderung wird asynchron im {@link AuditLog} protokolliert.
+ * Suchen und Laden laufen über {@link DB#getReadConnection()} (Lese-Replikate, wenn eingestellt);
+ * nach jeder Änderung wird {@link DB#geschrieben()} gemeldet.
  */
-public class PatientCrud {
+public class PatientCrud implements PatientRepository {
 
     /**
-     * Spaltenwerte aus dem ResultSet gelesen und in ein neues Patient-Objekt übernommen.
-     *
-     * @param rs ResultSet, das bereits auf einer gültigen Zeile steht
-     * @return gemapptes Patient-Objekt
-     * @throws SQLException wenn beim Zugriff auf das ResultSet ein Fehler auftritt
+     * Zwischenspeicher für die UPDATE-Varianten, Schlüssel ist die Bitmaske der geänderten Felder.
+     * Damit wird pro Feldkombination nur einmal ein SQL-Text gebaut, und der Treiber bekommt
+     * immer denselben Text für dieselbe Kombination (gut für Statement-Caching).
      */
-    private Patient mapRow(ResultSet rs) throws SQLException {
+    private static final Map<Integer, String> UPDATE_SQL = new ConcurrentHashMap<>();
 
-        Patient p = new Patient();
-        p.setId(rs.getInt("id"));
-        p.setFirstName(rs.getString("first_name"));
-        p.setLastName(rs.getString("last_name"));
 
-        Date bd = rs.getDate("birth_date");
-        p.setBirthDate(bd == null ? null : bd.toLocalDate());
+    /**
+     * Alle aktiven Patienten mit allen Feldern ({@link #findAll()}, {@link #searchStream(String, int)}).
+     */
+    public static final String FIND_ALL_SQL = """
+            SELECT id, first_name, last_name, birth_date, svnr, phone, address, reason, station_id, version
+            FROM patient
+            WHERE deleted_at IS NULL AND discharged_at IS NULL
+            ORDER BY last_name, first_name
+            """;
 
-        p.setSvnr(rs.getString("svnr"));
-        p.setPhone(rs.getString("phone"));
-        p.setAddress(rs.getString("address"));
-        p.setReason(rs.getString("reason"));
+    /**
+     * Textsuche über sechs Felder mit allen Feldern; sechs Platzhalter für das LIKE-Muster
+     * ({@link #search(String)}, {@link #searchStream(String, int)}).
+     */
+    public static final String SEARCH_SQL = """
+            SELECT id, first_name, last_name, birth_date, svnr, phone, address, reason, station_id, version
+            FROM patient
+            WHERE deleted_at IS NULL AND discharged_at IS NULL
+              AND (LOWER(first_name) LIKE ?
+               OR LOWER(last_name) LIKE ?
+               OR svnr LIKE ?
+               OR phone LIKE ?
+               OR LOWER(address) LIKE ?
+               OR LOWER(reason) LIKE ?)
+            ORDER BY last_name, first_name
+            """;
 
-        int st = rs.getInt("station_id");
-        p.setStationId(rs.wasNull() ? null : st);
+    /**
+     * Alle aktiven Patienten mit den Listenfeldern ({@link #searchList(String)} ohne Suchbegriff).
+     */
+    public static final String LIST_SQL = """
+            SELECT id, first_name, last_name, birth_date, svnr, station_id, version
+            FROM patient
+            WHERE deleted_at IS NULL AND discharged_at IS NULL
+            ORDER BY last_name, first_name
+            """;
 
-        return p;
-    }
+    /**
+     * Textsuche mit den Listenfeldern; sechs Platzhalter für das LIKE-Muster ({@link #searchList(String)}).
+     */
+    public static final String SEARCH_LIST_SQL = """
+            SELECT id, first_name, last_name, birth_date, svnr, station_id, version
+            FROM patient
+            WHERE deleted_at IS NULL AND discharged_at IS NULL
+              AND (LOWER(first_name) LIKE ?
+               OR LOWER(last_name) LIKE ?
+               OR svnr LIKE ?
+               OR phone LIKE ?
+               OR LOWER(address) LIKE ?
+               OR LOWER(reason) LIKE ?)
+            ORDER BY last_name, first_name
+            """;
+
+    /**
+     * Die ersten aktiven Patienten nach Namen; Platzhalter für das Limit ({@link #searchTopK(String, int)}).
+     */
+    public static final String TOP_K_SQL = """
+            SELECT id, first_name, last_name, birth_date, svnr, station_id, version
+            FROM patient
+            WHERE deleted_at IS NULL AND discharged_at IS NULL
+            ORDER BY last_name, first_name
+            LIMIT ?
+            """;
+
+    /**
+     * Beste Treffer einer Textsuche: sechs LIKE-Muster, dann SVNR, Nachname- und Vornamen-Präfix
+     * für die Rangfolge, zuletzt das Limit ({@link #searchTopK(String, int)}).
+     */
+    public static final String SEARCH_TOP_K_SQL = """
+            SELECT id, first_name, last_name, birth_date, svnr, station_id, version
+            FROM patient
+            WHERE deleted_at IS NULL AND discharged_at IS NULL
+              AND (LOWER(first_name) LIKE ?
+               OR LOWER(last_name) LIKE ?
+               OR svnr LIKE ?
+               OR phone LIKE ?
+               OR LOWER(address) LIKE ?
+               OR LOWER(reason) LIKE ?)
+            ORDER BY CASE
+                       WHEN svnr = ? THEN 0
+                       WHEN LOWER(last_name) LIKE ? THEN 1
+                       WHEN LOWER(first_name) LIKE ? THEN 2
+                       ELSE 3
+                     END,
+                     last_name, first_name
+            LIMIT ?
+            """;
+
+    /**
+     * IDs, aus denen {@link #schaetzen(Connection, String)} den Trefferanteil hochrechnet,
+     * verteilt auf {@value #STUECKE} gleich breite ID-Bereiche über den ganzen Bestand.
+     */
+    private static final int STICHPROBE = 5000;
+    private static final int STUECKE = 10;
+
+    /**
+     * Kleinste und größte ID ({@link #schaetzen(Connection, String)}).
+     */
+    public static final String ID_SPANNE_SQL = "SELECT MIN(id), MAX(id) FROM patient";
+
+    /**
+     * Zeilen und Treffer in der Stichprobe: Suchbegriff, sechs LIKE-Muster, dann Anfang und Ende
+     * jedes der {@value #STUECKE} ID-Bereiche ({@link #schaetzen(Connection, String)}).
+     */
+    public static final String SCHAETZEN_SQL = """
+            SELECT COUNT(*) AS zeilen,
+                   COALESCE(SUM(deleted_at IS NULL AND discharged_at IS NULL
+                       AND (? = ''
+                        OR LOWER(first_name) LIKE ?
+                        OR LOWER(last_name) LIKE ?
+                        OR svnr LIKE ?
+                        OR phone LIKE ?
+                        OR LOWER(address) LIKE ?
+                        OR LOWER(reason) LIKE ?)), 0) AS treffer
+            FROM patient
+            WHERE %s
+            """.formatted(String.join(" OR ", Collections.nCopies(STUECKE, "id BETWEEN ? AND ?")));
+
+    /**
+     * Geschätzte Zeilenzahl der Tabelle laut InnoDB ({@link #schaetzen(Connection, String)}).
+     */
+    public static final String TABELLENGROESSE_SQL = """
+            SELECT TABLE_ROWS
+            FROM information_schema.TABLES
+            WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'patient'
+            """;
+
+    /**
+     * Aktive Patienten mit genau dieser SVNR ({@link #findBySvnr(String)}).
+     */
+    public static final String FIND_BY_SVNR_SQL = """
+            SELECT id, first_name, last_name, birth_date, svnr, phone, address, reason, station_id, version
+            FROM patient
+            WHERE svnr = ? AND deleted_at IS NULL AND discharged_at IS NULL
+            """;
+
+    /**
+     * Listenfelder aller aktiven Patienten für den ersten Abgleich ({@link #findListChangedSince(Timestamp)}).
+     */
+    public static final String LIST_ALL_SQL = """
+            SELECT id, first_name, last_name, birth_date, svnr, station_id, version, FALSE AS inaktiv
+            FROM patient
+            WHERE deleted_at IS NULL AND discharged_at IS NULL
+            ORDER BY last_name, first_name
+            """;
+
+    /**
+     * Listenfelder aller seit einem Zeitpunkt geänderten Patienten, auch inaktiver
+     * ({@link #findListChangedSince(Timestamp)}).
+     */
+    public static final String CHANGED_SINCE_SQL = """
+            SELECT id, first_name, last_name, birth_date, svnr, station_id, version,
+                   (deleted_at IS NOT NULL OR discharged_at IS NOT NULL) AS inaktiv
+            FROM patient
+            WHERE updated_at >= ?
+            """;
+
+    /**
+     * Anzahl aktiver Patienten ({@link #findListChangedSince(Timestamp)}).
+     */
+    public static final String COUNT_ACTIVE_SQL =
+            "SELECT COUNT(*) FROM patient WHERE deleted_at IS NULL AND discharged_at IS NULL";
+
+    /**
+     * ID, Station und Grund aller aktiven Patienten ({@link #findAssignments()}).
+     */
+    public static final String ASSIGNMENTS_SQL =
+            "SELECT id, station_id, reason FROM patient WHERE deleted_at IS NULL AND discharged_at IS NULL";
+
+    /**
+     * Eine Seite aktiver Patienten nach ID: größte ID der vorigen Seite, Anzahl ({@link #findPage(int, int)}).
+     */
+    public static final String FIND_PAGE_SQL = """
+            SELECT id, first_name, last_name, birth_date, svnr, phone, address, reason, station_id, version
+            FROM patient
+            WHERE id > ? AND deleted_at IS NULL AND discharged_at IS NULL
+            ORDER BY id
+            LIMIT ?
+            """;
+
+    /**
+     * Ein nicht gelöschter Patient ({@link #findById(int)}).
+     */
+    public static final String FIND_BY_ID_SQL = """
+            SELECT id, first_name, last_name, birth_date, svnr, phone, address, reason, station_id, version
+            FROM patient
+            WHERE id=? AND deleted_at IS NULL
+            """;
+
+    /**
+     * Ein offline angelegter Patient über seinen Schlüssel ({@link #insertEinmalig(Patient, UUID)}),
+     * auch wenn er inzwischen gelöscht oder entlassen wurde.
+     */
+    public static final String FIND_BY_SCHLUESSEL_SQL = "SELECT id, version FROM patient WHERE offline_schluessel=?";
+
+    /**
+     * Weiches Löschen ({@link #deleteById(int)}).
+     */
+    public static final String DELETE_SQL =
+            "UPDATE patient SET deleted_at=NOW(), version=version+1 WHERE id=? AND deleted_at IS NULL";
+
+    /**
+     * Entlassen ({@link #dischargeById(int)}).
+     */
+    public static final String DISCHARGE_SQL = """
+            UPDATE patient SET discharged_at=NOW(), version=version+1
+            WHERE id=? AND deleted_at IS NULL AND discharged_at IS NULL
+            """;
+
+    private final AuditLog audit = AuditLog.getInstance();
 
     /**
-     * Lädt alle Patienten aus der DB
+     * Lädt alle aktiven (nicht gelöschten, nicht entlassenen) Patienten aus der DB
      * Die Liste wird nach Nachname und Vorname sortiert zurückgegeben
      * @return Liste aller Patienten
      * @throws RuntimeException wenn die Patienten nicht geladen werden können
      */
     public List<Patient> findAll() {
-        String sql = """
-                SELECT id, first_name, last_name, birth_date, svnr, phone, address, reason, station_id
-                FROM patient
-                ORDER BY last_name, first_name
-                """;
-        List<Patient> out = new ArrayList<>();
-
-        try (Connection con = DB.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql);
+        try (Connection con = DB.getReadConnection();
+             PreparedStatement ps = DB.prepare(con, FIND_ALL_SQL);
              ResultSet rs = ps.executeQuery()) {
 
-            while (rs.next()) out.add(mapRow(rs));
-            return out;
+            return PatientMapper.mapAll(rs);
 
         } catch (SQLException e) {
             throw new RuntimeException("Patienten konnten nicht geladen werden.", e);
@@ -68,7 +276,7 @@ public class PatientCrud {
     }
 
     /**
-     * Sucht Patienten mit eines Suchbegriffs
+     * Sucht aktive Patienten mit eines Suchbegriffs
      * Es wird in mehreren Feldern gesucht (Vorname, Nachname, SVNR, Telefon, Adresse, Grund)
      * er Suchbegriff wird case-insensitive verarbeitet
      * wenn der Suchbegriff leer ist, wird verwendet.
@@ -82,21 +290,8 @@ public class PatientCrud {
         if (query.isEmpty()) return findAll();
 
         String like = "%" + query + "%";
-        String sql = """
-                SELECT id, first_name, last_name, birth_date, svnr, phone, address, reason, station_id
-                FROM patient
-                WHERE LOWER(first_name) LIKE ?
-                   OR LOWER(last_name) LIKE ?
-                   OR svnr LIKE ?
-                   OR phone LIKE ?
-                   OR LOWER(address) LIKE ?
-                   OR LOWER(reason) LIKE ?
-                ORDER BY last_name, first_name
-                """;
-
-        List<Patient> out = new ArrayList<>();
-        try (Connection con = DB.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql)) {
+        try (Connection con = DB.getReadConnection();
+             PreparedStatement ps = DB.prepare(con, SEARCH_SQL)) {
 
             ps.setString(1, like);
             ps.setString(2, like);
@@ -106,15 +301,397 @@ public class PatientCrud {
             ps.setString(6, like);
 
             try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) out.add(mapRow(rs));
+                return PatientMapper.mapAll(rs);
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Suche konnte nicht durchgeführt werden.", e);
+        }
+    }
+
+    /**
+     * Sucht aktive Patienten für die Tabellenansicht.
+     * Gesucht wird wie bei {@link #search(String)}, geladen werden aber nur die Spalten,
+     * die in der Liste angezeigt werden (ID, Namen, Geburtsdatum, SVNR, Station, Version).
+     * Die restlichen Felder lädt man bei Bedarf über {@link #findById(int)}.
+     *
+     * @param q Suchbegriff (leer = alle)
+     * @return Trefferliste mit Listenfeldern
+     * @throws RuntimeException wenn die Suche nicht durchgeführt werden kann
+     */
+    public List<Patient> searchList(String q) {
+        String query = (q == null) ? "" : q.toLowerCase();
+        String sql = query.isEmpty() ? LIST_SQL : SEARCH_LIST_SQL;
+
+        try (Connection con = DB.getReadConnection();
+             PreparedStatement ps = DB.prepare(con, sql)) {
+
+            if (!query.isEmpty()) {
+                String like = "%" + query + "%";
+                for (int i = 1; i <= 6; i++) ps.setString(i, like);
+            }
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return PatientMapper.mapAll(rs);
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Suche konnte nicht durchgeführt werden.", e);
+        }
+    }
+
+    /**
+     * Sucht wie {@link #search(String)}, liest die Treffer aber über einen Cursor auf dem Server
+     * ({@code useCursorFetch}; eingeschaltet nur für dieses Statement über die Abrufgröße = {@code block})
+     * und liefert sie blockweise aus.
+     * Jedes Abonnement belegt eine Leseverbindung, bis der Strom zu Ende gelesen oder abgebrochen ist.
+     * Sortieren muss MySQL trotzdem vorab; gespart wird das Übertragen und Halten aller Zeilen
+     * beim Client.
+     *
+     * @param q Suchbegriff (leer = alle)
+     * @param block Patienten pro Block
+     * @return Strom der Treffer; Fehler kommen als {@code onError}
+     */
+    public PatientStrom searchStream(String q, int block) {
+        String query = (q == null) ? "" : q.toLowerCase();
+        String sql = query.isEmpty() ? FIND_ALL_SQL : SEARCH_SQL;
+
+        // der Strom liest in einem eigenen Thread; Lesen nach eigenem Schreiben soll trotzdem gelten
+        String sitzung = DB.getSitzung();
+        return new PatientStrom(() -> {
+            Connection con;
+            try {
+                DB.setSitzung(sitzung);
+                con = DB.getReadConnection();
+            } catch (SQLException e) {
+                throw new RuntimeException("Suche konnte nicht durchgeführt werden.", e);
+            }
+            PreparedStatement ps = null;
+            try {
+                ps = DB.prepare(con, sql);
+                ps.setFetchSize(block);
+                if (!query.isEmpty()) {
+                    String like = "%" + query + "%";
+                    for (int i = 1; i <= 6; i++) ps.setString(i, like);
+                }
+                PreparedStatement st = ps;
+                ResultSet rs = st.executeQuery();
+                PatientMapper.Spalten spalten = PatientMapper.spalten(rs);
+
+                return new PatientStrom.Quelle() {
+                    @Override
+                    public List<Patient> naechste(int max) throws SQLException {
+                        List<Patient> out = new ArrayList<>(max);
+                        while (out.size() < max && rs.next()) out.add(PatientMapper.map(rs, spalten));
+                        return out;
+                    }
+
+                    @Override
+                    public void close() throws SQLException {
+                        // einzeln schließen: eine Pool-Verbindung schließt beim Zurückgeben weder Cursor noch Statement
+                        try (con; st; rs) {
+                            // nur schließen
+                        }
+                    }
+                };
+            } catch (SQLException | RuntimeException e) {
+                try (con) {
+                    if (ps != null) ps.close();
+                } catch (SQLException ignored) {
+                    // der eigentliche Fehler ist wichtiger
+                }
+                throw new RuntimeException("Suche konnte nicht durchgeführt werden.", e);
+            }
+        }, block);
+    }
+
+    /**
+     * Sucht wie {@link #searchList(String)}, lädt aber nur die besten {@code limit} Treffer
+     * (genaue SVNR, dann Nachname- und Vornamen-Präfix, dann der Rest, je nach Name sortiert).
+     * Gibt es mehr Treffer, wird die Gesamtzahl geschätzt statt gezählt, siehe
+     * {@link #schaetzen(Connection, String)}.
+     *
+     * @param q Suchbegriff (leer = alle)
+     * @param limit höchstens so viele Treffer
+     * @return begrenzte Trefferliste mit Listenfeldern
+     * @throws RuntimeException wenn die Suche nicht durchgeführt werden kann
+     */
+    public SuchErgebnis searchTopK(String q, int limit) {
+        String query = (q == null) ? "" : q.toLowerCase();
+        String sql = query.isEmpty() ? TOP_K_SQL : SEARCH_TOP_K_SQL;
+
+        try (Connection con = DB.getReadConnection()) {
+            List<Patient> treffer;
+            try (PreparedStatement ps = DB.prepare(con, sql)) {
+                int i = 1;
+                if (!query.isEmpty()) {
+                    String like = "%" + query + "%";
+                    for (; i <= 6; i++) ps.setString(i, like);
+                    ps.setString(i++, query);
+                    ps.setString(i++, query + "%");
+                    ps.setString(i++, query + "%");
+                }
+                // eine Zeile mehr laden, um zu erkennen, ob es weitere Treffer gibt
+                ps.setInt(i, limit + 1);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    treffer = PatientMapper.mapAll(rs);
+                }
+            }
+
+            if (treffer.size() <= limit) {
+                return new SuchErgebnis(treffer, treffer.size(), false);
+            }
+            treffer.remove(limit);
+            long gesamt = Math.max(limit + 1L, schaetzen(con, query));
+            return new SuchErgebnis(treffer, gesamt, true);
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Suche konnte nicht durchgeführt werden.", e);
+        }
+    }
+
+    /**
+     * Schätzt die Anzahl der Treffer einer Suche, ohne alle zu zählen: Gezählt wird in
+     * {@value #STUECKE} ID-Bereichen, die gleichmäßig zwischen kleinster und größter ID verteilt
+     * sind und zusammen {@value #STICHPROBE} IDs umfassen (über den Primärschlüssel, also alte und
+     * neue Patienten gleichermaßen). Der Anteil der Treffer darin wird mit der Zeilenzahl der
+     * Tabelle aus {@code information_schema.TABLES} (selbst eine Schätzung von InnoDB) hochgerechnet.
+     * Liegen alle IDs innerhalb der Stichprobe, ist das Ergebnis genau.
+     *
+     * @param con offene Verbindung
+     * @param query Suchbegriff in Kleinbuchstaben (leer = alle)
+     * @return geschätzte Trefferzahl
+     * @throws SQLException wenn die Abfragen scheitern
+     */
+    private static long schaetzen(Connection con, String query) throws SQLException {
+        long min;
+        long max;
+        try (PreparedStatement ps = DB.prepare(con, ID_SPANNE_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            min = rs.getLong(1);
+            if (rs.wasNull()) return 0;
+            max = rs.getLong(2);
+        }
+        long spanne = max - min + 1;
+        boolean ganz = spanne <= STICHPROBE;
+
+        long zeilen;
+        long treffer;
+        try (PreparedStatement ps = DB.prepare(con, SCHAETZEN_SQL)) {
+            String like = "%" + query + "%";
+            ps.setString(1, query);
+            for (int i = 2; i <= 7; i++) ps.setString(i, like);
+            int idx = 8;
+            for (int k = 0; k < STUECKE; k++) {
+                // bei kleinem Bestand deckt jeder Bereich alles ab; doppelt gezählt wird über OR nichts
+                long von = ganz ? min : min + spanne * k / STUECKE;
+                long bis = ganz ? max : von + STICHPROBE / STUECKE - 1;
+                ps.setLong(idx++, von);
+                ps.setLong(idx++, bis);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                zeilen = rs.getLong("zeilen");
+                treffer = rs.getLong("treffer");
+            }
+        }
+        if (ganz) return treffer;
+        if (zeilen == 0) return 0;
+
+        long tabelle = zeilen;
+        try (PreparedStatement ps = DB.prepare(con, TABELLENGROESSE_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            if (rs.next()) tabelle = Math.max(zeilen, rs.getLong(1));
+        }
+        return Math.round((double) treffer / zeilen * tabelle);
+    }
+
+    /**
+     * Sucht aktive Patienten, deren Vor- oder Nachname gleich klingt wie eines der Suchwörter
+     * (Kölner Phonetik, über die indizierten Spalten {@code first_name_phon}/{@code last_name_phon}).
+     * Geladen werden nur die Listenfelder, höchstens 1000 Zeilen; die Rangfolge bildet der Aufrufer.
+     *
+     * @param q Suchwörter, durch Leerzeichen getrennt
+     * @return Kandidaten (unsortiert)
+     * @throws RuntimeException wenn die Suche nicht durchgeführt werden kann
+     */
+    public List<Patient> searchPhonetic(String q) {
+        List<String> codes = new ArrayList<>();
+        for (String t : (q == null ? "" : q).trim().split("\\s+")) {
+            String c = KoelnerPhonetik.kodiere(t);
+            if (!c.isEmpty() && !codes.contains(c)) codes.add(c);
+        }
+        if (codes.isEmpty()) return new ArrayList<>();
+
+        try (Connection con = DB.getReadConnection();
+             PreparedStatement ps = DB.prepare(con, phonetikSql(codes.size()))) {
+
+            int idx = 1;
+            for (int r = 0; r < 2; r++) {
+                for (String c : codes) ps.setString(idx++, c);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                return PatientMapper.mapAll(rs);
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Suche konnte nicht durchgeführt werden.", e);
+        }
+    }
+
+    /**
+     * Gibt die Abfrage von {@link #searchPhonetic(String)} für eine Anzahl Codes zurück.
+     *
+     * @param codes Anzahl der Phonetik-Codes; sie werden zweimal gebunden (Vor-, dann Nachname)
+     * @return SQL-Text
+     */
+    public static String phonetikSql(int codes) {
+        String in = String.join(", ", Collections.nCopies(codes, "?"));
+        return "SELECT id, first_name, last_name, birth_date, svnr, station_id, version FROM patient"
+                + " WHERE deleted_at IS NULL AND discharged_at IS NULL"
+                + " AND (first_name_phon IN (" + in + ") OR last_name_phon IN (" + in + ")) LIMIT 1000";
+    }
+
+    /**
+     * Sucht aktive Patienten mit genau dieser SVNR (über den Index auf {@code svnr}).
+     *
+     * @param svnr Sozialversicherungsnummer
+     * @return Treffer mit allen Feldern
+     * @throws RuntimeException wenn die Suche nicht durchgeführt werden kann
+     */
+    public List<Patient> findBySvnr(String svnr) {
+        try (Connection con = DB.getReadConnection();
+             PreparedStatement ps = DB.prepare(con, FIND_BY_SVNR_SQL)) {
+
+            ps.setString(1, svnr);
+            try (ResultSet rs = ps.executeQuery()) {
+                return PatientMapper.mapAll(rs);
             }
-            return out;
 
         } catch (SQLException e) {
             throw new RuntimeException("Suche konnte nicht durchgeführt werden.", e);
         }
     }
 
+    /**
+     * Lädt die Listenfelder aller Patienten, die sich seit einem Zeitpunkt geändert haben
+     * (über {@code updated_at}). Ohne Zeitpunkt werden alle aktiven Patienten geladen.
+     * Die Serverzeit wird vor der Abfrage gelesen, damit beim nächsten Abgleich nichts fehlt;
+     * doppelt gelieferte Zeilen schaden nicht. Läuft absichtlich immer auf dem Primärserver:
+     * ein nachhinkendes Replikat würde Änderungen vor seiner eigenen Uhrzeit nie mehr liefern.
+     *
+     * @param seit Stand des letzten Abgleichs oder null für alles
+     * @return Änderungen samt neuem Stand
+     * @throws RuntimeException wenn die Änderungen nicht geladen werden können
+     */
+    public ListenDelta findListChangedSince(Timestamp seit) {
+        String sql = seit == null ? LIST_ALL_SQL : CHANGED_SINCE_SQL;
+
+        try (Connection con = DB.getConnection()) {
+            Timestamp stand;
+            try (Statement st = DB.statement(con);
+                 ResultSet rs = st.executeQuery("SELECT NOW(3)")) {
+                rs.next();
+                stand = rs.getTimestamp(1);
+            }
+
+            List<Patient> geaendert = new ArrayList<>();
+            List<Integer> entfernt = new ArrayList<>();
+            try (PreparedStatement ps = DB.prepare(con, sql)) {
+                if (seit != null) ps.setTimestamp(1, seit);
+                try (ResultSet rs = ps.executeQuery()) {
+                    PatientMapper.Spalten s = PatientMapper.spalten(rs);
+                    while (rs.next()) {
+                        Patient p = PatientMapper.map(rs, s);
+                        if (rs.getBoolean(8)) entfernt.add(p.getId());
+                        else geaendert.add(p);
+                    }
+                }
+            }
+
+            int aktiv = geaendert.size();
+            if (seit != null) {
+                try (Statement st = DB.statement(con);
+                     ResultSet rs = st.executeQuery(COUNT_ACTIVE_SQL)) {
+                    rs.next();
+                    aktiv = rs.getInt(1);
+                }
+            }
+            return new ListenDelta(stand, geaendert, entfernt, aktiv);
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Änderungen konnten nicht geladen werden.", e);
+        }
+    }
+
+    /**
+     * Lädt für alle aktiven Patienten nur ID, Station und Aufenthaltsgrund.
+     * Wird für den Abgleich der Stationsstatistik gebraucht.
+     *
+     * @return Patienten mit ID, Station und Grund
+     * @throws RuntimeException wenn die Daten nicht geladen werden können
+     */
+    public List<Patient> findAssignments() {
+        try (Connection con = DB.getReadConnection();
+             PreparedStatement ps = DB.prepare(con, ASSIGNMENTS_SQL);
+             ResultSet rs = ps.executeQuery()) {
+
+            return PatientMapper.mapAll(rs);
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Stationsbelegung konnte nicht geladen werden.", e);
+        }
+    }
+
+    /**
+     * Lädt aktive Patienten seitenweise über den Primärschlüssel ({@code WHERE id > ? ORDER BY id LIMIT ?}),
+     * z.B. für Läufe über den ganzen Bestand mit begrenztem Speicher. Anders als mit {@code OFFSET}
+     * kostet jede Seite gleich viel, egal wie weit hinten sie liegt.
+     *
+     * @param nachId größte ID der vorigen Seite (0 für den Anfang)
+     * @param anzahl höchstens so viele Patienten
+     * @return Patienten aufsteigend nach ID
+     * @throws RuntimeException wenn die Patienten nicht geladen werden können
+     */
+    public List<Patient> findPage(int nachId, int anzahl) {
+        try (Connection con = DB.getReadConnection();
+             PreparedStatement ps = DB.prepare(con, FIND_PAGE_SQL)) {
+
+            ps.setInt(1, nachId);
+            ps.setInt(2, anzahl);
+            try (ResultSet rs = ps.executeQuery()) {
+                return PatientMapper.mapAll(rs);
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Patienten konnten nicht geladen werden.", e);
+        }
+    }
+
+    /**
+     * Lädt einen einzelnen Patienten anhand seiner ID.
+     * Gelöschte Patienten werden nicht gefunden, entlassene schon.
+     *
+     * @param id Patienten-ID
+     * @return Patient oder null, wenn es keinen (nicht gelöschten) mit dieser ID gibt
+     * @throws RuntimeException wenn der Patient nicht geladen werden kann
+     */
+    public Patient findById(int id) {
+        try (Connection con = DB.getReadConnection();
+             PreparedStatement ps = DB.prepare(con, FIND_BY_ID_SQL)) {
+
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? PatientMapper.map(rs, PatientMapper.spalten(rs)) : null;
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Patient konnte nicht geladen werden.", e);
+        }
+    }
+
     /**
      * legt einen neuen Patienten in der DB an
      * Nach dem Insert wird die generierte ID aus den generated K. gelesen und in das
@@ -124,97 +701,327 @@ public class PatientCrud {
      * @throws RuntimeException wenn der Patient nicht angelegt werden kann
      */
     public void insert(Patient p) {
-        String sql = """
-                INSERT INTO patient (first_name, last_name, birth_date, svnr, phone, address, reason, station_id)
-                VALUES (?, ?, ?, ?, ?, ?, ?, ?)
-                """;
-
         try (Connection con = DB.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-
-            ps.setString(1, p.getFirstName());
-            ps.setString(2, p.getLastName());
-            if (p.getBirthDate() == null) {
-                ps.setDate(3, null);
-            } else {
-                ps.setDate(3, Date.valueOf(p.getBirthDate()));
-            }
-            ps.setString(4, p.getSvnr());
-            ps.setString(5, p.getPhone());
-            ps.setString(6, p.getAddress());
-            ps.setString(7, p.getReason());
-
-            if (p.getStationId() == null) ps.setNull(8, Types.INTEGER);
-            else ps.setInt(8, p.getStationId());
+             PreparedStatement ps = DB.prepare(con, PatientMapper.INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
 
+            int idx = PatientMapper.bindAll(ps, 1, p);
+            PatientMapper.bindPhonetik(ps, idx, PatientMapper.PHONETIK, p);
             ps.executeUpdate();
+            DB.geschrieben();
 
             try (ResultSet keys = ps.getGeneratedKeys()) {
                 if (keys.next()) p.setId(keys.getInt(1));
             }
+            p.setVersion(0);
+            p.markClean();
+            audit.protokolliere(AuditAktion.ANGELEGT, p.getId(), 0);
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Patient konnte nicht angelegt werden.", e);
+        }
+    }
+
+    /**
+     * Legt einen offline angelegten Patienten an, pro Schlüssel höchstens einmal.
+     * Gibt es schon eine Zeile mit diesem Schlüssel (der Eintrag wurde bereits übertragen, nur der
+     * Fortschritt nicht mehr gespeichert), bekommt der Patient deren ID und Version und es wird
+     * nichts geschrieben. Der eindeutige Index auf {@code offline_schluessel} fängt auch den Fall ab,
+     * dass zwei Übertragungen gleichzeitig laufen.
+     *
+     * @param p neuer Patient (ID 0)
+     * @param schluessel Schlüssel aus dem Journaleintrag
+     * @return true, wenn der Patient jetzt angelegt wurde, false, wenn es ihn schon gab
+     * @throws RuntimeException wenn der Patient nicht angelegt werden kann
+     */
+    public boolean insertEinmalig(Patient p, UUID schluessel) {
+        try (Connection con = DB.getConnection()) {
+            if (findBySchluessel(con, p, schluessel)) return false;
+
+            try (PreparedStatement ps = DB.prepare(con, PatientMapper.INSERT_OFFLINE_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                int idx = PatientMapper.bindAll(ps, 1, p);
+                idx = PatientMapper.bindPhonetik(ps, idx, PatientMapper.PHONETIK, p);
+                ps.setString(idx, schluessel.toString());
+                ps.executeUpdate();
+                DB.geschrieben();
+
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    if (keys.next()) p.setId(keys.getInt(1));
+                }
+            } catch (SQLIntegrityConstraintViolationException e) {
+                if (findBySchluessel(con, p, schluessel)) return false;
+                throw e;
+            }
+            p.setVersion(0);
+            p.markClean();
+            audit.protokolliere(AuditAktion.ANGELEGT, p.getId(), 0);
+            return true;
 
         } catch (SQLException e) {
             throw new RuntimeException("Patient konnte nicht angelegt werden.", e);
         }
     }
 
+    /**
+     * Übernimmt ID und Version der Zeile mit diesem Schlüssel, wenn es sie gibt.
+     */
+    private static boolean findBySchluessel(Connection con, Patient p, UUID schluessel) throws SQLException {
+        try (PreparedStatement ps = DB.prepare(con, FIND_BY_SCHLUESSEL_SQL)) {
+            ps.setString(1, schluessel.toString());
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return false;
+                p.setId(rs.getInt(1));
+                p.setVersion(rs.getInt(2));
+                p.markClean();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Legt mehrere Patienten in einem JDBC-Batch an (ohne Validierung, z.B. für Importe).
+     * Die generierten IDs werden in die Objekte zurückgeschrieben, soweit der Treiber sie liefert.
+     * Alles läuft in einer Transaktion: entweder werden alle angelegt oder keiner.
+     *
+     * @param patients anzulegende Patienten
+     * @throws RuntimeException wenn die Patienten nicht angelegt werden können
+     */
+    public void insertBatch(List<Patient> patients) {
+        if (patients.isEmpty()) return;
+
+        try (Connection con = DB.getConnection()) {
+            con.setAutoCommit(false);
+            try (PreparedStatement ps = DB.prepare(con, PatientMapper.INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (Patient p : patients) {
+                    int idx = PatientMapper.bindAll(ps, 1, p);
+                    PatientMapper.bindPhonetik(ps, idx, PatientMapper.PHONETIK, p);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    for (Patient p : patients) {
+                        if (!keys.next()) break;
+                        p.setId(keys.getInt(1));
+                    }
+                }
+                con.commit();
+                DB.geschrieben();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            } finally {
+                con.setAutoCommit(true);
+            }
+            for (Patient p : patients) {
+                p.setVersion(0);
+                p.markClean();
+                audit.protokolliere(AuditAktion.ANGELEGT, p.getId(), 0);
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Patienten konnten nicht angelegt werden.", e);
+        }
+    }
+
     /**
      * Aktualisiert einen bestehenden Patienten in der DB
-     * Es wird aktualisiert. Felder wie GBdatum oder
-     * StationID werden auf null gesetzt, wenn sie im Objekt nicht befüllt sind.
+     * Es werden nur die Spalten geschrieben, die im Objekt als geändert markiert sind
+     * (siehe {@link Patient#getDirtyFields()}). Ist nichts geändert, passiert nichts.
+     * Gespeichert wird nur, wenn die Zeilenversion in der DB noch der geladenen entspricht
+     * (optimistisches Sperren); danach wird die Version um eins erhöht.
+     * Felder wie GBdatum oder StationID werden auf null gesetzt, wenn sie geändert und im
+     * Objekt nicht befüllt sind.
      *
      * @param p Patient-Objekt mit aktualisierten Daten
+     * @throws PatientKonfliktException wenn der Patient inzwischen geändert oder gelöscht wurde
      * @throws RuntimeException wenn der Patient nicht gespeichert werden kann
      */
     public void update(Patient p) {
-        String sql = """
-                UPDATE patient
-                SET first_name=?, last_name=?, birth_date=?, svnr=?, phone=?, address=?, reason=?, station_id=?
-                WHERE id=?
-                """;
+        Set<PatientFeld> fields = p.getDirtyFields();
+        if (fields.isEmpty()) return;
 
+        int mask = 0;
+        for (PatientFeld f : fields) mask |= f.bit();
         try (Connection con = DB.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql)) {
+             PreparedStatement ps = DB.prepare(con, updateSql(mask))) {
 
-            ps.setString(1, p.getFirstName());
-            ps.setString(2, p.getLastName());
-            if (p.getBirthDate() == null) {
-                ps.setDate(3, null);
-            } else {
-                ps.setDate(3, Date.valueOf(p.getBirthDate()));
-            }
-            ps.setString(4, p.getSvnr());
-            ps.setString(5, p.getPhone());
-            ps.setString(6, p.getAddress());
-            ps.setString(7, p.getReason());
+            bindUpdate(ps, mask, p);
 
-            if (p.getStationId() == null) ps.setNull(8, Types.INTEGER);
-            else ps.setInt(8, p.getStationId());
+            // auch bei einem Konflikt: der aktuelle Stand muss vom Primärserver kommen
+            DB.geschrieben();
+            if (ps.executeUpdate() == 0) throw new PatientKonfliktException(p, findById(p.getId()));
+            p.setVersion(p.getVersion() + 1);
+            p.markClean();
+            audit.protokolliere(AuditAktion.GEAENDERT, p.getId(), mask);
 
-            ps.setInt(9, p.getId());
+        } catch (SQLException e) {
+            throw new RuntimeException("Patient konnte nicht gespeichert werden.", e);
+        }
+    }
 
-            ps.executeUpdate();
+    /**
+     * Speichert die geänderten Felder vieler Patienten in einer Transaktion.
+     * Die Patienten werden nach ihrer Feldkombination gruppiert, pro Kombination läuft ein
+     * JDBC-Batch mit dem UPDATE aus {@link #update(Patient)}. Zeilen, deren Version nicht mehr
+     * passt, werden nicht geändert und zurückgegeben. Meldet der Treiber für eine Gruppe nur
+     * {@link Statement#SUCCESS_NO_INFO}, wird sie zurückgenommen und Zeile für Zeile wiederholt,
+     * damit Konflikte nicht als gespeichert gelten.
+     *
+     * @param patients geänderte Patienten
+     * @return die wegen eines Konflikts nicht gespeicherten Patienten
+     * @throws RuntimeException wenn die Änderungen nicht gespeichert werden können
+     */
+    public List<Patient> updateBatch(List<Patient> patients) {
+        Map<Integer, List<Patient>> nachMaske = new LinkedHashMap<>();
+        for (Patient p : patients) {
+            int mask = 0;
+            for (PatientFeld f : p.getDirtyFields()) mask |= f.bit();
+            if (mask != 0) nachMaske.computeIfAbsent(mask, k -> new ArrayList<>()).add(p);
+        }
+        if (nachMaske.isEmpty()) return List.of();
 
+        List<Patient> konflikte = new ArrayList<>();
+        List<Patient> gespeichert = new ArrayList<>();
+        try (Connection con = DB.getConnection()) {
+            con.setAutoCommit(false);
+            try {
+                for (Map.Entry<Integer, List<Patient>> e : nachMaske.entrySet()) {
+                    int mask = e.getKey();
+                    List<Patient> gruppe = e.getValue();
+                    Savepoint vorher = con.setSavepoint();
+                    try (PreparedStatement ps = DB.prepare(con, updateSql(mask))) {
+                        for (Patient p : gruppe) {
+                            bindUpdate(ps, mask, p);
+                            ps.addBatch();
+                        }
+                        int[] n = ps.executeBatch();
+                        boolean ohneAnzahl = false;
+                        for (int v : n) ohneAnzahl |= v == Statement.SUCCESS_NO_INFO;
+                        if (ohneAnzahl) {
+                            // ohne Zeilenanzahl ist kein Konflikt erkennbar: Gruppe zurücknehmen, einzeln wiederholen
+                            con.rollback(vorher);
+                            n = new int[gruppe.size()];
+                            for (int i = 0; i < gruppe.size(); i++) {
+                                bindUpdate(ps, mask, gruppe.get(i));
+                                n[i] = ps.executeUpdate();
+                            }
+                        }
+                        for (int i = 0; i < gruppe.size(); i++) {
+                            if (n[i] == 0) konflikte.add(gruppe.get(i));
+                            else gespeichert.add(gruppe.get(i));
+                        }
+                    }
+                }
+                con.commit();
+                DB.geschrieben();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            } finally {
+                con.setAutoCommit(true);
+            }
         } catch (SQLException e) {
-            throw new RuntimeException("Patient konnte nicht gespeichert werden.", e);
+            throw new RuntimeException("Änderungen konnten nicht gespeichert werden.", e);
         }
+
+        for (Patient p : gespeichert) {
+            int mask = 0;
+            for (PatientFeld f : p.getDirtyFields()) mask |= f.bit();
+            p.setVersion(p.getVersion() + 1);
+            p.markClean();
+            audit.protokolliere(AuditAktion.GEAENDERT, p.getId(), mask);
+        }
+        return konflikte;
+    }
+
+    /**
+     * Setzt die Parameter für das UPDATE aus {@link #updateSql(int)}: Felder, Codes, ID, Version.
+     */
+    private static void bindUpdate(PreparedStatement ps, int mask, Patient p) throws SQLException {
+        int idx = PatientMapper.bind(ps, 1, p.getDirtyFields(), p);
+        idx = PatientMapper.bindPhonetik(ps, idx, mask, p);
+        ps.setInt(idx++, p.getId());
+        ps.setInt(idx, p.getVersion());
+    }
+
+    /**
+     * Gibt den UPDATE-Text für eine Feldkombination zurück, wie ihn {@link #update(Patient)} verwendet.
+     *
+     * @param mask Bitmaske der geänderten Felder ({@link PatientFeld#bit()})
+     * @return SQL-Text mit einem Platzhalter pro Feld und Code, danach ID und erwartete Version
+     */
+    public static String updateSql(int mask) {
+        return UPDATE_SQL.computeIfAbsent(mask, PatientCrud::buildUpdateSql);
+    }
+
+    /**
+     * Baut den UPDATE-Text für eine Feldkombination.
+     * Die Reihenfolge der Spalten entspricht der Reihenfolge in {@link PatientFeld}; bei geänderten
+     * Namen folgen die Phonetik-Codes.
+     *
+     * @param mask Bitmaske der geänderten Felder
+     * @return SQL-Text mit einem Platzhalter pro Feld und Code, danach ID und erwartete Version
+     */
+    private static String buildUpdateSql(int mask) {
+        StringBuilder sb = new StringBuilder("UPDATE patient SET ");
+        for (PatientFeld f : PatientFeld.values()) {
+            if ((mask & f.bit()) == 0) continue;
+            sb.append(f.getSpalte()).append("=?, ");
+        }
+        if ((mask & PatientFeld.FIRST_NAME.bit()) != 0) sb.append("first_name_phon=?, ");
+        if ((mask & PatientFeld.LAST_NAME.bit()) != 0) sb.append("last_name_phon=?, ");
+        return sb.append("version=version+1 WHERE id=? AND version=?").toString();
     }
 
     /**
      * Löscht einen Patienten anhand seiner ID.
+     * Die Zeile wird nur als gelöscht markiert ({@code deleted_at}) und später
+     * vom Archivierer endgültig entfernt.
      * @param id ID des zu löschenden Patienten
      * @throws RuntimeException wenn der Patient nicht gelöscht werden kann
      */
     public void deleteById(int id) {
-        String sql = "DELETE FROM patient WHERE id=?";
         try (Connection con = DB.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql)) {
+             PreparedStatement ps = DB.prepare(con, DELETE_SQL)) {
 
             ps.setInt(1, id);
-            ps.executeUpdate();
+            if (ps.executeUpdate() > 0) audit.protokolliere(AuditAktion.GELOESCHT, id, 0);
+            DB.geschrieben();
 
         } catch (SQLException e) {
             throw new RuntimeException("Patient konnte nicht gelöscht werden.", e);
         }
     }
+
+    /**
+     * Markiert einen Patienten als entlassen.
+     * Er taucht danach in den normalen Suchen nicht mehr auf und wird später ins Archiv verschoben.
+     * @param id ID des zu entlassenden Patienten
+     * @throws RuntimeException wenn der Patient nicht entlassen werden kann
+     */
+    public void dischargeById(int id) {
+        try (Connection con = DB.getConnection();
+             PreparedStatement ps = DB.prepare(con, DISCHARGE_SQL)) {
+
+            ps.setInt(1, id);
+            if (ps.executeUpdate() > 0) audit.protokolliere(AuditAktion.ENTLASSEN, id, 0);
+            DB.geschrieben();
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Patient konnte nicht entlassen werden.", e);
+        }
+    }
+
+    /**
+     * Sucht unter den entlassenen Patienten, archiviert oder noch nicht
+     * (siehe {@link PatientArchivCrud#search(String)}).
+     *
+     * @param q Suchbegriff
+     * @return Trefferliste der entlassenen Patienten
+     * @throws RuntimeException wenn die Suche nicht durchgeführt werden kann
+     */
+    public List<Patient> searchArchive(String q) {
+
+        return new PatientArchivCrud().search(q);
+    }
 }
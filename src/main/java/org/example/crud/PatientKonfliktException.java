@@ -0,0 +1,82 @@
+package org.example.crud;
+
+import org.example.model.Patient;
+import org.example.model.PatientFeld;
+
+import java.util.Set;
+
+/**
+ * Wird geworfen, wenn ein Patient gespeichert werden soll, der inzwischen an einem anderen
+ * Platz geändert oder gelöscht wurde (die Zeilenversion passt nicht mehr).
+ * Enthält die eigenen Änderungen und den aktuellen Stand aus der DB, damit die UI
+ * zusammenführen oder neu laden kann.
+ */
+public class PatientKonfliktException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    // Patient ist nicht serialisierbar; die Ausnahme verlässt den Prozess nie
+    private final transient Patient eigene;
+    private final transient Patient aktuell;
+
+    /**
+     * Erstellt einen neuen Konflikt.
+     *
+     * @param eigene Patient mit den eigenen (noch ungespeicherten) Änderungen
+     * @param aktuell aktueller Stand in der DB oder null, wenn der Patient gelöscht wurde
+     */
+    public PatientKonfliktException(Patient eigene, Patient aktuell) {
+        super(aktuell == null
+                ? "Patient wurde inzwischen gelöscht."
+                : "Patient wurde inzwischen an einem anderen Platz geändert.");
+        this.eigene = eigene;
+        this.aktuell = aktuell;
+    }
+
+    /**
+     * Gibt den Patienten mit den eigenen Änderungen zurück.
+     * @return eigene Version
+     */
+    public Patient getEigene() {
+        return eigene;
+    }
+
+    /**
+     * Gibt den aktuellen Stand aus der DB zurück.
+     * @return aktuelle Version oder null, wenn gelöscht
+     */
+    public Patient getAktuell() {
+        return aktuell;
+    }
+
+    /**
+     * Gibt zurück, ob der Patient inzwischen gelöscht wurde.
+     * @return true, wenn es keinen aktuellen Stand mehr gibt
+     */
+    public boolean istGeloescht() {
+        return aktuell == null;
+    }
+
+    /**
+     * Gibt die Felder zurück, die man selbst geändert hat.
+     * @return eigene geänderte Felder
+     */
+    public Set<PatientFeld> getEigeneFelder() {
+        return eigene.getDirtyFields();
+    }
+
+    /**
+     * Führt beide Stände zusammen: Ausgangspunkt ist der aktuelle Stand aus der DB,
+     * darauf werden die eigenen geänderten Felder angewendet. Das Ergebnis trägt die aktuelle
+     * Zeilenversion und kann direkt noch einmal gespeichert werden.
+     *
+     * @return zusammengeführter Patient
+     * @throws IllegalStateException wenn der Patient gelöscht wurde
+     */
+    public Patient zusammenfuehren() {
+        if (aktuell == null) throw new IllegalStateException("Patient wurde inzwischen gelöscht.");
+        Patient out = new Patient(aktuell);
+        for (PatientFeld f : eigene.getDirtyFields()) out.setWert(f, eigene.getWert(f));
+        return out;
+    }
+}
@@ -0,0 +1,201 @@
+package org.example.crud;
+
+import org.example.model.Patient;
+import org.example.model.PatientFeld;
+import org.example.suche.KoelnerPhonetik;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Mapping zwischen Tabelle {@code patient} und {@link Patient} über Spaltenpositionen.
+ * Die Positionen werden einmal pro ResultSet aus den Metadaten bestimmt ({@link #spalten(ResultSet)}),
+ * danach wird jede Zeile nur noch über den Index gelesen – keine Namenssuche pro Zelle.
+ * Fehlt eine Spalte in der Abfrage (z.B. bei der schmalen Listenabfrage), bleibt das Feld leer.
+ * Beim Schreiben werden die Parameter in der Reihenfolge von {@link PatientFeld} gesetzt;
+ * Insert, Update und Batch-Insert verwenden dieselbe Methode.
+ * Zu Vor- und Nachname werden außerdem die Kölner-Phonetik-Codes in {@code first_name_phon}
+ * und {@code last_name_phon} geschrieben ({@link #bindPhonetik(PreparedStatement, int, int, Patient)}).
+ */
+public final class PatientMapper {
+
+    /**
+     * INSERT mit allen Feldern in der Reihenfolge von {@link PatientFeld}, danach die Phonetik-Codes.
+     */
+    public static final String INSERT_SQL = """
+            INSERT INTO patient (first_name, last_name, birth_date, svnr, phone, address, reason, station_id,
+                                 first_name_phon, last_name_phon)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    /**
+     * Wie {@link #INSERT_SQL}, zuletzt der Schlüssel eines offline angelegten Patienten.
+     */
+    public static final String INSERT_OFFLINE_SQL = """
+            INSERT INTO patient (first_name, last_name, birth_date, svnr, phone, address, reason, station_id,
+                                 first_name_phon, last_name_phon, offline_schluessel)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    /**
+     * Bitmaske der Felder, zu denen ein Phonetik-Code gespeichert wird.
+     */
+    public static final int PHONETIK = PatientFeld.FIRST_NAME.bit() | PatientFeld.LAST_NAME.bit();
+
+    private static final PatientFeld[] FELDER = PatientFeld.values();
+
+    private PatientMapper() {
+    }
+
+    /**
+     * Spaltenpositionen (1-basiert) eines ResultSets, 0 wenn die Spalte nicht vorkommt.
+     */
+    public static final class Spalten {
+        int id, firstName, lastName, birthDate, svnr, phone, address, reason, stationId, version;
+    }
+
+    /**
+     * Bestimmt die Spaltenpositionen eines ResultSets anhand der Spaltennamen (bzw. Aliase).
+     *
+     * @param rs ResultSet einer Patientenabfrage
+     * @return Spaltenpositionen
+     * @throws SQLException wenn die Metadaten nicht gelesen werden können
+     */
+    public static Spalten spalten(ResultSet rs) throws SQLException {
+        ResultSetMetaData md = rs.getMetaData();
+        Spalten s = new Spalten();
+        for (int i = 1; i <= md.getColumnCount(); i++) {
+            switch (md.getColumnLabel(i).toLowerCase(Locale.ROOT)) {
+                case "id" -> s.id = i;
+                case "first_name" -> s.firstName = i;
+                case "last_name" -> s.lastName = i;
+                case "birth_date" -> s.birthDate = i;
+                case "svnr" -> s.svnr = i;
+                case "phone" -> s.phone = i;
+                case "address" -> s.address = i;
+                case "reason" -> s.reason = i;
+                case "station_id" -> s.stationId = i;
+                case "version" -> s.version = i;
+                default -> { }
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Liest die aktuelle Zeile in ein neues Patient-Objekt (gilt danach als unverändert).
+     *
+     * @param rs ResultSet, das bereits auf einer gültigen Zeile steht
+     * @param s Spaltenpositionen aus {@link #spalten(ResultSet)}
+     * @return gemapptes Patient-Objekt
+     * @throws SQLException wenn beim Zugriff auf das ResultSet ein Fehler auftritt
+     */
+    public static Patient map(ResultSet rs, Spalten s) throws SQLException {
+        Patient p = new Patient();
+        if (s.id > 0) p.setId(rs.getInt(s.id));
+        if (s.firstName > 0) p.setFirstName(rs.getString(s.firstName));
+        if (s.lastName > 0) p.setLastName(rs.getString(s.lastName));
+        if (s.birthDate > 0) {
+            Date bd = rs.getDate(s.birthDate);
+            p.setBirthDate(bd == null ? null : bd.toLocalDate());
+        }
+        if (s.svnr > 0) p.setSvnr(rs.getString(s.svnr));
+        if (s.phone > 0) p.setPhone(rs.getString(s.phone));
+        if (s.address > 0) p.setAddress(rs.getString(s.address));
+        if (s.reason > 0) p.setReason(rs.getString(s.reason));
+        if (s.stationId > 0) {
+            int st = rs.getInt(s.stationId);
+            p.setStationId(rs.wasNull() ? null : st);
+        }
+        if (s.version > 0) p.setVersion(rs.getInt(s.version));
+        p.markClean();
+        return p;
+    }
+
+    /**
+     * Liest alle (restlichen) Zeilen eines ResultSets. Die Spaltenpositionen werden nur einmal bestimmt.
+     *
+     * @param rs ResultSet einer Patientenabfrage
+     * @return gemappte Patienten
+     * @throws SQLException wenn beim Zugriff auf das ResultSet ein Fehler auftritt
+     */
+    public static List<Patient> mapAll(ResultSet rs) throws SQLException {
+        Spalten s = spalten(rs);
+        List<Patient> out = new ArrayList<>();
+        while (rs.next()) out.add(map(rs, s));
+        return out;
+    }
+
+    /**
+     * Setzt alle Felder in der Reihenfolge von {@link PatientFeld} als Parameter.
+     *
+     * @param ps Statement
+     * @param start Position des ersten Parameters
+     * @param p Patient mit den Werten
+     * @return Position nach dem letzten gesetzten Parameter
+     * @throws SQLException wenn ein Parameter nicht gesetzt werden kann
+     */
+    public static int bindAll(PreparedStatement ps, int start, Patient p) throws SQLException {
+        int idx = start;
+        for (PatientFeld f : FELDER) bind(ps, idx++, f, p);
+        return idx;
+    }
+
+    /**
+     * Setzt die angegebenen Felder der Reihe nach als Parameter.
+     *
+     * @param ps Statement
+     * @param start Position des ersten Parameters
+     * @param felder zu setzende Felder
+     * @param p Patient mit den Werten
+     * @return Position nach dem letzten gesetzten Parameter
+     * @throws SQLException wenn ein Parameter nicht gesetzt werden kann
+     */
+    public static int bind(PreparedStatement ps, int start, Iterable<PatientFeld> felder, Patient p) throws SQLException {
+        int idx = start;
+        for (PatientFeld f : felder) bind(ps, idx++, f, p);
+        return idx;
+    }
+
+    /**
+     * Setzt die Phonetik-Codes der Namen als Parameter, für jedes in der Maske enthaltene
+     * Namensfeld einen (erst Vorname, dann Nachname).
+     *
+     * @param ps Statement
+     * @param start Position des ersten Parameters
+     * @param mask Bitmaske der Felder ({@link #PHONETIK} für beide)
+     * @param p Patient mit den Werten
+     * @return Position nach dem letzten gesetzten Parameter
+     * @throws SQLException wenn ein Parameter nicht gesetzt werden kann
+     */
+    public static int bindPhonetik(PreparedStatement ps, int start, int mask, Patient p) throws SQLException {
+        int idx = start;
+        if ((mask & PatientFeld.FIRST_NAME.bit()) != 0) ps.setString(idx++, KoelnerPhonetik.kodiere(p.getFirstName()));
+        if ((mask & PatientFeld.LAST_NAME.bit()) != 0) ps.setString(idx++, KoelnerPhonetik.kodiere(p.getLastName()));
+        return idx;
+    }
+
+    /**
+     * Setzt den Wert eines Feldes als Parameter im Statement.
+     */
+    private static void bind(PreparedStatement ps, int idx, PatientFeld f, Patient p) throws SQLException {
+        switch (f) {
+            case FIRST_NAME -> ps.setString(idx, p.getFirstName());
+            case LAST_NAME -> ps.setString(idx, p.getLastName());
+            case BIRTH_DATE -> {
+                if (p.getBirthDate() == null) ps.setNull(idx, Types.DATE);
+                else ps.setDate(idx, Date.valueOf(p.getBirthDate()));
+            }
+            case SVNR -> ps.setString(idx, p.getSvnr());
+            case PHONE -> ps.setString(idx, p.getPhone());
+            case ADDRESS -> ps.setString(idx, p.getAddress());
+            case REASON -> ps.setString(idx, p.getReason());
+            case STATION_ID -> {
+                if (p.getStationId() == null) ps.setNull(idx, Types.INTEGER);
+                else ps.setInt(idx, p.getStationId());
+            }
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package org.example.crud;
+
+import org.example.model.Patient;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Speicherzugriff für Patienten, unabhängig davon, wo die Daten liegen.
+ * Implementierungen: {@link PatientCrud} (MySQL über JDBC) und
+ * {@link org.example.speicher.SpeicherPatientRepository} (im Speicher mit Datei-Schnappschuss).
+ * Welche verwendet wird, entscheidet {@link Repositories}.
+ * Alle Methoden melden Fehler als RuntimeException; ein Speicherkonflikt beim Aktualisieren
+ * als {@link PatientKonfliktException}.
+ */
+public interface PatientRepository {
+
+    /**
+     * Änderungen der Listenansicht seit einem Zeitpunkt.
+     *
+     * @param stand Zeitpunkt, zu dem abgefragt wurde (Ausgangspunkt für den nächsten Abgleich)
+     * @param geaendert neue oder geänderte aktive Patienten (nur Listenfelder)
+     * @param entfernt IDs gelöschter oder entlassener Patienten
+     * @param aktiv Anzahl aller aktiven Patienten zum Abfragezeitpunkt (zur Kontrolle)
+     */
+    record ListenDelta(Timestamp stand, List<Patient> geaendert, List<Integer> entfernt, int aktiv) { }
+
+    /**
+     * Begrenzte Trefferliste einer Suche.
+     *
+     * @param treffer höchstens so viele Treffer wie verlangt, die besten zuerst (Listenfelder)
+     * @param gesamt Anzahl aller Treffer; bei {@code geschaetzt} nur ungefähr
+     * @param geschaetzt true, wenn {@code gesamt} geschätzt ist
+     */
+    record SuchErgebnis(List<Patient> treffer, long gesamt, boolean geschaetzt) {
+
+        /**
+         * Gibt zurück, ob es mehr Treffer gibt als geliefert wurden.
+         *
+         * @return true, wenn die Liste gekürzt ist
+         */
+        public boolean istGekuerzt() {
+            return gesamt > treffer.size();
+        }
+
+        /**
+         * Rang eines Treffers: 0 = SVNR stimmt genau, 1 = Nachname beginnt mit dem Suchbegriff,
+         * 2 = Vorname beginnt damit, 3 = sonstiger Treffer.
+         *
+         * @param p Treffer
+         * @param query Suchbegriff in Kleinbuchstaben
+         * @return Rang, kleiner ist besser
+         */
+        public static int rang(Patient p, String query) {
+            if (query.equals(p.getSvnr())) return 0;
+            if (p.getLastName() != null && p.getLastName().toLowerCase().startsWith(query)) return 1;
+            if (p.getFirstName() != null && p.getFirstName().toLowerCase().startsWith(query)) return 2;
+            return 3;
+        }
+
+        /**
+         * Bildet das Ergebnis aus allen Treffern: nach {@link #rang(Patient, String)} geordnet,
+         * innerhalb eines Rangs in der bisherigen Reihenfolge, auf {@code limit} gekürzt.
+         *
+         * @param alle alle Treffer, nach Nachname und Vorname sortiert
+         * @param query Suchbegriff
+         * @param limit höchstens so viele Treffer
+         * @return Ergebnis mit genauer Gesamtzahl
+         */
+        public static SuchErgebnis rangliste(List<Patient> alle, String query, int limit) {
+            String q = query == null ? "" : query.toLowerCase();
+            if (q.isEmpty()) {
+                return new SuchErgebnis(new ArrayList<>(alle.subList(0, Math.min(limit, alle.size()))), alle.size(), false);
+            }
+            List<Patient> out = new ArrayList<>(Math.min(limit, alle.size()));
+            for (int r = 0; r <= 3 && out.size() < limit; r++) {
+                for (Patient p : alle) {
+                    if (out.size() >= limit) break;
+                    if (rang(p, q) == r) out.add(p);
+                }
+            }
+            return new SuchErgebnis(out, alle.size(), false);
+        }
+    }
+
+    /**
+     * Lädt alle aktiven Patienten, sortiert nach Nachname und Vorname.
+     * @return aktive Patienten
+     */
+    List<Patient> findAll();
+
+    /**
+     * Sucht aktive Patienten in Vorname, Nachname, SVNR, Telefon, Adresse und Grund.
+     * @param q Suchbegriff (leer = alle)
+     * @return Treffer, sortiert nach Nachname und Vorname
+     */
+    List<Patient> search(String q);
+
+    /**
+     * Sucht wie {@link #search(String)}, liefert aber nur die Felder der Listenansicht.
+     * @param q Suchbegriff (leer = alle)
+     * @return Treffer mit Listenfeldern
+     */
+    List<Patient> searchList(String q);
+
+    /**
+     * Sucht wie {@link #searchList(String)}, liefert aber höchstens {@code limit} Treffer:
+     * zuerst genaue SVNR-Treffer, dann Nachnamen und Vornamen, die mit dem Suchbegriff beginnen,
+     * danach die übrigen, jeweils nach Nachname und Vorname. Dazu die (ggf. geschätzte) Gesamtzahl.
+     * @param q Suchbegriff (leer = alle)
+     * @param limit höchstens so viele Treffer
+     * @return begrenzte Trefferliste mit Listenfeldern
+     */
+    SuchErgebnis searchTopK(String q, int limit);
+
+    /**
+     * Sucht wie {@link #search(String)}, liefert die Treffer aber als Datenstrom in Blöcken,
+     * sobald sie gelesen sind, statt als fertige Liste. Gelesen wird erst, wenn ein Abonnent
+     * Blöcke verlangt, und nur so viele, wie er verlangt.
+     * @param q Suchbegriff (leer = alle)
+     * @param block höchstens so viele Patienten pro Block (bei MySQL auch die Abrufgröße des Cursors)
+     * @return Strom der Treffer mit allen Feldern, nach Nachname und Vorname sortiert
+     */
+    PatientStrom searchStream(String q, int block);
+
+    /**
+     * Sucht aktive Patienten, deren Vor- oder Nachname gleich klingt (Kölner Phonetik).
+     * @param q Suchwörter, durch Leerzeichen getrennt
+     * @return Kandidaten (unsortiert) mit Listenfeldern
+     */
+    List<Patient> searchPhonetic(String q);
+
+    /**
+     * Sucht aktive Patienten mit genau dieser Sozialversicherungsnummer.
+     * @param svnr SVNR
+     * @return Treffer (normalerweise höchstens einer)
+     */
+    List<Patient> findBySvnr(String svnr);
+
+    /**
+     * Lädt die Listenfelder aller seit einem Zeitpunkt geänderten Patienten.
+     * @param seit Stand des letzten Abgleichs oder null für alle aktiven
+     * @return Änderungen samt neuem Stand
+     */
+    ListenDelta findListChangedSince(Timestamp seit);
+
+    /**
+     * Lädt für alle aktiven Patienten ID, Station und Aufenthaltsgrund.
+     * @return Patienten mit diesen Feldern
+     */
+    List<Patient> findAssignments();
+
+    /**
+     * Lädt aktive Patienten seitenweise nach ID (Keyset: {@code id > nachId}), mit allen Feldern.
+     * @param nachId größte ID der vorigen Seite (0 für den Anfang)
+     * @param anzahl höchstens so viele Patienten
+     * @return Patienten aufsteigend nach ID; leer, wenn es keine weiteren gibt
+     */
+    List<Patient> findPage(int nachId, int anzahl);
+
+    /**
+     * Lädt einen Patienten mit allen Feldern.
+     * @param id Patienten-ID
+     * @return Patient oder null, wenn es ihn nicht gibt oder er gelöscht ist
+     */
+    Patient findById(int id);
+
+    /**
+     * Legt einen Patienten an und schreibt die neue ID in das Objekt.
+     * @param p neuer Patient
+     */
+    void insert(Patient p);
+
+    /**
+     * Legt mehrere Patienten auf einmal an (alle oder keiner).
+     * @param patients neue Patienten
+     */
+    void insertBatch(List<Patient> patients);
+
+    /**
+     * Speichert die geänderten Felder eines Patienten (optimistisches Sperren über die Version).
+     * @param p geänderter Patient
+     * @throws PatientKonfliktException wenn der Patient inzwischen geändert oder gelöscht wurde
+     */
+    void update(Patient p);
+
+    /**
+     * Speichert die geänderten Felder vieler Patienten auf einmal (z.B. Korrekturen einer
+     * Massenprüfung). Patienten mit Konflikt werden übersprungen statt abzubrechen.
+     * @param patients geänderte Patienten
+     * @return die wegen eines Konflikts nicht gespeicherten Patienten
+     */
+    List<Patient> updateBatch(List<Patient> patients);
+
+    /**
+     * Markiert einen Patienten als gelöscht.
+     * @param id Patienten-ID
+     */
+    void deleteById(int id);
+
+    /**
+     * Markiert einen Patienten als entlassen.
+     * @param id Patienten-ID
+     */
+    void dischargeById(int id);
+
+    /**
+     * Sucht unter den entlassenen Patienten, archivierten und noch nicht archivierten.
+     * @param q Suchbegriff
+     * @return Treffer
+     */
+    List<Patient> searchArchive(String q);
+}
@@ -0,0 +1,298 @@
+package org.example.crud;
+
+import org.example.model.Patient;
+import org.example.spur.Spur;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Ergebnis einer Abfrage als Datenstrom statt als fertige Liste.
+ * Geliefert wird in Blöcken ({@code onNext} mit einer Liste von höchstens {@code block} Patienten),
+ * und nur so viele Blöcke, wie der Abonnent mit {@link Flow.Subscription#request(long)} verlangt.
+ * Verlangt er nichts, wird auch nichts gelesen; bei der Datenbank bleibt der Cursor dann offen
+ * stehen (mit {@code useCursorFetch} holt der Treiber jeweils nur {@code block} Zeilen vom Server).
+ * <p>
+ * Jedes Abonnement öffnet die Quelle neu, beim ersten {@code request}. Gelesen und ausgeliefert
+ * wird in einem eigenen virtuellen Thread, nie gleichzeitig für dasselbe Abonnement. Die Quelle
+ * (bei MySQL eine Verbindung aus dem Pool) wird nach dem letzten Block, bei einem Fehler und bei
+ * {@link Flow.Subscription#cancel()} geschlossen; wer abonniert, muss also bis zum Ende lesen
+ * oder abbrechen.
+ */
+public final class PatientStrom implements Flow.Publisher<List<Patient>> {
+
+    /**
+     * Eine geöffnete Abfrage, aus der blockweise gelesen wird.
+     */
+    public interface Quelle extends AutoCloseable {
+
+        /**
+         * Liest die nächsten Patienten.
+         *
+         * @param max höchstens so viele
+         * @return gelesene Patienten; weniger als {@code max} heißt, dass die Quelle erschöpft ist
+         * @throws Exception wenn nicht gelesen werden kann
+         */
+        List<Patient> naechste(int max) throws Exception;
+
+        /**
+         * Schließt die Abfrage (Cursor, Statement, Verbindung).
+         *
+         * @throws SQLException wenn nicht geschlossen werden kann
+         */
+        @Override
+        void close() throws SQLException;
+    }
+
+    /**
+     * Öffnet die Quelle für ein Abonnement.
+     */
+    @FunctionalInterface
+    public interface Oeffner {
+
+        /**
+         * Öffnet die Quelle.
+         *
+         * @return geöffnete Quelle
+         * @throws Exception wenn die Abfrage nicht gestartet werden kann
+         */
+        Quelle oeffnen() throws Exception;
+    }
+
+    private static final ExecutorService AUSFUEHRUNG =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("patient-strom-", 0).factory());
+
+    private final Oeffner oeffner;
+    private final int block;
+
+    /**
+     * @param oeffner öffnet die Quelle, einmal pro Abonnement
+     * @param block höchstens so viele Patienten pro Block
+     * @throws IllegalArgumentException wenn {@code block} kleiner als 1 ist
+     */
+    public PatientStrom(Oeffner oeffner, int block) {
+        if (block < 1) throw new IllegalArgumentException("Blockgröße muss mindestens 1 sein.");
+        this.oeffner = Objects.requireNonNull(oeffner);
+        this.block = block;
+    }
+
+    /**
+     * Strom über eine schon geladene Liste (z.B. aus der lokalen Replik).
+     *
+     * @param patienten auszuliefernde Patienten
+     * @param block höchstens so viele Patienten pro Block
+     * @return neuer Strom
+     */
+    public static PatientStrom ausListe(List<Patient> patienten, int block) {
+        return new PatientStrom(() -> ausIterator(patienten.iterator()), block);
+    }
+
+    /**
+     * Quelle über einen Iterator; die Patienten werden so übernommen, wie er sie liefert.
+     *
+     * @param it Iterator
+     * @return Quelle, deren {@code close()} nichts tut
+     */
+    public static Quelle ausIterator(Iterator<Patient> it) {
+        return new Quelle() {
+            @Override
+            public List<Patient> naechste(int max) {
+                List<Patient> out = new ArrayList<>(max);
+                while (out.size() < max && it.hasNext()) out.add(it.next());
+                return out;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /**
+     * Gibt einen Strom zurück, der beim Öffnen einspringt: Scheitert das Öffnen mit einer
+     * {@link RuntimeException} und liefert {@code ersatz} dafür eine Quelle, wird aus dieser gelesen.
+     * Fehler nach dem ersten Block werden nicht ersetzt, sonst käme ein Teil doppelt.
+     *
+     * @param ersatz bekommt den Fehler, gibt eine Ersatzquelle zurück oder null (dann bleibt es beim Fehler)
+     * @return neuer Strom
+     */
+    public PatientStrom mitErsatz(Function<RuntimeException, Quelle> ersatz) {
+        return new PatientStrom(() -> {
+            try {
+                return oeffner.oeffnen();
+            } catch (RuntimeException e) {
+                Quelle q = ersatz.apply(e);
+                if (q == null) throw e;
+                return q;
+            }
+        }, block);
+    }
+
+    /**
+     * Gibt einen Strom zurück, der jedes Abonnement als Abschnitt der übergebenen Spur aufzeichnet:
+     * vom Öffnen der Quelle bis zu ihrem Schließen (letzter Block, Fehler oder Abbruch), mit der
+     * Anzahl gelieferter Patienten unter {@code zeilen}.
+     *
+     * @param von Spur des Aufrufers, z.B. aus {@link Spur#uebergeben()}
+     * @param name Name des Abschnitts
+     * @return neuer Strom
+     */
+    public PatientStrom mitSpur(Spur.Uebergabe von, String name) {
+        return new PatientStrom(() -> {
+            Spur s = von.abzweigen(name);
+            Quelle q;
+            try {
+                q = oeffner.oeffnen();
+            } catch (Exception e) {
+                s.fehler(e).close();
+                throw e;
+            }
+            return new Quelle() {
+                private int zeilen;
+
+                @Override
+                public List<Patient> naechste(int max) throws Exception {
+                    try {
+                        List<Patient> teil = q.naechste(max);
+                        zeilen += teil.size();
+                        return teil;
+                    } catch (Exception e) {
+                        s.fehler(e);
+                        throw e;
+                    }
+                }
+
+                @Override
+                public void close() throws SQLException {
+                    try {
+                        q.close();
+                    } finally {
+                        s.attribut("zeilen", zeilen).close();
+                    }
+                }
+            };
+        }, block);
+    }
+
+    /**
+     * Gibt die Blockgröße zurück.
+     *
+     * @return höchstens so viele Patienten pro Block
+     */
+    public int getBlock() {
+        return block;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super List<Patient>> abonnent) {
+        Objects.requireNonNull(abonnent);
+        Abo abo = new Abo(abonnent);
+        abonnent.onSubscribe(abo);
+    }
+
+    /**
+     * Ein Abonnement. {@code request} und {@code cancel} merken sich nur die Nachfrage und stoßen
+     * {@link #run()} an; über {@code arbeit} läuft höchstens ein Durchlauf gleichzeitig, und
+     * Anstöße während eines Durchlaufs (auch aus {@code onNext} heraus) führen zu einer
+     * weiteren Runde statt zu einem zweiten Thread.
+     */
+    private final class Abo implements Flow.Subscription, Runnable {
+
+        private final Flow.Subscriber<? super List<Patient>> abonnent;
+        private final AtomicLong nachfrage = new AtomicLong();
+        private final AtomicInteger arbeit = new AtomicInteger();
+        private volatile boolean abgebrochen;
+        private volatile IllegalArgumentException falscheNachfrage;
+
+        // nur im laufenden Durchlauf benutzt
+        private Quelle quelle;
+        private boolean fertig;
+
+        Abo(Flow.Subscriber<? super List<Patient>> abonnent) {
+            this.abonnent = abonnent;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                falscheNachfrage = new IllegalArgumentException("request(" + n + "): Nachfrage muss positiv sein.");
+            } else {
+                nachfrage.getAndUpdate(v -> v + n < 0 ? Long.MAX_VALUE : v + n);
+            }
+            anstossen();
+        }
+
+        @Override
+        public void cancel() {
+            abgebrochen = true;
+            anstossen();
+        }
+
+        private void anstossen() {
+            if (arbeit.getAndIncrement() == 0) AUSFUEHRUNG.execute(this);
+        }
+
+        @Override
+        public void run() {
+            int runden = 1;
+            do {
+                durchlauf();
+                runden = arbeit.addAndGet(-runden);
+            } while (runden != 0);
+        }
+
+        private void durchlauf() {
+            if (fertig) return;
+            if (abgebrochen) {
+                beenden();
+                return;
+            }
+            if (falscheNachfrage != null) {
+                beenden();
+                abonnent.onError(falscheNachfrage);
+                return;
+            }
+            try {
+                if (quelle == null && nachfrage.get() > 0) quelle = oeffner.oeffnen();
+                while (nachfrage.get() > 0 && !abgebrochen) {
+                    List<Patient> teil = quelle.naechste(block);
+                    boolean ende = teil.size() < block;
+                    if (ende) beenden();
+                    if (!teil.isEmpty()) {
+                        if (nachfrage.get() != Long.MAX_VALUE) nachfrage.decrementAndGet();
+                        abonnent.onNext(teil);
+                    }
+                    if (ende) {
+                        abonnent.onComplete();
+                        return;
+                    }
+                }
+                if (abgebrochen) beenden();
+            } catch (Exception e) {
+                beenden();
+                abonnent.onError(e);
+            }
+        }
+
+        private void beenden() {
+            fertig = true;
+            if (quelle == null) return;
+            try {
+                quelle.close();
+            } catch (SQLException | RuntimeException ignored) {
+                // Abfrage ist ohnehin vorbei
+            } finally {
+                quelle = null;
+            }
+        }
+    }
+}
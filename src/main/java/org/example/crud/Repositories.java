@@ -0,0 +1,71 @@
+package org.example.crud;
+
+import org.example.Konfiguration;
+import org.example.speicher.SpeicherPatientRepository;
+import org.example.speicher.SpeicherStationRepository;
+import org.example.spur.Spuren;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Wählt das Speicher-Backend über die Einstellung {@code backend} ({@link Konfiguration}):
+ * {@code jdbc} (Standard, MySQL) oder {@code memory} (alles im Speicher, Schnappschuss im
+ * Verzeichnis {@code patienten.speicher.dir}, Standard {@code ~/.patientenaufnahme/speicher}).
+ * Die Instanzen werden einmal angelegt und von allen Kontrollklassen geteilt. Jeder Aufruf
+ * wird als Abschnitt der laufenden {@link org.example.spur.Spur} gemessen ({@link Spuren#gemessen}).
+ */
+public final class Repositories {
+
+    private static final boolean SPEICHER = "memory".equalsIgnoreCase(Konfiguration.get().get("backend", "jdbc"));
+
+    private static PatientRepository patienten;
+    private static StationRepository stationen;
+
+    private Repositories() {
+    }
+
+    /**
+     * Gibt zurück, ob das In-Memory-Backend (ohne MySQL) verwendet wird.
+     * @return true bei {@code patienten.backend=memory}
+     */
+    public static boolean istSpeicher() {
+        return SPEICHER;
+    }
+
+    /**
+     * Gibt das Patienten-Repository des gewählten Backends zurück.
+     * @return PatientRepository
+     */
+    public static synchronized PatientRepository patienten() {
+        if (patienten == null) {
+            PatientRepository r;
+            if (SPEICHER) {
+                SpeicherPatientRepository speicher = new SpeicherPatientRepository(verzeichnis().resolve("patienten.bin"));
+                speicher.start();
+                r = speicher;
+            } else {
+                r = new PatientCrud();
+            }
+            patienten = Spuren.gemessen(PatientRepository.class, r);
+        }
+        return patienten;
+    }
+
+    /**
+     * Gibt das Stations-Repository des gewählten Backends zurück.
+     * @return StationRepository
+     */
+    public static synchronized StationRepository stationen() {
+        if (stationen == null) {
+            stationen = Spuren.gemessen(StationRepository.class, SPEICHER
+                    ? new SpeicherStationRepository(verzeichnis().resolve("stationen.txt")) : new StationCrud());
+        }
+        return stationen;
+    }
+
+    private static Path verzeichnis() {
+        return Paths.get(Konfiguration.get().get("speicher.dir",
+                System.getProperty("user.home") + "/.patientenaufnahme/speicher"));
+    }
+}
@@ -12,7 +12,12 @@ import java.util.List;
  * Diese Klasse stellt aktuell nur eine Lese-Operation bereit, um alle Stationen aus der
  * Datenbank zu holen und als Objekte zurückzugeben
  */
-public class StationCrud {
+public class StationCrud implements StationRepository {
+
+    /**
+     * Alle Stationen nach Name; Raum wird als id „gemappt“, damit alter Code weiter funktioniert.
+     */
+    public static final String FIND_ALL_SQL = "SELECT Raum AS id, name, max_betten FROM station ORDER BY name";
 
     /**
      * Lädt alle Stationen aus der Datenbank.
@@ -21,12 +26,10 @@ public class StationCrud {
      * @throws RuntimeException wenn die Stationen nicht geladen werden können
      */
     public List<Station> findAll() {
-    // Raum wird als id „gemappt“, damit alter Code weiter funktioniert
-    String sql = "SELECT Raum AS id, name, max_betten FROM station ORDER BY name";
     List<Station> out = new ArrayList<>();
 
-    try (Connection con = DB.getConnection();
-         PreparedStatement ps = con.prepareStatement(sql);
+    try (Connection con = DB.getReadConnection();
+         PreparedStatement ps = DB.prepare(con, FIND_ALL_SQL);
          ResultSet rs = ps.executeQuery()) {
 
         while (rs.next()) {
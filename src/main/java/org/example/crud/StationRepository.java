@@ -0,0 +1,19 @@
+package org.example.crud;
+
+import org.example.model.Station;
+
+import java.util.List;
+
+/**
+ * Speicherzugriff für Stationen. Implementierungen: {@link StationCrud} (MySQL) und
+ * {@link org.example.speicher.SpeicherStationRepository} (Textdatei).
+ */
+public interface StationRepository {
+
+    /**
+     * Lädt alle Stationen, sortiert nach Name.
+     * @return Stationen
+     * @throws RuntimeException wenn die Stationen nicht geladen werden können
+     */
+    List<Station> findAll();
+}
@@ -0,0 +1,142 @@
+package org.example.export;
+
+import org.example.model.Patient;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+
+/**
+ * Schreibt einen Strom von Patienten (z.B. {@link org.example.crud.PatientStrom}) als CSV
+ * (Trennzeichen {@code ;}, erste Zeile Spaltennamen wie in der Tabelle {@code patient}).
+ * Es wird immer nur ein Block verlangt und erst nach dem Schreiben der nächste; ein langsamer
+ * Empfänger bremst so die Abfrage, statt dass sich Zeilen im Speicher stapeln.
+ * Felder mit {@code ;}, Anführungszeichen oder Zeilenumbruch werden in Anführungszeichen gesetzt.
+ */
+public final class PatientCsvExport implements Flow.Subscriber<List<Patient>> {
+
+    /**
+     * Kopfzeile der CSV-Datei.
+     */
+    public static final String KOPF = "id;first_name;last_name;birth_date;svnr;phone;address;reason;station_id\n";
+
+    private final Writer ziel;
+    private final CompletableFuture<Long> fertig = new CompletableFuture<>();
+
+    private Flow.Subscription abo;
+    private long zeilen;
+
+    /**
+     * @param ziel Ziel, wird nach jedem Block geleert, aber nicht geschlossen
+     */
+    public PatientCsvExport(Writer ziel) {
+        this.ziel = ziel;
+    }
+
+    /**
+     * Schreibt den ganzen Strom und wartet, bis er zu Ende ist.
+     *
+     * @param strom zu schreibende Patienten
+     * @param ziel Ziel, wird nicht geschlossen
+     * @return Anzahl geschriebener Patienten
+     * @throws IOException wenn nicht geschrieben werden kann
+     * @throws RuntimeException wenn die Abfrage scheitert
+     */
+    public static long schreiben(Flow.Publisher<List<Patient>> strom, Writer ziel) throws IOException {
+        PatientCsvExport export = new PatientCsvExport(ziel);
+        strom.subscribe(export);
+        try {
+            return export.getFertig().join();
+        } catch (CompletionException e) {
+            Throwable c = e.getCause();
+            if (c instanceof UncheckedIOException io) throw io.getCause();
+            if (c instanceof RuntimeException re) throw re;
+            throw new RuntimeException("Export konnte nicht erstellt werden.", c);
+        }
+    }
+
+    /**
+     * Gibt das Ende des Exports zurück.
+     *
+     * @return wird mit der Anzahl geschriebener Patienten erfüllt oder scheitert mit dem Fehler
+     */
+    public CompletableFuture<Long> getFertig() {
+        return fertig;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription abo) {
+        this.abo = abo;
+        try {
+            ziel.write(KOPF);
+        } catch (IOException e) {
+            abbrechen(e);
+            return;
+        }
+        abo.request(1);
+    }
+
+    @Override
+    public void onNext(List<Patient> block) {
+        if (fertig.isDone()) return;
+        try {
+            StringBuilder sb = new StringBuilder(block.size() * 120);
+            for (Patient p : block) zeile(sb, p);
+            ziel.write(sb.toString());
+            ziel.flush();
+        } catch (IOException e) {
+            abbrechen(e);
+            return;
+        }
+        zeilen += block.size();
+        abo.request(1);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        fertig.completeExceptionally(t);
+    }
+
+    @Override
+    public void onComplete() {
+        try {
+            ziel.flush();
+            fertig.complete(zeilen);
+        } catch (IOException e) {
+            fertig.completeExceptionally(new UncheckedIOException(e));
+        }
+    }
+
+    private void abbrechen(IOException e) {
+        abo.cancel();
+        fertig.completeExceptionally(new UncheckedIOException(e));
+    }
+
+    private static void zeile(StringBuilder sb, Patient p) {
+        sb.append(p.getId()).append(';');
+        feld(sb, p.getFirstName()).append(';');
+        feld(sb, p.getLastName()).append(';');
+        feld(sb, p.getBirthDate() == null ? null : p.getBirthDate().toString()).append(';');
+        feld(sb, p.getSvnr()).append(';');
+        feld(sb, p.getPhone()).append(';');
+        feld(sb, p.getAddress()).append(';');
+        feld(sb, p.getReason()).append(';');
+        if (p.getStationId() != null) sb.append(p.getStationId());
+        sb.append('\n');
+    }
+
+    private static StringBuilder feld(StringBuilder sb, String s) {
+        if (s == null) return sb;
+        boolean quoten = false;
+        for (int i = 0; i < s.length() && !quoten; i++) {
+            char c = s.charAt(i);
+            quoten = c == ';' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quoten) return sb.append(s);
+        return sb.append('"').append(s.replace("\"", "\"\"")).append('"');
+    }
+}
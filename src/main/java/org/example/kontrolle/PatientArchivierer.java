@@ -0,0 +1,92 @@
+package org.example.kontrolle;
+
+import org.example.Konfiguration;
+import org.example.crud.PatientArchivCrud;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hintergrunddienst, der die Tabelle {@code patient} klein hält.
+ * In regelmäßigen Abständen werden entlassene Patienten nach Ablauf der Frist ins Archiv
+ * verschoben und gelöschte endgültig entfernt, jeweils in kleinen Portionen mit Pause
+ * dazwischen, damit die Suchen an den Plätzen nicht ausgebremst werden.
+ * Frist, Portionsgröße und Intervall können über System-Properties eingestellt werden
+ * ({@code patienten.archiv.tage}, {@code patienten.archiv.batch}, {@code patienten.archiv.minuten}).
+ */
+public class PatientArchivierer {
+
+    private final PatientArchivCrud crud = new PatientArchivCrud();
+
+    private final int tage = Konfiguration.get().getInt("archiv.tage", 30);
+    private final int batch = Konfiguration.get().getInt("archiv.batch", 500);
+    private final int minuten = Konfiguration.get().getInt("archiv.minuten", 15);
+
+    private ScheduledExecutorService timer;
+
+    /**
+     * Startet den Dienst in einem Daemon-Thread (der erste Lauf nach einer Minute).
+     */
+    public synchronized void start() {
+        if (timer != null) return;
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "patient-archivierer");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        timer.scheduleWithFixedDelay(this::runSafe, 1, minuten, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Stoppt den Dienst.
+     */
+    public synchronized void stop() {
+        if (timer == null) return;
+        timer.shutdownNow();
+        timer = null;
+    }
+
+    /**
+     * Führt einen kompletten Durchlauf aus: erst archivieren, dann bereinigen.
+     * Es wird so lange portionsweise gearbeitet, bis eine Portion nicht mehr voll ist.
+     *
+     * @return Anzahl verschobener plus entfernter Patienten
+     * @throws InterruptedException wenn der Thread während der Pause unterbrochen wird
+     */
+    public int runOnce() throws InterruptedException {
+        LocalDateTime grenze = LocalDateTime.now().minusDays(tage);
+        int total = 0;
+
+        int n;
+        do {
+            n = crud.archiveDischarged(grenze, batch);
+            total += n;
+            if (n == batch) Thread.sleep(200);
+        } while (n == batch);
+
+        do {
+            n = crud.purgeDeleted(grenze, batch);
+            total += n;
+            if (n == batch) Thread.sleep(200);
+        } while (n == batch);
+
+        return total;
+    }
+
+    /**
+     * Lauf für den Timer: Fehler (z.B. DB nicht erreichbar) werden nur gemeldet,
+     * der nächste Lauf versucht es wieder.
+     */
+    private void runSafe() {
+        try {
+            runOnce();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            System.err.println("Archivierung fehlgeschlagen: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.kontrolle;
+
+import org.example.model.Patient;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Lädt die vollständigen Daten einzelner Patienten und hält die zuletzt benutzten in einem
+ * LRU-Cache. Die Tabelle zeigt nur die Listenfelder; wenn ein Patient ausgewählt wird, kann man
+ * die Nachbarzeilen im Hintergrund vorladen lassen, damit das Weiterblättern mit den Pfeiltasten
+ * nicht auf die Datenbank warten muss.
+ * Einträge gelten nur für die Zeilenversion, mit der sie geladen wurden.
+ */
+public class PatientDetailLader {
+
+    private final PatientKontrolle pk;
+    private final int kapazitaet;
+
+    /**
+     * LRU-Cache (Zugriffsreihenfolge), Zugriff nur synchronisiert.
+     */
+    private final LinkedHashMap<Integer, Patient> cache;
+
+    /**
+     * IDs, die gerade im Hintergrund geladen werden (damit nichts doppelt geladen wird).
+     */
+    private final Set<Integer> inArbeit = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService vorlader = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "detail-vorlader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Erstellt einen Lader mit Platz für die angegebene Anzahl Patienten.
+     *
+     * @param pk Kontrollklasse, über die geladen wird
+     * @param kapazitaet maximale Anzahl Patienten im Cache
+     */
+    public PatientDetailLader(PatientKontrolle pk, int kapazitaet) {
+        this.pk = pk;
+        this.kapazitaet = kapazitaet;
+        this.cache = new LinkedHashMap<>(kapazitaet * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Patient> eldest) {
+                return size() > PatientDetailLader.this.kapazitaet;
+            }
+        };
+    }
+
+    /**
+     * Gibt die Details aus dem Cache zurück, ohne die Datenbank zu fragen.
+     *
+     * @param listenZeile Patient aus der Tabelle (ID und Version werden verglichen)
+     * @return Kopie der Details oder null, wenn nicht (in dieser Version) im Cache
+     */
+    public Patient getCached(Patient listenZeile) {
+        synchronized (cache) {
+            Patient p = cache.get(listenZeile.getId());
+            if (p == null || p.getVersion() != listenZeile.getVersion()) return null;
+            return new Patient(p);
+        }
+    }
+
+    /**
+     * Gibt die Details zurück, bei Bedarf aus der Datenbank (blockiert, nicht im EDT aufrufen).
+     *
+     * @param listenZeile Patient aus der Tabelle
+     * @return Kopie der Details oder null, wenn der Patient nicht mehr existiert
+     */
+    public Patient load(Patient listenZeile) {
+        Patient p = getCached(listenZeile);
+        if (p != null) return p;
+
+        Patient geladen = pk.findById(listenZeile.getId());
+        if (geladen == null) return null;
+        synchronized (cache) {
+            cache.put(geladen.getId(), geladen);
+        }
+        return new Patient(geladen);
+    }
+
+    /**
+     * Lädt die angegebenen Patienten im Hintergrund in den Cache, falls sie noch fehlen.
+     *
+     * @param zeilen Patienten aus der Tabelle (z.B. die Nachbarn der Auswahl)
+     */
+    public void prefetch(Patient... zeilen) {
+        for (Patient z : zeilen) {
+            if (z == null || getCached(z) != null || !inArbeit.add(z.getId())) continue;
+            vorlader.execute(() -> {
+                try {
+                    load(z);
+                } catch (RuntimeException ignored) {
+                    // Vorladen ist nur eine Optimierung, beim Auswählen wird es noch einmal versucht
+                } finally {
+                    inArbeit.remove(z.getId());
+                }
+            });
+        }
+    }
+
+    /**
+     * Entfernt einen Patienten aus dem Cache (nach Ändern oder Löschen).
+     *
+     * @param id Patienten-ID
+     */
+    public void invalidate(int id) {
+        synchronized (cache) {
+            cache.remove(id);
+        }
+    }
+}
@@ -1,40 +1,326 @@
 package org.example.kontrolle;
 
-import org.example.crud.PatientCrud;
+import org.example.Konfiguration;
+import org.example.crud.PatientKonfliktException;
+import org.example.crud.PatientRepository;
+import org.example.crud.PatientRepository.SuchErgebnis;
+import org.example.crud.PatientStrom;
+import org.example.crud.Repositories;
 import org.example.model.Patient;
+import org.example.model.PatientFeld;
+import org.example.offline.OfflineSpeicher;
+import org.example.pruefung.PatientValidator;
+import org.example.pruefung.PruefErgebnis;
+import org.example.spur.Spur;
+import org.example.statistik.StationStatistik;
+import org.example.suche.NamensIndex;
 
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.nio.file.Paths;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Kontroll- und Validierungslogik für Patienten.
  * Diese Klasse liegt zwischen UI/Anwendung und Datenbankzugriff und übernimmt:
  * Validierung der Eingaben, Normalisierung von Textfeldern sowie das weiterleiten
  * der CRUDoperationen
+ * Ist der Datenbankserver nicht erreichbar, wird auf den {@link OfflineSpeicher} ausgewichen:
+ * gesucht wird dann in der lokalen Replik, Änderungen landen im Schreibjournal.
+ * Gleiche Suchen, die gleichzeitig laufen, werden über {@link SuchBuendelung} zu einer
+ * Datenbankabfrage zusammengefasst und kurz gemerkt (Standard 2 Sekunden, {@code suche.ttl.ms} in der
+ * {@link Konfiguration}); jede Änderung über diese Instanz verwirft ihre gemerkten Ergebnisse.
  */
 public class PatientKontrolle {
 
+    private static final long SUCHE_TTL_MS = Konfiguration.get().getLong("suche.ttl.ms", 2_000);
+
+    /**
+     * Gebündelte Suchen dieser Instanz (im Server also aller Anfragen); pro Instanz, weil die
+     * Ergebnisse vom Backend abhängen.
+     */
+    private final SuchBuendelung<List<Patient>> suche = new SuchBuendelung<>(SUCHE_TTL_MS, 500);
+    private final SuchBuendelung<List<Patient>> sucheListe = new SuchBuendelung<>(SUCHE_TTL_MS, 500);
+    private final SuchBuendelung<SuchErgebnis> sucheTopK = new SuchBuendelung<>(SUCHE_TTL_MS, 500);
+
+    /**
+     * Zum Zugreifen für Datenbanken operationen rund um Patienten (MySQL oder In-Memory,
+     * siehe {@link Repositories}).
+     */
+    private final PatientRepository crud;
+
+    /**
+     * Lokale Replik und Schreibjournal für den Betrieb ohne Serververbindung.
+     */
+    private final OfflineSpeicher offline = OfflineSpeicher.getInstance();
+
+    /**
+     * Vollständige Liste aus dem Schnappschuss, wird nur über Änderungen mit dem Server abgeglichen.
+     */
+    private final PatientListenAbgleich liste;
+
+    /**
+     * Zuletzt geladene vollständige Liste und der daraus (bei Bedarf) gebaute Namensindex
+     * für die unscharfe Suche.
+     */
+    private volatile List<Patient> letzteListe = List.of();
+    private volatile NamensIndex namen;
+
+    /**
+     * Laufende Zähler pro Station und Grund, werden bei jeder Änderung mitgeführt.
+     */
+    private final StationStatistik statistik = StationStatistik.getInstance();
+
     /**
-     * Zum Zugreifen für Datenbanken operationen rund um Patienten.
+     * Prüft und normalisiert die Eingaben (zustandslos, für alle Instanzen gemeinsam).
      */
-    private final PatientCrud crud = new PatientCrud();
+    private static final PatientValidator VALIDATOR = new PatientValidator();
 
     /**
-     * Formatiert für die letzten 6 Ziffern der SVNR anhand des Geburtsdatums
+     * Felder, die der Validator normalisiert.
      */
-    private static final DateTimeFormatter SVNR_DATE = DateTimeFormatter.ofPattern("ddMMyy");
+    private static final Set<PatientFeld> NORMALISIERT =
+            EnumSet.of(PatientFeld.FIRST_NAME, PatientFeld.LAST_NAME, PatientFeld.REASON, PatientFeld.ADDRESS);
+
+    /**
+     * Verwendet das eingestellte Backend ({@code patienten.backend}).
+     */
+    public PatientKontrolle() {
+        this(Repositories.patienten());
+    }
+
+    /**
+     * @param crud Patientenzugriff, z.B. ein In-Memory-Backend für Tests
+     */
+    public PatientKontrolle(PatientRepository crud) {
+        this.crud = crud;
+        this.liste = new PatientListenAbgleich(crud,
+                Paths.get(Konfiguration.get().get("offline.dir", System.getProperty("user.home") + "/.patientenaufnahme"),
+                        "liste.snap"));
+    }
 
     /**
      * führt Suche nach Patienten durch.
-     * eigentliche Suche wird an PatientCrud weitergegeben.
+     * eigentliche Suche wird an das PatientRepository weitergegeben.
      *
      * @param query Suchbegriff
-     * @return Liste der gefundenen Patienten
+     * @return Liste der gefundenen Patienten (nicht veränderbar, wird evtl. geteilt)
      */
     public List<Patient> search(String query) {
+        try (Spur s = Spur.start("PatientKontrolle.search")) {
+            try {
+                List<Patient> out = suche.get(schluessel(query), () -> List.copyOf(crud.search(query)));
+                offline.online();
+                return out;
+            } catch (RuntimeException e) {
+                if (!offline.uebernehmen(e)) throw e;
+                s.attribut("offline", true);
+                return offline.getReplik().search(query);
+            }
+        }
+    }
+
+    /**
+     * Sucht Patienten für die Tabellenansicht (nur die angezeigten Spalten).
+     * Die vollständigen Daten eines Patienten liefert {@link #findById(int)}.
+     *
+     * @param query Suchbegriff
+     * @return Liste der gefundenen Patienten mit Listenfeldern (nicht veränderbar, wird evtl. geteilt)
+     */
+    public List<Patient> searchList(String query) {
+        try (Spur s = Spur.start("PatientKontrolle.searchList")) {
+            try {
+                List<Patient> out = sucheListe.get(schluessel(query), () -> List.copyOf(crud.searchList(query)));
+                offline.online();
+                return out;
+            } catch (RuntimeException e) {
+                if (!offline.uebernehmen(e)) throw e;
+                s.attribut("offline", true);
+                return offline.getReplik().search(query);
+            }
+        }
+    }
+
+    /**
+     * Sucht Patienten für die Tabellenansicht, aber höchstens {@code limit} Treffer, die besten
+     * zuerst (genaue SVNR, dann Namensanfänge). Bei sehr vielen Treffern ist die Gesamtzahl
+     * nur geschätzt.
+     *
+     * @param query Suchbegriff
+     * @param limit höchstens so viele Treffer
+     * @return begrenzte Trefferliste mit Listenfeldern (nicht veränderbar, wird evtl. geteilt)
+     */
+    public SuchErgebnis searchTopK(String query, int limit) {
+        try (Spur s = Spur.start("PatientKontrolle.searchTopK")) {
+            try {
+                SuchErgebnis out = sucheTopK.get(schluessel(query) + '\u0000' + limit, () -> {
+                    SuchErgebnis e = crud.searchTopK(query, limit);
+                    return new SuchErgebnis(List.copyOf(e.treffer()), e.gesamt(), e.geschaetzt());
+                });
+                offline.online();
+                s.attribut("gekuerzt", out.istGekuerzt());
+                return out;
+            } catch (RuntimeException e) {
+                if (!offline.uebernehmen(e)) throw e;
+                s.attribut("offline", true);
+                return SuchErgebnis.rangliste(offline.getReplik().search(query), query, limit);
+            }
+        }
+    }
+
+    /**
+     * Sucht Patienten wie {@link #search(String)}, liefert sie aber als Datenstrom in Blöcken,
+     * damit der Aufrufer mit den ersten Treffern arbeiten kann, bevor der letzte gelesen ist.
+     * Ist der Server beim Öffnen nicht erreichbar, kommen die Treffer aus der lokalen Replik.
+     * Jedes Abonnement erscheint in der Spur des Aufrufers, bis der Strom geschlossen wird.
+     *
+     * @param query Suchbegriff
+     * @param block höchstens so viele Patienten pro Block
+     * @return Strom der Treffer mit allen Feldern
+     */
+    public PatientStrom searchStream(String query, int block) {
+        return crud.searchStream(query, block).mitErsatz(e -> offline.uebernehmen(e)
+                ? PatientStrom.ausIterator(offline.getReplik().search(query).iterator())
+                : null).mitSpur(Spur.uebergeben(), "PatientKontrolle.searchStream");
+    }
+
+    /**
+     * Gibt die zuletzt gespeicherte vollständige Liste zurück, ohne den Server zu fragen.
+     * Zum sofortigen Anzeigen beim Start; danach {@link #reconcileList()} aufrufen.
+     *
+     * @return Patienten mit Listenfeldern, leer wenn es noch keinen Schnappschuss gibt
+     */
+    public List<Patient> loadListSnapshot() {
+        List<Patient> out = liste.ausSnapshot();
+        merkeListe(out);
+        return out;
+    }
+
+    /**
+     * Liefert alle aktiven Patienten für die Tabellenansicht. Geladen werden nur die Änderungen
+     * seit dem letzten Abgleich; ohne Serververbindung wird aus der lokalen Replik gelesen.
+     *
+     * @return Liste aller aktiven Patienten mit Listenfeldern
+     */
+    public List<Patient> reconcileList() {
+        try (Spur s = Spur.start("PatientKontrolle.reconcileList")) {
+            try {
+                List<Patient> out = liste.abgleichen();
+                offline.online();
+                merkeListe(out);
+                return out;
+            } catch (RuntimeException e) {
+                if (!offline.uebernehmen(e)) throw e;
+                s.attribut("offline", true);
+                return offline.getReplik().search("");
+            }
+        }
+    }
+
+    /**
+     * Unscharfe Namenssuche für Tippfehler und ähnlich klingende Namen (Meier/Maier/Mayer).
+     * Kandidaten kommen aus dem Namensindex über die zuletzt geladene Liste und – wenn der Server
+     * erreichbar ist – aus der Phonetik-Spalte der Datenbank (findet auch gerade neu angelegte).
+     *
+     * @param query ein oder mehrere Namen
+     * @param limit maximale Anzahl Treffer
+     * @return Treffer mit Listenfeldern, der ähnlichste zuerst
+     */
+    public List<Patient> searchFuzzy(String query, int limit) {
+        try (Spur s = Spur.start("PatientKontrolle.searchFuzzy")) {
+            NamensIndex idx = namen;
+            if (idx == null) {
+                idx = NamensIndex.aufbauen(letzteListe);
+                namen = idx;
+            }
+
+            Map<Integer, Patient> kandidaten = new LinkedHashMap<>();
+            for (Patient p : idx.suche(query, limit)) kandidaten.put(p.getId(), p);
+            try {
+                for (Patient p : crud.searchPhonetic(query)) kandidaten.put(p.getId(), p);
+                offline.online();
+            } catch (RuntimeException e) {
+                if (!offline.uebernehmen(e)) throw e;
+                s.attribut("offline", true);
+            }
+            return NamensIndex.rangliste(query, kandidaten.values(), limit);
+        }
+    }
 
-        return crud.search(query);
+    private void merkeListe(List<Patient> ps) {
+        letzteListe = ps;
+        namen = null;
+    }
+
+    /**
+     * Schlüssel für die Bündelung: so normalisiert, wie {@link org.example.crud.PatientCrud} die Suche ohnehin behandelt.
+     */
+    private static String schluessel(String query) {
+        return query == null ? "" : query.toLowerCase();
+    }
+
+    /**
+     * Verwirft gemerkte Suchergebnisse nach einer Änderung.
+     */
+    private void sucheVerwerfen() {
+        suche.invalidate();
+        sucheListe.invalidate();
+        sucheTopK.invalidate();
+    }
+
+    /**
+     * Lädt alle Daten eines Patienten.
+     *
+     * @param id Patienten-ID
+     * @return Patient oder null, wenn es ihn nicht (mehr) gibt
+     */
+    public Patient findById(int id) {
+        try (Spur s = Spur.start("PatientKontrolle.findById")) {
+            try {
+                Patient p = crud.findById(id);
+                offline.online();
+                return p;
+            } catch (RuntimeException e) {
+                if (!offline.uebernehmen(e)) throw e;
+                s.attribut("offline", true);
+                return offline.getReplik().get(id);
+            }
+        }
+    }
+
+    /**
+     * Gibt zurück, ob zuletzt ohne Serververbindung (aus der lokalen Replik) gearbeitet wurde.
+     *
+     * @return true, wenn offline
+     */
+    public boolean isOffline() {
+
+        return offline.isOffline();
+    }
+
+    /**
+     * Gibt die offline gemachten Änderungen zurück, die beim Übertragen wegen eines Konflikts
+     * nicht übernommen wurden, jede nur einmal.
+     *
+     * @return Meldungen für den Benutzer (leer, wenn es keine gab)
+     */
+    public List<String> abholenOfflineKonflikte() {
+
+        return offline.abholenKonflikte();
+    }
+
+    /**
+     * Sucht unter den entlassenen Patienten (Archiv und noch nicht archivierte).
+     * Die normale Suche sieht nur aktive Patienten, das Archiv muss ausdrücklich gewählt werden.
+     *
+     * @param query Suchbegriff
+     * @return Liste der gefundenen entlassenen Patienten
+     */
+    public List<Patient> searchArchive(String query) {
+
+        return crud.searchArchive(query);
     }
 
     /**
@@ -53,16 +339,52 @@ public class PatientKontrolle {
     /**
      * Speichert einen Patienten in der Datenbank
      * Vor dem Speichern wird checkPatient(Patient) aufgerufe
-     * wenn ID noch nicht gesetzt ist (<= 0), wird Insert gemacht,
-     * sonst ein Update
+     * wenn ID noch nicht gesetzt ist (0), wird Insert gemacht,
+     * sonst ein Update der geänderten Felder (eine Verlegung ist ein Update der Station).
+     * Eine negative ID gehört zu einem offline angelegten Patienten: solange das Journal noch
+     * aussteht, ist das eine Offline-Änderung, danach wird die ID auf die Server-ID umgeschrieben.
+     * Danach wird die Stationsstatistik nachgeführt.
      *
      * @param p Patient-Objekt mit den zu speichernden Daten
      * @throws IllegalArgumentException wenn Validierungsfehler auftreten
      */
     public void save(Patient p) {
-        checkPatient(p);
-        if (p.getId() <= 0) crud.insert(p);
-        else crud.update(p);
+        try (Spur s = Spur.start("PatientKontrolle.save")) {
+            checkPatient(p);
+            boolean neu = p.getId() == 0;
+            s.attribut("neu", neu);
+            Set<PatientFeld> geaendert = p.getDirtyFields();
+            try {
+                store(p);
+            } finally {
+                sucheVerwerfen();
+            }
+
+            Integer station = neu || geaendert.contains(PatientFeld.STATION_ID) || statistik.getStation(p.getId()) == null
+                    ? p.getStationId() : statistik.getStation(p.getId());
+            String grund = neu || geaendert.contains(PatientFeld.REASON) || statistik.getGrund(p.getId()) == null
+                    ? p.getReason() : statistik.getGrund(p.getId());
+            statistik.gespeichert(p.getId(), station, grund);
+        }
+    }
+
+    /**
+     * Schreibt einen geprüften Patienten in die DB bzw. offline ins Journal.
+     *
+     * @param p zu speichernder Patient
+     */
+    private void store(Patient p) {
+        if (offline.hatOffeneAenderungen()) {
+            offline.speichern(p);
+            return;
+        }
+        try {
+            if (p.getId() == 0) crud.insert(p);
+            else crud.update(endgueltig(p));
+        } catch (RuntimeException e) {
+            if (!offline.uebernehmen(e)) throw e;
+            offline.speichern(p);
+        }
     }
 
     /**
@@ -71,76 +393,86 @@ public class PatientKontrolle {
      * @param id ID vom zu löschenden Patienten
      */
     public void delete(int id) {
-
-        crud.deleteById(id);
+        try (Spur s = Spur.start("PatientKontrolle.delete")) {
+            if (offline.hatOffeneAenderungen()) {
+                offline.loeschen(id);
+            } else {
+                try {
+                    crud.deleteById(endgueltig(id));
+                } catch (RuntimeException e) {
+                    if (!offline.uebernehmen(e)) throw e;
+                    s.attribut("offline", true);
+                    offline.loeschen(id);
+                }
+            }
+            sucheVerwerfen();
+            statistik.entfernt(offline.endgueltigeId(id));
+        }
     }
 
     /**
-     * Validiert und normalisiert die Patientendaten
-     * Es werden Pflichtfelder geprüft, einige Textfelder normalisiert (1.ster Buchstabe groß,
-     * Rest klein) und auch die SVNR sowie Telefonnummer anhand einfacher Regeln geprüft
-     * Bei Fehlern werden alle Meldungen gesammelt und zrk.gegeben
+     * Entlässt einen Patienten wegen ID
      *
-     * @param p Patient-Objekt, das geprüft werden soll
-     * @throws IllegalArgumentException wenn der Patient null ist oder Validierungsfehler auftreten
+     * @param id ID vom zu entlassenden Patienten
      */
-    private void checkPatient(Patient p) {
-        if (p == null) throw new IllegalArgumentException("Patientendaten fehlen.");
-
-        List<String> errors = new ArrayList<>();
-
-        p.setFirstName(firstUpperRestLower(p.getFirstName()));
-        p.setLastName(firstUpperRestLower(p.getLastName()));
-        p.setReason(firstUpperRestLower(p.getReason()));
-        p.setAddress(firstUpperRestLower(p.getAddress()));
-
-        if (isEmpty(p.getFirstName())) errors.add("Vorname fehlt.");
-        if (isEmpty(p.getLastName())) errors.add("Nachname fehlt.");
-        if (p.getBirthDate() == null) errors.add("Geburtsdatum fehlt.");
-        if (isEmpty(p.getSvnr())) errors.add("SVNR fehlt.");
-        if (isEmpty(p.getPhone())) errors.add("Telefonnummer fehlt.");
-        if (isEmpty(p.getReason())) errors.add("Grund für Aufenthalt fehlt.");
-        if (isEmpty(p.getAddress())) errors.add("Die Adresse fehlt – bitte eintragen.");
-        if (p.getStationId() == null) errors.add("Bitte eine Station auswählen.");
-
-        String svnr = p.getSvnr();
-        if (!isEmpty(svnr) && !svnr.matches("\\d{10}")) {
-            errors.add("SVNR muss genau 10 Ziffern haben.");
-        } else if (!isEmpty(svnr) && p.getBirthDate() != null) {
-            String expected = p.getBirthDate().format(SVNR_DATE);
-            String last6 = svnr.substring(4);
-            if (!last6.equals(expected)) {
-                errors.add("SVNR ungültig: letzte 6 Ziffern müssen dem Geburtsdatum (TTMMJJ) entsprechen.");
+    public void discharge(int id) {
+        try (Spur s = Spur.start("PatientKontrolle.discharge")) {
+            if (offline.hatOffeneAenderungen()) {
+                offline.entlassen(id);
+            } else {
+                try {
+                    crud.dischargeById(endgueltig(id));
+                } catch (RuntimeException e) {
+                    if (!offline.uebernehmen(e)) throw e;
+                    s.attribut("offline", true);
+                    offline.entlassen(id);
+                }
             }
+            sucheVerwerfen();
+            statistik.entfernt(offline.endgueltigeId(id));
         }
-
-        String phone = p.getPhone();
-        if (!isEmpty(phone) && !phone.matches("\\+\\d{9,12}")) {
-            errors.add("Telefonnummer ungültig: muss mit + beginnen und 10–13 Zeichen lang sein.");
-        }
-
-        if (!errors.isEmpty()) throw new IllegalArgumentException(String.join("\n", errors));
     }
 
     /**
-     * ürüft, ob ein String leer ist
-     * @param s zu prüfender String
-     * @return, wenn leer, entweder true oder false
+     * Schreibt die vorläufige ID eines offline angelegten, inzwischen übertragenen Patienten auf
+     * die Server-ID um.
+     *
+     * @throws PatientKonfliktException wenn es zur vorläufigen ID keinen übertragenen Patienten gibt
      */
-    private boolean isEmpty(String s) {
+    private Patient endgueltig(Patient p) {
+        if (p.getId() < 0) p.setId(endgueltig(p.getId()));
+        return p;
+    }
 
-        return s == null || s.isEmpty();
+    private int endgueltig(int id) {
+        int echt = offline.endgueltigeId(id);
+        if (echt < 0) {
+            Patient eigene = new Patient();
+            eigene.setId(id);
+            throw new PatientKonfliktException(eigene, null);
+        }
+        return echt;
     }
 
     /**
-     * Schreibt einen Text so, dass der 1.ste Buchstabe groß ist und der Rest klein.
-     * Wenn der String nicht gespeichert oder leer ist, wird ein leerer String zurückgegeben.
-     * @param s Eingabetext
-     * @return normalisierte Schreibweise
+     * Validiert und normalisiert die Patientendaten über den {@link PatientValidator}.
+     * Es werden Pflichtfelder geprüft, einige Textfelder normalisiert (1.ster Buchstabe groß,
+     * Rest klein) und auch die SVNR sowie Telefonnummer anhand einfacher Regeln geprüft
+     * Bei neuen Patienten wird alles geprüft, bei bestehenden nur die geänderten Felder.
+     * Die normalisierten Werte werden in den Patienten übernommen.
+     * Bei Fehlern werden alle Meldungen gesammelt und zrk.gegeben
+     *
+     * @param p Patient-Objekt, das geprüft werden soll
+     * @throws IllegalArgumentException wenn der Patient null ist oder Validierungsfehler auftreten
      */
-    private String firstUpperRestLower(String s) {
-        if (s == null || s.isEmpty()) return "";
-        String x = s.toLowerCase();
-        return Character.toUpperCase(x.charAt(0)) + x.substring(1);
+    private void checkPatient(Patient p) {
+        if (p == null) throw new IllegalArgumentException("Patientendaten fehlen.");
+
+        Set<PatientFeld> f = p.getId() == 0 ? EnumSet.allOf(PatientFeld.class) : p.getDirtyFields();
+        PruefErgebnis e = VALIDATOR.pruefen(p, f);
+        for (PatientFeld feld : NORMALISIERT) {
+            if (f.contains(feld)) p.setWert(feld, e.patient().getWert(feld));
+        }
+        if (!e.istGueltig()) throw new IllegalArgumentException(e.getMeldungen());
     }
 }
@@ -0,0 +1,106 @@
+package org.example.kontrolle;
+
+import org.example.crud.PatientRepository;
+import org.example.model.Patient;
+import org.example.offline.ListenSnapshot;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hält die vollständige Patientenliste (Listenfelder) aktuell, ohne sie jedes Mal komplett zu laden.
+ * Beim Start wird die Liste aus dem {@link ListenSnapshot} gelesen und kann sofort angezeigt werden;
+ * danach werden nur die seit dem letzten Stand geänderten Zeilen vom Server geholt und eingearbeitet.
+ * Stimmt die Anzahl danach nicht mit der Anzahl auf dem Server überein, wird komplett neu geladen.
+ * Nach jedem Abgleich wird der Schnappschuss neu geschrieben.
+ */
+public class PatientListenAbgleich {
+
+    /**
+     * Überlappung beim Abfragen, damit Änderungen aus noch nicht bestätigten Transaktionen
+     * (Zeitstempel vor dem Stand, aber erst danach sichtbar) nicht verloren gehen.
+     */
+    private static final long UEBERLAPPUNG_MS = 5_000;
+
+    private static final Comparator<Patient> REIHENFOLGE =
+            Comparator.comparing(Patient::getLastName, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
+                    .thenComparing(Patient::getFirstName, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER));
+
+    private final PatientRepository crud;
+    private final Path datei;
+
+    private Timestamp stand;
+    private List<Patient> liste = List.of();
+
+    /**
+     * @param crud Datenbankzugriff
+     * @param datei Speicherort des Schnappschusses
+     */
+    public PatientListenAbgleich(PatientRepository crud, Path datei) {
+        this.crud = crud;
+        this.datei = datei;
+    }
+
+    /**
+     * Liest den Schnappschuss von der Platte (ohne Serverzugriff).
+     *
+     * @return Kopien der gespeicherten Patienten, leer wenn es keinen Schnappschuss gibt
+     */
+    public synchronized List<Patient> ausSnapshot() {
+        ListenSnapshot.Inhalt in = ListenSnapshot.lesen(datei);
+        if (in == null) return List.of();
+        stand = new Timestamp(in.stand());
+        liste = in.patienten();
+        return kopie(liste);
+    }
+
+    /**
+     * Gleicht die Liste mit dem Server ab (nur Änderungen, wenn es einen Stand gibt).
+     *
+     * @return Kopien aller aktiven Patienten, nach Nachname und Vorname sortiert
+     * @throws RuntimeException wenn der Server nicht erreichbar ist
+     */
+    public synchronized List<Patient> abgleichen() {
+        if (stand == null) return neuLaden();
+
+        PatientRepository.ListenDelta d = crud.findListChangedSince(new Timestamp(stand.getTime() - UEBERLAPPUNG_MS));
+        Map<Integer, Patient> nachId = new LinkedHashMap<>();
+        for (Patient p : liste) nachId.put(p.getId(), p);
+        for (Integer id : d.entfernt()) nachId.remove(id);
+        for (Patient p : d.geaendert()) nachId.put(p.getId(), p);
+        if (nachId.size() != d.aktiv()) return neuLaden();
+
+        List<Patient> neu = new ArrayList<>(nachId.values());
+        if (!d.geaendert().isEmpty()) neu.sort(REIHENFOLGE);
+        uebernehmen(d.stand(), neu);
+        return kopie(liste);
+    }
+
+    private List<Patient> neuLaden() {
+        PatientRepository.ListenDelta d = crud.findListChangedSince(null);
+        uebernehmen(d.stand(), d.geaendert());
+        return kopie(liste);
+    }
+
+    private void uebernehmen(Timestamp neuerStand, List<Patient> neu) {
+        stand = neuerStand;
+        liste = neu;
+        try {
+            ListenSnapshot.schreiben(datei, neuerStand.getTime(), neu);
+        } catch (UncheckedIOException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
+    private static List<Patient> kopie(List<Patient> ps) {
+        List<Patient> out = new ArrayList<>(ps.size());
+        for (Patient p : ps) out.add(new Patient(p));
+        return out;
+    }
+}
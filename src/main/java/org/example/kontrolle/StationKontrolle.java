@@ -1,6 +1,10 @@
 package org.example.kontrolle;
 
+import org.example.crud.Repositories;
+import org.example.crud.StationRepository;
 import org.example.model.Station;
+import org.example.offline.OfflineSpeicher;
+import org.example.spur.Spur;
 
 import java.util.HashMap;
 import java.util.List;
@@ -13,14 +17,39 @@ import java.util.Map;
  */
 public class StationKontrolle {
 
+    private final StationRepository crud;
+
+    /**
+     * Verwendet das eingestellte Backend ({@code patienten.backend}).
+     */
+    public StationKontrolle() {
+        this(Repositories.stationen());
+    }
+
+    /**
+     * @param crud Stationszugriff
+     */
+    public StationKontrolle(StationRepository crud) {
+        this.crud = crud;
+    }
+
     /**
      * Lädt alle Stationen aus der Datenban
      * Datenbankzugriff wird an die CRUD-Klasse delegiert.
+     * Ohne Serververbindung kommen die Stationen aus der lokalen Replik.
      * @return Liste aller Stationen
      */
     public List<Station> getAllStations() {
-
-        return new org.example.crud.StationCrud().findAll();
+        OfflineSpeicher offline = OfflineSpeicher.getInstance();
+        try (Spur s = Spur.start("StationKontrolle.getAllStations")) {
+            try {
+                return crud.findAll();
+            } catch (RuntimeException e) {
+                if (!offline.uebernehmen(e) || offline.getReplik().getStationen().isEmpty()) throw e;
+                s.attribut("offline", true);
+                return offline.getReplik().getStationen();
+            }
+        }
     }
 
     /**
@@ -0,0 +1,92 @@
+package org.example.kontrolle;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bündelt gleichzeitige gleiche Abfragen ("single flight") und merkt sich das Ergebnis kurz.
+ * Fragen mehrere Threads gleichzeitig denselben Schlüssel ab, läuft die Abfrage nur einmal und
+ * alle bekommen dasselbe Ergebnis (bzw. dieselbe Exception). Danach bleibt das Ergebnis
+ * {@code ttlMs} Millisekunden gültig. {@link #invalidate()} erhöht eine Generationsnummer:
+ * danach wird weder ein altes Ergebnis geliefert noch an eine vorher gestartete Abfrage
+ * angehängt, sodass man nach einer eigenen Änderung immer frische Daten bekommt.
+ *
+ * @param <T> Ergebnistyp (sollte unveränderlich sein, da er geteilt wird)
+ */
+final class SuchBuendelung<T> {
+
+    private record Schluessel(String key, long generation) { }
+
+    private record Ergebnis<T>(T wert, long ablauf, long generation) { }
+
+    private final Map<Schluessel, CompletableFuture<T>> laufend = new ConcurrentHashMap<>();
+    private final Map<String, Ergebnis<T>> fertig = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final long ttlMs;
+    private final int maxEintraege;
+
+    /**
+     * @param ttlMs Gültigkeit eines Ergebnisses in Millisekunden (0 = nur bündeln)
+     * @param maxEintraege ab dieser Anzahl gemerkter Ergebnisse wird geleert
+     */
+    SuchBuendelung(long ttlMs, int maxEintraege) {
+        this.ttlMs = ttlMs;
+        this.maxEintraege = maxEintraege;
+    }
+
+    /**
+     * Gibt das Ergebnis für den Schlüssel zurück: gemerkt, von einer laufenden gleichen Abfrage
+     * oder neu geladen.
+     *
+     * @param key normalisierter Schlüssel
+     * @param laden führt die Abfrage aus
+     * @return Ergebnis
+     * @throws RuntimeException die Exception der Abfrage
+     */
+    T get(String key, Supplier<T> laden) {
+        long gen = generation.get();
+        Ergebnis<T> e = fertig.get(key);
+        if (e != null && e.generation() == gen && e.ablauf() > System.currentTimeMillis()) return e.wert();
+
+        Schluessel s = new Schluessel(key, gen);
+        CompletableFuture<T> neu = new CompletableFuture<>();
+        CompletableFuture<T> vorhanden = laufend.putIfAbsent(s, neu);
+        if (vorhanden != null) return warten(vorhanden);
+
+        try {
+            T wert = laden.get();
+            if (ttlMs > 0 && generation.get() == gen) {
+                if (fertig.size() >= maxEintraege) fertig.clear();
+                fertig.put(key, new Ergebnis<>(wert, System.currentTimeMillis() + ttlMs, gen));
+            }
+            neu.complete(wert);
+            return wert;
+        } catch (RuntimeException ex) {
+            neu.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            laufend.remove(s, neu);
+        }
+    }
+
+    /**
+     * Macht alle gemerkten Ergebnisse ungültig (nach einer Änderung).
+     */
+    void invalidate() {
+        generation.incrementAndGet();
+        fertig.clear();
+    }
+
+    private static <T> T warten(CompletableFuture<T> f) {
+        try {
+            return f.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) throw re;
+            throw ex;
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package org.example.model;
 
 import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Klasse für einen Patienten
@@ -20,6 +23,43 @@ public class Patient {
     private String reason;
     private Integer stationId;
 
+    /**
+     * Zeilenversion aus der Spalte {@code version} (für optimistisches Sperren beim Update).
+     */
+    private int version;
+
+    /**
+     * Felder, die seit dem Laden bzw. dem letzten Speichern geändert wurden.
+     */
+    private final EnumSet<PatientFeld> dirty = EnumSet.noneOf(PatientFeld.class);
+
+    /**
+     * Erstellt einen leeren Patienten.
+     */
+    public Patient() {
+    }
+
+    /**
+     * Erstellt eine Kopie eines Patienten.
+     * Die Kopie gilt als unverändert, d.h. nur Änderungen, die danach über die Setter gemacht
+     * werden, zählen als geänderte Felder. So kann man z.B. im Bearbeiten-Dialog mit einer Kopie
+     * arbeiten, ohne das Original in der Tabelle zu verändern.
+     *
+     * @param other Patient, der kopiert werden soll
+     */
+    public Patient(Patient other) {
+        this.id = other.id;
+        this.firstName = other.firstName;
+        this.lastName = other.lastName;
+        this.birthDate = other.birthDate;
+        this.svnr = other.svnr;
+        this.phone = other.phone;
+        this.address = other.address;
+        this.reason = other.reason;
+        this.stationId = other.stationId;
+        this.version = other.version;
+    }
+
     /**
      * Gibt die eindeutige ID des Patienten zurück
      * @return Patientn-ID
@@ -49,6 +89,7 @@ public class Patient {
      * @param firstName Vorname
      */
     public void setFirstName(String firstName) {
+        if (!Objects.equals(this.firstName, firstName)) dirty.add(PatientFeld.FIRST_NAME);
         this.firstName = firstName;
     }
 
@@ -65,6 +106,7 @@ public class Patient {
      * @param lastName Nachname
      */
     public void setLastName(String lastName) {
+        if (!Objects.equals(this.lastName, lastName)) dirty.add(PatientFeld.LAST_NAME);
         this.lastName = lastName;
     }
 
@@ -81,6 +123,7 @@ public class Patient {
      * @param birthDate Geburtsdatum
      */
     public void setBirthDate(LocalDate birthDate) {
+        if (!Objects.equals(this.birthDate, birthDate)) dirty.add(PatientFeld.BIRTH_DATE);
         this.birthDate = birthDate;
     }
 
@@ -98,6 +141,7 @@ public class Patient {
      * @param svnr Sozialversicherungsnummer
      */
     public void setSvnr(String svnr) {
+        if (!Objects.equals(this.svnr, svnr)) dirty.add(PatientFeld.SVNR);
         this.svnr = svnr;
     }
 
@@ -114,6 +158,7 @@ public class Patient {
      * @param phone Telefonnummer
      */
     public void setPhone(String phone) {
+        if (!Objects.equals(this.phone, phone)) dirty.add(PatientFeld.PHONE);
         this.phone = phone;
     }
 
@@ -130,6 +175,7 @@ public class Patient {
      * @param address Adresse
      */
     public void setAddress(String address) {
+        if (!Objects.equals(this.address, address)) dirty.add(PatientFeld.ADDRESS);
         this.address = address;
     }
 
@@ -146,6 +192,7 @@ public class Patient {
      * @param reason Aufenthaltsgrund
      */
     public void setReason(String reason) {
+        if (!Objects.equals(this.reason, reason)) dirty.add(PatientFeld.REASON);
         this.reason = reason;
     }
 
@@ -164,6 +211,92 @@ public class Patient {
      * @param stationId Stations-ID
      */
     public void setStationId(Integer stationId) {
+        if (!Objects.equals(this.stationId, stationId)) dirty.add(PatientFeld.STATION_ID);
         this.stationId = stationId;
     }
+
+    /**
+     * Gibt die Zeilenversion zurück, mit der der Patient geladen wurde.
+     * @return Zeilenversion
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Setzt die Zeilenversion.
+     * @param version Zeilenversion
+     */
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    /**
+     * Gibt den Wert eines Feldes zurück.
+     * @param f Feld
+     * @return aktueller Wert (String, LocalDate oder Integer)
+     */
+    public Object getWert(PatientFeld f) {
+        return switch (f) {
+            case FIRST_NAME -> firstName;
+            case LAST_NAME -> lastName;
+            case BIRTH_DATE -> birthDate;
+            case SVNR -> svnr;
+            case PHONE -> phone;
+            case ADDRESS -> address;
+            case REASON -> reason;
+            case STATION_ID -> stationId;
+        };
+    }
+
+    /**
+     * Setzt den Wert eines Feldes über den passenden Setter (Änderung wird also markiert).
+     * @param f Feld
+     * @param wert neuer Wert (String, LocalDate oder Integer)
+     */
+    public void setWert(PatientFeld f, Object wert) {
+        switch (f) {
+            case FIRST_NAME -> setFirstName((String) wert);
+            case LAST_NAME -> setLastName((String) wert);
+            case BIRTH_DATE -> setBirthDate((LocalDate) wert);
+            case SVNR -> setSvnr((String) wert);
+            case PHONE -> setPhone((String) wert);
+            case ADDRESS -> setAddress((String) wert);
+            case REASON -> setReason((String) wert);
+            case STATION_ID -> setStationId((Integer) wert);
+        }
+    }
+
+    /**
+     * Gibt die Felder zurück, die seit dem Laden bzw. letzten Speichern geändert wurden.
+     * @return Kopie der Menge der geänderten Felder
+     */
+    public Set<PatientFeld> getDirtyFields() {
+        return EnumSet.copyOf(dirty);
+    }
+
+    /**
+     * Prüft, ob seit dem Laden bzw. letzten Speichern etwas geändert wurde.
+     * @return true, wenn mindestens ein Feld geändert wurde
+     */
+    public boolean isDirty() {
+        return !dirty.isEmpty();
+    }
+
+    /**
+     * Markiert ein Feld ausdrücklich als geändert, auch wenn der Wert gleich geblieben ist
+     * (z.B. beim Wiederherstellen einer gespeicherten Änderung).
+     * @param f Feld
+     */
+    public void markDirty(PatientFeld f) {
+        dirty.add(f);
+    }
+
+    /**
+     * Markiert alle Felder als unverändert.
+     * Wird nach dem Laden aus der DB und nach erfolgreichem Speichern aufgerufen.
+     */
+    public void markClean() {
+        dirty.clear();
+    }
 }
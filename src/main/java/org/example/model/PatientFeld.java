@@ -0,0 +1,39 @@
+package org.example.model;
+
+/**
+ * Die änderbaren Felder eines Patienten mit der zugehörigen Spalte in der Tabelle {@code patient}.
+ * Wird für die Änderungsverfolgung ("dirty tracking") im {@link Patient} verwendet, damit beim
+ * Speichern nur die wirklich geänderten Spalten geschrieben und geprüft werden.
+ */
+public enum PatientFeld {
+    FIRST_NAME("first_name"),
+    LAST_NAME("last_name"),
+    BIRTH_DATE("birth_date"),
+    SVNR("svnr"),
+    PHONE("phone"),
+    ADDRESS("address"),
+    REASON("reason"),
+    STATION_ID("station_id");
+
+    private final String spalte;
+
+    PatientFeld(String spalte) {
+        this.spalte = spalte;
+    }
+
+    /**
+     * Gibt den Spaltennamen in der Tabelle {@code patient} zurück.
+     * @return Spaltenname
+     */
+    public String getSpalte() {
+        return spalte;
+    }
+
+    /**
+     * Gibt das Bit dieses Feldes zurück (für Bitmasken über mehrere Felder).
+     * @return Bitmaske mit genau diesem Feld
+     */
+    public int bit() {
+        return 1 << ordinal();
+    }
+}
@@ -0,0 +1,145 @@
+package org.example.offline;
+
+import org.example.model.Patient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binärer Schnappschuss der Patientenliste (nur die Listenfelder) für einen schnellen Start.
+ * Aufbau: Kopf (Kennung, Format, Stand, Anzahl), danach eine Zeile fester Breite pro Patient
+ * (ID, Version, Station, Geburtsdatum als Epochentag, Offsets von Vorname, Nachname und SVNR)
+ * und am Ende ein Bereich mit den Texten (Länge + UTF-8). Gelesen wird über einen
+ * {@link MappedByteBuffer}, d.h. ohne die Datei erst in einen Puffer zu kopieren.
+ * Geschrieben wird in eine temporäre Datei, die dann atomar umbenannt wird.
+ */
+public final class ListenSnapshot {
+
+    private static final int MAGIC = 0x50534E50; // "PSNP"
+    private static final int FORMAT = 1;
+    private static final int KOPF = 20;
+    private static final int ZEILE = 28;
+    private static final int LEER = Integer.MIN_VALUE;
+
+    /**
+     * Inhalt eines Schnappschusses.
+     *
+     * @param stand Serverzeit des letzten Abgleichs (Millisekunden seit 1970)
+     * @param patienten Patienten mit Listenfeldern, in der gespeicherten Reihenfolge
+     */
+    public record Inhalt(long stand, List<Patient> patienten) { }
+
+    private ListenSnapshot() {
+    }
+
+    /**
+     * Liest einen Schnappschuss.
+     *
+     * @param datei Datei
+     * @return Inhalt oder null, wenn es keine (gültige) Datei gibt
+     */
+    public static Inhalt lesen(Path datei) {
+        if (!Files.exists(datei)) return null;
+        try (FileChannel ch = FileChannel.open(datei, StandardOpenOption.READ)) {
+            if (ch.size() < KOPF) return null;
+            MappedByteBuffer b = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (b.getInt(0) != MAGIC || b.getInt(4) != FORMAT) return null;
+            long stand = b.getLong(8);
+            int n = b.getInt(16);
+            int texte = KOPF + n * ZEILE;
+            if (n < 0 || texte > b.limit()) return null;
+
+            List<Patient> out = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                int z = KOPF + i * ZEILE;
+                Patient p = new Patient();
+                p.setId(b.getInt(z));
+                int station = b.getInt(z + 8);
+                p.setStationId(station == LEER ? null : station);
+                int tag = b.getInt(z + 12);
+                p.setBirthDate(tag == LEER ? null : LocalDate.ofEpochDay(tag));
+                p.setFirstName(text(b, texte, b.getInt(z + 16)));
+                p.setLastName(text(b, texte, b.getInt(z + 20)));
+                p.setSvnr(text(b, texte, b.getInt(z + 24)));
+                p.setVersion(b.getInt(z + 4));
+                p.markClean();
+                out.add(p);
+            }
+            return new Inhalt(stand, out);
+
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Listen-Schnappschuss konnte nicht gelesen werden: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Schreibt einen Schnappschuss.
+     *
+     * @param datei Datei
+     * @param stand Serverzeit des Abgleichs (Millisekunden seit 1970)
+     * @param patienten Patienten (es werden nur die Listenfelder gespeichert)
+     * @throws UncheckedIOException wenn die Datei nicht geschrieben werden kann
+     */
+    public static void schreiben(Path datei, long stand, List<Patient> patienten) {
+        int n = patienten.size();
+        ByteBuffer zeilen = ByteBuffer.allocate(KOPF + n * ZEILE);
+        zeilen.putInt(MAGIC).putInt(FORMAT).putLong(stand).putInt(n);
+
+        ByteArrayOutputStream texte = new ByteArrayOutputStream(n * 32);
+        DataOutputStream tout = new DataOutputStream(texte);
+        try {
+            for (Patient p : patienten) {
+                zeilen.putInt(p.getId());
+                zeilen.putInt(p.getVersion());
+                zeilen.putInt(p.getStationId() == null ? LEER : p.getStationId());
+                zeilen.putInt(p.getBirthDate() == null ? LEER : (int) p.getBirthDate().toEpochDay());
+                zeilen.putInt(text(tout, p.getFirstName()));
+                zeilen.putInt(text(tout, p.getLastName()));
+                zeilen.putInt(text(tout, p.getSvnr()));
+            }
+
+            Path tmp = datei.resolveSibling(datei.getFileName() + ".tmp");
+            Files.createDirectories(datei.getParent());
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                out.write(zeilen.array());
+                texte.writeTo(out);
+            }
+            Files.move(tmp, datei, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Listen-Schnappschuss konnte nicht gespeichert werden.", e);
+        }
+    }
+
+    private static String text(ByteBuffer b, int texte, int off) {
+        if (off == LEER) return null;
+        int pos = texte + off;
+        int len = b.getInt(pos);
+        byte[] bytes = new byte[len];
+        b.get(pos + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int text(DataOutputStream out, String s) throws IOException {
+        if (s == null) return LEER;
+        int off = out.size();
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        return off;
+    }
+}
@@ -0,0 +1,190 @@
+package org.example.offline;
+
+import org.example.model.Patient;
+import org.example.model.Station;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lokale Kopie der aktiven Patienten und der Stationen.
+ * Die Replik wird regelmäßig vom Server aufgefrischt und als Datei auf der Platte gespeichert,
+ * damit auch nach einem Neustart ohne Serververbindung gesucht werden kann.
+ * Die Suche verhält sich wie {@link org.example.crud.PatientCrud#search(String)}.
+ */
+public class LokaleReplik {
+
+    private static final int MAGIC = 0x50524550; // "PREP"
+    private static final int FORMAT = 1;
+
+    private final Path datei;
+    private final Map<Integer, Patient> patienten = new ConcurrentHashMap<>();
+    private volatile List<Station> stationen = List.of();
+
+    /**
+     * Erstellt eine Replik, die in der angegebenen Datei gespeichert wird.
+     * @param datei Speicherort der Replik
+     */
+    public LokaleReplik(Path datei) {
+        this.datei = datei;
+    }
+
+    /**
+     * Ersetzt alle Patienten durch den aktuellen Serverstand.
+     * Offline angelegte Patienten (negative IDs) bleiben erhalten, bis sie übertragen wurden.
+     * @param alle alle aktiven Patienten vom Server
+     */
+    public void ersetzePatienten(List<Patient> alle) {
+        patienten.keySet().removeIf(id -> id > 0);
+        for (Patient p : alle) patienten.put(p.getId(), new Patient(p));
+    }
+
+    /**
+     * Ersetzt die Stationsliste.
+     * @param alle alle Stationen vom Server
+     */
+    public void ersetzeStationen(List<Station> alle) {
+        stationen = List.copyOf(alle);
+    }
+
+    /**
+     * Speichert oder ersetzt einen einzelnen Patienten.
+     * @param p Patient (wird kopiert)
+     */
+    public void put(Patient p) {
+        patienten.put(p.getId(), new Patient(p));
+    }
+
+    /**
+     * Gibt eine Kopie eines Patienten zurück.
+     * @param id Patienten-ID
+     * @return Kopie oder null
+     */
+    public Patient get(int id) {
+        Patient p = patienten.get(id);
+        return p == null ? null : new Patient(p);
+    }
+
+    /**
+     * Entfernt einen Patienten (gelöscht oder entlassen).
+     * @param id Patienten-ID
+     */
+    public void remove(int id) {
+        patienten.remove(id);
+    }
+
+    /**
+     * Ersetzt eine vorläufige (negative) ID durch die vom Server vergebene.
+     * @param tempId vorläufige ID
+     * @param id endgültige ID
+     */
+    public void ersetzeId(int tempId, int id) {
+        Patient p = patienten.remove(tempId);
+        if (p == null) return;
+        p.setId(id);
+        patienten.put(id, p);
+    }
+
+    /**
+     * Gibt alle Stationen zurück.
+     * @return Stationsliste
+     */
+    public List<Station> getStationen() {
+        return stationen;
+    }
+
+    /**
+     * Sucht wie die Serversuche in Vorname, Nachname, SVNR, Telefon, Adresse und Grund.
+     * Das Ergebnis ist nach Nachname und Vorname sortiert.
+     *
+     * @param q Suchbegriff (leer = alle)
+     * @return Kopien der passenden Patienten
+     */
+    public List<Patient> search(String q) {
+        String query = (q == null) ? "" : q.toLowerCase();
+        List<Patient> out = new ArrayList<>();
+        for (Patient p : patienten.values()) {
+            if (query.isEmpty()
+                    || contains(p.getFirstName(), query) || contains(p.getLastName(), query)
+                    || contains(p.getSvnr(), query) || contains(p.getPhone(), query)
+                    || contains(p.getAddress(), query) || contains(p.getReason(), query)) {
+                out.add(new Patient(p));
+            }
+        }
+        out.sort(Comparator.comparing((Patient p) -> p.getLastName(), Comparator.nullsFirst(String::compareTo))
+                .thenComparing(Patient::getFirstName, Comparator.nullsFirst(String::compareTo)));
+        return out;
+    }
+
+    private static boolean contains(String s, String query) {
+        return s != null && s.toLowerCase().contains(query);
+    }
+
+    /**
+     * Lädt die Replik aus der Datei, wenn es sie gibt.
+     * Eine beschädigte Datei wird ignoriert (die Replik bleibt dann leer).
+     */
+    public void laden() {
+        if (!Files.exists(datei)) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(datei)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT) return;
+
+            int ns = in.readInt();
+            List<Station> st = new ArrayList<>(ns);
+            for (int i = 0; i < ns; i++) st.add(new Station(in.readInt(), in.readUTF(), in.readInt()));
+
+            int np = in.readInt();
+            Map<Integer, Patient> ps = new ConcurrentHashMap<>();
+            for (int i = 0; i < np; i++) {
+                Patient p = PatientDaten.read(in);
+                ps.put(p.getId(), p);
+            }
+
+            stationen = List.copyOf(st);
+            patienten.clear();
+            patienten.putAll(ps);
+        } catch (IOException e) {
+            System.err.println("Lokale Replik konnte nicht gelesen werden: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Schreibt die Replik in die Datei.
+     * Es wird erst in eine temporäre Datei geschrieben und diese dann ersetzt,
+     * damit bei einem Absturz die alte Datei erhalten bleibt.
+     *
+     * @throws UncheckedIOException wenn die Datei nicht geschrieben werden kann
+     */
+    public void speichern() {
+        Path tmp = datei.resolveSibling(datei.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(datei.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+
+                List<Station> st = stationen;
+                out.writeInt(st.size());
+                for (Station s : st) {
+                    out.writeInt(s.getRaum());
+                    out.writeUTF(s.getName() == null ? "" : s.getName());
+                    out.writeInt(s.getMaxBetten());
+                }
+
+                List<Patient> ps = new ArrayList<>(patienten.values());
+                out.writeInt(ps.size());
+                for (Patient p : ps) PatientDaten.write(out, p);
+            }
+            Files.move(tmp, datei, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lokale Replik konnte nicht gespeichert werden.", e);
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package org.example.offline;
+
+import org.example.DB;
+import org.example.Konfiguration;
+import org.example.crud.PatientCrud;
+import org.example.crud.PatientKonfliktException;
+import org.example.crud.StationCrud;
+import org.example.model.Patient;
+import org.example.model.PatientFeld;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Offline-Betrieb: lokale Replik für Lesezugriffe und Schreibjournal für Änderungen.
+ * Solange der Server erreichbar ist, wird die Replik regelmäßig aufgefrischt. Fällt die
+ * Verbindung weg, liefern die Kontrollklassen die Daten aus der Replik und schreiben
+ * Änderungen ins Journal. Sobald der Server wieder da ist, wird das Journal der Reihe nach
+ * übertragen; Konflikte (Patient wurde inzwischen am Server geändert) werden dabei erkannt,
+ * übersprungen und über {@link #abholenKonflikte()} an die Oberfläche gemeldet.
+ * Die Replik auf der Platte ist der Stand der letzten Auffrischung; beim Start werden die Einträge
+ * des Journals darauf angewendet, damit offline gemachte Änderungen auch nach einem Neustart
+ * sichtbar sind.
+ * Die Dateien liegen unter {@code ~/.patientenaufnahme} (änderbar über
+ * {@code patienten.offline.dir}, siehe {@link Konfiguration}).
+ */
+public class OfflineSpeicher {
+
+    private static final Logger LOG = Logger.getLogger(OfflineSpeicher.class.getName());
+    private static final OfflineSpeicher INSTANCE = new OfflineSpeicher();
+
+    /**
+     * Gibt die gemeinsame Instanz zurück.
+     * @return OfflineSpeicher
+     */
+    public static OfflineSpeicher getInstance() {
+        return INSTANCE;
+    }
+
+    private final LokaleReplik replik;
+    private final SchreibJournal journal;
+    private final PatientCrud crud = new PatientCrud();
+    private final StationCrud stationCrud = new StationCrud();
+
+    /**
+     * Vorläufige IDs für offline angelegte Patienten (negativ, damit sie nie mit Server-IDs kollidieren).
+     * Zählt nur abwärts und beginnt unter jeder ID aus Replik und Journal, damit keine ID doppelt
+     * vergeben wird, solange ein Eintrag mit ihr noch aussteht.
+     */
+    private final AtomicInteger tempIds = new AtomicInteger();
+
+    /**
+     * Übertragene vorläufige IDs → vom Server vergebene IDs, für Patienten, die die Oberfläche
+     * noch mit der vorläufigen ID hält (siehe {@link #endgueltigeId(int)}).
+     */
+    private final Map<Integer, Integer> endgueltig = new ConcurrentHashMap<>();
+
+    /**
+     * Beim Übertragen nicht übernommene Änderungen, bis die Oberfläche sie abholt.
+     */
+    private final List<String> konflikte = new ArrayList<>();
+
+    private volatile boolean offline = false;
+    private volatile boolean abgeschaltet = false;
+    private volatile long letzteAuffrischung = 0;
+    private ScheduledExecutorService timer;
+
+    private OfflineSpeicher() {
+        Path dir = Paths.get(Konfiguration.get().get("offline.dir",
+                System.getProperty("user.home") + "/.patientenaufnahme"));
+        replik = new LokaleReplik(dir.resolve("replik.bin"));
+        journal = new SchreibJournal(dir.resolve("journal.bin"));
+        replik.laden();
+        tempIds.set(nachholen());
+    }
+
+    /**
+     * Wendet die Einträge des Journals auf die geladene Replik an, so wie es {@link #speichern(Patient)},
+     * {@link #loeschen(int)} und {@link #entlassen(int)} vor dem Neustart getan haben. Schon übertragene
+     * INSERTs bekommen dabei ihre Server-ID aus dem Fortschritt.
+     *
+     * @return kleinste ID aus Replik und Journal (höchstens 0)
+     */
+    private int nachholen() {
+        Map<Integer, Integer> ids = new HashMap<>();
+        journal.leseFortschritt(ids);
+        int min = 0;
+        for (Patient p : replik.search("")) min = Math.min(min, p.getId());
+        for (SchreibJournal.Eintrag e : journal.lesen()) {
+            Patient p = new Patient(e.getPatient());
+            min = Math.min(min, p.getId());
+            Integer id = ids.get(p.getId());
+            if (id != null) {
+                replik.remove(p.getId());
+                p.setId(id);
+            }
+            switch (e.getTyp()) {
+                case INSERT -> {
+                    p.setVersion(0);
+                    replik.put(p);
+                }
+                case UPDATE -> {
+                    p.setVersion(p.getVersion() + 1);
+                    replik.put(p);
+                }
+                case DELETE, DISCHARGE -> replik.remove(p.getId());
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Startet den Hintergrund-Thread, der alle 30 Sekunden das Journal überträgt und
+     * die Replik alle 5 Minuten komplett auffrischt.
+     */
+    public synchronized void start() {
+        if (timer != null) return;
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "offline-sync");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.scheduleWithFixedDelay(this::synchronisieren, 0, 30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Gibt die lokale Replik zurück.
+     * @return Replik
+     */
+    public LokaleReplik getReplik() {
+        return replik;
+    }
+
+    /**
+     * Gibt zurück, ob zuletzt keine Serververbindung bestand.
+     * @return true, wenn offline gearbeitet wird
+     */
+    public boolean isOffline() {
+        return offline;
+    }
+
+    /**
+     * Merkt sich, dass ein Serverzugriff geklappt hat.
+     * Liegen noch offline gemachte Änderungen vor, wird die Übertragung angestoßen.
+     */
+    public void online() {
+        boolean warOffline = offline;
+        offline = false;
+        if (warOffline && timer != null && journal.hatEintraege()) timer.execute(this::synchronisieren);
+    }
+
+    /**
+     * Schaltet das Ausweichen ab: {@link #uebernehmen(RuntimeException)} lehnt danach jeden Fehler ab,
+     * und es gibt nie offene Änderungen. Für den Serverbetrieb, wo niemand das Journal überträgt
+     * und ein Verbindungsproblem als Fehler beim Client ankommen muss.
+     */
+    public void abschalten() {
+        abgeschaltet = true;
+    }
+
+    /**
+     * Gibt zurück, ob noch offline gemachte Änderungen auf die Übertragung warten.
+     * Solange das so ist, müssen neue Änderungen ebenfalls ins Journal, damit die
+     * Reihenfolge beim Übertragen erhalten bleibt.
+     * @return true, wenn das Journal nicht leer ist
+     */
+    public boolean hatOffeneAenderungen() {
+        return !abgeschaltet && journal.hatEintraege();
+    }
+
+    /**
+     * Merkt sich, dass der Server nicht erreichbar war.
+     */
+    public void offline() {
+        offline = true;
+    }
+
+    /**
+     * Gibt zurück, ob es bei einem Fehler auf die Replik bzw. das Journal ausweichen soll.
+     * Das ist nur bei Verbindungsproblemen der Fall und nie, wenn es {@link #abschalten() abgeschaltet} ist.
+     *
+     * @param e aufgetretener Fehler
+     * @return true, wenn offline weitergearbeitet werden kann
+     */
+    public boolean uebernehmen(RuntimeException e) {
+        if (abgeschaltet || !DB.istVerbindungsfehler(e)) return false;
+        offline = true;
+        return true;
+    }
+
+    /**
+     * Speichert einen (bereits geprüften) Patienten offline.
+     * Neue Patienten (ID 0) bekommen eine vorläufige negative ID, bei Änderungen wird die Zeilenversion
+     * so hochgezählt, wie es der Server beim Übertragen auch tun wird. Ändert man einen offline
+     * angelegten Patienten (negative ID), ist das ebenfalls eine Änderung; beim Übertragen wird
+     * sie auf die dann vergebene Server-ID umgeschrieben.
+     *
+     * @param p zu speichernder Patient
+     */
+    public synchronized void speichern(Patient p) {
+        if (p.getId() < 0 && endgueltig.containsKey(p.getId())) p.setId(endgueltig.get(p.getId()));
+        if (p.getId() == 0) {
+            p.setId(tempIds.decrementAndGet());
+            journal.append(SchreibJournal.Typ.INSERT, p.getDirtyFields(), p);
+            p.setVersion(0);
+        } else {
+            if (!p.isDirty()) return;
+            journal.append(SchreibJournal.Typ.UPDATE, p.getDirtyFields(), p);
+            p.setVersion(p.getVersion() + 1);
+        }
+        p.markClean();
+        replik.put(p);
+    }
+
+    /**
+     * Gibt zur vorläufigen ID eines schon übertragenen Patienten die Server-ID zurück.
+     *
+     * @param id Patienten-ID
+     * @return Server-ID, bei positiven oder noch nicht übertragenen IDs die ID selbst
+     */
+    public int endgueltigeId(int id) {
+        return id < 0 ? endgueltig.getOrDefault(id, id) : id;
+    }
+
+    /**
+     * Gibt die seit dem letzten Aufruf beim Übertragen nicht übernommenen Änderungen zurück.
+     *
+     * @return Meldungen, eine pro Patient (leer, wenn es keine gab)
+     */
+    public List<String> abholenKonflikte() {
+        synchronized (konflikte) {
+            List<String> out = List.copyOf(konflikte);
+            konflikte.clear();
+            return out;
+        }
+    }
+
+    /**
+     * Löscht einen Patienten offline.
+     * @param id Patienten-ID
+     */
+    public synchronized void loeschen(int id) {
+        Patient p = new Patient();
+        p.setId(endgueltigeId(id));
+        journal.append(SchreibJournal.Typ.DELETE, p.getDirtyFields(), p);
+        replik.remove(id);
+    }
+
+    /**
+     * Entlässt einen Patienten offline.
+     * @param id Patienten-ID
+     */
+    public synchronized void entlassen(int id) {
+        Patient p = new Patient();
+        p.setId(endgueltigeId(id));
+        journal.append(SchreibJournal.Typ.DISCHARGE, p.getDirtyFields(), p);
+        replik.remove(id);
+    }
+
+    /**
+     * Überträgt das Journal und frischt bei Bedarf die Replik auf.
+     * Fehler werden nur gemeldet, der nächste Lauf versucht es wieder.
+     */
+    public void synchronisieren() {
+        try {
+            if (journal.hatEintraege()) uebertragen();
+            if (System.currentTimeMillis() - letzteAuffrischung > TimeUnit.MINUTES.toMillis(5)) auffrischen();
+            offline = false;
+        } catch (RuntimeException e) {
+            if (DB.istVerbindungsfehler(e)) offline = true;
+            else LOG.log(Level.WARNING, "Offline-Abgleich fehlgeschlagen", e);
+        }
+    }
+
+    /**
+     * Lädt alle aktiven Patienten und Stationen vom Server in die Replik und speichert sie.
+     */
+    public void auffrischen() {
+        replik.ersetzeStationen(stationCrud.findAll());
+        replik.ersetzePatienten(crud.findAll());
+        replik.speichern();
+        letzteAuffrischung = System.currentTimeMillis();
+    }
+
+    /**
+     * Überträgt alle noch nicht übertragenen Journaleinträge der Reihe nach.
+     * Nach jedem Eintrag wird der Fortschritt gespeichert. Bricht die Übertragung zwischen
+     * einem INSERT und dem Speichern des Fortschritts ab, erkennt der Server den Eintrag beim
+     * nächsten Mal an seinem Schlüssel und legt den Patienten nicht noch einmal an.
+     * Bei einem Verbindungsfehler wird abgebrochen und beim nächsten Mal an derselben Stelle
+     * weitergemacht.
+     */
+    private synchronized void uebertragen() {
+        Map<Integer, Integer> ids = new HashMap<>();
+        long erledigt = journal.leseFortschritt(ids);
+        endgueltig.putAll(ids);
+        List<SchreibJournal.Eintrag> eintraege = journal.lesen();
+
+        for (SchreibJournal.Eintrag e : eintraege) {
+            if (e.getSeq() <= erledigt) continue;
+
+            Patient p = e.getPatient();
+            int id = ids.getOrDefault(p.getId(), p.getId());
+
+            switch (e.getTyp()) {
+                case INSERT -> {
+                    Patient neu = new Patient(p);
+                    neu.setId(0);
+                    crud.insertEinmalig(neu, e.getSchluessel());
+                    ids.put(p.getId(), neu.getId());
+                    endgueltig.put(p.getId(), neu.getId());
+                    replik.ersetzeId(p.getId(), neu.getId());
+                }
+                case UPDATE -> {
+                    Patient upd = new Patient(p);
+                    upd.setId(id);
+                    for (PatientFeld f : e.getFelder()) upd.markDirty(f);
+                    try {
+                        crud.update(upd);
+                    } catch (PatientKonfliktException k) {
+                        LOG.warning("Offline-Änderung an Patient " + id + " nicht übernommen: " + k.getMessage());
+                        synchronized (konflikte) {
+                            konflikte.add("Offline-Änderung an " + p.getLastName() + " " + p.getFirstName()
+                                    + " (ID " + id + ") nicht übernommen: " + k.getMessage());
+                        }
+                        if (k.getAktuell() != null) replik.put(k.getAktuell());
+                        else replik.remove(id);
+                    }
+                }
+                case DELETE -> crud.deleteById(id);
+                case DISCHARGE -> crud.dischargeById(id);
+            }
+
+            erledigt = e.getSeq();
+            journal.schreibeFortschritt(erledigt, ids);
+        }
+
+        journal.leeren();
+        replik.speichern();
+    }
+}
@@ -0,0 +1,66 @@
+package org.example.offline;
+
+import org.example.model.Patient;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * Hilfsklasse zum binären Schreiben und Lesen eines Patienten.
+ * Wird von der lokalen Replik, vom Schreibjournal und vom In-Memory-Backend gemeinsam verwendet, damit alle
+ * dasselbe Format haben. null-Werte werden über ein vorangestelltes Flag markiert.
+ */
+public final class PatientDaten {
+
+    private PatientDaten() {
+    }
+
+    /**
+     * Schreibt alle Felder eines Patienten inkl. ID und Zeilenversion.
+     */
+    public static void write(DataOutput out, Patient p) throws IOException {
+        out.writeInt(p.getId());
+        out.writeInt(p.getVersion());
+        writeString(out, p.getFirstName());
+        writeString(out, p.getLastName());
+        out.writeBoolean(p.getBirthDate() != null);
+        if (p.getBirthDate() != null) out.writeLong(p.getBirthDate().toEpochDay());
+        writeString(out, p.getSvnr());
+        writeString(out, p.getPhone());
+        writeString(out, p.getAddress());
+        writeString(out, p.getReason());
+        out.writeBoolean(p.getStationId() != null);
+        if (p.getStationId() != null) out.writeInt(p.getStationId());
+    }
+
+    /**
+     * Liest einen Patienten, der mit {@link #write(DataOutput, Patient)} geschrieben wurde.
+     * Der gelesene Patient gilt als unverändert.
+     */
+    public static Patient read(DataInput in) throws IOException {
+        Patient p = new Patient();
+        p.setId(in.readInt());
+        p.setVersion(in.readInt());
+        p.setFirstName(readString(in));
+        p.setLastName(readString(in));
+        p.setBirthDate(in.readBoolean() ? LocalDate.ofEpochDay(in.readLong()) : null);
+        p.setSvnr(readString(in));
+        p.setPhone(readString(in));
+        p.setAddress(readString(in));
+        p.setReason(readString(in));
+        p.setStationId(in.readBoolean() ? in.readInt() : null);
+        p.markClean();
+        return p;
+    }
+
+    static void writeString(DataOutput out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) out.writeUTF(s);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,266 @@
+package org.example.offline;
+
+import org.example.model.Patient;
+import org.example.model.PatientFeld;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Journal für Änderungen, die ohne Serververbindung gemacht wurden.
+ * Jeder Eintrag wird ans Ende der Datei angehängt und sofort auf die Platte geschrieben
+ * (fsync), bevor die Änderung als gespeichert gilt. Jeder Datensatz hat Länge und Prüfsumme,
+ * ein halb geschriebener letzter Datensatz (Absturz mitten im Schreiben) wird beim Lesen ignoriert.
+ * Wie weit das Journal schon zum Server übertragen wurde, steht in einer eigenen Fortschrittsdatei.
+ * INSERT-Einträge tragen eine UUID, mit der der Server einen wiederholten Eintrag erkennt
+ * (siehe {@link org.example.crud.PatientCrud#insertEinmalig(Patient, UUID)}).
+ */
+public class SchreibJournal {
+
+    /**
+     * Art der Änderung.
+     */
+    public enum Typ { INSERT, UPDATE, DELETE, DISCHARGE }
+
+    /**
+     * Ein Eintrag im Journal.
+     * Bei UPDATE enthält {@code felder} die Bitmaske der geänderten Felder, die Zeilenversion
+     * im Patienten ist die, auf der die Änderung gemacht wurde (für die Konfliktprüfung).
+     */
+    public static class Eintrag {
+        private final long seq;
+        private final Typ typ;
+        private final int felder;
+        private final UUID schluessel;
+        private final Patient patient;
+
+        Eintrag(long seq, Typ typ, int felder, UUID schluessel, Patient patient) {
+            this.seq = seq;
+            this.typ = typ;
+            this.felder = felder;
+            this.schluessel = schluessel;
+            this.patient = patient;
+        }
+
+        /**
+         * Gibt die fortlaufende Nummer des Eintrags zurück.
+         * @return Sequenznummer
+         */
+        public long getSeq() { return seq; }
+
+        /**
+         * Gibt die Art der Änderung zurück.
+         * @return Typ
+         */
+        public Typ getTyp() { return typ; }
+
+        /**
+         * Gibt den Schlüssel eines INSERT-Eintrags zurück.
+         * @return UUID oder null bei anderen Typen
+         */
+        public UUID getSchluessel() { return schluessel; }
+
+        /**
+         * Gibt den Patienten zum Zeitpunkt der Änderung zurück.
+         * @return Patient
+         */
+        public Patient getPatient() { return patient; }
+
+        /**
+         * Gibt die geänderten Felder eines UPDATE-Eintrags zurück.
+         * @return geänderte Felder
+         */
+        public Set<PatientFeld> getFelder() {
+            EnumSet<PatientFeld> out = EnumSet.noneOf(PatientFeld.class);
+            for (PatientFeld f : PatientFeld.values()) if ((felder & f.bit()) != 0) out.add(f);
+            return out;
+        }
+    }
+
+    private final Path datei;
+    private final Path fortschritt;
+    private long naechsteSeq;
+
+    /**
+     * Öffnet (bzw. legt beim ersten Schreiben an) das Journal in der angegebenen Datei.
+     * @param datei Journaldatei
+     */
+    public SchreibJournal(Path datei) {
+        this.datei = datei;
+        this.fortschritt = datei.resolveSibling(datei.getFileName() + ".pos");
+        List<Eintrag> alle = lesen(datei);
+        this.naechsteSeq = alle.isEmpty() ? 1 : alle.get(alle.size() - 1).getSeq() + 1;
+    }
+
+    /**
+     * Hängt eine Änderung an das Journal an und schreibt sie sofort auf die Platte.
+     *
+     * @param typ Art der Änderung
+     * @param felder bei UPDATE die geänderten Felder, sonst leer
+     * @param p betroffener Patient (bei DELETE/DISCHARGE reicht die ID)
+     * @return angelegter Eintrag
+     * @throws UncheckedIOException wenn nicht geschrieben werden kann
+     */
+    public synchronized Eintrag append(Typ typ, Set<PatientFeld> felder, Patient p) {
+        int mask = 0;
+        for (PatientFeld f : felder) mask |= f.bit();
+        UUID schluessel = typ == Typ.INSERT ? UUID.randomUUID() : null;
+        Eintrag e = new Eintrag(naechsteSeq, typ, mask, schluessel, new Patient(p));
+
+        try {
+            ByteArrayOutputStream buf = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(buf);
+            out.writeLong(e.seq);
+            out.writeByte(typ.ordinal());
+            out.writeInt(mask);
+            if (schluessel != null) {
+                out.writeLong(schluessel.getMostSignificantBits());
+                out.writeLong(schluessel.getLeastSignificantBits());
+            }
+            PatientDaten.write(out, p);
+            byte[] payload = buf.toByteArray();
+
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+
+            ByteBuffer rec = ByteBuffer.allocate(4 + payload.length + 8);
+            rec.putInt(payload.length).put(payload).putLong(crc.getValue()).flip();
+
+            Files.createDirectories(datei.getParent());
+            try (FileChannel ch = FileChannel.open(datei, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                while (rec.hasRemaining()) ch.write(rec);
+                ch.force(true);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Änderung konnte nicht im Journal gespeichert werden.", ex);
+        }
+
+        naechsteSeq++;
+        return e;
+    }
+
+    /**
+     * Liest alle vollständigen Einträge in der geschriebenen Reihenfolge.
+     * @return Einträge (leer, wenn es kein Journal gibt)
+     */
+    public synchronized List<Eintrag> lesen() {
+        return lesen(datei);
+    }
+
+    private static List<Eintrag> lesen(Path datei) {
+        List<Eintrag> out = new ArrayList<>();
+        if (!Files.exists(datei)) return out;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(datei)))) {
+            while (true) {
+                int len;
+                try { len = in.readInt(); } catch (EOFException eof) { break; }
+                if (len <= 0 || len > 1_000_000) break;
+
+                byte[] payload = new byte[len];
+                long sum;
+                try {
+                    in.readFully(payload);
+                    sum = in.readLong();
+                } catch (EOFException eof) {
+                    break;
+                }
+
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if (crc.getValue() != sum) break;
+
+                DataInputStream p = new DataInputStream(new ByteArrayInputStream(payload));
+                long seq = p.readLong();
+                Typ typ = Typ.values()[p.readByte()];
+                int mask = p.readInt();
+                UUID schluessel = typ == Typ.INSERT ? new UUID(p.readLong(), p.readLong()) : null;
+                out.add(new Eintrag(seq, typ, mask, schluessel, PatientDaten.read(p)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Journal konnte nicht gelesen werden.", e);
+        }
+        return out;
+    }
+
+    /**
+     * Gibt zurück, ob noch nicht übertragene Einträge vorhanden sind.
+     * @return true, wenn das Journal nicht leer ist
+     */
+    public synchronized boolean hatEintraege() {
+        try {
+            return Files.exists(datei) && Files.size(datei) > 0;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Liest den Übertragungsfortschritt: die letzte übertragene Sequenznummer und die
+     * Zuordnung vorläufiger IDs zu den vom Server vergebenen IDs.
+     *
+     * @param tempIds wird mit den bekannten Zuordnungen befüllt
+     * @return letzte übertragene Sequenznummer (0 = noch nichts übertragen)
+     */
+    public synchronized long leseFortschritt(Map<Integer, Integer> tempIds) {
+        if (!Files.exists(fortschritt)) return 0;
+        try {
+            List<String> lines = Files.readAllLines(fortschritt);
+            if (lines.isEmpty()) return 0;
+            for (String l : lines.subList(1, lines.size())) {
+                String[] kv = l.split("=");
+                tempIds.put(Integer.parseInt(kv[0]), Integer.parseInt(kv[1]));
+            }
+            return Long.parseLong(lines.get(0));
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalStateException("Journal-Fortschritt ist beschädigt: " + fortschritt, e);
+        }
+    }
+
+    /**
+     * Merkt sich den Übertragungsfortschritt (atomar über eine temporäre Datei).
+     *
+     * @param seq letzte übertragene Sequenznummer
+     * @param tempIds Zuordnung vorläufiger zu endgültigen IDs
+     */
+    public synchronized void schreibeFortschritt(long seq, Map<Integer, Integer> tempIds) {
+        StringBuilder sb = new StringBuilder().append(seq).append('\n');
+        tempIds.forEach((k, v) -> sb.append(k).append('=').append(v).append('\n'));
+
+        Path tmp = fortschritt.resolveSibling(fortschritt.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ch.write(ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8)));
+            ch.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Journal-Fortschritt konnte nicht gespeichert werden.", e);
+        }
+        try {
+            Files.move(tmp, fortschritt, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Journal-Fortschritt konnte nicht gespeichert werden.", e);
+        }
+    }
+
+    /**
+     * Leert Journal und Fortschritt, nachdem alles übertragen wurde.
+     * Die Sequenznummern laufen danach einfach weiter.
+     */
+    public synchronized void leeren() {
+        try {
+            Files.deleteIfExists(datei);
+            Files.deleteIfExists(fortschritt);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Journal konnte nicht geleert werden.", e);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package org.example.pruefung;
+
+import org.example.Konfiguration;
+import org.example.crud.PatientRepository;
+import org.example.crud.Repositories;
+import org.example.model.Patient;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Nächtlicher Datenqualitätslauf über alle aktiven Patienten (ohne Oberfläche).
+ * Die Tabelle wird seitenweise nach ID gelesen ({@link PatientRepository#findPage}), jede Seite
+ * parallel mit der {@link MassenPruefung} geprüft; im Speicher liegt also immer nur eine Seite.
+ * Nach jeder Seite wird der Stand in eine Checkpoint-Datei geschrieben (letzte ID, Zähler,
+ * Länge des Berichts). Wird der Lauf unterbrochen, macht der nächste Start dort weiter; der
+ * Bericht wird dabei auf die Länge beim letzten Checkpoint gekürzt, damit keine Zeile doppelt steht.
+ * Tagsüber (Standard 7–20 Uhr) bremst sich der Lauf selbst: ein Thread und nach jeder Seite eine
+ * Pause, sodass er nur einen kleinen Teil der Zeit arbeitet (Standard 10 %). Braucht die Datenbank
+ * länger, werden die Pausen entsprechend länger. Nachts läuft er ohne Pause auf allen Kernen.
+ *
+ * <pre>java -cp ... org.example.pruefung.DatenqualitaetsLauf [--neu] [--korrigieren]</pre>
+ *
+ * {@code --neu} verwirft einen unterbrochenen Lauf, {@code --korrigieren} schreibt Korrekturen
+ * der Schreibweise zurück. Einstellungen über System-Properties:
+ * {@code patienten.qualitaet.dir} (Standard {@code ~/.patientenaufnahme/qualitaet}),
+ * {@code patienten.qualitaet.seite} (Patienten pro Seite, Standard 2000),
+ * {@code patienten.qualitaet.tag} (gebremste Stunden, Standard {@code 7-20}) und
+ * {@code patienten.qualitaet.anteil} (Arbeitsanteil tagsüber in Prozent, Standard 10).
+ */
+public class DatenqualitaetsLauf {
+
+    private static final DateTimeFormatter LAUF_ID = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final PatientRepository repo;
+    private final Path verzeichnis;
+    private final int seite;
+    private final int tagVon;
+    private final int tagBis;
+    private final int anteil;
+    private final boolean korrigieren;
+
+    private final MassenPruefung nachts = new MassenPruefung();
+    private final MassenPruefung tags = new MassenPruefung(1);
+
+    // Stand des Laufs (wird im Checkpoint gespeichert)
+    private String lauf;
+    private int letzteId;
+    private long geprueft;
+    private long korrigiert;
+    private final Map<String, Long> fehler = new TreeMap<>();
+
+    /**
+     * @param repo Patientenzugriff
+     * @param korrigieren Korrekturen der Schreibweise zurückschreiben
+     */
+    public DatenqualitaetsLauf(PatientRepository repo, boolean korrigieren) {
+        this.repo = repo;
+        this.korrigieren = korrigieren;
+        this.verzeichnis = Paths.get(Konfiguration.get().get("qualitaet.dir",
+                System.getProperty("user.home") + "/.patientenaufnahme/qualitaet"));
+        this.seite = Konfiguration.get().getInt("qualitaet.seite", 2000);
+        String[] tag = Konfiguration.get().get("qualitaet.tag", "7-20").split("-");
+        this.tagVon = Integer.parseInt(tag[0].strip());
+        this.tagBis = Integer.parseInt(tag[1].strip());
+        this.anteil = Math.max(1, Math.min(100, Konfiguration.get().getInt("qualitaet.anteil", 10)));
+    }
+
+    /**
+     * Startet den Lauf bzw. setzt einen unterbrochenen fort.
+     *
+     * @param args {@code --neu}, {@code --korrigieren}
+     * @throws InterruptedException wenn der Lauf in einer Pause abgebrochen wird
+     */
+    public static void main(String[] args) throws InterruptedException {
+        List<String> a = List.of(args);
+        DatenqualitaetsLauf l = new DatenqualitaetsLauf(Repositories.patienten(), a.contains("--korrigieren"));
+        Path bericht = l.ausfuehren(a.contains("--neu"));
+        System.out.println("Bericht: " + bericht);
+    }
+
+    /**
+     * Führt den Lauf bis zum Ende aus.
+     *
+     * @param neu einen unterbrochenen Lauf verwerfen und von vorne beginnen
+     * @return Pfad der Zusammenfassung
+     * @throws InterruptedException wenn der Lauf in einer Pause abgebrochen wird
+     * @throws UncheckedIOException wenn Bericht oder Checkpoint nicht geschrieben werden können
+     */
+    public Path ausfuehren(boolean neu) throws InterruptedException {
+        Path checkpoint = verzeichnis.resolve("checkpoint.properties");
+        try {
+            Files.createDirectories(verzeichnis);
+            long berichtLaenge = neu ? -1 : laden(checkpoint);
+            if (berichtLaenge < 0) {
+                lauf = LocalDateTime.now().format(LAUF_ID);
+                letzteId = 0;
+                geprueft = korrigiert = 0;
+                fehler.clear();
+                berichtLaenge = 0;
+            } else {
+                System.out.println("Setze Lauf " + lauf + " nach ID " + letzteId + " fort.");
+            }
+
+            Path csv = verzeichnis.resolve("datenqualitaet-" + lauf + ".csv");
+            try (FileChannel ch = FileChannel.open(csv, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                // was nach dem letzten Checkpoint geschrieben wurde, kommt beim Wiederholen der Seite erneut
+                ch.truncate(berichtLaenge);
+            }
+
+            try (BufferedWriter out = Files.newBufferedWriter(csv, StandardCharsets.UTF_8, StandardOpenOption.APPEND)) {
+                if (berichtLaenge == 0) out.write("id;feld;code;meldung\n");
+                while (true) {
+                    boolean tagsueber = istTagsueber();
+                    long t0 = System.nanoTime();
+
+                    List<Patient> teil = repo.findPage(letzteId, seite);
+                    if (teil.isEmpty()) break;
+                    MassenPruefung m = tagsueber ? tags : nachts;
+                    MassenPruefung.Bericht b = korrigieren
+                            ? m.pruefenUndKorrigieren(teil, repo, 500)
+                            : m.pruefen(teil);
+
+                    for (PruefErgebnis e : b.fehlerhaft()) schreibeZeilen(out, e);
+                    out.flush();
+                    b.anzahlProFehler().forEach((k, v) -> fehler.merge(k.feld() + "." + k.code(), v, Long::sum));
+                    geprueft += b.geprueft();
+                    korrigiert += korrigieren ? b.korrekturen().size() : 0;
+                    letzteId = teil.get(teil.size() - 1).getId();
+                    speichern(checkpoint, Files.size(csv), false);
+
+                    if (tagsueber) {
+                        long arbeitMs = (System.nanoTime() - t0) / 1_000_000;
+                        Thread.sleep(arbeitMs * (100 - anteil) / anteil);
+                    }
+                }
+            }
+
+            speichern(checkpoint, Files.size(csv), true);
+            return zusammenfassung(csv);
+
+        } catch (IOException e) {
+            throw new UncheckedIOException("Datenqualitätslauf: Datei konnte nicht geschrieben werden.", e);
+        }
+    }
+
+    private boolean istTagsueber() {
+        int h = LocalTime.now().getHour();
+        return tagVon <= tagBis ? h >= tagVon && h < tagBis : h >= tagVon || h < tagBis;
+    }
+
+    private static void schreibeZeilen(Writer out, PruefErgebnis e) throws IOException {
+        for (Feldfehler f : e.fehler()) {
+            out.write(e.patient().getId() + ";" + f.feld().getSpalte() + ";" + f.code() + ";" + f.getMeldung() + "\n");
+        }
+    }
+
+    /**
+     * Schreibt die Zusammenfassung neben den Bericht.
+     */
+    private Path zusammenfassung(Path csv) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Datenqualitätslauf ").append(lauf).append(", beendet ").append(LocalDateTime.now().withNano(0)).append('\n');
+        sb.append("Geprüfte Patienten: ").append(geprueft).append('\n');
+        if (korrigieren) sb.append("Korrigierte Schreibweisen: ").append(korrigiert).append('\n');
+        sb.append("Fehler (Feld.Code: Anzahl):\n");
+        if (fehler.isEmpty()) sb.append("  keine\n");
+        fehler.forEach((k, v) -> sb.append("  ").append(k).append(": ").append(v).append('\n'));
+        sb.append("Einzelheiten: ").append(csv.getFileName()).append('\n');
+
+        Path txt = verzeichnis.resolve("datenqualitaet-" + lauf + ".txt");
+        Files.writeString(txt, sb, StandardCharsets.UTF_8);
+        System.out.print(sb);
+        return txt;
+    }
+
+    /**
+     * Liest den Checkpoint eines unterbrochenen Laufs.
+     *
+     * @return Länge des Berichts beim Checkpoint, oder -1, wenn es nichts fortzusetzen gibt
+     */
+    private long laden(Path checkpoint) throws IOException {
+        if (!Files.exists(checkpoint)) return -1;
+        Properties p = new Properties();
+        try (Reader r = Files.newBufferedReader(checkpoint, StandardCharsets.UTF_8)) {
+            p.load(r);
+        }
+        if (Boolean.parseBoolean(p.getProperty("fertig"))) return -1;
+
+        lauf = p.getProperty("lauf");
+        letzteId = Integer.parseInt(p.getProperty("letzteId"));
+        geprueft = Long.parseLong(p.getProperty("geprueft"));
+        korrigiert = Long.parseLong(p.getProperty("korrigiert"));
+        fehler.clear();
+        for (String k : p.stringPropertyNames()) {
+            if (k.startsWith("fehler.")) fehler.put(k.substring("fehler.".length()), Long.parseLong(p.getProperty(k)));
+        }
+        return Long.parseLong(p.getProperty("berichtLaenge"));
+    }
+
+    /**
+     * Schreibt den Checkpoint (über eine temporäre Datei, damit nie ein halber liegen bleibt).
+     */
+    private void speichern(Path checkpoint, long berichtLaenge, boolean fertig) throws IOException {
+        Properties p = new Properties();
+        p.setProperty("lauf", lauf);
+        p.setProperty("letzteId", Integer.toString(letzteId));
+        p.setProperty("geprueft", Long.toString(geprueft));
+        p.setProperty("korrigiert", Long.toString(korrigiert));
+        p.setProperty("berichtLaenge", Long.toString(berichtLaenge));
+        p.setProperty("fertig", Boolean.toString(fertig));
+        fehler.forEach((k, v) -> p.setProperty("fehler." + k, Long.toString(v)));
+
+        Path tmp = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        try (Writer w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            p.store(w, "Datenqualitätslauf");
+        }
+        Files.move(tmp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.pruefung;
+
+/**
+ * Art eines Prüffehlers, unabhängig vom Feld (das steht im {@link Feldfehler}).
+ */
+public enum FehlerCode {
+    /** Pflichtfeld ist leer. */
+    FEHLT,
+    /** Wert hat nicht das vorgeschriebene Format (SVNR, Telefonnummer). */
+    FORMAT,
+    /** SVNR passt nicht zum Geburtsdatum (letzte 6 Ziffern TTMMJJ). */
+    SVNR_GEBURTSDATUM
+}
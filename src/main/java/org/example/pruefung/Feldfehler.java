@@ -0,0 +1,35 @@
+package org.example.pruefung;
+
+import org.example.model.PatientFeld;
+
+/**
+ * Ein Prüffehler an einem Feld.
+ *
+ * @param feld betroffenes Feld
+ * @param code Art des Fehlers
+ */
+public record Feldfehler(PatientFeld feld, FehlerCode code) {
+
+    /**
+     * Gibt die Meldung für die Oberfläche zurück.
+     * @return deutscher Text
+     */
+    public String getMeldung() {
+        return switch (code) {
+            case FEHLT -> switch (feld) {
+                case FIRST_NAME -> "Vorname fehlt.";
+                case LAST_NAME -> "Nachname fehlt.";
+                case BIRTH_DATE -> "Geburtsdatum fehlt.";
+                case SVNR -> "SVNR fehlt.";
+                case PHONE -> "Telefonnummer fehlt.";
+                case REASON -> "Grund für Aufenthalt fehlt.";
+                case ADDRESS -> "Die Adresse fehlt – bitte eintragen.";
+                case STATION_ID -> "Bitte eine Station auswählen.";
+            };
+            case FORMAT -> feld == PatientFeld.PHONE
+                    ? "Telefonnummer ungültig: muss mit + beginnen und 10–13 Zeichen lang sein."
+                    : "SVNR muss genau 10 Ziffern haben.";
+            case SVNR_GEBURTSDATUM -> "SVNR ungültig: letzte 6 Ziffern müssen dem Geburtsdatum (TTMMJJ) entsprechen.";
+        };
+    }
+}
@@ -0,0 +1,120 @@
+package org.example.pruefung;
+
+import org.example.Konfiguration;
+import org.example.crud.PatientRepository;
+import org.example.model.Patient;
+import org.example.model.PatientFeld;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * Prüft und normalisiert viele Patienten auf einmal, z.B. bei Importen oder für die
+ * Datenqualität des ganzen Bestands.
+ * Die Patienten laufen als paralleler Stream durch den {@link PatientValidator}, in einem eigenen
+ * {@link ForkJoinPool} (Standard: alle Kerne, {@code patienten.pruefung.threads}),
+ * damit der gemeinsame Pool frei bleibt. Die Fehler werden pro Feld und {@link FehlerCode}
+ * gezählt; Korrekturen der Schreibweise können gesammelt per Batch-Update zurückgeschrieben werden.
+ */
+public class MassenPruefung {
+
+    /**
+     * Zusammenfassung einer Prüfung.
+     *
+     * @param geprueft Anzahl geprüfter Patienten
+     * @param fehlerhaft Ergebnisse mit mindestens einem Fehler (in der Reihenfolge der Eingabe)
+     * @param korrekturen normalisierte Patienten, deren Schreibweise sich geändert hat
+     *                    (die korrigierten Felder sind als geändert markiert)
+     * @param anzahlProFehler Anzahl je Feld und Fehler
+     */
+    public record Bericht(int geprueft, List<PruefErgebnis> fehlerhaft, List<Patient> korrekturen,
+                          Map<Feldfehler, Long> anzahlProFehler) { }
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(
+            Konfiguration.get().getInt("pruefung.threads", Runtime.getRuntime().availableProcessors()));
+
+    private final PatientValidator validator = new PatientValidator();
+    private final ForkJoinPool pool;
+
+    /**
+     * Verwendet den gemeinsamen Prüfpool.
+     */
+    public MassenPruefung() {
+        this.pool = POOL;
+    }
+
+    /**
+     * Verwendet einen eigenen Pool mit der angegebenen Parallelität (z.B. weniger Threads
+     * für Läufe tagsüber).
+     *
+     * @param threads Anzahl Threads
+     */
+    public MassenPruefung(int threads) {
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * Prüft alle Felder aller Patienten parallel. Die Patienten selbst werden nicht verändert.
+     *
+     * @param patients zu prüfende Patienten
+     * @return Bericht
+     */
+    public Bericht pruefen(List<Patient> patients) {
+        Set<PatientFeld> alle = EnumSet.allOf(PatientFeld.class);
+        List<PruefErgebnis> ergebnisse = pool.submit(() -> patients.parallelStream()
+                .map(p -> validator.pruefen(p, alle))
+                .filter(e -> !e.istGueltig() || !e.korrigiert().isEmpty())
+                .collect(Collectors.toList())).join();
+
+        // gezählt wird danach in einem Durchgang über die (wenigen) auffälligen Ergebnisse
+        List<PruefErgebnis> fehlerhaft = new ArrayList<>();
+        List<Patient> korrekturen = new ArrayList<>();
+        Map<Feldfehler, Long> anzahl = new TreeMap<>(
+                (a, b) -> a.feld() != b.feld() ? a.feld().compareTo(b.feld()) : a.code().compareTo(b.code()));
+        for (PruefErgebnis e : ergebnisse) {
+            if (!e.istGueltig()) fehlerhaft.add(e);
+            if (!e.korrigiert().isEmpty()) korrekturen.add(korrektur(e));
+            for (Feldfehler f : e.fehler()) anzahl.merge(f, 1L, Long::sum);
+        }
+        return new Bericht(patients.size(), Collections.unmodifiableList(fehlerhaft),
+                Collections.unmodifiableList(korrekturen), Collections.unmodifiableMap(anzahl));
+    }
+
+    /**
+     * Prüft die Patienten und schreibt die Korrekturen der Schreibweise gesammelt zurück.
+     * Patienten, die inzwischen anderweitig geändert wurden, werden ausgelassen.
+     *
+     * @param patients zu prüfende Patienten (mit Version, wie aus der Datenbank geladen)
+     * @param repo Ziel der Korrekturen
+     * @param batchGroesse Anzahl Patienten pro Batch-Update
+     * @return Bericht; {@code korrekturen} enthält nur die tatsächlich gespeicherten
+     */
+    public Bericht pruefenUndKorrigieren(List<Patient> patients, PatientRepository repo, int batchGroesse) {
+        Bericht b = pruefen(patients);
+        List<Patient> gespeichert = new ArrayList<>(b.korrekturen().size());
+        for (int i = 0; i < b.korrekturen().size(); i += batchGroesse) {
+            List<Patient> teil = b.korrekturen().subList(i, Math.min(i + batchGroesse, b.korrekturen().size()));
+            List<Patient> konflikte = repo.updateBatch(new ArrayList<>(teil));
+            for (Patient p : teil) {
+                if (!konflikte.contains(p)) gespeichert.add(p);
+            }
+        }
+        return new Bericht(b.geprueft(), b.fehlerhaft(), Collections.unmodifiableList(gespeichert), b.anzahlProFehler());
+    }
+
+    /**
+     * Baut aus einem Ergebnis den zu speichernden Patienten: nur die korrigierten Felder gelten als geändert.
+     */
+    private static Patient korrektur(PruefErgebnis e) {
+        Patient p = new Patient(e.patient());
+        for (PatientFeld f : e.korrigiert()) p.markDirty(f);
+        return p;
+    }
+}
@@ -0,0 +1,127 @@
+package org.example.pruefung;
+
+import org.example.model.Patient;
+import org.example.model.PatientFeld;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Normalisiert und prüft Patientendaten.
+ * Textfelder (Vorname, Nachname, Grund, Adresse) werden auf "erster Buchstabe groß, Rest klein"
+ * gebracht; geprüft werden Pflichtfelder, das Format von SVNR und Telefonnummer und ob die SVNR
+ * zum Geburtsdatum passt. Das Original wird nicht verändert, das Ergebnis enthält eine
+ * normalisierte Kopie und die Fehler als {@link Feldfehler}.
+ * Die Klasse hat keinen Zustand und kann von beliebig vielen Threads gleichzeitig benutzt werden.
+ */
+public class PatientValidator {
+
+    /**
+     * Normalisiert und prüft einen Patienten wie beim Speichern: neue Patienten vollständig,
+     * bestehende nur in den geänderten Feldern.
+     *
+     * @param p zu prüfender Patient
+     * @return Ergebnis mit normalisierter Kopie
+     */
+    public PruefErgebnis pruefen(Patient p) {
+        return pruefen(p, p.getId() <= 0 ? EnumSet.allOf(PatientFeld.class) : p.getDirtyFields());
+    }
+
+    /**
+     * Normalisiert und prüft die angegebenen Felder.
+     *
+     * @param p zu prüfender Patient
+     * @param f zu prüfende Felder
+     * @return Ergebnis mit normalisierter Kopie
+     */
+    public PruefErgebnis pruefen(Patient p, Set<PatientFeld> f) {
+        Patient n = new Patient(p);
+        Set<PatientFeld> korrigiert = EnumSet.noneOf(PatientFeld.class);
+        for (PatientFeld feld : TEXTFELDER) {
+            if (!f.contains(feld)) continue;
+            String alt = (String) p.getWert(feld);
+            String neu = firstUpperRestLower(alt);
+            n.setWert(feld, neu);
+            if (!isEmpty(alt) && !alt.equals(neu)) korrigiert.add(feld);
+        }
+
+        List<Feldfehler> fehler = new ArrayList<>(2);
+        for (PatientFeld feld : PFLICHTFELDER) {
+            if (f.contains(feld) && leer(n, feld)) fehler.add(new Feldfehler(feld, FehlerCode.FEHLT));
+        }
+
+        // SVNR und Geburtsdatum hängen zusammen: ändert sich eins davon, werden beide geprüft
+        if (f.contains(PatientFeld.SVNR) || f.contains(PatientFeld.BIRTH_DATE)) {
+            String svnr = n.getSvnr();
+            if (!isEmpty(svnr) && !nurZiffern(svnr, 10, 10)) {
+                fehler.add(new Feldfehler(PatientFeld.SVNR, FehlerCode.FORMAT));
+            } else if (!isEmpty(svnr) && n.getBirthDate() != null && !passtZuGeburtsdatum(svnr, n.getBirthDate())) {
+                fehler.add(new Feldfehler(PatientFeld.SVNR, FehlerCode.SVNR_GEBURTSDATUM));
+            }
+        }
+
+        String phone = n.getPhone();
+        if (f.contains(PatientFeld.PHONE) && !isEmpty(phone)
+                && !(phone.charAt(0) == '+' && nurZiffern(phone.substring(1), 9, 12))) {
+            fehler.add(new Feldfehler(PatientFeld.PHONE, FehlerCode.FORMAT));
+        }
+
+        return new PruefErgebnis(n, korrigiert, fehler);
+    }
+
+    private static final PatientFeld[] TEXTFELDER = {
+            PatientFeld.FIRST_NAME, PatientFeld.LAST_NAME, PatientFeld.REASON, PatientFeld.ADDRESS
+    };
+
+    /**
+     * Pflichtfelder in der Reihenfolge, in der die Meldungen erscheinen.
+     */
+    private static final PatientFeld[] PFLICHTFELDER = {
+            PatientFeld.FIRST_NAME, PatientFeld.LAST_NAME, PatientFeld.BIRTH_DATE, PatientFeld.SVNR,
+            PatientFeld.PHONE, PatientFeld.REASON, PatientFeld.ADDRESS, PatientFeld.STATION_ID
+    };
+
+    private static boolean leer(Patient p, PatientFeld f) {
+        Object w = p.getWert(f);
+        return w == null || (w instanceof String s && s.isEmpty());
+    }
+
+    /**
+     * Prüft die letzten 6 Ziffern der SVNR gegen TTMMJJ, ohne einen Text zu formatieren.
+     */
+    private static boolean passtZuGeburtsdatum(String svnr, LocalDate d) {
+        return zahl(svnr, 4) == d.getDayOfMonth()
+                && zahl(svnr, 6) == d.getMonthValue()
+                && zahl(svnr, 8) == d.getYear() % 100;
+    }
+
+    private static int zahl(String s, int i) {
+        return (s.charAt(i) - '0') * 10 + (s.charAt(i + 1) - '0');
+    }
+
+    private static boolean nurZiffern(String s, int min, int max) {
+        if (s.length() < min || s.length() > max) return false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+
+    private static boolean isEmpty(String s) {
+        return s == null || s.isEmpty();
+    }
+
+    /**
+     * Schreibt einen Text so, dass der 1.ste Buchstabe groß ist und der Rest klein.
+     * Wenn der String nicht gespeichert oder leer ist, wird ein leerer String zurückgegeben.
+     */
+    static String firstUpperRestLower(String s) {
+        if (s == null || s.isEmpty()) return "";
+        String x = s.toLowerCase();
+        return Character.toUpperCase(x.charAt(0)) + x.substring(1);
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.pruefung;
+
+import org.example.model.Patient;
+import org.example.model.PatientFeld;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Ergebnis der Prüfung eines Patienten.
+ *
+ * @param patient normalisierte Kopie (das Original bleibt unverändert)
+ * @param korrigiert Felder, deren Schreibweise durch die Normalisierung geändert wurde
+ * @param fehler gefundene Fehler (zuerst fehlende Pflichtfelder, dann Formatfehler)
+ */
+public record PruefErgebnis(Patient patient, Set<PatientFeld> korrigiert, List<Feldfehler> fehler) {
+
+    /**
+     * Prüft, ob keine Fehler gefunden wurden.
+     * @return true, wenn der Patient gültig ist
+     */
+    public boolean istGueltig() {
+        return fehler.isEmpty();
+    }
+
+    /**
+     * Gibt alle Meldungen zeilenweise zurück.
+     * @return Meldungen mit Zeilenumbruch getrennt
+     */
+    public String getMeldungen() {
+        StringBuilder sb = new StringBuilder();
+        for (Feldfehler f : fehler) {
+            if (sb.length() > 0) sb.append('\n');
+            sb.append(f.getMeldung());
+        }
+        return sb.toString();
+    }
+}
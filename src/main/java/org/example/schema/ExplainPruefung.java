@@ -0,0 +1,145 @@
+package org.example.schema;
+
+import org.example.DB;
+import org.example.crud.PatientArchivCrud;
+import org.example.crud.PatientCrud;
+import org.example.crud.StationCrud;
+import org.example.model.PatientFeld;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prüft mit {@code EXPLAIN}, ob die Abfragen aus den CRUD-Klassen einen Index verwenden.
+ * Geprüft werden die SQL-Konstanten von {@link PatientCrud}, {@link PatientArchivCrud} und
+ * {@link StationCrud} selbst, mit Beispielwerten für die Platzhalter; eine geänderte Abfrage wird
+ * also automatisch mitgeprüft, nur eine neue muss hier eingetragen werden.
+ * Als vollständiger Durchlauf gilt {@code type=ALL} (Tabelle) und {@code type=index} (ganzer Index).
+ * Erlaubt ist das nur bei den unten begründeten Ausnahmen: Abfragen, die ohnehin alle aktiven
+ * Zeilen liefern, und die Textsuche mit {@code LIKE '%…%'}, die kein B-Baum-Index abdecken kann.
+ *
+ * <pre>java -cp target/classes:mysql-connector-j.jar org.example.schema.ExplainPruefung</pre>
+ * Endet mit Exit-Code 1, wenn eine Abfrage ohne Ausnahme vollständig durchläuft.
+ */
+public class ExplainPruefung {
+
+    /**
+     * Eine zu prüfende Abfrage.
+     *
+     * @param name Bezeichnung (Klasse.Methode)
+     * @param sql SQL mit Platzhaltern
+     * @param parameter Beispielwerte für die Platzhalter
+     * @param ausnahme Begründung, warum ein vollständiger Durchlauf in Ordnung ist, sonst null
+     */
+    record Abfrage(String name, String sql, Object[] parameter, String ausnahme) { }
+
+    private static final String ALLE_AKTIVEN = "liefert alle aktiven Patienten";
+    private static final String TEXTSUCHE = "LIKE mit führendem % kann keinen Index nutzen";
+
+    /**
+     * Die geprüften Abfragen.
+     */
+    static List<Abfrage> abfragen() {
+        Object[] like = {"%mei%", "%mei%", "%mei%", "%mei%", "%mei%", "%mei%"};
+        Timestamp jetzt = new Timestamp(System.currentTimeMillis());
+        List<Abfrage> out = new ArrayList<>();
+        out.add(new Abfrage("PatientCrud.findAll", PatientCrud.FIND_ALL_SQL, new Object[0], ALLE_AKTIVEN));
+        out.add(new Abfrage("PatientCrud.search", PatientCrud.SEARCH_SQL, like, TEXTSUCHE));
+        out.add(new Abfrage("PatientCrud.searchList (leer)", PatientCrud.LIST_SQL, new Object[0], ALLE_AKTIVEN));
+        out.add(new Abfrage("PatientCrud.searchList", PatientCrud.SEARCH_LIST_SQL, like, TEXTSUCHE));
+        out.add(new Abfrage("PatientCrud.searchTopK (leer)", PatientCrud.TOP_K_SQL, new Object[]{201}, null));
+        out.add(new Abfrage("PatientCrud.searchTopK", PatientCrud.SEARCH_TOP_K_SQL,
+                new Object[]{"%mei%", "%mei%", "%mei%", "%mei%", "%mei%", "%mei%", "mei", "mei%", "mei%", 201}, TEXTSUCHE));
+        out.add(new Abfrage("PatientCrud.searchTopK (Spanne)", PatientCrud.ID_SPANNE_SQL, new Object[0], null));
+        List<Object> schaetzen = new ArrayList<>(List.of("mei", "%mei%", "%mei%", "%mei%", "%mei%", "%mei%", "%mei%"));
+        for (int k = 0; k < 10; k++) {
+            schaetzen.add(k * 100_000 + 1);
+            schaetzen.add(k * 100_000 + 500);
+        }
+        out.add(new Abfrage("PatientCrud.searchTopK (Schätzung)", PatientCrud.SCHAETZEN_SQL, schaetzen.toArray(), null));
+        out.add(new Abfrage("PatientCrud.searchPhonetic", PatientCrud.phonetikSql(1), new Object[]{"67", "67"}, null));
+        out.add(new Abfrage("PatientCrud.findBySvnr", PatientCrud.FIND_BY_SVNR_SQL, new Object[]{"1234010180"}, null));
+        out.add(new Abfrage("PatientCrud.findPage", PatientCrud.FIND_PAGE_SQL, new Object[]{0, 1000}, null));
+        out.add(new Abfrage("PatientCrud.findListChangedSince (alle)", PatientCrud.LIST_ALL_SQL, new Object[0], ALLE_AKTIVEN));
+        out.add(new Abfrage("PatientCrud.findListChangedSince", PatientCrud.CHANGED_SINCE_SQL, new Object[]{jetzt}, null));
+        out.add(new Abfrage("PatientCrud.findListChangedSince (Anzahl)", PatientCrud.COUNT_ACTIVE_SQL, new Object[0], null));
+        out.add(new Abfrage("PatientCrud.findAssignments", PatientCrud.ASSIGNMENTS_SQL, new Object[0], ALLE_AKTIVEN));
+        out.add(new Abfrage("PatientCrud.findById", PatientCrud.FIND_BY_ID_SQL, new Object[]{1}, null));
+        out.add(new Abfrage("PatientCrud.insertEinmalig", PatientCrud.FIND_BY_SCHLUESSEL_SQL,
+                new Object[]{"00000000-0000-0000-0000-000000000000"}, null));
+        out.add(new Abfrage("PatientCrud.update", PatientCrud.updateSql(PatientFeld.LAST_NAME.bit()),
+                new Object[]{"x", "8", 1, 0}, null));
+        out.add(new Abfrage("PatientCrud.deleteById", PatientCrud.DELETE_SQL, new Object[]{1}, null));
+        out.add(new Abfrage("PatientCrud.dischargeById", PatientCrud.DISCHARGE_SQL, new Object[]{1}, null));
+        out.add(new Abfrage("PatientArchivCrud.archiveDischarged", PatientArchivCrud.ARCHIVE_SELECT_SQL,
+                new Object[]{jetzt, 500}, null));
+        out.add(new Abfrage("PatientArchivCrud.purgeDeleted", PatientArchivCrud.PURGE_SQL, new Object[]{jetzt, 500}, null));
+        out.add(new Abfrage("PatientArchivCrud.search", PatientArchivCrud.SEARCH_SQL,
+                new Object[]{"%mei%", "%mei%", "%mei%", "%mei%", "%mei%", "%mei%",
+                        "%mei%", "%mei%", "%mei%", "%mei%", "%mei%", "%mei%"}, TEXTSUCHE));
+        out.add(new Abfrage("StationCrud.findAll", StationCrud.FIND_ALL_SQL, new Object[0],
+                "wenige Zeilen, liefert alle Stationen"));
+        return out;
+    }
+
+    /**
+     * Führt {@code EXPLAIN} für alle Abfragen aus.
+     *
+     * @param con Verbindung
+     * @return Beschreibung aller Abfragen, die ohne Ausnahme vollständig durchlaufen (leer = alles gut)
+     * @throws SQLException wenn eine Abfrage nicht erklärt werden kann
+     */
+    public static List<String> pruefen(Connection con) throws SQLException {
+        List<String> fehler = new ArrayList<>();
+        for (Abfrage a : abfragen()) {
+            try (PreparedStatement ps = con.prepareStatement("EXPLAIN " + a.sql())) {
+                for (int i = 0; i < a.parameter().length; i++) setzen(ps, i + 1, a.parameter()[i]);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        String typ = rs.getString("type");
+                        String tabelle = rs.getString("table");
+                        boolean vollscan = "ALL".equalsIgnoreCase(typ) || "index".equalsIgnoreCase(typ);
+                        String zeile = a.name() + ": " + tabelle + " type=" + typ + " key=" + rs.getString("key");
+                        if (!vollscan) System.out.println("ok    " + zeile);
+                        else if (a.ausnahme() != null) System.out.println("frei  " + zeile + " (" + a.ausnahme() + ")");
+                        else {
+                            System.out.println("FEHL  " + zeile);
+                            fehler.add(zeile);
+                        }
+                    }
+                }
+            }
+        }
+        return fehler;
+    }
+
+    private static void setzen(PreparedStatement ps, int idx, Object v) throws SQLException {
+        if (v instanceof Integer i) ps.setInt(idx, i);
+        else if (v instanceof Timestamp t) ps.setTimestamp(idx, t);
+        else if (v instanceof Date d) ps.setDate(idx, d);
+        else ps.setString(idx, (String) v);
+    }
+
+    /**
+     * Startet die Prüfung gegen die konfigurierte Datenbank.
+     *
+     * @param args nicht verwendet
+     * @throws SQLException wenn die Datenbank nicht erreichbar ist
+     */
+    public static void main(String[] args) throws SQLException {
+        try (Connection con = DB.getConnection()) {
+            List<String> fehler = pruefen(con);
+            if (!fehler.isEmpty()) {
+                System.out.println(fehler.size() + " Abfrage(n) ohne Index.");
+                System.exit(1);
+            }
+            System.out.println("Alle Abfragen verwenden einen Index oder sind begründete Ausnahmen.");
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.schema;
+
+import org.example.DB;
+import org.example.suche.KoelnerPhonetik;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Füllt die Kölner-Phonetik-Codes ({@code first_name_phon}, {@code last_name_phon}) für Patienten
+ * nach, die vor V6 angelegt und seitdem nicht gespeichert wurden; ohne Code findet
+ * {@code PatientCrud.searchPhonetic} sie nicht. Gelesen wird seitenweise nach ID, jede Seite in
+ * einem Batch geschrieben; {@code updated_at} und {@code version} bleiben unverändert, es ist
+ * ja keine Änderung durch einen Benutzer. Der Lauf kann jederzeit abgebrochen und wiederholt werden,
+ * er nimmt nur Zeilen, denen noch ein Code fehlt.
+ * {@link SchemaMigration} startet ihn direkt nach V6; für Datenbanken, auf denen V6 schon vorher
+ * lief, einmal von Hand:
+ *
+ * <pre>java -cp target/classes:mysql-connector-j.jar org.example.schema.PhonetikNachtrag</pre>
+ */
+public class PhonetikNachtrag {
+
+    private static final int SEITE = 1000;
+
+    private static final String OHNE_CODE_SQL = """
+            SELECT id, first_name, last_name
+            FROM patient
+            WHERE id > ?
+              AND ((first_name IS NOT NULL AND first_name_phon IS NULL)
+                OR (last_name IS NOT NULL AND last_name_phon IS NULL))
+            ORDER BY id
+            LIMIT ?
+            """;
+
+    private static final String SETZEN_SQL =
+            "UPDATE patient SET first_name_phon=?, last_name_phon=?, updated_at=updated_at WHERE id=?";
+
+    private PhonetikNachtrag() {
+    }
+
+    /**
+     * Füllt alle fehlenden Codes nach.
+     *
+     * @param con Verbindung (bleibt offen, Autocommit an)
+     * @return Anzahl nachgetragener Patienten
+     * @throws SQLException wenn nicht gelesen oder geschrieben werden kann
+     */
+    public static int nachtragen(Connection con) throws SQLException {
+        int n = 0;
+        int nachId = 0;
+        try (PreparedStatement lesen = con.prepareStatement(OHNE_CODE_SQL);
+             PreparedStatement setzen = con.prepareStatement(SETZEN_SQL)) {
+            while (true) {
+                List<Integer> ids = new ArrayList<>();
+                lesen.setInt(1, nachId);
+                lesen.setInt(2, SEITE);
+                try (ResultSet rs = lesen.executeQuery()) {
+                    while (rs.next()) {
+                        int id = rs.getInt(1);
+                        ids.add(id);
+                        setzen.setString(1, KoelnerPhonetik.kodiere(rs.getString(2)));
+                        setzen.setString(2, KoelnerPhonetik.kodiere(rs.getString(3)));
+                        setzen.setInt(3, id);
+                        setzen.addBatch();
+                    }
+                }
+                if (ids.isEmpty()) return n;
+                setzen.executeBatch();
+                n += ids.size();
+                nachId = ids.get(ids.size() - 1);
+            }
+        }
+    }
+
+    /**
+     * Startet den Nachtrag gegen die konfigurierte Datenbank.
+     *
+     * @param args nicht verwendet
+     * @throws SQLException wenn die Datenbank nicht erreichbar ist
+     */
+    public static void main(String[] args) throws SQLException {
+        try (Connection con = DB.getConnection()) {
+            System.out.println("Phonetik-Codes nachgetragen: " + nachtragen(con));
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package org.example.schema;
+
+import org.example.Konfiguration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Bringt das Datenbankschema auf den aktuellen Stand.
+ * Die Migrationen liegen als SQL-Dateien unter {@code db/migration} im Klassenpfad, ihre Reihenfolge
+ * steht in {@code db/migration/migrationen.txt}. Dateinamen haben die Form
+ * {@code V<Nummer>__<Beschreibung>.sql}. Ausgeführte Migrationen werden mit SHA-256-Prüfsumme in
+ * der Tabelle {@code schema_version} vermerkt; wurde eine schon ausgeführte Datei nachträglich
+ * geändert, bricht der Lauf ab.
+ * Damit mehrere Arbeitsplätze gleichzeitig starten können, läuft alles unter einer
+ * Datenbanksperre ({@code GET_LOCK}). DDL ist in MySQL nicht transaktional: scheitert eine
+ * Migration mittendrin, muss sie von Hand bereinigt werden, bevor der nächste Lauf sie wiederholt.
+ * Für Datenbanken, deren Schema schon von Hand angepasst wurde, kann man mit {@code schema.baseline}
+ * ({@link Konfiguration}) die Nummer angeben, bis zu der alles als ausgeführt gilt.
+ */
+public class SchemaMigration {
+
+    private static final String VERZEICHNIS = "db/migration/";
+    private static final Pattern NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+    private static final String SPERRE = "patienten_schema";
+
+    /**
+     * Patienten, deren Station es nicht gibt; vor V8 (Fremdschlüssel auf {@code station}) müssen es null sein.
+     */
+    private static final String OHNE_STATION_SQL = """
+            SELECT p.id, p.last_name, p.first_name, p.station_id
+            FROM patient p
+            LEFT JOIN station s ON s.Raum = p.station_id
+            WHERE p.station_id IS NOT NULL AND s.Raum IS NULL
+            ORDER BY p.id
+            LIMIT 50
+            """;
+
+    /**
+     * Eine Migrationsdatei.
+     *
+     * @param version Nummer aus dem Dateinamen
+     * @param beschreibung Beschreibung aus dem Dateinamen
+     * @param sql Inhalt
+     * @param pruefsumme SHA-256 des Inhalts (hex)
+     */
+    record Migration(int version, String beschreibung, String sql, String pruefsumme) { }
+
+    private final Connection con;
+
+    /**
+     * @param con Verbindung mit Rechten für DDL (bleibt offen)
+     */
+    public SchemaMigration(Connection con) {
+        this.con = con;
+    }
+
+    /**
+     * Führt alle noch fehlenden Migrationen der Reihe nach aus.
+     *
+     * @return Anzahl ausgeführter Migrationen
+     * @throws SQLException wenn eine Migration scheitert oder die Sperre nicht zu bekommen ist
+     * @throws IllegalStateException wenn eine ausgeführte Migration geändert wurde oder fehlt
+     *         oder die Daten vor einer Migration erst bereinigt werden müssen
+     */
+    public int migrate() throws SQLException {
+        List<Migration> alle = laden();
+        sperren();
+        try {
+            tabelleAnlegen();
+            Map<Integer, String> erledigt = erledigte();
+            baseline(alle, erledigt);
+
+            int n = 0;
+            for (Migration m : alle) {
+                String summe = erledigt.get(m.version());
+                if (summe != null) {
+                    if (!summe.equals(m.pruefsumme()) && !summe.equals("baseline")) {
+                        throw new IllegalStateException("Migration V" + m.version() + " (" + m.beschreibung()
+                                + ") wurde nach dem Ausführen geändert.");
+                    }
+                    continue;
+                }
+                ausfuehren(m);
+                n++;
+            }
+            for (Integer v : erledigt.keySet()) {
+                if (alle.stream().noneMatch(m -> m.version() == v)) {
+                    throw new IllegalStateException("Migration V" + v + " ist in der Datenbank vermerkt, aber nicht mehr vorhanden.");
+                }
+            }
+            return n;
+        } finally {
+            entsperren();
+        }
+    }
+
+    private void ausfuehren(Migration m) throws SQLException {
+        vorpruefen(m);
+        long t0 = System.currentTimeMillis();
+        try (Statement st = con.createStatement()) {
+            for (String sql : anweisungen(m.sql())) st.execute(sql);
+        } catch (SQLException e) {
+            throw new SQLException("Migration V" + m.version() + " (" + m.beschreibung() + ") ist fehlgeschlagen: "
+                    + e.getMessage(), e.getSQLState(), e.getErrorCode(), e);
+        }
+        vermerken(m.version(), m.beschreibung(), m.pruefsumme(), (int) (System.currentTimeMillis() - t0));
+        System.out.println("Schema: V" + m.version() + " " + m.beschreibung() + " ausgeführt.");
+        nacharbeiten(m);
+    }
+
+    /**
+     * Füllt Daten nach, die eine Migration nur als Spalte anlegt.
+     * V6: Phonetik-Codes für bestehende Patienten ({@link PhonetikNachtrag}); scheitert das, kann
+     * der Nachtrag von Hand wiederholt werden.
+     */
+    private void nacharbeiten(Migration m) throws SQLException {
+        if (m.version() != 6) return;
+        System.out.println("Schema: Phonetik-Codes nachgetragen: " + PhonetikNachtrag.nachtragen(con));
+    }
+
+    /**
+     * Prüft Daten, an denen eine Migration sonst scheitern oder die sie verfälschen würde.
+     * V8: Patienten mit nicht vorhandener Station werden aufgelistet statt geleert.
+     *
+     * @throws IllegalStateException wenn die Daten erst bereinigt werden müssen
+     */
+    private void vorpruefen(Migration m) throws SQLException {
+        if (m.version() != 8) return;
+        List<String> waisen = new ArrayList<>();
+        try (Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery(OHNE_STATION_SQL)) {
+            while (rs.next()) {
+                waisen.add("ID " + rs.getInt(1) + " " + rs.getString(2) + ", " + rs.getString(3)
+                        + " (Station " + rs.getInt(4) + ")");
+            }
+        }
+        if (waisen.isEmpty()) return;
+        throw new IllegalStateException("Migration V8 (" + m.beschreibung() + ") abgebrochen: Patienten mit nicht vorhandener Station"
+                + (waisen.size() == 50 ? " (die ersten 50)" : "") + ":\n  " + String.join("\n  ", waisen)
+                + "\nBitte einer vorhandenen Station zuordnen oder station_id leeren.");
+    }
+
+    /**
+     * Vermerkt bei gesetzter Baseline alle Migrationen bis dahin als ausgeführt (nur in einer leeren Tabelle).
+     */
+    private void baseline(List<Migration> alle, Map<Integer, String> erledigt) throws SQLException {
+        int bis = Konfiguration.get().getInt("schema.baseline", 0);
+        if (bis <= 0 || !erledigt.isEmpty()) return;
+        for (Migration m : alle) {
+            if (m.version() > bis) break;
+            vermerken(m.version(), m.beschreibung(), "baseline", 0);
+            erledigt.put(m.version(), "baseline");
+        }
+    }
+
+    private void tabelleAnlegen() throws SQLException {
+        try (Statement st = con.createStatement()) {
+            st.execute("""
+                    CREATE TABLE IF NOT EXISTS schema_version (
+                        version INT PRIMARY KEY,
+                        beschreibung VARCHAR(200) NOT NULL,
+                        pruefsumme VARCHAR(64) NOT NULL,
+                        ausgefuehrt_am DATETIME NOT NULL,
+                        dauer_ms INT NOT NULL
+                    )
+                    """);
+        }
+    }
+
+    private Map<Integer, String> erledigte() throws SQLException {
+        Map<Integer, String> out = new HashMap<>();
+        try (Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery("SELECT version, pruefsumme FROM schema_version")) {
+            while (rs.next()) out.put(rs.getInt(1), rs.getString(2));
+        }
+        return out;
+    }
+
+    private void vermerken(int version, String beschreibung, String summe, int dauer) throws SQLException {
+        String sql = "INSERT INTO schema_version (version, beschreibung, pruefsumme, ausgefuehrt_am, dauer_ms) VALUES (?, ?, ?, NOW(), ?)";
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setInt(1, version);
+            ps.setString(2, beschreibung);
+            ps.setString(3, summe);
+            ps.setInt(4, dauer);
+            ps.executeUpdate();
+        }
+    }
+
+    private void sperren() throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement("SELECT GET_LOCK(?, 60)")) {
+            ps.setString(1, SPERRE);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) throw new SQLException("Schema-Sperre konnte nicht gesetzt werden.");
+            }
+        }
+    }
+
+    private void entsperren() throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            ps.setString(1, SPERRE);
+            ps.executeQuery().close();
+        }
+    }
+
+    /**
+     * Liest alle Migrationen in der Reihenfolge aus {@code migrationen.txt}.
+     *
+     * @return Migrationen
+     */
+    static List<Migration> laden() {
+        List<Migration> out = new ArrayList<>();
+        int letzte = 0;
+        for (String datei : zeilen(VERZEICHNIS + "migrationen.txt")) {
+            Matcher m = NAME.matcher(datei);
+            if (!m.matches()) throw new IllegalStateException("Ungültiger Migrationsname: " + datei);
+            int version = Integer.parseInt(m.group(1));
+            if (version <= letzte) throw new IllegalStateException("Migrationen nicht aufsteigend: " + datei);
+            letzte = version;
+
+            // Zeilenenden vereinheitlichen, damit ein Checkout unter Windows dieselbe Prüfsumme ergibt
+            String sql = new String(ressource(VERZEICHNIS + datei), StandardCharsets.UTF_8).replace("\r\n", "\n");
+            out.add(new Migration(version, m.group(2).replace('_', ' '), sql, sha256(sql.getBytes(StandardCharsets.UTF_8))));
+        }
+        return out;
+    }
+
+    /**
+     * Zerlegt ein Skript in einzelne Anweisungen: Kommentarzeilen ({@code --}) werden entfernt,
+     * getrennt wird an einem Semikolon am Zeilenende.
+     *
+     * @param skript Inhalt der Datei
+     * @return Anweisungen ohne abschließendes Semikolon
+     */
+    static List<String> anweisungen(String skript) {
+        List<String> out = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        for (String zeile : skript.split("\\R")) {
+            String t = zeile.strip();
+            if (t.isEmpty() || t.startsWith("--")) continue;
+            if (t.endsWith(";")) {
+                sb.append(t, 0, t.length() - 1);
+                out.add(sb.toString().strip());
+                sb.setLength(0);
+            } else {
+                sb.append(t).append('\n');
+            }
+        }
+        if (!sb.toString().isBlank()) out.add(sb.toString().strip());
+        return out;
+    }
+
+    private static List<String> zeilen(String pfad) {
+        List<String> out = new ArrayList<>();
+        for (String z : new String(ressource(pfad), StandardCharsets.UTF_8).split("\\R")) {
+            String t = z.strip();
+            if (!t.isEmpty() && !t.startsWith("#")) out.add(t);
+        }
+        return out;
+    }
+
+    private static byte[] ressource(String pfad) {
+        try (InputStream in = SchemaMigration.class.getClassLoader().getResourceAsStream(pfad)) {
+            if (in == null) throw new IllegalStateException("Ressource fehlt: " + pfad);
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ressource konnte nicht gelesen werden: " + pfad, e);
+        }
+    }
+
+    private static String sha256(byte[] daten) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(daten));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
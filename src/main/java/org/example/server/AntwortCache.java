@@ -0,0 +1,52 @@
+package org.example.server;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Kurzlebiger Cache für fertig serialisierte Antworten des HTTP-Servers.
+ * Jede Änderung an Patienten leert den Cache über eine Generationsnummer, damit eine Antwort,
+ * die während einer Änderung berechnet wurde, nicht nachträglich als aktuell gespeichert wird.
+ */
+final class AntwortCache {
+
+    private record Eintrag(byte[] daten, long ablauf, long generation) { }
+
+    private final Map<String, Eintrag> eintraege = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final int maxEintraege;
+
+    AntwortCache(int maxEintraege) {
+        this.maxEintraege = maxEintraege;
+    }
+
+    /**
+     * Gibt die Antwort aus dem Cache zurück oder berechnet sie.
+     *
+     * @param key Schlüssel (z.B. Pfad und Query)
+     * @param ttlMs Gültigkeit in Millisekunden
+     * @param berechnen liefert die Antwort, wenn sie nicht im Cache ist
+     * @return Antwort als UTF-8-Bytes
+     */
+    byte[] get(String key, long ttlMs, Supplier<byte[]> berechnen) {
+        long jetzt = System.currentTimeMillis();
+        long gen = generation.get();
+        Eintrag e = eintraege.get(key);
+        if (e != null && e.ablauf > jetzt && e.generation == gen) return e.daten;
+
+        byte[] daten = berechnen.get();
+        if (eintraege.size() >= maxEintraege) eintraege.clear();
+        if (generation.get() == gen) eintraege.put(key, new Eintrag(daten, jetzt + ttlMs, gen));
+        return daten;
+    }
+
+    /**
+     * Macht alle Einträge ungültig (nach einer Änderung).
+     */
+    void invalidate() {
+        generation.incrementAndGet();
+        eintraege.clear();
+    }
+}
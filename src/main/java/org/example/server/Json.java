@@ -0,0 +1,333 @@
+package org.example.server;
+
+import org.example.AbfrageProtokoll;
+import org.example.model.Patient;
+import org.example.model.Station;
+import org.example.warteschlange.Aufruf;
+import org.example.warteschlange.Dringlichkeit;
+import org.example.warteschlange.WartenderPatient;
+import org.example.warteschlange.WarteschlangenMetrik;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimaler JSON-Helfer für den HTTP-Server.
+ * Schreibt Patienten und Stationen als JSON und liest flache JSON-Objekte
+ * (nur Strings, Zahlen, true/false und null – keine verschachtelten Objekte oder Arrays).
+ * Mehr braucht die Schnittstelle nicht, deshalb keine zusätzliche Bibliothek.
+ */
+final class Json {
+
+    private Json() {
+    }
+
+    /**
+     * Schreibt einen Patienten als JSON-Objekt.
+     */
+    static void patient(StringBuilder sb, Patient p) {
+        sb.append('{');
+        field(sb, "id", p.getId()).append(',');
+        field(sb, "version", p.getVersion()).append(',');
+        field(sb, "firstName", p.getFirstName()).append(',');
+        field(sb, "lastName", p.getLastName()).append(',');
+        field(sb, "birthDate", p.getBirthDate() == null ? null : p.getBirthDate().toString()).append(',');
+        field(sb, "svnr", p.getSvnr()).append(',');
+        field(sb, "phone", p.getPhone()).append(',');
+        field(sb, "address", p.getAddress()).append(',');
+        field(sb, "reason", p.getReason()).append(',');
+        field(sb, "stationId", p.getStationId());
+        sb.append('}');
+    }
+
+    /**
+     * Schreibt eine Liste von Patienten als JSON-Array.
+     */
+    static String patienten(List<Patient> list) {
+        StringBuilder sb = new StringBuilder(list.size() * 200 + 2).append('[');
+        for (int i = 0; i < list.size(); i++) {
+            if (i > 0) sb.append(',');
+            patient(sb, list.get(i));
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Schreibt eine Liste von Stationen als JSON-Array.
+     */
+    static String stationen(List<Station> list) {
+        StringBuilder sb = new StringBuilder(list.size() * 60 + 2).append('[');
+        for (int i = 0; i < list.size(); i++) {
+            Station s = list.get(i);
+            if (i > 0) sb.append(',');
+            sb.append('{');
+            field(sb, "raum", s.getRaum()).append(',');
+            field(sb, "name", s.getName()).append(',');
+            field(sb, "maxBetten", s.getMaxBetten());
+            sb.append('}');
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Schreibt einen Wartenden: Nummer, Dringlichkeit, Ankunft und die bekannten Angaben.
+     */
+    static void wartender(StringBuilder sb, WartenderPatient w) {
+        sb.append('{');
+        field(sb, "nr", w.getNr()).append(',');
+        field(sb, "dringlichkeit", w.getDringlichkeit().name()).append(',');
+        field(sb, "ankunft", w.getAnkunft()).append(',');
+        field(sb, "wunschStation", w.getWunschStation()).append(',');
+        string(sb, "patient");
+        sb.append(':');
+        patient(sb, w.getDaten());
+        sb.append('}');
+    }
+
+    /**
+     * Schreibt die Warteschlange: Wartende in Aufrufreihenfolge und laufende Aufrufe.
+     */
+    static String warteschlange(List<WartenderPatient> wartend, List<Aufruf> aufgerufen) {
+        StringBuilder sb = new StringBuilder((wartend.size() + aufgerufen.size()) * 260 + 40);
+        sb.append("{\"wartend\":[");
+        for (int i = 0; i < wartend.size(); i++) {
+            if (i > 0) sb.append(',');
+            wartender(sb, wartend.get(i));
+        }
+        sb.append("],\"aufgerufen\":[");
+        for (int i = 0; i < aufgerufen.size(); i++) {
+            if (i > 0) sb.append(',');
+            aufruf(sb, aufgerufen.get(i));
+        }
+        return sb.append("]}").toString();
+    }
+
+    /**
+     * Schreibt einen Aufruf mit reservierter Station.
+     */
+    static void aufruf(StringBuilder sb, Aufruf a) {
+        sb.append('{');
+        field(sb, "schalter", a.schalter()).append(',');
+        field(sb, "station", a.station()).append(',');
+        field(sb, "wartezeitMs", a.getWartezeit()).append(',');
+        string(sb, "wartender");
+        sb.append(':');
+        wartender(sb, a.patient());
+        sb.append('}');
+    }
+
+    /**
+     * Schreibt die Kennzahlen der Warteschlange (pro Station und pro Dringlichkeit).
+     */
+    static String kennzahlen(WarteschlangenMetrik m) {
+        StringBuilder sb = new StringBuilder("{\"wartend\":{");
+        boolean erste = true;
+        for (Map.Entry<Dringlichkeit, Long> e : m.getWartend().entrySet()) {
+            if (!erste) sb.append(',');
+            erste = false;
+            field(sb, e.getKey().name(), e.getValue());
+        }
+        sb.append("},\"proDringlichkeit\":{");
+        erste = true;
+        for (Map.Entry<Dringlichkeit, WarteschlangenMetrik.Kennzahlen> e : m.getProDringlichkeit().entrySet()) {
+            if (!erste) sb.append(',');
+            erste = false;
+            kennzahlen(sb, e.getKey().name(), e.getValue());
+        }
+        sb.append("},\"proStation\":{");
+        erste = true;
+        for (Map.Entry<Integer, WarteschlangenMetrik.Kennzahlen> e : m.getProStation().entrySet()) {
+            if (!erste) sb.append(',');
+            erste = false;
+            kennzahlen(sb, e.getKey().toString(), e.getValue());
+        }
+        return sb.append("}}").toString();
+    }
+
+    private static void kennzahlen(StringBuilder sb, String name, WarteschlangenMetrik.Kennzahlen k) {
+        string(sb, name);
+        sb.append(":{");
+        field(sb, "aufgenommen", k.aufgenommen()).append(',');
+        field(sb, "mittlereWartezeitMs", k.mittlereWartezeitMs()).append(',');
+        field(sb, "maxWartezeitMs", k.maxWartezeitMs()).append(',');
+        field(sb, "ueberschritten", k.ueberschritten()).append(',');
+        field(sb, "proStunde", Math.round(k.proStunde() * 10) / 10.0);
+        sb.append('}');
+    }
+
+    /**
+     * Schreibt die Kennzahlen pro Abfrageform als JSON-Array (teuerste zuerst).
+     */
+    static String abfragen(List<AbfrageProtokoll.Abfrageform> list) {
+        StringBuilder sb = new StringBuilder(list.size() * 300 + 2).append('[');
+        for (int i = 0; i < list.size(); i++) {
+            AbfrageProtokoll.Abfrageform a = list.get(i);
+            if (i > 0) sb.append(',');
+            sb.append('{');
+            field(sb, "form", a.form()).append(',');
+            field(sb, "quelle", a.quelle()).append(',');
+            field(sb, "anzahl", a.anzahl()).append(',');
+            field(sb, "gesamtMs", Math.round(a.gesamtMs() * 10) / 10.0).append(',');
+            field(sb, "mittelMs", Math.round(a.getMittelMs() * 100) / 100.0).append(',');
+            field(sb, "maxMs", Math.round(a.maxMs() * 10) / 10.0).append(',');
+            field(sb, "zeilen", a.zeilen()).append(',');
+            field(sb, "langsam", a.langsam()).append(',');
+            field(sb, "plan", a.plan());
+            sb.append('}');
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Schreibt ein Objekt mit einer Fehlermeldung.
+     */
+    static String fehler(String meldung) {
+        StringBuilder sb = new StringBuilder("{");
+        field(sb, "fehler", meldung);
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Schreibt ein Objekt für einen Speicherkonflikt: Fehlermeldung und aktueller Stand.
+     */
+    static String konflikt(String meldung, Patient aktuell) {
+        StringBuilder sb = new StringBuilder("{");
+        field(sb, "fehler", meldung).append(',');
+        string(sb, "aktuell");
+        sb.append(':');
+        if (aktuell == null) sb.append("null");
+        else patient(sb, aktuell);
+        return sb.append('}').toString();
+    }
+
+    private static StringBuilder field(StringBuilder sb, String name, Object value) {
+        string(sb, name);
+        sb.append(':');
+        if (value == null) sb.append("null");
+        else if (value instanceof Number) sb.append(value);
+        else string(sb, value.toString());
+        return sb;
+    }
+
+    private static void string(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    /**
+     * Liest ein flaches JSON-Objekt.
+     * Zahlen werden als {@link Long} geliefert, Strings als {@link String}, null als null.
+     *
+     * @param s JSON-Text
+     * @return Feldname → Wert (in der Reihenfolge im Text)
+     * @throws IllegalArgumentException wenn der Text kein gültiges flaches Objekt ist
+     */
+    static Map<String, Object> parseObject(String s) {
+        Parser p = new Parser(s);
+        Map<String, Object> out = new LinkedHashMap<>();
+        p.skip();
+        p.expect('{');
+        p.skip();
+        if (p.peek() == '}') {
+            p.pos++;
+            return out;
+        }
+        while (true) {
+            p.skip();
+            String key = p.string();
+            p.skip();
+            p.expect(':');
+            p.skip();
+            out.put(key, p.value());
+            p.skip();
+            char c = p.next();
+            if (c == '}') break;
+            if (c != ',') throw new IllegalArgumentException("Ungültiges JSON bei Position " + p.pos);
+        }
+        return out;
+    }
+
+    /**
+     * Kleiner Parser über einen String.
+     */
+    private static final class Parser {
+        private final String s;
+        private int pos;
+
+        Parser(String s) {
+            this.s = s;
+        }
+
+        char peek() {
+            if (pos >= s.length()) throw new IllegalArgumentException("JSON ist unvollständig.");
+            return s.charAt(pos);
+        }
+
+        char next() {
+            char c = peek();
+            pos++;
+            return c;
+        }
+
+        void skip() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) pos++;
+        }
+
+        void expect(char c) {
+            if (next() != c) throw new IllegalArgumentException("'" + c + "' erwartet bei Position " + (pos - 1));
+        }
+
+        Object value() {
+            char c = peek();
+            if (c == '"') return string();
+            if (s.startsWith("null", pos)) { pos += 4; return null; }
+            if (s.startsWith("true", pos)) { pos += 4; return Boolean.TRUE; }
+            if (s.startsWith("false", pos)) { pos += 5; return Boolean.FALSE; }
+            int start = pos;
+            while (pos < s.length() && "+-0123456789".indexOf(s.charAt(pos)) >= 0) pos++;
+            if (start == pos) throw new IllegalArgumentException("Wert erwartet bei Position " + pos);
+            return Long.parseLong(s.substring(start, pos));
+        }
+
+        String string() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                char c = next();
+                if (c == '"') return sb.toString();
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                char e = next();
+                switch (e) {
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'u' -> {
+                        sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                        pos += 4;
+                    }
+                    default -> sb.append(e);
+                }
+            }
+        }
+    }
+}
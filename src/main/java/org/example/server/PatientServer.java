@@ -0,0 +1,468 @@
+package org.example.server;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.example.AbfrageProtokoll;
+import org.example.DB;
+import org.example.Konfiguration;
+import org.example.audit.AuditLog;
+import org.example.crud.PatientKonfliktException;
+import org.example.crud.Repositories;
+import org.example.export.PatientCsvExport;
+import org.example.kontrolle.PatientArchivierer;
+import org.example.kontrolle.PatientKontrolle;
+import org.example.kontrolle.StationKontrolle;
+import org.example.offline.OfflineSpeicher;
+import org.example.model.Patient;
+import org.example.model.PatientFeld;
+import org.example.statistik.StationStatistik;
+import org.example.warteschlange.AufnahmeWarteschlange;
+import org.example.warteschlange.Aufruf;
+import org.example.warteschlange.Dringlichkeit;
+import org.example.warteschlange.WartenderPatient;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Headless-Servermodus: stellt die Patienten- und Stationsfunktionen über HTTP/JSON bereit,
+ * damit Thin Clients nicht mehr selbst mit der Datenbank verbunden sein müssen.
+ * Alle Anfragen teilen sich einen Verbindungspool; jede Anfrage läuft in einem eigenen
+ * virtuellen Thread. Lesende Antworten werden kurz zwischengespeichert und bei jeder Änderung
+ * verworfen, größere Antworten werden gzip-komprimiert, wenn der Client das unterstützt.
+ *
+ * <pre>
+ * GET    /api/patients?q=...       Suche (leer = alle aktiven)
+ * GET    /api/patients/export.csv?q=...  Suche als CSV, wird beim Lesen gestreamt (siehe {@link PatientCsvExport})
+ * GET    /api/patients/{id}        ein Patient
+ * POST   /api/patients             anlegen (ohne id) oder ändern (mit id und version)
+ * DELETE /api/patients/{id}        löschen
+ * GET    /api/stations             alle Stationen
+ *
+ * GET    /api/warteschlange                    Wartende und laufende Aufrufe
+ * GET    /api/warteschlange/kennzahlen         Wartezeit und Durchsatz pro Station/Dringlichkeit
+ * POST   /api/warteschlange                    einreihen (Patientenfelder, dringlichkeit, wunschStation)
+ * POST   /api/warteschlange/naechster?schalter= nächsten Patienten aufrufen (204 = niemand wartet)
+ * POST   /api/warteschlange/{nr}/aufnehmen     Patient (JSON wie oben) auf der reservierten Station speichern
+ *                                              und Aufruf abschließen (404 ohne laufenden Aufruf, 409 ohne Bett)
+ * POST   /api/warteschlange/{nr}/zurueck       Aufruf zurück in die Warteschlange
+ * DELETE /api/warteschlange/{nr}               aus der Warteschlange nehmen
+ *
+ * GET    /api/abfragen             Dauer und Zeilen pro Abfrageform (siehe {@link AbfrageProtokoll})
+ * </pre>
+ *
+ * Der Server lauscht standardmäßig nur auf {@code 127.0.0.1} ({@code server.adresse}); für Zugriffe
+ * von außen gehört ein TLS-Proxy davor. Jede Anfrage braucht {@code Authorization: Bearer <Token>}
+ * mit einem Token aus {@code server.token.<benutzer>} (siehe {@link TokenAnmeldung}), sonst kommt 401.
+ * Der Header {@code X-Schalter} kennzeichnet den Arbeitsplatz: wer gerade gespeichert hat,
+ * liest danach kurz vom Primärserver statt von einem Lese-Replikat (siehe {@link DB}).
+ * Ohne Header gilt die Adresse des Clients. Im Auditprotokoll steht der angemeldete Benutzer und
+ * als Arbeitsplatz die Client-Adresse, mit Schalter davor, wenn er mitgeschickt wird.
+ * Beim Ändern werden nur die im JSON enthaltenen Felder übernommen. Passt die Version nicht,
+ * kommt 409 mit dem aktuellen Stand im Feld {@code aktuell} zurück.
+ * Ist die Datenbank nicht erreichbar oder der Verbindungspool erschöpft, kommt 503; der Server
+ * weicht nie auf den {@link OfflineSpeicher} aus.
+ */
+public class PatientServer {
+
+    private static final int GZIP_AB = 1024;
+    private static final long TTL_SUCHE_MS = 5_000;
+    private static final long TTL_STATIONEN_MS = 300_000;
+    private static final int EXPORT_BLOCK = 500;
+    private static final String NICHT_VERFUEGBAR = "Datenbank derzeit nicht verfügbar, bitte später erneut versuchen.";
+
+    /**
+     * Setzt für jede Anfrage die Sitzung in {@link DB} (Schalter bzw. Client-Adresse) und den
+     * Aufrufer für das {@link AuditLog}, damit Änderungen nicht dem Serverkonto zugeschrieben werden.
+     * Der Benutzer kommt aus der Anmeldung, nie aus einem Header; läuft nach {@link TokenAnmeldung}.
+     */
+    private static final Filter SITZUNG = Filter.beforeHandler("Sitzung", ex -> {
+        String schalter = ex.getRequestHeaders().getFirst("X-Schalter");
+        String adresse = ex.getRemoteAddress().getAddress().getHostAddress();
+        DB.setSitzung(schalter != null ? schalter : adresse);
+        AuditLog.setAufrufer(ex.getPrincipal().getUsername(), schalter != null ? schalter + "@" + adresse : adresse);
+    });
+
+    private final PatientKontrolle pk = new PatientKontrolle();
+    private final StationKontrolle sk = new StationKontrolle();
+    private final AntwortCache cache = new AntwortCache(1_000);
+    private final AufnahmeWarteschlange warteschlange = AufnahmeWarteschlange.getInstance();
+
+    private HttpServer http;
+    private ExecutorService executor;
+
+    /**
+     * Startet den Server.
+     * Port über das erste Argument oder {@code server.port} (Standard 8080),
+     * Poolgröße über {@code server.pool} (Standard 20), beides aus der {@link Konfiguration};
+     * Adresse und Tokens siehe {@link #start(int)}.
+     *
+     * @param args optional der Port
+     * @throws IOException wenn der Port nicht geöffnet werden kann
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Konfiguration.get().getInt("server.port", 8080);
+        if (!Repositories.istSpeicher()) {
+            DB.enablePool(Konfiguration.get().getInt("server.pool", 20));
+            DB.init();
+        }
+        AuditLog.getInstance().start();
+        if (!Repositories.istSpeicher()) new PatientArchivierer().start();
+        StationStatistik.getInstance().start();
+        AufnahmeWarteschlange.getInstance().start();
+        PatientServer server = new PatientServer();
+        server.start(port);
+        System.out.println("Patientenaufnahme-Server läuft auf " + server.http.getAddress());
+    }
+
+    /**
+     * Startet den HTTP-Server auf dem angegebenen Port.
+     * Die Adresse kommt aus {@code server.adresse} (Standard {@code 127.0.0.1}, {@code 0.0.0.0} für alle),
+     * die Tokens aus {@code server.token.<benutzer>}, beides aus der {@link Konfiguration}.
+     *
+     * @param port TCP-Port (0 = beliebiger freier Port)
+     * @return tatsächlich verwendeter Port
+     * @throws IOException wenn der Port nicht geöffnet werden kann
+     * @throws IllegalStateException wenn kein Token konfiguriert ist
+     */
+    public int start(int port) throws IOException {
+        TokenAnmeldung anmeldung = new TokenAnmeldung(Konfiguration.get().mitPraefix("server.token."));
+        InetAddress adresse = InetAddress.getByName(Konfiguration.get().get("server.adresse", "127.0.0.1"));
+        // niemand überträgt hier ein Offline-Journal; Verbindungsprobleme gehen als 503 an den Client
+        OfflineSpeicher.getInstance().abschalten();
+        http = HttpServer.create(new InetSocketAddress(adresse, port), 0);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        http.setExecutor(executor);
+        for (HttpContext c : new HttpContext[] {
+                http.createContext("/api/patients", this::patients),
+                http.createContext("/api/stations", this::stations),
+                http.createContext("/api/warteschlange", this::warteschlange)}) {
+            c.setAuthenticator(anmeldung);
+            c.getFilters().add(SITZUNG);
+        }
+        http.createContext("/api/abfragen", this::abfragen).setAuthenticator(anmeldung);
+        http.start();
+        return http.getAddress().getPort();
+    }
+
+    /**
+     * Stoppt den Server (laufende Anfragen bekommen eine Sekunde Zeit).
+     */
+    public void stop() {
+        if (http != null) http.stop(1);
+        if (executor != null) executor.shutdown();
+    }
+
+    private void patients(HttpExchange ex) throws IOException {
+        try {
+            String path = ex.getRequestURI().getPath();
+            String rest = path.length() > "/api/patients".length() ? path.substring("/api/patients/".length()) : "";
+
+            switch (ex.getRequestMethod()) {
+                case "GET" -> {
+                    if (rest.isEmpty()) {
+                        String q = query(ex, "q");
+                        send(ex, 200, cache.get("patients?" + q, TTL_SUCHE_MS,
+                                () -> utf8(Json.patienten(pk.search(q)))));
+                    } else if (rest.equals("export.csv")) {
+                        exportCsv(ex, query(ex, "q"));
+                    } else {
+                        int id = Integer.parseInt(rest);
+                        Patient p = pk.findById(id);
+                        if (p == null) send(ex, 404, utf8(Json.fehler("Patient nicht gefunden.")));
+                        else {
+                            StringBuilder sb = new StringBuilder();
+                            Json.patient(sb, p);
+                            send(ex, 200, utf8(sb.toString()));
+                        }
+                    }
+                }
+                case "POST" -> {
+                    Patient p = fromJson(Json.parseObject(readBody(ex)));
+                    pk.save(p);
+                    cache.invalidate();
+                    StringBuilder sb = new StringBuilder();
+                    Json.patient(sb, p);
+                    send(ex, 200, utf8(sb.toString()));
+                }
+                case "DELETE" -> {
+                    pk.delete(Integer.parseInt(rest));
+                    cache.invalidate();
+                    send(ex, 204, null);
+                }
+                default -> send(ex, 405, utf8(Json.fehler("Methode nicht erlaubt.")));
+            }
+        } catch (PatientKonfliktException k) {
+            send(ex, 409, utf8(Json.konflikt(k.getMessage(), k.getAktuell())));
+        } catch (IllegalArgumentException e) {
+            send(ex, 400, utf8(Json.fehler(e.getMessage())));
+        } catch (RuntimeException e) {
+            if (nichtVerfuegbar(e)) send(ex, 503, utf8(Json.fehler(NICHT_VERFUEGBAR)));
+            else send(ex, 500, utf8(Json.fehler("Aktion konnte nicht durchgeführt werden.")));
+        }
+    }
+
+    /**
+     * Schickt die Treffer als CSV, blockweise, während die Datenbank noch liest (chunked, ohne gzip).
+     * Scheitert die Abfrage mittendrin, ist der Status schon gesendet; dann endet die Datei mit
+     * einer Zeile {@code #abgebrochen}, damit sie nicht für vollständig gehalten wird.
+     */
+    private void exportCsv(HttpExchange ex, String q) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", "text/csv; charset=utf-8");
+        ex.getResponseHeaders().set("Content-Disposition", "attachment; filename=\"patienten.csv\"");
+        ex.sendResponseHeaders(200, 0);
+        try (Writer w = new BufferedWriter(new OutputStreamWriter(ex.getResponseBody(), StandardCharsets.UTF_8), 64 * 1024)) {
+            try {
+                PatientCsvExport.schreiben(pk.searchStream(q, EXPORT_BLOCK), w);
+            } catch (RuntimeException e) {
+                w.write("#abgebrochen\n");
+            }
+        }
+    }
+
+    private void stations(HttpExchange ex) throws IOException {
+        try {
+            if (!"GET".equals(ex.getRequestMethod())) {
+                send(ex, 405, utf8(Json.fehler("Methode nicht erlaubt.")));
+                return;
+            }
+            send(ex, 200, cache.get("stations", TTL_STATIONEN_MS, () -> utf8(Json.stationen(sk.getAllStations()))));
+        } catch (RuntimeException e) {
+            if (nichtVerfuegbar(e)) send(ex, 503, utf8(Json.fehler(NICHT_VERFUEGBAR)));
+            else send(ex, 500, utf8(Json.fehler("Stationen konnten nicht geladen werden.")));
+        }
+    }
+
+    private void abfragen(HttpExchange ex) throws IOException {
+        if (!"GET".equals(ex.getRequestMethod())) {
+            send(ex, 405, utf8(Json.fehler("Methode nicht erlaubt.")));
+            return;
+        }
+        send(ex, 200, utf8(Json.abfragen(AbfrageProtokoll.getStatistik())));
+    }
+
+    private void warteschlange(HttpExchange ex) throws IOException {
+        try {
+            String path = ex.getRequestURI().getPath();
+            String[] rest = path.length() > "/api/warteschlange".length()
+                    ? path.substring("/api/warteschlange/".length()).split("/") : new String[0];
+
+            switch (ex.getRequestMethod() + " " + (rest.length == 0 ? "" : rest.length == 1 ? rest[0] : "{nr}/" + rest[1])) {
+                case "GET " -> send(ex, 200, utf8(Json.warteschlange(warteschlange.getWartende(), warteschlange.getAufgerufen())));
+                case "GET kennzahlen" -> send(ex, 200, utf8(Json.kennzahlen(warteschlange.getMetrik())));
+                case "POST " -> {
+                    Map<String, Object> m = Json.parseObject(readBody(ex));
+                    Dringlichkeit d;
+                    try {
+                        d = Dringlichkeit.valueOf(String.valueOf(m.get("dringlichkeit")));
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Feld dringlichkeit ist ungültig.");
+                    }
+                    WartenderPatient w = warteschlange.einreihen(fromJson(m), d, ganzzahl(m, "wunschStation"));
+                    StringBuilder sb = new StringBuilder();
+                    Json.wartender(sb, w);
+                    send(ex, 200, utf8(sb.toString()));
+                }
+                case "POST naechster" -> {
+                    Aufruf a = warteschlange.naechster(query(ex, "schalter"), sk.getAllStations());
+                    if (a == null) send(ex, 204, null);
+                    else {
+                        StringBuilder sb = new StringBuilder();
+                        Json.aufruf(sb, a);
+                        send(ex, 200, utf8(sb.toString()));
+                    }
+                }
+                case "POST {nr}/aufnehmen" -> {
+                    Aufruf a = warteschlange.annehmen(Long.parseLong(rest[0]));
+                    if (a == null) {
+                        send(ex, 404, utf8(Json.fehler("Kein laufender Aufruf.")));
+                        return;
+                    }
+                    Patient p;
+                    try {
+                        if (a.station() == null) {
+                            warteschlange.zurueckgeben(a);
+                            send(ex, 409, utf8(Json.fehler("Für diesen Aufruf ist kein Bett reserviert, alle Stationen sind voll.")));
+                            return;
+                        }
+                        p = fromJson(Json.parseObject(readBody(ex)));
+                        if (!p.getDirtyFields().contains(PatientFeld.STATION_ID)) {
+                            p.setWert(PatientFeld.STATION_ID, a.station());
+                            p.markDirty(PatientFeld.STATION_ID);
+                        } else if (!a.station().equals(p.getStationId())) {
+                            throw new IllegalArgumentException("Aufnahme nur auf die reservierte Station " + a.station() + ".");
+                        }
+                        pk.save(p);
+                    } catch (IOException | RuntimeException e) {
+                        warteschlange.zurueckgeben(a);
+                        throw e;
+                    }
+                    cache.invalidate();
+                    warteschlange.abschliessen(a, p);
+                    StringBuilder sb = new StringBuilder();
+                    Json.patient(sb, p);
+                    send(ex, 200, utf8(sb.toString()));
+                }
+                case "POST {nr}/zurueck" -> {
+                    if (warteschlange.zuruecklegen(Long.parseLong(rest[0]))) send(ex, 204, null);
+                    else send(ex, 404, utf8(Json.fehler("Kein laufender Aufruf.")));
+                }
+                default -> {
+                    if (ex.getRequestMethod().equals("DELETE") && rest.length == 1) {
+                        if (warteschlange.entfernen(Long.parseLong(rest[0]))) send(ex, 204, null);
+                        else send(ex, 404, utf8(Json.fehler("Nicht in der Warteschlange.")));
+                    } else {
+                        send(ex, 404, utf8(Json.fehler("Unbekannte Adresse.")));
+                    }
+                }
+            }
+        } catch (PatientKonfliktException k) {
+            send(ex, 409, utf8(Json.konflikt(k.getMessage(), k.getAktuell())));
+        } catch (IllegalArgumentException e) {
+            send(ex, 400, utf8(Json.fehler(e.getMessage())));
+        } catch (RuntimeException e) {
+            if (nichtVerfuegbar(e)) send(ex, 503, utf8(Json.fehler(NICHT_VERFUEGBAR)));
+            else send(ex, 500, utf8(Json.fehler("Aktion konnte nicht durchgeführt werden.")));
+        }
+    }
+
+    /**
+     * Baut einen Patienten aus dem JSON einer POST-Anfrage.
+     * Bei Änderungen (mit id und version) wird der aktuelle Stand geladen und mit den
+     * mitgeschickten Feldern überschrieben; nur diese gelten als geändert. So sieht die Prüfung
+     * alle Felder, z.B. das gespeicherte Geburtsdatum, wenn nur die SVNR geändert wird.
+     *
+     * @throws IllegalArgumentException wenn ein Feld ungültig ist oder die Version fehlt
+     * @throws PatientKonfliktException wenn es den Patienten nicht (mehr) gibt
+     */
+    private Patient fromJson(Map<String, Object> m) {
+        Integer id = ganzzahl(m, "id");
+        Patient p;
+        if (id == null || id <= 0) {
+            p = new Patient();
+        } else {
+            Integer version = ganzzahl(m, "version");
+            if (version == null) throw new IllegalArgumentException("Feld version fehlt.");
+            Patient aktuell = pk.findById(id);
+            if (aktuell == null) {
+                Patient eigene = new Patient();
+                eigene.setId(id);
+                throw new PatientKonfliktException(eigene, null);
+            }
+            p = new Patient(aktuell);
+            p.setVersion(version);
+            p.markClean();
+        }
+
+        for (PatientFeld f : PatientFeld.values()) {
+            String key = switch (f) {
+                case FIRST_NAME -> "firstName";
+                case LAST_NAME -> "lastName";
+                case BIRTH_DATE -> "birthDate";
+                case SVNR -> "svnr";
+                case PHONE -> "phone";
+                case ADDRESS -> "address";
+                case REASON -> "reason";
+                case STATION_ID -> "stationId";
+            };
+            if (!m.containsKey(key)) continue;
+
+            Object v = m.get(key);
+            try {
+                switch (f) {
+                    case BIRTH_DATE -> p.setWert(f, v == null ? null : LocalDate.parse(v.toString()));
+                    case STATION_ID -> p.setWert(f, ganzzahl(m, key));
+                    default -> p.setWert(f, v == null ? null : v.toString());
+                }
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Feld " + key + " ist ungültig.");
+            }
+            p.markDirty(f);
+        }
+        return p;
+    }
+
+    /**
+     * Datenbank nicht erreichbar oder Pool ausgelastet: der Client soll es später noch einmal versuchen.
+     */
+    private static boolean nichtVerfuegbar(RuntimeException e) {
+        return DB.istVerbindungsfehler(e) || DB.istPoolErschoepft(e);
+    }
+
+    /**
+     * Liest eine ganze Zahl aus dem JSON.
+     *
+     * @return Wert oder null, wenn das Feld fehlt oder null ist
+     * @throws IllegalArgumentException wenn der Wert keine ganze Zahl im int-Bereich ist
+     */
+    private static Integer ganzzahl(Map<String, Object> m, String key) {
+        Object v = m.get(key);
+        if (v == null) return null;
+        if (v instanceof Long l && l == l.intValue()) return l.intValue();
+        throw new IllegalArgumentException("Feld " + key + " ist ungültig.");
+    }
+
+    private static String query(HttpExchange ex, String name) {
+        String raw = ex.getRequestURI().getRawQuery();
+        if (raw == null) return "";
+        for (String part : raw.split("&")) {
+            int eq = part.indexOf('=');
+            String k = eq < 0 ? part : part.substring(0, eq);
+            if (k.equals(name)) return eq < 0 ? "" : URLDecoder.decode(part.substring(eq + 1), StandardCharsets.UTF_8);
+        }
+        return "";
+    }
+
+    private static String readBody(HttpExchange ex) throws IOException {
+        try (InputStream in = ex.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Schickt die Antwort, bei Bedarf gzip-komprimiert.
+     */
+    private static void send(HttpExchange ex, int status, byte[] body) throws IOException {
+        if (body == null) {
+            ex.sendResponseHeaders(status, -1);
+            ex.close();
+            return;
+        }
+
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        String accept = ex.getRequestHeaders().getFirst("Accept-Encoding");
+        if (body.length >= GZIP_AB && accept != null && accept.contains("gzip")) {
+            ByteArrayOutputStream buf = new ByteArrayOutputStream(body.length / 4);
+            try (GZIPOutputStream gz = new GZIPOutputStream(buf)) {
+                gz.write(body);
+            }
+            body = buf.toByteArray();
+            ex.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+
+        ex.sendResponseHeaders(status, body.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.server;
+
+import com.sun.net.httpserver.Authenticator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Anmeldung am HTTP-Server über {@code Authorization: Bearer <Token>}.
+ * Jeder Benutzer hat ein eigenes Token, konfiguriert als {@code server.token.<benutzer>=<token>}
+ * (siehe {@link org.example.Konfiguration#mitPraefix(String)}). Der Benutzer zum Token ist der
+ * {@link HttpPrincipal} der Anfrage und steht so auch im Auditprotokoll.
+ * Ohne gültiges Token kommt 401.
+ */
+final class TokenAnmeldung extends Authenticator {
+
+    private static final String BEARER = "Bearer ";
+    private static final String BEREICH = "patienten";
+
+    /** Token (UTF-8) → Benutzer */
+    private final Map<String, String> benutzer = new HashMap<>();
+
+    /**
+     * @param tokens Benutzer → Token
+     * @throws IllegalStateException wenn kein Token konfiguriert ist; ohne Anmeldung startet der Server nicht
+     */
+    TokenAnmeldung(Properties tokens) {
+        for (String name : tokens.stringPropertyNames()) {
+            String token = tokens.getProperty(name);
+            if (!token.isEmpty()) benutzer.put(token, name);
+        }
+        if (benutzer.isEmpty()) {
+            throw new IllegalStateException("Kein Zugangstoken konfiguriert, bitte server.token.<benutzer>=<token> setzen.");
+        }
+    }
+
+    @Override
+    public Result authenticate(HttpExchange ex) {
+        String kopf = ex.getRequestHeaders().getFirst("Authorization");
+        if (kopf != null && kopf.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            String name = suchen(kopf.substring(BEARER.length()).strip());
+            if (name != null) return new Success(new HttpPrincipal(name, BEREICH));
+        }
+        ex.getResponseHeaders().set("WWW-Authenticate", "Bearer realm=\"" + BEREICH + "\"");
+        return new Failure(401);
+    }
+
+    /**
+     * Vergleicht mit allen Tokens in konstanter Zeit, damit die Antwortzeit nichts verrät.
+     */
+    private String suchen(String token) {
+        byte[] gesucht = token.getBytes(StandardCharsets.UTF_8);
+        String treffer = null;
+        for (Map.Entry<String, String> e : benutzer.entrySet()) {
+            if (MessageDigest.isEqual(gesucht, e.getKey().getBytes(StandardCharsets.UTF_8))) treffer = e.getValue();
+        }
+        return treffer;
+    }
+}
@@ -0,0 +1,489 @@
+package org.example.speicher;
+
+import org.example.Konfiguration;
+import org.example.audit.AuditAktion;
+import org.example.audit.AuditLog;
+import org.example.crud.PatientKonfliktException;
+import org.example.crud.PatientRepository;
+import org.example.crud.PatientStrom;
+import org.example.model.Patient;
+import org.example.model.PatientFeld;
+import org.example.offline.PatientDaten;
+import org.example.suche.KoelnerPhonetik;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Patienten-Backend ganz im Speicher, für kleine Praxen ohne MySQL sowie für Tests und Benchmarks.
+ * Aktive Patienten liegen in einer {@link ConcurrentHashMap} nach ID, einem Index nach SVNR und
+ * einer {@link ConcurrentSkipListMap} sortiert nach Nachname/Vorname (die Listenreihenfolge ergibt
+ * sich also ohne Sortieren). Gelöschte und entlassene Patienten liegen getrennt davon
+ * (entlassene bilden das Archiv). Gelesen wird ohne Sperre; Änderungen laufen nacheinander
+ * unter einer Sperre, damit die Indizes zusammenpassen.
+ * Der ganze Bestand wird als Schnappschuss in eine Datei geschrieben: nach {@link #start()} nach
+ * Änderungen spätestens nach {@code patienten.speicher.sekunden} Sekunden (Standard 2) und beim
+ * Beenden der JVM. Es schreibt immer nur einer. Änderungen aus dem letzten Intervall gehen bei
+ * einem Absturz verloren.
+ */
+public class SpeicherPatientRepository implements PatientRepository {
+
+    private static final Logger LOG = Logger.getLogger(SpeicherPatientRepository.class.getName());
+    private static final int MAGIC = 0x50534D45; // "PSME"
+    private static final int FORMAT = 1;
+
+    /**
+     * Ein gespeicherter Patient samt Zeitpunkt der letzten Änderung.
+     */
+    private record Eintrag(Patient p, long geaendert, boolean geloescht) { }
+
+    /**
+     * Sortierschlüssel wie {@code ORDER BY last_name, first_name} (ohne Groß-/Kleinschreibung);
+     * die ID macht gleiche Namen eindeutig.
+     */
+    private record Name(String nachname, String vorname, int id) implements Comparable<Name> {
+        static Name von(Patient p) {
+            return new Name(klein(p.getLastName()), klein(p.getFirstName()), p.getId());
+        }
+
+        @Override
+        public int compareTo(Name o) {
+            int c = nachname.compareTo(o.nachname);
+            if (c == 0) c = vorname.compareTo(o.vorname);
+            return c != 0 ? c : Integer.compare(id, o.id);
+        }
+    }
+
+    private final Map<Integer, Eintrag> aktiv = new ConcurrentHashMap<>();
+    private final Map<String, Set<Integer>> nachSvnr = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Name, Patient> nachName = new ConcurrentSkipListMap<>();
+    private final Map<Integer, Eintrag> inaktiv = new ConcurrentHashMap<>();
+
+    private final AtomicInteger naechsteId = new AtomicInteger(1);
+    private final Object sperre = new Object();
+    private final Object dateiSperre = new Object();
+    private final AuditLog audit = AuditLog.getInstance();
+    private final Path datei;
+
+    private volatile boolean ungespeichert;
+    private ScheduledExecutorService timer;
+
+    /**
+     * Lädt den Bestand aus der Datei (wenn vorhanden).
+     *
+     * @param datei Schnappschussdatei
+     */
+    public SpeicherPatientRepository(Path datei) {
+        this.datei = datei;
+        laden();
+    }
+
+    /**
+     * Startet das regelmäßige Speichern und das Speichern beim Beenden der JVM.
+     * Der Hook hält zuerst den Timer an, damit kein Lauf mehr nachkommt.
+     */
+    public synchronized void start() {
+        if (timer != null) return;
+        long sekunden = Konfiguration.get().getLong("speicher.sekunden", 2);
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "speicher-schnappschuss");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.scheduleWithFixedDelay(this::speichernWennGeaendert, sekunden, sekunden, TimeUnit.SECONDS);
+        ScheduledExecutorService t = timer;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            t.shutdown();
+            speichernWennGeaendert();
+        }, "speicher-ende"));
+    }
+
+    // ---------------------------------------------------------------- Lesen
+
+    public List<Patient> findAll() {
+        List<Patient> out = new ArrayList<>(nachName.size());
+        for (Patient p : nachName.values()) out.add(new Patient(p));
+        return out;
+    }
+
+    public List<Patient> search(String q) {
+        String query = klein(q);
+        if (query.isEmpty()) return findAll();
+        List<Patient> out = new ArrayList<>();
+        for (Patient p : nachName.values()) {
+            if (passt(p, query)) out.add(new Patient(p));
+        }
+        return out;
+    }
+
+    public List<Patient> searchList(String q) {
+
+        return search(q);
+    }
+
+    public PatientStrom searchStream(String q, int block) {
+        return new PatientStrom(() -> {
+            String query = klein(q);
+            // nachName ist schwach konsistent: gleichzeitige Änderungen stören das Weiterlesen nicht
+            Iterator<Patient> it = nachName.values().iterator();
+            return PatientStrom.ausIterator(new Iterator<>() {
+                private Patient naechster = suchen();
+
+                private Patient suchen() {
+                    while (it.hasNext()) {
+                        Patient p = it.next();
+                        if (query.isEmpty() || passt(p, query)) return p;
+                    }
+                    return null;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return naechster != null;
+                }
+
+                @Override
+                public Patient next() {
+                    if (naechster == null) throw new NoSuchElementException();
+                    Patient p = new Patient(naechster);
+                    naechster = suchen();
+                    return p;
+                }
+            });
+        }, block);
+    }
+
+    public SuchErgebnis searchTopK(String q, int limit) {
+        String query = klein(q);
+        // ein Eimer pro Rang, jeder höchstens limit lang; die Namensreihenfolge kommt aus nachName
+        List<List<Patient>> raenge = List.of(new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        long gesamt = 0;
+        for (Patient p : nachName.values()) {
+            if (!query.isEmpty() && !passt(p, query)) continue;
+            gesamt++;
+            List<Patient> eimer = raenge.get(query.isEmpty() ? 3 : SuchErgebnis.rang(p, query));
+            if (eimer.size() < limit) eimer.add(p);
+        }
+        List<Patient> out = new ArrayList<>(limit);
+        for (List<Patient> eimer : raenge) {
+            for (Patient p : eimer) {
+                if (out.size() >= limit) break;
+                out.add(new Patient(p));
+            }
+        }
+        return new SuchErgebnis(out, gesamt, false);
+    }
+
+    public List<Patient> searchPhonetic(String q) {
+        Set<String> codes = new HashSet<>();
+        for (String t : (q == null ? "" : q).trim().split("\\s+")) {
+            String c = KoelnerPhonetik.kodiere(t);
+            if (!c.isEmpty()) codes.add(c);
+        }
+        List<Patient> out = new ArrayList<>();
+        if (codes.isEmpty()) return out;
+        for (Patient p : nachName.values()) {
+            if (codes.contains(KoelnerPhonetik.kodiere(p.getFirstName())) || codes.contains(KoelnerPhonetik.kodiere(p.getLastName()))) {
+                out.add(new Patient(p));
+                if (out.size() >= 1000) break;
+            }
+        }
+        return out;
+    }
+
+    public List<Patient> findBySvnr(String svnr) {
+        List<Patient> out = new ArrayList<>(1);
+        for (Integer id : nachSvnr.getOrDefault(svnr, Set.of())) {
+            Eintrag e = aktiv.get(id);
+            if (e != null) out.add(new Patient(e.p()));
+        }
+        return out;
+    }
+
+    public ListenDelta findListChangedSince(Timestamp seit) {
+        Timestamp stand = new Timestamp(System.currentTimeMillis());
+        if (seit == null) {
+            List<Patient> alle = findAll();
+            return new ListenDelta(stand, alle, List.of(), alle.size());
+        }
+        long ab = seit.getTime();
+        List<Patient> geaendert = new ArrayList<>();
+        List<Integer> entfernt = new ArrayList<>();
+        for (Eintrag e : aktiv.values()) {
+            if (e.geaendert() >= ab) geaendert.add(new Patient(e.p()));
+        }
+        for (Map.Entry<Integer, Eintrag> e : inaktiv.entrySet()) {
+            if (e.getValue().geaendert() >= ab) entfernt.add(e.getKey());
+        }
+        return new ListenDelta(stand, geaendert, entfernt, aktiv.size());
+    }
+
+    public List<Patient> findAssignments() {
+
+        return findAll();
+    }
+
+    public List<Patient> findPage(int nachId, int anzahl) {
+        return aktiv.values().stream()
+                .map(Eintrag::p)
+                .filter(p -> p.getId() > nachId)
+                .sorted(Comparator.comparingInt(Patient::getId))
+                .limit(anzahl)
+                .map(Patient::new)
+                .toList();
+    }
+
+    public Patient findById(int id) {
+        Eintrag e = aktiv.get(id);
+        if (e == null) {
+            e = inaktiv.get(id);
+            if (e == null || e.geloescht()) return null;
+        }
+        return new Patient(e.p());
+    }
+
+    public List<Patient> searchArchive(String q) {
+        String query = klein(q);
+        List<Patient> out = new ArrayList<>();
+        for (Eintrag e : inaktiv.values()) {
+            if (!e.geloescht() && (query.isEmpty() || passt(e.p(), query))) out.add(new Patient(e.p()));
+        }
+        out.sort((a, b) -> Name.von(a).compareTo(Name.von(b)));
+        return out;
+    }
+
+    // ---------------------------------------------------------------- Schreiben
+
+    public void insert(Patient p) {
+        synchronized (sperre) {
+            anlegen(p);
+        }
+        audit.protokolliere(AuditAktion.ANGELEGT, p.getId(), 0);
+    }
+
+    public void insertBatch(List<Patient> patients) {
+        synchronized (sperre) {
+            for (Patient p : patients) anlegen(p);
+        }
+        for (Patient p : patients) audit.protokolliere(AuditAktion.ANGELEGT, p.getId(), 0);
+    }
+
+    public void update(Patient p) {
+        Set<PatientFeld> felder = p.getDirtyFields();
+        if (felder.isEmpty()) return;
+
+        int mask = 0;
+        synchronized (sperre) {
+            Eintrag alt = aktiv.get(p.getId());
+            if (alt == null || alt.p().getVersion() != p.getVersion()) {
+                throw new PatientKonfliktException(p, findById(p.getId()));
+            }
+            Patient neu = new Patient(alt.p());
+            for (PatientFeld f : felder) {
+                neu.setWert(f, p.getWert(f));
+                mask |= f.bit();
+            }
+            neu.setVersion(alt.p().getVersion() + 1);
+            neu.markClean();
+            austragen(alt.p());
+            eintragen(neu);
+        }
+        p.setVersion(p.getVersion() + 1);
+        p.markClean();
+        audit.protokolliere(AuditAktion.GEAENDERT, p.getId(), mask);
+    }
+
+    public List<Patient> updateBatch(List<Patient> patients) {
+        List<Patient> konflikte = new ArrayList<>();
+        for (Patient p : patients) {
+            try {
+                update(p);
+            } catch (PatientKonfliktException e) {
+                konflikte.add(p);
+            }
+        }
+        return konflikte;
+    }
+
+    public void deleteById(int id) {
+        boolean geloescht;
+        synchronized (sperre) {
+            Eintrag e = aktiv.get(id);
+            if (e == null) e = inaktiv.get(id);
+            geloescht = e != null && !e.geloescht();
+            if (geloescht) deaktivieren(e.p(), true);
+        }
+        if (geloescht) audit.protokolliere(AuditAktion.GELOESCHT, id, 0);
+    }
+
+    public void dischargeById(int id) {
+        boolean entlassen;
+        synchronized (sperre) {
+            Eintrag e = aktiv.get(id);
+            entlassen = e != null;
+            if (entlassen) deaktivieren(e.p(), false);
+        }
+        if (entlassen) audit.protokolliere(AuditAktion.ENTLASSEN, id, 0);
+    }
+
+    private void anlegen(Patient p) {
+        p.setId(naechsteId.getAndIncrement());
+        p.setVersion(0);
+        p.markClean();
+        eintragen(new Patient(p));
+    }
+
+    /**
+     * Nimmt einen Patienten in alle aktiven Indizes auf (nur unter der Sperre).
+     */
+    private void eintragen(Patient p) {
+        aktiv.put(p.getId(), new Eintrag(p, System.currentTimeMillis(), false));
+        nachName.put(Name.von(p), p);
+        if (p.getSvnr() != null) nachSvnr.computeIfAbsent(p.getSvnr(), k -> ConcurrentHashMap.newKeySet()).add(p.getId());
+        ungespeichert = true;
+    }
+
+    /**
+     * Entfernt einen Patienten aus allen aktiven Indizes (nur unter der Sperre).
+     */
+    private void austragen(Patient p) {
+        aktiv.remove(p.getId());
+        nachName.remove(Name.von(p));
+        if (p.getSvnr() != null) {
+            Set<Integer> ids = nachSvnr.get(p.getSvnr());
+            if (ids != null) {
+                ids.remove(p.getId());
+                if (ids.isEmpty()) nachSvnr.remove(p.getSvnr());
+            }
+        }
+        ungespeichert = true;
+    }
+
+    private void deaktivieren(Patient p, boolean geloescht) {
+        austragen(p);
+        Patient neu = new Patient(p);
+        neu.setVersion(p.getVersion() + 1);
+        inaktiv.put(p.getId(), new Eintrag(neu, System.currentTimeMillis(), geloescht));
+    }
+
+    // ---------------------------------------------------------------- Datei
+
+    /**
+     * Schreibt den Bestand, wenn sich seit dem letzten Mal etwas geändert hat.
+     */
+    private void speichernWennGeaendert() {
+        if (!ungespeichert) return;
+        try {
+            speichern();
+        } catch (UncheckedIOException e) {
+            LOG.log(Level.WARNING, e.getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Schreibt den ganzen Bestand in eine temporäre Datei und benennt sie dann atomar um.
+     * Gleichzeitige Aufrufe laufen nacheinander, sonst schrieben beide in dieselbe temporäre Datei.
+     *
+     * @throws UncheckedIOException wenn die Datei nicht geschrieben werden kann
+     */
+    public void speichern() {
+        synchronized (dateiSperre) {
+            List<Eintrag> aktive;
+            List<Eintrag> inaktive;
+            int id;
+            synchronized (sperre) {
+                ungespeichert = false;
+                aktive = new ArrayList<>(aktiv.values());
+                inaktive = new ArrayList<>(inaktiv.values());
+                id = naechsteId.get();
+            }
+
+            Path tmp = datei.resolveSibling(datei.getFileName() + ".tmp");
+            try {
+                Files.createDirectories(datei.getParent());
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(FORMAT);
+                    out.writeInt(id);
+                    out.writeInt(aktive.size() + inaktive.size());
+                    for (Eintrag e : aktive) schreiben(out, 0, e);
+                    for (Eintrag e : inaktive) schreiben(out, e.geloescht() ? 2 : 1, e);
+                }
+                Files.move(tmp, datei, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                ungespeichert = true;
+                throw new UncheckedIOException("Patientendaten konnten nicht gespeichert werden.", e);
+            }
+        }
+    }
+
+    private static void schreiben(DataOutputStream out, int status, Eintrag e) throws IOException {
+        out.writeByte(status);
+        out.writeLong(e.geaendert());
+        PatientDaten.write(out, e.p());
+    }
+
+    private void laden() {
+        if (!Files.exists(datei)) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(datei)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+                throw new IOException("Unbekanntes Dateiformat: " + datei);
+            }
+            naechsteId.set(in.readInt());
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                int status = in.readByte();
+                long geaendert = in.readLong();
+                Patient p = PatientDaten.read(in);
+                if (status == 0) {
+                    eintragen(p);
+                    aktiv.put(p.getId(), new Eintrag(p, geaendert, false));
+                } else {
+                    inaktiv.put(p.getId(), new Eintrag(p, geaendert, status == 2));
+                }
+            }
+            ungespeichert = false;
+        } catch (IOException e) {
+            // nicht mit leerem Bestand weiterlaufen und beim nächsten Speichern alles überschreiben
+            throw new UncheckedIOException("Patientendaten konnten nicht geladen werden.", e);
+        }
+    }
+
+    private static boolean passt(Patient p, String query) {
+        return enthaelt(p.getFirstName(), query) || enthaelt(p.getLastName(), query)
+                || enthaelt(p.getSvnr(), query) || enthaelt(p.getPhone(), query)
+                || enthaelt(p.getAddress(), query) || enthaelt(p.getReason(), query);
+    }
+
+    private static boolean enthaelt(String s, String query) {
+        return s != null && s.toLowerCase().contains(query);
+    }
+
+    private static String klein(String s) {
+        return s == null ? "" : s.toLowerCase();
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.speicher;
+
+import org.example.crud.StationRepository;
+import org.example.model.Station;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Stationen für das In-Memory-Backend aus einer Textdatei, eine Station pro Zeile:
+ * {@code Raum;Name;MaxBetten}. Leere Zeilen und Zeilen mit {@code #} werden übersprungen.
+ * Die Datei wird einmal gelesen; Stationen ändern sich selten und werden von Hand gepflegt.
+ */
+public class SpeicherStationRepository implements StationRepository {
+
+    private final List<Station> stationen;
+
+    /**
+     * Liest die Stationen.
+     *
+     * @param datei Textdatei (fehlt sie, gibt es keine Stationen)
+     * @throws UncheckedIOException wenn die Datei nicht gelesen werden kann
+     * @throws IllegalArgumentException wenn eine Zeile nicht dem Format entspricht
+     */
+    public SpeicherStationRepository(Path datei) {
+        List<Station> out = new ArrayList<>();
+        if (Files.exists(datei)) {
+            try {
+                for (String zeile : Files.readAllLines(datei, StandardCharsets.UTF_8)) {
+                    String z = zeile.strip();
+                    if (z.isEmpty() || z.startsWith("#")) continue;
+                    String[] teile = z.split(";");
+                    if (teile.length != 3) throw new IllegalArgumentException("Ungültige Stationszeile: " + z);
+                    out.add(new Station(Integer.parseInt(teile[0].strip()), teile[1].strip(), Integer.parseInt(teile[2].strip())));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Stationen konnten nicht gelesen werden.", e);
+            }
+        }
+        out.sort(Comparator.comparing(Station::getName, String.CASE_INSENSITIVE_ORDER));
+        stationen = List.copyOf(out);
+    }
+
+    public List<Station> findAll() {
+
+        return new ArrayList<>(stationen);
+    }
+}
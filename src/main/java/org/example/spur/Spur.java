@@ -0,0 +1,270 @@
+package org.example.spur;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ein gemessener Abschnitt einer Benutzeraktion (Span).
+ * Eine Aktion beginnt mit {@link #aktion(String)} (z.B. "Suche" im Hauptfenster); ob sie
+ * aufgezeichnet wird, entscheidet die Stichprobe in {@link Spuren}. Innerhalb eines Threads öffnet
+ * {@link #start(String)} einen Unterabschnitt der gerade laufenden Spur, am besten mit
+ * try-with-resources. Wechselt die Arbeit den Thread (EDT → SwingWorker → EDT), übergibt man die
+ * Spur mit {@link #weitergeben()} und setzt sie im anderen Thread mit {@link Uebergabe#fortsetzen(String)}
+ * fort; die Zeit dazwischen (Warteschlange des Workers bzw. des EDT) erscheint als Abschnitt "warten".
+ * <p>
+ * Ohne laufende oder bei nicht gezogener Aktion liefern alle Methoden {@link #NICHTS}, das nichts
+ * kostet und nichts aufzeichnet. Abgeschlossene Spuren landen im Ringpuffer von {@link Spuren}.
+ */
+public final class Spur implements AutoCloseable {
+
+    /**
+     * Spur, die nichts aufzeichnet.
+     */
+    public static final Spur NICHTS = new Spur("", 0, 0, 0, 0, false);
+
+    private static final ThreadLocal<Spur> AKTUELL = new ThreadLocal<>();
+    private static final AtomicLong IDS = new AtomicLong();
+    private static final Uebergabe LEER = new Uebergabe(NICHTS, 0);
+
+    private final String name;
+    private final long id;
+    private final long eltern;
+    private final long wurzel;
+    private final long startNs;
+    private final boolean gebunden;
+    private final String threadName;
+    private final long threadId;
+
+    private long endeNs;
+    private Spur vorher;
+    private Map<String, Object> attribute;
+
+    private Spur(String name, long id, long eltern, long wurzel, long startNs, boolean gebunden) {
+        this.name = name;
+        this.id = id;
+        this.eltern = eltern;
+        this.wurzel = wurzel;
+        this.startNs = startNs;
+        this.gebunden = gebunden;
+        Thread t = Thread.currentThread();
+        this.threadName = t.getName();
+        this.threadId = t.threadId();
+    }
+
+    /**
+     * Beginnt eine neue Benutzeraktion. Die Spur ist an keinen Thread gebunden und muss
+     * ausdrücklich mit {@link #close()} beendet werden, auch wenn sie über mehrere Threads läuft.
+     *
+     * @param name Name der Aktion, z.B. {@code ui.suche}
+     * @return neue Spur oder {@link #NICHTS}, wenn die Aktion nicht in der Stichprobe ist
+     */
+    public static Spur aktion(String name) {
+        if (!Spuren.ziehen()) return NICHTS;
+        long id = IDS.incrementAndGet();
+        return new Spur(name, id, 0, id, System.nanoTime(), false);
+    }
+
+    /**
+     * Öffnet einen Unterabschnitt der im aktuellen Thread laufenden Spur. Sie ist bis zum
+     * {@link #close()} die aktuelle Spur des Threads.
+     *
+     * @param name Name des Abschnitts, z.B. {@code PatientCrud.search}
+     * @return neue Spur oder {@link #NICHTS}, wenn im Thread keine Spur läuft
+     */
+    public static Spur start(String name) {
+        Spur e = AKTUELL.get();
+        return e == null ? NICHTS : e.kind(name, System.nanoTime());
+    }
+
+    private Spur kind(String name, long startNs) {
+        Spur k = new Spur(name, IDS.incrementAndGet(), id, wurzel, startNs, true);
+        k.vorher = AKTUELL.get();
+        AKTUELL.set(k);
+        return k;
+    }
+
+    /**
+     * Merkt sich die Spur und den Zeitpunkt, um sie in einem anderen Thread fortzusetzen.
+     *
+     * @return Übergabe für {@link Uebergabe#fortsetzen(String)}
+     */
+    public Uebergabe weitergeben() {
+        return this == NICHTS ? LEER : new Uebergabe(this, System.nanoTime());
+    }
+
+    /**
+     * Merkt sich die im aktuellen Thread laufende Spur, um sie in einem anderen Thread fortzusetzen.
+     *
+     * @return Übergabe für {@link Uebergabe#fortsetzen(String)} bzw. {@link Uebergabe#abzweigen(String)}
+     */
+    public static Uebergabe uebergeben() {
+        Spur e = AKTUELL.get();
+        return e == null ? LEER : e.weitergeben();
+    }
+
+    /**
+     * Hängt eine Zusatzangabe an (erscheint im Export unter {@code args}).
+     * Keine Patientendaten anhängen, der Export verlässt den Arbeitsplatz.
+     *
+     * @param schluessel Name
+     * @param wert Wert
+     * @return diese Spur
+     */
+    public Spur attribut(String schluessel, Object wert) {
+        if (this == NICHTS) return this;
+        synchronized (this) {
+            if (attribute == null) attribute = new LinkedHashMap<>(4);
+            attribute.put(schluessel, wert);
+        }
+        return this;
+    }
+
+    /**
+     * Vermerkt einen Fehler (Klassenname der Exception) an der Spur.
+     *
+     * @param t aufgetretener Fehler
+     * @return diese Spur
+     */
+    public Spur fehler(Throwable t) {
+        return attribut("fehler", t.getClass().getSimpleName());
+    }
+
+    /**
+     * Beendet die Spur und legt sie in den Ringpuffer. Eine an den Thread gebundene Spur
+     * macht die vorherige wieder zur aktuellen.
+     */
+    @Override
+    public void close() {
+        if (this == NICHTS) return;
+        endeNs = System.nanoTime();
+        if (gebunden) {
+            if (vorher == null) AKTUELL.remove();
+            else AKTUELL.set(vorher);
+        }
+        Spuren.aufzeichnen(this);
+    }
+
+    /**
+     * Übergabe einer Spur an einen anderen Thread.
+     *
+     * @param spur übergebene Spur
+     * @param seitNs Zeitpunkt der Übergabe ({@link System#nanoTime()})
+     */
+    public record Uebergabe(Spur spur, long seitNs) {
+
+        /**
+         * Setzt die Spur im aktuellen Thread mit einem Unterabschnitt fort. Die Zeit seit der
+         * Übergabe wird als eigener Abschnitt "warten" aufgezeichnet.
+         *
+         * @param name Name des Abschnitts
+         * @return neue, an den Thread gebundene Spur oder {@link #NICHTS}
+         */
+        public Spur fortsetzen(String name) {
+            if (spur == NICHTS) return NICHTS;
+            return spur.kind(name, warten());
+        }
+
+        /**
+         * Wie {@link #fortsetzen(String)}, der Unterabschnitt wird aber nicht an den Thread gebunden.
+         * Für Arbeit, die über mehrere Threads läuft (z.B. ein {@code PatientStrom}); sie muss
+         * ausdrücklich mit {@link Spur#close()} beendet werden.
+         *
+         * @param name Name des Abschnitts
+         * @return neue, ungebundene Spur oder {@link #NICHTS}
+         */
+        public Spur abzweigen(String name) {
+            if (spur == NICHTS) return NICHTS;
+            return new Spur(name, IDS.incrementAndGet(), spur.id, spur.wurzel, warten(), false);
+        }
+
+        private long warten() {
+            long jetzt = System.nanoTime();
+            Spur w = new Spur("warten", IDS.incrementAndGet(), spur.id, spur.wurzel, seitNs, false);
+            w.endeNs = jetzt;
+            Spuren.aufzeichnen(w);
+            return jetzt;
+        }
+    }
+
+    /**
+     * Gibt den Namen des Abschnitts zurück.
+     *
+     * @return Name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gibt die eindeutige Nummer der Spur zurück.
+     *
+     * @return Nummer
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Gibt die Nummer der übergeordneten Spur zurück.
+     *
+     * @return Nummer, 0 bei einer Aktion
+     */
+    public long getEltern() {
+        return eltern;
+    }
+
+    /**
+     * Gibt die Nummer der Aktion zurück, zu der die Spur gehört.
+     *
+     * @return Nummer der Aktion
+     */
+    public long getWurzel() {
+        return wurzel;
+    }
+
+    /**
+     * Gibt den Beginn zurück.
+     *
+     * @return Zeitpunkt wie {@link System#nanoTime()}
+     */
+    public long getStartNs() {
+        return startNs;
+    }
+
+    /**
+     * Gibt die Dauer zurück.
+     *
+     * @return Dauer in Nanosekunden
+     */
+    public long getDauerNs() {
+        return endeNs - startNs;
+    }
+
+    /**
+     * Gibt den Namen des Threads zurück, in dem die Spur begonnen hat.
+     *
+     * @return Thread-Name
+     */
+    public String getThreadName() {
+        return threadName;
+    }
+
+    /**
+     * Gibt die ID des Threads zurück, in dem die Spur begonnen hat.
+     *
+     * @return Thread-ID
+     */
+    public long getThreadId() {
+        return threadId;
+    }
+
+    /**
+     * Gibt die Zusatzangaben zurück.
+     *
+     * @return Kopie der Zusatzangaben
+     */
+    public synchronized Map<String, Object> getAttribute() {
+        return attribute == null ? Map.of() : new LinkedHashMap<>(attribute);
+    }
+}
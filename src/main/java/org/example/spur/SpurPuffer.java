@@ -0,0 +1,59 @@
+package org.example.spur;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Ringpuffer mit fester Größe für abgeschlossene Spuren. Ist er voll, überschreibt jede neue
+ * Spur die älteste; es bleiben also immer die letzten Aktionen erhalten. Schreiben ist sperrfrei
+ * (ein {@code getAndIncrement} und ein Speichern), gelesen wird nur beim Export.
+ */
+final class SpurPuffer {
+
+    private final AtomicReferenceArray<Spur> plaetze;
+    private final int maske;
+    private final AtomicLong naechster = new AtomicLong();
+
+    /**
+     * @param groesse Anzahl Plätze, wird auf die nächste Zweierpotenz aufgerundet
+     */
+    SpurPuffer(int groesse) {
+        int n = Integer.highestOneBit(Math.max(2, groesse - 1)) << 1;
+        plaetze = new AtomicReferenceArray<>(n);
+        maske = n - 1;
+    }
+
+    /**
+     * Legt eine Spur in den Puffer (überschreibt ggf. die älteste).
+     *
+     * @param s abgeschlossene Spur
+     */
+    void add(Spur s) {
+        plaetze.lazySet((int) naechster.getAndIncrement() & maske, s);
+    }
+
+    /**
+     * Gibt alle Spuren im Puffer zurück, nach Beginn sortiert.
+     *
+     * @return Kopie des Inhalts
+     */
+    List<Spur> schnappschuss() {
+        List<Spur> out = new ArrayList<>(plaetze.length());
+        for (int i = 0; i < plaetze.length(); i++) {
+            Spur s = plaetze.get(i);
+            if (s != null) out.add(s);
+        }
+        out.sort(Comparator.comparingLong(Spur::getStartNs));
+        return out;
+    }
+
+    /**
+     * Leert den Puffer.
+     */
+    void leeren() {
+        for (int i = 0; i < plaetze.length(); i++) plaetze.set(i, null);
+    }
+}
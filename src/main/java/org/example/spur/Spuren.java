@@ -0,0 +1,216 @@
+package org.example.spur;
+
+import org.example.Konfiguration;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Stichprobe, Ringpuffer und Export der {@link Spur}en.
+ * Einstellungen über {@link Konfiguration}:
+ * <ul>
+ *     <li>{@code spur.anteil}: Anteil der Benutzeraktionen, die aufgezeichnet werden
+ *         (0 bis 1, Standard 1 = alle; 0 schaltet das Aufzeichnen ab)</li>
+ *     <li>{@code spur.puffer}: Anzahl Spuren im Ringpuffer (Standard 20.000, die ältesten fallen heraus)</li>
+ *     <li>{@code spur.dir}: Verzeichnis für {@link #exportieren()} (Standard {@code ~/.patientenaufnahme/spuren})</li>
+ *     <li>{@code spur.datei}: wenn gesetzt, wird der Puffer beim Beenden in diese Datei exportiert</li>
+ * </ul>
+ * Exportiert wird im Trace-Event-Format (JSON), das {@code chrome://tracing} und Perfetto
+ * ({@code ui.perfetto.dev}) öffnen. Jede Aktion bekommt dort eine eigene Zeile, der Thread steht
+ * in den Angaben des Abschnitts.
+ */
+public final class Spuren {
+
+    private static final Konfiguration KONFIG = Konfiguration.get();
+
+    private static final double ANTEIL = Double.parseDouble(KONFIG.get("spur.anteil", "1"));
+
+    private static final SpurPuffer PUFFER = new SpurPuffer(KONFIG.getInt("spur.puffer", 20_000));
+
+    /**
+     * Bezugspunkt, um {@link System#nanoTime()} in Mikrosekunden seit 1970 umzurechnen.
+     */
+    private static final long BASIS_NS = System.nanoTime();
+    private static final long BASIS_US = System.currentTimeMillis() * 1000;
+
+    private static final DateTimeFormatter DATEINAME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    static {
+        String datei = KONFIG.get("spur.datei", "");
+        if (!datei.isEmpty()) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    exportieren(Paths.get(datei));
+                } catch (IOException e) {
+                    System.err.println("Spuren konnten nicht exportiert werden: " + e.getMessage());
+                }
+            }, "spuren-export"));
+        }
+    }
+
+    private Spuren() {
+    }
+
+    /**
+     * Entscheidet, ob eine neue Aktion aufgezeichnet wird.
+     */
+    static boolean ziehen() {
+        return ANTEIL >= 1 || (ANTEIL > 0 && ThreadLocalRandom.current().nextDouble() < ANTEIL);
+    }
+
+    static void aufzeichnen(Spur s) {
+        PUFFER.add(s);
+    }
+
+    /**
+     * Gibt die Spuren im Ringpuffer zurück, nach Beginn sortiert.
+     *
+     * @return Kopie des Puffers
+     */
+    public static List<Spur> schnappschuss() {
+        return PUFFER.schnappschuss();
+    }
+
+    /**
+     * Leert den Ringpuffer.
+     */
+    public static void leeren() {
+        PUFFER.leeren();
+    }
+
+    /**
+     * Exportiert den Ringpuffer in eine neue Datei mit Zeitstempel im Verzeichnis {@code spur.dir}.
+     *
+     * @return geschriebene Datei
+     * @throws IOException wenn die Datei nicht geschrieben werden kann
+     */
+    public static Path exportieren() throws IOException {
+        Path dir = Paths.get(KONFIG.get("spur.dir", System.getProperty("user.home") + "/.patientenaufnahme/spuren"));
+        Files.createDirectories(dir);
+        Path datei = dir.resolve("spuren-" + DATEINAME.format(LocalDateTime.now()) + ".json");
+        exportieren(datei);
+        return datei;
+    }
+
+    /**
+     * Exportiert den Ringpuffer in die angegebene Datei (wird überschrieben).
+     *
+     * @param datei Zieldatei
+     * @throws IOException wenn die Datei nicht geschrieben werden kann
+     */
+    public static void exportieren(Path datei) throws IOException {
+        try (Writer w = Files.newBufferedWriter(datei, StandardCharsets.UTF_8)) {
+            schreiben(schnappschuss(), w);
+        }
+    }
+
+    /**
+     * Schreibt Spuren im Trace-Event-Format: ein vollständiges Ereignis ({@code "ph":"X"}) pro
+     * Spur, Zeiten in Mikrosekunden, dazu ein Zeilenname pro Aktion.
+     *
+     * @param spuren zu schreibende Spuren
+     * @param w Ziel
+     * @throws IOException wenn nicht geschrieben werden kann
+     */
+    public static void schreiben(List<Spur> spuren, Writer w) throws IOException {
+        long pid = ProcessHandle.current().pid();
+        Map<Long, String> aktionen = new HashMap<>();
+        for (Spur s : spuren) {
+            if (s.getEltern() == 0) aktionen.put(s.getId(), s.getName());
+            else aktionen.putIfAbsent(s.getWurzel(), null);
+        }
+
+        w.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+        boolean erstes = true;
+        for (Map.Entry<Long, String> a : aktionen.entrySet()) {
+            if (!erstes) w.write(",\n");
+            erstes = false;
+            String name = (a.getValue() == null ? "Aktion" : a.getValue()) + " #" + a.getKey();
+            w.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":" + pid + ",\"tid\":" + a.getKey()
+                    + ",\"args\":{\"name\":" + text(name) + "}}");
+        }
+        for (Spur s : spuren) {
+            if (!erstes) w.write(",\n");
+            erstes = false;
+            StringBuilder sb = new StringBuilder(200);
+            sb.append("{\"name\":").append(text(s.getName()))
+                    .append(",\"cat\":\"patienten\",\"ph\":\"X\",\"pid\":").append(pid)
+                    .append(",\"tid\":").append(s.getWurzel())
+                    .append(",\"ts\":").append(BASIS_US + (s.getStartNs() - BASIS_NS) / 1000)
+                    .append(",\"dur\":").append(String.format(Locale.ROOT, "%.3f", s.getDauerNs() / 1000.0))
+                    .append(",\"args\":{\"id\":").append(s.getId())
+                    .append(",\"eltern\":").append(s.getEltern())
+                    .append(",\"thread\":").append(text(s.getThreadName()));
+            for (Map.Entry<String, Object> e : s.getAttribute().entrySet()) {
+                sb.append(',').append(text(e.getKey())).append(':');
+                Object v = e.getValue();
+                if (v instanceof Number || v instanceof Boolean) sb.append(v);
+                else sb.append(text(String.valueOf(v)));
+            }
+            sb.append("}}");
+            w.write(sb.toString());
+        }
+        w.write("\n]}\n");
+    }
+
+    /**
+     * Legt einen Stellvertreter um ein Repository, der jeden Aufruf als Unterabschnitt der
+     * laufenden Spur misst (Name: einfacher Klassenname und Methode, z.B. {@code PatientCrud.search}).
+     * Ohne laufende Spur kostet ein Aufruf nur den Umweg über den Stellvertreter.
+     *
+     * @param typ Schnittstelle
+     * @param ziel Implementierung
+     * @param <T> Typ der Schnittstelle
+     * @return Stellvertreter
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T gemessen(Class<T> typ, T ziel) {
+        String praefix = ziel.getClass().getSimpleName() + ".";
+        Map<Method, String> namen = new ConcurrentHashMap<>();
+        return (T) Proxy.newProxyInstance(typ.getClassLoader(), new Class<?>[]{typ}, (proxy, m, args) -> {
+            if (m.getDeclaringClass() == Object.class) return m.invoke(ziel, args);
+            try (Spur s = Spur.start(namen.computeIfAbsent(m, x -> praefix + x.getName()))) {
+                try {
+                    return m.invoke(ziel, args);
+                } catch (InvocationTargetException e) {
+                    s.fehler(e.getCause());
+                    throw e.getCause();
+                }
+            }
+        });
+    }
+
+    private static String text(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,220 @@
+package org.example.statistik;
+
+import org.example.Konfiguration;
+import org.example.crud.Repositories;
+import org.example.model.Patient;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Laufende Zählerstände: Patienten pro Station und pro Aufenthaltsgrund.
+ * Die Zähler werden bei jedem Speichern, Löschen und Entlassen über {@code PatientKontrolle}
+ * direkt mitgeführt, sodass eine Anzeige sie ohne Datenbankabfrage lesen kann. Änderungen an
+ * anderen Plätzen kommen über den langsamen Abgleich mit der Datenbank herein
+ * (Standard alle 10 Minuten, {@code patienten.statistik.minuten}).
+ * Pro Patient wird die letzte bekannte Station und der Grund gemerkt, damit bei Verlegungen
+ * und Löschungen der richtige Zähler verringert wird.
+ */
+public class StationStatistik {
+
+    private static final StationStatistik INSTANCE = new StationStatistik();
+
+    /**
+     * Gibt die gemeinsame Instanz zurück.
+     * @return StationStatistik
+     */
+    public static StationStatistik getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Station und Grund eines Patienten, wie sie zuletzt gezählt wurden.
+     */
+    private record Zuordnung(Integer station, String grund) { }
+
+    private volatile Map<Integer, Zuordnung> proPatient = new ConcurrentHashMap<>();
+    private volatile Map<Integer, AtomicLong> proStation = new ConcurrentHashMap<>();
+    private volatile Map<String, AtomicLong> proGrund = new ConcurrentHashMap<>();
+
+    /**
+     * Änderungen, die während eines Abgleichs hereinkommen (null = entfernt); sie werden nach der
+     * Abfrage auf den neuen Stand nachgespielt. Außerhalb eines Abgleichs null.
+     */
+    private Map<Integer, Zuordnung> waehrendAbgleich;
+
+    /**
+     * Sorgt dafür, dass höchstens ein Abgleich gleichzeitig läuft.
+     */
+    private final Object abgleich = new Object();
+
+    /**
+     * Zählt bei jeder Änderung hoch; die Anzeige aktualisiert sich nur, wenn sich das ändert.
+     */
+    private final AtomicLong stand = new AtomicLong();
+
+    private ScheduledExecutorService timer;
+
+    private StationStatistik() {
+    }
+
+    /**
+     * Startet den regelmäßigen Abgleich mit der Datenbank (der erste sofort).
+     */
+    public synchronized void start() {
+        if (timer != null) return;
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stations-statistik");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        int minuten = Konfiguration.get().getInt("statistik.minuten", 10);
+        timer.scheduleWithFixedDelay(() -> {
+            try {
+                abgleichen();
+            } catch (RuntimeException e) {
+                System.err.println("Statistik-Abgleich fehlgeschlagen: " + e.getMessage());
+            }
+        }, 0, minuten, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Baut alle Zähler neu aus der Datenbank auf und ersetzt die bisherigen. Was während der
+     * Abfrage über {@link #gespeichert} und {@link #entfernt} hereinkommt, wird auf den neuen
+     * Stand nachgespielt, damit z.B. eine gerade reservierte Aufnahme nicht aus
+     * {@link #getBelegt(int)} verschwindet.
+     */
+    public void abgleichen() {
+        synchronized (abgleich) {
+            synchronized (this) {
+                waehrendAbgleich = new HashMap<>();
+            }
+            List<Patient> alle;
+            try {
+                alle = Repositories.patienten().findAssignments();
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    waehrendAbgleich = null;
+                }
+                throw e;
+            }
+
+            Map<Integer, Zuordnung> pp = new ConcurrentHashMap<>();
+            for (Patient p : alle) pp.put(p.getId(), new Zuordnung(p.getStationId(), p.getReason()));
+
+            synchronized (this) {
+                // die Änderung kann schon in der Abfrage stecken; nochmals setzen schadet dann nicht
+                waehrendAbgleich.forEach((id, z) -> {
+                    if (z == null) pp.remove(id);
+                    else pp.put(id, z);
+                });
+                waehrendAbgleich = null;
+
+                Map<Integer, AtomicLong> ps = new ConcurrentHashMap<>();
+                Map<String, AtomicLong> pg = new ConcurrentHashMap<>();
+                for (Zuordnung z : pp.values()) add(ps, pg, z, 1);
+                proPatient = pp;
+                proStation = ps;
+                proGrund = pg;
+            }
+            stand.incrementAndGet();
+        }
+    }
+
+    /**
+     * Übernimmt einen neu angelegten oder geänderten Patienten (auch Verlegung auf eine andere Station).
+     *
+     * @param id Patienten-ID
+     * @param station aktuelle Station (kann null sein)
+     * @param grund aktueller Aufenthaltsgrund
+     */
+    public synchronized void gespeichert(int id, Integer station, String grund) {
+        Zuordnung neu = new Zuordnung(station, grund);
+        Zuordnung alt = proPatient.put(id, neu);
+        if (waehrendAbgleich != null) waehrendAbgleich.put(id, neu);
+        if (alt != null) add(proStation, proGrund, alt, -1);
+        add(proStation, proGrund, neu, 1);
+        stand.incrementAndGet();
+    }
+
+    /**
+     * Nimmt einen gelöschten oder entlassenen Patienten aus der Zählung.
+     *
+     * @param id Patienten-ID
+     */
+    public synchronized void entfernt(int id) {
+        Zuordnung alt = proPatient.remove(id);
+        if (waehrendAbgleich != null) waehrendAbgleich.put(id, null);
+        if (alt == null) return;
+        add(proStation, proGrund, alt, -1);
+        stand.incrementAndGet();
+    }
+
+    /**
+     * Gibt die letzte bekannte Station eines Patienten zurück.
+     *
+     * @param id Patienten-ID
+     * @return Station oder null, wenn unbekannt
+     */
+    public Integer getStation(int id) {
+        Zuordnung z = proPatient.get(id);
+        return z == null ? null : z.station();
+    }
+
+    /**
+     * Gibt den letzten bekannten Grund eines Patienten zurück.
+     *
+     * @param id Patienten-ID
+     * @return Grund oder null, wenn unbekannt
+     */
+    public String getGrund(int id) {
+        Zuordnung z = proPatient.get(id);
+        return z == null ? null : z.grund();
+    }
+
+    /**
+     * Gibt die Anzahl Patienten auf einer Station zurück.
+     *
+     * @param station Raumnummer der Station
+     * @return Anzahl belegter Betten
+     */
+    public long getBelegt(int station) {
+        AtomicLong n = proStation.get(station);
+        return n == null ? 0 : n.get();
+    }
+
+    /**
+     * Gibt eine Kopie der Anzahl Patienten pro Aufenthaltsgrund zurück.
+     *
+     * @return Grund → Anzahl (nur Gründe mit mindestens einem Patienten)
+     */
+    public Map<String, Long> getProGrund() {
+        Map<String, Long> out = new HashMap<>();
+        proGrund.forEach((k, v) -> {
+            if (v.get() > 0) out.put(k, v.get());
+        });
+        return out;
+    }
+
+    /**
+     * Gibt einen Zähler zurück, der sich bei jeder Änderung erhöht.
+     *
+     * @return aktueller Stand
+     */
+    public long getStand() {
+        return stand.get();
+    }
+
+    private static void add(Map<Integer, AtomicLong> ps, Map<String, AtomicLong> pg, Zuordnung z, int delta) {
+        if (z.station() != null) ps.computeIfAbsent(z.station(), k -> new AtomicLong()).addAndGet(delta);
+        String grund = z.grund() == null || z.grund().isEmpty() ? "(ohne Grund)" : z.grund();
+        pg.computeIfAbsent(grund, k -> new AtomicLong()).addAndGet(delta);
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.suche;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BK-Baum über Wörter mit der Levenshtein-Distanz.
+ * Findet alle Wörter mit höchstens {@code d} Änderungen Abstand zum Suchwort, ohne alle Wörter
+ * vergleichen zu müssen: pro Knoten werden nur Kinder besucht, deren Kantenabstand im Bereich
+ * [Abstand − d, Abstand + d] liegt. Jedes Wort ist nur einmal enthalten.
+ * Aufbauen in einem Thread, danach nur noch lesen.
+ */
+final class BkBaum {
+
+    /**
+     * Ein Treffer der Suche.
+     *
+     * @param wort gefundenes Wort
+     * @param abstand Levenshtein-Distanz zum Suchwort
+     */
+    record Treffer(String wort, int abstand) { }
+
+    private static final class Knoten {
+        final String wort;
+        Map<Integer, Knoten> kinder;
+
+        Knoten(String wort) {
+            this.wort = wort;
+        }
+    }
+
+    private Knoten wurzel;
+
+    /**
+     * Fügt ein Wort ein (ist es schon enthalten, passiert nichts).
+     *
+     * @param wort Wort
+     */
+    void add(String wort) {
+        if (wurzel == null) {
+            wurzel = new Knoten(wort);
+            return;
+        }
+        Knoten k = wurzel;
+        while (true) {
+            int d = levenshtein(k.wort, wort, Integer.MAX_VALUE);
+            if (d == 0) return;
+            if (k.kinder == null) k.kinder = new HashMap<>(4);
+            Knoten kind = k.kinder.get(d);
+            if (kind == null) {
+                k.kinder.put(d, new Knoten(wort));
+                return;
+            }
+            k = kind;
+        }
+    }
+
+    /**
+     * Sucht alle Wörter mit höchstens {@code max} Abstand.
+     *
+     * @param wort Suchwort
+     * @param max maximale Levenshtein-Distanz
+     * @return Treffer (unsortiert)
+     */
+    List<Treffer> suche(String wort, int max) {
+        List<Treffer> out = new ArrayList<>();
+        if (wurzel == null) return out;
+        Deque<Knoten> offen = new ArrayDeque<>();
+        offen.push(wurzel);
+        while (!offen.isEmpty()) {
+            Knoten k = offen.pop();
+            int d = levenshtein(k.wort, wort, Integer.MAX_VALUE);
+            if (d <= max) out.add(new Treffer(k.wort, d));
+            if (k.kinder == null) continue;
+            for (int i = Math.max(1, d - max); i <= d + max; i++) {
+                Knoten kind = k.kinder.get(i);
+                if (kind != null) offen.push(kind);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Levenshtein-Distanz mit zwei Zeilen. Bricht ab, sobald eine Zeile komplett über {@code grenze} liegt.
+     *
+     * @param a erstes Wort
+     * @param b zweites Wort
+     * @param grenze ab hier ist der genaue Wert egal
+     * @return Distanz, oder ein Wert größer {@code grenze}
+     */
+    static int levenshtein(String a, String b, int grenze) {
+        int n = a.length(), m = b.length();
+        if (Math.abs(n - m) > grenze) return grenze + 1;
+        int[] vorher = new int[m + 1];
+        int[] jetzt = new int[m + 1];
+        for (int j = 0; j <= m; j++) vorher[j] = j;
+        for (int i = 1; i <= n; i++) {
+            jetzt[0] = i;
+            int zeilenMin = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= m; j++) {
+                int kosten = ca == b.charAt(j - 1) ? 0 : 1;
+                jetzt[j] = Math.min(Math.min(jetzt[j - 1] + 1, vorher[j] + 1), vorher[j - 1] + kosten);
+                zeilenMin = Math.min(zeilenMin, jetzt[j]);
+            }
+            if (zeilenMin > grenze) return grenze + 1;
+            int[] t = vorher;
+            vorher = jetzt;
+            jetzt = t;
+        }
+        return vorher[m];
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.suche;
+
+import java.util.Locale;
+
+/**
+ * Kölner Phonetik: bildet deutsche Namen auf einen Ziffern-Code ab, sodass ähnlich klingende
+ * Schreibweisen denselben Code bekommen (z.B. Meier, Maier, Mayer → "67").
+ * Umlaute werden wie ihr Grundvokal behandelt, ß wie s, andere Zeichen werden ignoriert.
+ */
+public final class KoelnerPhonetik {
+
+    private KoelnerPhonetik() {
+    }
+
+    /**
+     * Berechnet den phonetischen Code eines Wortes.
+     *
+     * @param wort Name (kann null sein)
+     * @return Code, leer wenn das Wort keine Buchstaben enthält
+     */
+    public static String kodiere(String wort) {
+        String w = normalisiere(wort);
+        int n = w.length();
+        StringBuilder roh = new StringBuilder(n * 2);
+
+        for (int i = 0; i < n; i++) {
+            char c = w.charAt(i);
+            char vor = i > 0 ? w.charAt(i - 1) : ' ';
+            char nach = i + 1 < n ? w.charAt(i + 1) : ' ';
+            switch (c) {
+                case 'a', 'e', 'i', 'j', 'o', 'u', 'y' -> roh.append('0');
+                case 'b' -> roh.append('1');
+                case 'p' -> roh.append(nach == 'h' ? '3' : '1');
+                case 'd', 't' -> roh.append("csz".indexOf(nach) >= 0 ? '8' : '2');
+                case 'f', 'v', 'w' -> roh.append('3');
+                case 'g', 'k', 'q' -> roh.append('4');
+                case 'c' -> {
+                    if (i == 0) roh.append("ahkloqrux".indexOf(nach) >= 0 ? '4' : '8');
+                    else if ("sz".indexOf(vor) >= 0) roh.append('8');
+                    else roh.append("ahkoqux".indexOf(nach) >= 0 ? '4' : '8');
+                }
+                case 'x' -> roh.append("ckq".indexOf(vor) >= 0 ? "8" : "48");
+                case 'l' -> roh.append('5');
+                case 'm', 'n' -> roh.append('6');
+                case 'r' -> roh.append('7');
+                case 's', 'z' -> roh.append('8');
+                default -> { } // h und alles andere ergibt keinen Code
+            }
+        }
+
+        StringBuilder out = new StringBuilder(roh.length());
+        char letzte = 0;
+        for (int i = 0; i < roh.length(); i++) {
+            char c = roh.charAt(i);
+            if (c == letzte) continue;
+            letzte = c;
+            if (c != '0' || out.length() == 0) out.append(c);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Kleinschreibung, Umlaute ersetzen und alles außer a–z entfernen.
+     *
+     * @param wort Text (kann null sein)
+     * @return normalisierter Text
+     */
+    static String normalisiere(String wort) {
+        if (wort == null) return "";
+        String w = wort.toLowerCase(Locale.GERMAN);
+        StringBuilder sb = new StringBuilder(w.length());
+        for (int i = 0; i < w.length(); i++) {
+            char c = w.charAt(i);
+            switch (c) {
+                case 'ä' -> sb.append('a');
+                case 'ö' -> sb.append('o');
+                case 'ü' -> sb.append('u');
+                case 'ß' -> sb.append('s');
+                default -> {
+                    if (c >= 'a' && c <= 'z') sb.append(c);
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,166 @@
+package org.example.suche;
+
+import org.example.model.Patient;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unscharfe Namenssuche im Speicher über Vor- und Nachnamen.
+ * Kandidaten kommen aus einem {@link BkBaum} (Tippfehler, Levenshtein-Distanz) und aus einer
+ * Tabelle Kölner-Phonetik-Code → Patienten (gleich klingende Schreibweisen). Jeder Suchbegriff
+ * muss zu einem der beiden Namen passen; sortiert wird nach der Summe der Abstände
+ * (genau = 0, gleicher Klang = 1, sonst die Distanz), danach nach Name.
+ * Der Index wird einmal aus einer Liste aufgebaut und danach nur gelesen.
+ */
+public final class NamensIndex {
+
+    private static final int KEIN_TREFFER = Integer.MAX_VALUE;
+
+    /**
+     * Patient mit vorberechneten normalisierten Namen und Codes.
+     */
+    private record Eintrag(Patient p, String vn, String vnCode, String nn, String nnCode) {
+        static Eintrag von(Patient p, Map<String, String> codes) {
+            String vn = KoelnerPhonetik.normalisiere(p.getFirstName());
+            String nn = KoelnerPhonetik.normalisiere(p.getLastName());
+            return new Eintrag(p, vn, codes.computeIfAbsent(vn, KoelnerPhonetik::kodiere),
+                    nn, codes.computeIfAbsent(nn, KoelnerPhonetik::kodiere));
+        }
+    }
+
+    private final BkBaum namen = new BkBaum();
+    private final Map<String, List<Eintrag>> nachWort = new HashMap<>();
+    private final Map<String, List<Eintrag>> nachCode = new HashMap<>();
+
+    private NamensIndex() {
+    }
+
+    /**
+     * Baut den Index über die Vor- und Nachnamen der Patienten auf.
+     *
+     * @param patienten Patienten (mindestens mit ID und Namen)
+     * @return Index
+     */
+    public static NamensIndex aufbauen(List<Patient> patienten) {
+        NamensIndex idx = new NamensIndex();
+        Map<String, String> codes = new HashMap<>();
+        for (Patient p : patienten) {
+            Eintrag e = Eintrag.von(p, codes);
+            idx.add(e.vn(), e.vnCode(), e);
+            idx.add(e.nn(), e.nnCode(), e);
+        }
+        return idx;
+    }
+
+    private void add(String name, String code, Eintrag e) {
+        if (name.isEmpty()) return;
+        List<Eintrag> gleich = nachWort.get(name);
+        if (gleich == null) {
+            gleich = new ArrayList<>(2);
+            nachWort.put(name, gleich);
+            namen.add(name);
+        }
+        gleich.add(e);
+        nachCode.computeIfAbsent(code, k -> new ArrayList<>(2)).add(e);
+    }
+
+    /**
+     * Sucht Patienten, deren Namen dem Suchbegriff ähnlich sind.
+     *
+     * @param query ein oder mehrere Namen, durch Leerzeichen getrennt
+     * @param limit maximale Anzahl Treffer
+     * @return Kopien der besten Treffer, der beste zuerst
+     */
+    public List<Patient> suche(String query, int limit) {
+        Map<Integer, Eintrag> kandidaten = new LinkedHashMap<>();
+        for (String t : woerter(query)) {
+            for (BkBaum.Treffer tr : namen.suche(t, maxAbstand(t))) {
+                for (Eintrag e : nachWort.get(tr.wort())) kandidaten.putIfAbsent(e.p().getId(), e);
+            }
+            for (Eintrag e : nachCode.getOrDefault(KoelnerPhonetik.kodiere(t), List.of())) {
+                kandidaten.putIfAbsent(e.p().getId(), e);
+            }
+        }
+        List<Patient> out = new ArrayList<>();
+        for (Patient p : bewerte(query, kandidaten.values(), limit)) out.add(new Patient(p));
+        return out;
+    }
+
+    /**
+     * Bewertet Kandidaten gegen den Suchbegriff und gibt die passenden sortiert zurück.
+     * Kann auch für Kandidaten aus anderen Quellen (z.B. der Datenbank) verwendet werden.
+     *
+     * @param query Suchbegriff
+     * @param kandidaten mögliche Treffer
+     * @param limit maximale Anzahl Treffer
+     * @return passende Kandidaten, der beste zuerst
+     */
+    public static List<Patient> rangliste(String query, Collection<Patient> kandidaten, int limit) {
+        List<Eintrag> es = new ArrayList<>(kandidaten.size());
+        Map<String, String> codes = new HashMap<>();
+        for (Patient p : kandidaten) es.add(Eintrag.von(p, codes));
+        return bewerte(query, es, limit);
+    }
+
+    private static List<Patient> bewerte(String query, Collection<Eintrag> kandidaten, int limit) {
+        List<String> woerter = woerter(query);
+        if (woerter.isEmpty()) return List.of();
+        List<String> codes = new ArrayList<>(woerter.size());
+        for (String t : woerter) codes.add(KoelnerPhonetik.kodiere(t));
+
+        record Bewertet(Patient p, int punkte) { }
+        List<Bewertet> passend = new ArrayList<>();
+        for (Eintrag e : kandidaten) {
+            int summe = 0;
+            for (int i = 0; i < woerter.size() && summe != KEIN_TREFFER; i++) {
+                String t = woerter.get(i), c = codes.get(i);
+                int best = Math.min(abstand(t, c, e.vn(), e.vnCode()), abstand(t, c, e.nn(), e.nnCode()));
+                summe = best == KEIN_TREFFER ? KEIN_TREFFER : summe + best;
+            }
+            if (summe != KEIN_TREFFER) passend.add(new Bewertet(e.p(), summe));
+        }
+
+        passend.sort(Comparator.comparingInt(Bewertet::punkte)
+                .thenComparing(b -> b.p().getLastName(), Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
+                .thenComparing(b -> b.p().getFirstName(), Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER)));
+        List<Patient> out = new ArrayList<>(Math.min(limit, passend.size()));
+        for (int i = 0; i < passend.size() && i < limit; i++) out.add(passend.get(i).p());
+        return out;
+    }
+
+    /**
+     * Abstand eines Suchworts zu einem Namen: 0 = gleich, 1 = gleicher Klang, sonst die
+     * Levenshtein-Distanz, wenn sie klein genug ist.
+     */
+    private static int abstand(String wort, String code, String name, String nameCode) {
+        if (name.isEmpty()) return KEIN_TREFFER;
+        if (name.equals(wort)) return 0;
+        if (!code.isEmpty() && code.equals(nameCode)) return 1;
+        int max = maxAbstand(wort);
+        int d = BkBaum.levenshtein(wort, name, max);
+        return d <= max ? d : KEIN_TREFFER;
+    }
+
+    /**
+     * Erlaubte Tippfehler: keine bei sehr kurzen Wörtern, einer bis 5 Zeichen, sonst zwei.
+     */
+    private static int maxAbstand(String wort) {
+        return wort.length() <= 3 ? 0 : wort.length() <= 5 ? 1 : 2;
+    }
+
+    private static List<String> woerter(String query) {
+        List<String> out = new ArrayList<>();
+        if (query == null) return out;
+        for (String t : query.trim().split("\\s+")) {
+            String n = KoelnerPhonetik.normalisiere(t);
+            if (!n.isEmpty()) out.add(n);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,266 @@
+package org.example.warteschlange;
+
+import org.example.Konfiguration;
+import org.example.crud.Repositories;
+import org.example.model.Patient;
+import org.example.model.Station;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Warteschlange für Aufnahmen nach Ersteinschätzung.
+ * Wartende Patienten liegen in einer {@link ConcurrentSkipListSet}, sortiert nach Dringlichkeit
+ * und Ankunft ({@link WartenderPatient#compareTo}). Mehrere Schalter holen sich mit
+ * {@link #naechster} den jeweils dringendsten Patienten; das Herausnehmen ist ein CAS auf den
+ * ersten Eintrag, es gibt keine gemeinsame Sperre. Beim Aufruf wird ein Bett vorgemerkt
+ * ({@link BettenReservierung}), sodass keine Station über {@code maxBetten} belegt wird.
+ * Ein Aufruf endet mit {@link #abschliessen} (Patient gespeichert), {@link #zuruecklegen}
+ * (wieder an seinen alten Platz) oder {@link #entfernen} (Patient gegangen).
+ * Alle Änderungen werden im Hintergrund gesammelt in die Datenbank geschrieben (Standard jede
+ * Sekunde, {@code patienten.warteschlange.ms}) und beim Start wieder geladen.
+ * Die Warteschlange gehört dem Prozess, der die Schalter bedient (dem {@code PatientServer}).
+ * Mit dem In-Memory-Backend wird nichts gespeichert.
+ */
+public class AufnahmeWarteschlange {
+
+    private static final AufnahmeWarteschlange INSTANCE = new AufnahmeWarteschlange();
+
+    /**
+     * Gibt die gemeinsame Instanz zurück.
+     * @return AufnahmeWarteschlange
+     */
+    public static AufnahmeWarteschlange getInstance() {
+        return INSTANCE;
+    }
+
+    private final ConcurrentSkipListSet<WartenderPatient> wartend = new ConcurrentSkipListSet<>();
+    private final Map<Long, Aufruf> aufgerufen = new ConcurrentHashMap<>();
+    private final AtomicLong naechsteNr = new AtomicLong(1);
+
+    private final BettenReservierung betten = new BettenReservierung();
+    private final WarteschlangenMetrik metrik = new WarteschlangenMetrik();
+    private final WarteschlangenDb db = Repositories.istSpeicher() ? null : new WarteschlangenDb();
+
+    private ScheduledExecutorService timer;
+
+    private AufnahmeWarteschlange() {
+    }
+
+    /**
+     * Lädt die offenen Einträge aus der Datenbank und startet das regelmäßige Schreiben.
+     */
+    public synchronized void start() {
+        if (timer != null || db == null) return;
+
+        List<WartenderPatient> geladen = new ArrayList<>();
+        naechsteNr.set(db.laden(geladen) + 1);
+        for (WartenderPatient w : geladen) {
+            wartend.add(w);
+            metrik.eingereiht(w.getDringlichkeit());
+        }
+
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "warteschlange");
+            t.setDaemon(true);
+            return t;
+        });
+        long ms = Konfiguration.get().getLong("warteschlange.ms", 1_000);
+        timer.scheduleWithFixedDelay(() -> db.schreiben(this::offeneEintraege), ms, ms, TimeUnit.MILLISECONDS);
+        ScheduledExecutorService t = timer;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            // erst den Timer anhalten, dann ein letztes Mal schreiben
+            t.shutdown();
+            try {
+                t.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            db.schreiben(this::offeneEintraege);
+        }, "warteschlange-ende"));
+    }
+
+    /**
+     * Alle Einträge, die noch warten oder aufgerufen sind (zum Neuaufsetzen der Tabelle).
+     */
+    private List<WartenderPatient> offeneEintraege() {
+        List<WartenderPatient> out = new ArrayList<>(wartend);
+        for (Aufruf a : aufgerufen.values()) out.add(a.patient());
+        return out;
+    }
+
+    /**
+     * Reiht einen Patienten nach der Ersteinschätzung ein.
+     *
+     * @param daten bekannte Angaben (Name, Geburtsdatum, Grund …), noch ohne ID
+     * @param dringlichkeit Ergebnis der Ersteinschätzung
+     * @param wunschStation gewünschte Station oder null
+     * @return der neue Eintrag
+     */
+    public WartenderPatient einreihen(Patient daten, Dringlichkeit dringlichkeit, Integer wunschStation) {
+        if (dringlichkeit == null) throw new IllegalArgumentException("Dringlichkeit fehlt.");
+        Patient kopie = new Patient(daten);
+        kopie.setId(0);
+        WartenderPatient w = new WartenderPatient(naechsteNr.getAndIncrement(), dringlichkeit,
+                System.currentTimeMillis(), kopie, wunschStation);
+        wartend.add(w);
+        metrik.eingereiht(dringlichkeit);
+        if (db != null) db.eingereiht(w);
+        return w;
+    }
+
+    /**
+     * Ruft den dringendsten wartenden Patienten auf und merkt ein Bett vor.
+     *
+     * @param schalter Name des aufrufenden Schalters
+     * @param stationen aktuelle Stationen (für {@code maxBetten})
+     * @return der Aufruf oder null, wenn niemand wartet
+     */
+    public Aufruf naechster(String schalter, List<Station> stationen) {
+        WartenderPatient w = wartend.pollFirst();
+        if (w == null) return null;
+        metrik.entnommen(w.getDringlichkeit());
+
+        Integer station = betten.reservieren(stationen, w.getWunschStation());
+        Aufruf a = new Aufruf(w, station, schalter, System.currentTimeMillis());
+        aufgerufen.put(w.getNr(), a);
+        metrik.aufgerufen(a);
+        if (db != null) db.geaendert(w.getNr(), WarteschlangenDb.Status.AUFGERUFEN, schalter, station, null);
+        return a;
+    }
+
+    /**
+     * Schließt einen Aufruf ab, nachdem der Patient gespeichert wurde, und gibt die
+     * Reservierung frei (das Bett zählt ab jetzt über die Stationsstatistik).
+     *
+     * @param nr Nummer des Eintrags
+     * @param gespeichert der gespeicherte Patient
+     * @return false, wenn es keinen solchen Aufruf gibt
+     */
+    public boolean abschliessen(long nr, Patient gespeichert) {
+        Aufruf a = annehmen(nr);
+        if (a == null) return false;
+        abschliessen(a, gespeichert);
+        return true;
+    }
+
+    /**
+     * Nimmt einen laufenden Aufruf zur Aufnahme an sich: er gilt danach nicht mehr als aufgerufen,
+     * das Bett bleibt aber reserviert. Danach muss genau einmal {@link #abschliessen(Aufruf, Patient)}
+     * oder {@link #zurueckgeben(Aufruf)} folgen. Ein zweiter Versuch mit derselben Nummer (z.B. ein
+     * wiederholter Request) bekommt null und nimmt den Patienten nicht noch einmal auf.
+     *
+     * @param nr Nummer des Eintrags
+     * @return der Aufruf oder null, wenn es keinen solchen (mehr) gibt
+     */
+    public Aufruf annehmen(long nr) {
+        return aufgerufen.remove(nr);
+    }
+
+    /**
+     * Gibt einen mit {@link #annehmen(long)} genommenen Aufruf zurück, weil die Aufnahme
+     * gescheitert ist. Er läuft mit derselben Reservierung weiter.
+     *
+     * @param a angenommener Aufruf
+     */
+    public void zurueckgeben(Aufruf a) {
+        aufgerufen.put(a.patient().getNr(), a);
+    }
+
+    /**
+     * Schließt einen mit {@link #annehmen(long)} genommenen Aufruf ab, nachdem der Patient
+     * gespeichert wurde, und gibt die Reservierung frei.
+     *
+     * @param a angenommener Aufruf
+     * @param gespeichert der gespeicherte Patient
+     */
+    public void abschliessen(Aufruf a, Patient gespeichert) {
+        betten.freigeben(a.station());
+        if (db != null) {
+            db.geaendert(a.patient().getNr(), WarteschlangenDb.Status.AUFGENOMMEN, null,
+                    gespeichert.getStationId(), gespeichert.getId());
+        }
+    }
+
+    /**
+     * Legt einen aufgerufenen Patienten wieder in die Warteschlange (an seinen alten Platz).
+     *
+     * @param nr Nummer des Eintrags
+     * @return false, wenn es keinen solchen Aufruf gibt
+     */
+    public boolean zuruecklegen(long nr) {
+        Aufruf a = aufgerufen.remove(nr);
+        if (a == null) return false;
+        betten.freigeben(a.station());
+        wartend.add(a.patient());
+        metrik.eingereiht(a.patient().getDringlichkeit());
+        if (db != null) db.geaendert(nr, WarteschlangenDb.Status.WARTEND, null, null, null);
+        return true;
+    }
+
+    /**
+     * Nimmt einen Patienten ohne Aufnahme aus der Warteschlange (z.B. gegangen).
+     *
+     * @param nr Nummer des Eintrags (wartend oder aufgerufen)
+     * @return false, wenn es keinen solchen Eintrag gibt
+     */
+    public boolean entfernen(long nr) {
+        Aufruf a = aufgerufen.remove(nr);
+        if (a != null) {
+            betten.freigeben(a.station());
+        } else {
+            WartenderPatient w = null;
+            for (WartenderPatient x : wartend) {
+                if (x.getNr() == nr) {
+                    w = x;
+                    break;
+                }
+            }
+            if (w == null || !wartend.remove(w)) return false;
+            metrik.entnommen(w.getDringlichkeit());
+        }
+        if (db != null) db.geaendert(nr, WarteschlangenDb.Status.ABGEBROCHEN, null, null, null);
+        return true;
+    }
+
+    /**
+     * Gibt die Wartenden in Aufrufreihenfolge zurück.
+     * @return Kopie der Warteschlange
+     */
+    public List<WartenderPatient> getWartende() {
+        return new ArrayList<>(wartend);
+    }
+
+    /**
+     * Gibt die laufenden Aufrufe zurück.
+     * @return aufgerufene, noch nicht abgeschlossene Patienten
+     */
+    public List<Aufruf> getAufgerufen() {
+        return new ArrayList<>(aufgerufen.values());
+    }
+
+    /**
+     * Gibt die freien Betten einer Station ohne die vorgemerkten zurück.
+     *
+     * @param s Station
+     * @return freie Betten
+     */
+    public long getFreieBetten(Station s) {
+        return betten.frei(s);
+    }
+
+    /**
+     * Gibt die Kennzahlen zurück.
+     * @return Wartezeit und Durchsatz
+     */
+    public WarteschlangenMetrik getMetrik() {
+        return metrik;
+    }
+}
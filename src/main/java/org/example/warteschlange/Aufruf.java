@@ -0,0 +1,22 @@
+package org.example.warteschlange;
+
+/**
+ * Ein an einen Schalter aufgerufener Patient mit der vorgemerkten Station.
+ * Das Bett ist reserviert, bis der Aufruf mit {@link AufnahmeWarteschlange#abschliessen}
+ * oder {@link AufnahmeWarteschlange#zuruecklegen} erledigt ist; aufgenommen wird nur auf diese Station.
+ *
+ * @param patient der Wartende
+ * @param station reservierte Station (Raumnummer) oder null, wenn keine Station frei ist
+ * @param schalter Name des Schalters, der aufgerufen hat
+ * @param aufgerufen Zeitpunkt des Aufrufs in Millisekunden
+ */
+public record Aufruf(WartenderPatient patient, Integer station, String schalter, long aufgerufen) {
+
+    /**
+     * Gibt die Wartezeit bis zum Aufruf zurück.
+     * @return Millisekunden
+     */
+    public long getWartezeit() {
+        return aufgerufen - patient.getAnkunft();
+    }
+}
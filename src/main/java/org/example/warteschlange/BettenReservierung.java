@@ -0,0 +1,83 @@
+package org.example.warteschlange;
+
+import org.example.model.Station;
+import org.example.statistik.StationStatistik;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Merkt Betten für aufgerufene Patienten vor, bis die Aufnahme gespeichert ist.
+ * Belegt sind die Betten laut {@link StationStatistik} plus die Reservierungen; eine Station
+ * bekommt nur dann eine weitere Reservierung, wenn das zusammen unter {@code maxBetten} bleibt.
+ * Die Prüfung ist ein CAS auf den Reservierungszähler der Station, zwei Schalter können also
+ * nicht gleichzeitig das letzte Bett bekommen.
+ */
+class BettenReservierung {
+
+    private final StationStatistik statistik = StationStatistik.getInstance();
+    private final Map<Integer, AtomicInteger> reserviert = new ConcurrentHashMap<>();
+
+    /**
+     * Reserviert ein Bett: bevorzugt auf der Wunschstation, sonst auf der Station mit den
+     * meisten freien Betten.
+     *
+     * @param stationen bekannte Stationen
+     * @param wunsch gewünschte Station oder null
+     * @return Raumnummer der reservierten Station oder null, wenn alles voll ist
+     */
+    Integer reservieren(List<Station> stationen, Integer wunsch) {
+        if (wunsch != null) {
+            for (Station s : stationen) {
+                if (s.getRaum() == wunsch && versuchen(s)) return wunsch;
+            }
+        }
+        while (true) {
+            Station beste = null;
+            long meisteFrei = 0;
+            for (Station s : stationen) {
+                long frei = frei(s);
+                if (frei > meisteFrei) {
+                    meisteFrei = frei;
+                    beste = s;
+                }
+            }
+            if (beste == null) return null;
+            if (versuchen(beste)) return beste.getRaum();
+            // ein anderer Schalter war schneller, neu auswählen
+        }
+    }
+
+    /**
+     * Gibt eine Reservierung wieder frei (Aufnahme gespeichert oder abgebrochen).
+     *
+     * @param station Raumnummer oder null
+     */
+    void freigeben(Integer station) {
+        if (station == null) return;
+        AtomicInteger n = reserviert.get(station);
+        if (n != null) n.decrementAndGet();
+    }
+
+    /**
+     * Gibt die Anzahl freier Betten (ohne reservierte) zurück.
+     *
+     * @param s Station
+     * @return freie Betten, nie negativ
+     */
+    long frei(Station s) {
+        AtomicInteger n = reserviert.get(s.getRaum());
+        return Math.max(0, s.getMaxBetten() - statistik.getBelegt(s.getRaum()) - (n == null ? 0 : n.get()));
+    }
+
+    private boolean versuchen(Station s) {
+        AtomicInteger n = reserviert.computeIfAbsent(s.getRaum(), k -> new AtomicInteger());
+        while (true) {
+            int r = n.get();
+            if (statistik.getBelegt(s.getRaum()) + r >= s.getMaxBetten()) return false;
+            if (n.compareAndSet(r, r + 1)) return true;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.warteschlange;
+
+/**
+ * Dringlichkeitsstufen der Ersteinschätzung (angelehnt an das Manchester-Triage-System).
+ * Die Reihenfolge der Konstanten ist die Reihenfolge des Aufrufs: {@link #SOFORT} zuerst.
+ */
+public enum Dringlichkeit {
+    SOFORT("rot", 0),
+    SEHR_DRINGEND("orange", 10),
+    DRINGEND("gelb", 30),
+    NORMAL("grün", 90),
+    NICHT_DRINGEND("blau", 120);
+
+    private final String farbe;
+    private final int maxWarteMinuten;
+
+    Dringlichkeit(String farbe, int maxWarteMinuten) {
+        this.farbe = farbe;
+        this.maxWarteMinuten = maxWarteMinuten;
+    }
+
+    /**
+     * Gibt die Farbe der Stufe zurück.
+     * @return Farbe (z.B. "rot")
+     */
+    public String getFarbe() {
+        return farbe;
+    }
+
+    /**
+     * Gibt die längste vorgesehene Wartezeit zurück.
+     * @return Minuten bis zum Arztkontakt
+     */
+    public int getMaxWarteMinuten() {
+        return maxWarteMinuten;
+    }
+}
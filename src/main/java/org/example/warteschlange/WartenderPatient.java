@@ -0,0 +1,90 @@
+package org.example.warteschlange;
+
+import org.example.model.Patient;
+
+/**
+ * Ein Patient in der Warteschlange, noch nicht aufgenommen.
+ * Die Daten sind die Angaben bei der Ersteinschätzung (noch ohne Patienten-ID).
+ * Die Sortierung ist die Aufrufreihenfolge: zuerst nach Dringlichkeit, dann nach Ankunft;
+ * die laufende Nummer macht gleichzeitig Angekommene eindeutig.
+ */
+public final class WartenderPatient implements Comparable<WartenderPatient> {
+
+    private final long nr;
+    private final Dringlichkeit dringlichkeit;
+    private final long ankunft;
+    private final Patient daten;
+    private final Integer wunschStation;
+
+    /**
+     * @param nr laufende Nummer (eindeutig)
+     * @param dringlichkeit Stufe der Ersteinschätzung
+     * @param ankunft Ankunftszeit in Millisekunden
+     * @param daten bekannte Angaben zum Patienten
+     * @param wunschStation gewünschte Station (Raumnummer) oder null
+     */
+    public WartenderPatient(long nr, Dringlichkeit dringlichkeit, long ankunft, Patient daten, Integer wunschStation) {
+        this.nr = nr;
+        this.dringlichkeit = dringlichkeit;
+        this.ankunft = ankunft;
+        this.daten = daten;
+        this.wunschStation = wunschStation;
+    }
+
+    /**
+     * Gibt die laufende Nummer zurück.
+     * @return Nummer
+     */
+    public long getNr() {
+        return nr;
+    }
+
+    /**
+     * Gibt die Dringlichkeit zurück.
+     * @return Stufe
+     */
+    public Dringlichkeit getDringlichkeit() {
+        return dringlichkeit;
+    }
+
+    /**
+     * Gibt die Ankunftszeit zurück.
+     * @return Millisekunden seit 1970
+     */
+    public long getAnkunft() {
+        return ankunft;
+    }
+
+    /**
+     * Gibt eine Kopie der Angaben zurück (zum Vorbefüllen des Aufnahmedialogs).
+     * @return Patient ohne ID
+     */
+    public Patient getDaten() {
+        return new Patient(daten);
+    }
+
+    /**
+     * Gibt die gewünschte Station zurück.
+     * @return Raumnummer oder null
+     */
+    public Integer getWunschStation() {
+        return wunschStation;
+    }
+
+    @Override
+    public int compareTo(WartenderPatient o) {
+        int c = dringlichkeit.compareTo(o.dringlichkeit);
+        if (c == 0) c = Long.compare(ankunft, o.ankunft);
+        return c != 0 ? c : Long.compare(nr, o.nr);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof WartenderPatient w && w.nr == nr;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(nr);
+    }
+}
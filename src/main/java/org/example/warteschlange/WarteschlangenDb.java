@@ -0,0 +1,257 @@
+package org.example.warteschlange;
+
+import org.example.DB;
+import org.example.model.Patient;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Schreibt die Warteschlange gesammelt in die Tabelle {@code aufnahme_warteschlange}.
+ * Die Schalter legen Änderungen nur in eine Liste; der Hintergrund-Thread der
+ * {@link AufnahmeWarteschlange} schreibt sie regelmäßig per JDBC-Batch in einer Transaktion.
+ * Schlägt das fehl, bleiben die Änderungen liegen und gehen beim nächsten Mal mit.
+ * Sind es mehr als {@value #MAX_OFFEN} (lange Störung), werden sie verworfen; beim nächsten
+ * erfolgreichen Schreiben wird die Tabelle dann aus dem aktuellen Stand im Speicher neu aufgesetzt:
+ * alles, was dort nicht mehr wartet, gilt als abgebrochen, der Rest wird als wartend geschrieben.
+ * {@link #schreiben(Supplier)} ist synchronisiert (Timer und Aufruf beim Beenden).
+ */
+class WarteschlangenDb {
+
+    /**
+     * Status einer Zeile in der Tabelle.
+     */
+    enum Status { WARTEND, AUFGERUFEN, AUFGENOMMEN, ABGEBROCHEN }
+
+    /**
+     * Eine noch nicht geschriebene Änderung.
+     */
+    private record Aenderung(WartenderPatient neu, long nr, Status status, String schalter,
+                             Integer station, Integer patientId, long zeit) { }
+
+    private static final Logger LOG = Logger.getLogger(WarteschlangenDb.class.getName());
+    private static final int MAX_OFFEN = 10_000;
+
+    /**
+     * Eine schon vorhandene Zeile (nach dem Neuaufsetzen) bleibt unverändert.
+     */
+    private static final String INSERT_SQL = """
+            INSERT INTO aufnahme_warteschlange
+                (id, dringlichkeit, ankunft, first_name, last_name, birth_date, svnr, phone, address, reason,
+                 wunsch_station, status)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 'WARTEND')
+            ON DUPLICATE KEY UPDATE id = id
+            """;
+
+    private static final String ABBRECHEN_SQL = """
+            UPDATE aufnahme_warteschlange SET status = 'ABGEBROCHEN', erledigt_at = ?
+            WHERE status IN ('WARTEND', 'AUFGERUFEN')
+            """;
+
+    private static final String WARTEND_SQL = """
+            UPDATE aufnahme_warteschlange
+            SET status = 'WARTEND', schalter = NULL, station_id = NULL, erledigt_at = NULL
+            WHERE id = ?
+            """;
+
+    private static final String UPDATE_SQL = """
+            UPDATE aufnahme_warteschlange
+            SET status = ?,
+                schalter = COALESCE(?, schalter),
+                station_id = ?,
+                patient_id = COALESCE(?, patient_id),
+                aufgerufen_at = IF(? = 'AUFGERUFEN', ?, aufgerufen_at),
+                erledigt_at = IF(? IN ('AUFGENOMMEN', 'ABGEBROCHEN'), ?, erledigt_at)
+            WHERE id = ?
+            """;
+
+    private final Queue<Aenderung> neu = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Noch nicht geschriebene Änderungen (nur unter der Sperre von {@link #schreiben(Supplier)}).
+     */
+    private final List<Aenderung> offen = new ArrayList<>();
+
+    private boolean neuAufsetzen;
+    private boolean gestoert;
+
+    void eingereiht(WartenderPatient w) {
+        neu.add(new Aenderung(w, w.getNr(), Status.WARTEND, null, null, null, w.getAnkunft()));
+    }
+
+    void geaendert(long nr, Status status, String schalter, Integer station, Integer patientId) {
+        neu.add(new Aenderung(null, nr, status, schalter, station, patientId, System.currentTimeMillis()));
+    }
+
+    /**
+     * Lädt die noch nicht erledigten Einträge. Aufgerufene, aber nicht abgeschlossene kommen
+     * wieder in die Warteschlange (ihre Reservierung gab es nur im Speicher).
+     *
+     * @param ziel nimmt die Wartenden auf
+     * @return höchste vergebene Nummer
+     */
+    long laden(List<WartenderPatient> ziel) {
+        try (Connection con = DB.getConnection();
+             Statement st = con.createStatement()) {
+
+            long max = 0;
+            try (ResultSet rs = st.executeQuery("SELECT MAX(id) FROM aufnahme_warteschlange")) {
+                if (rs.next()) max = rs.getLong(1);
+            }
+            try (ResultSet rs = st.executeQuery("""
+                    SELECT id, dringlichkeit, ankunft, first_name, last_name, birth_date, svnr, phone, address, reason,
+                           wunsch_station
+                    FROM aufnahme_warteschlange
+                    WHERE status IN ('WARTEND', 'AUFGERUFEN')
+                    """)) {
+                while (rs.next()) {
+                    Patient p = new Patient();
+                    p.setFirstName(rs.getString(4));
+                    p.setLastName(rs.getString(5));
+                    Date bd = rs.getDate(6);
+                    p.setBirthDate(bd == null ? null : bd.toLocalDate());
+                    p.setSvnr(rs.getString(7));
+                    p.setPhone(rs.getString(8));
+                    p.setAddress(rs.getString(9));
+                    p.setReason(rs.getString(10));
+                    p.markClean();
+                    int wunsch = rs.getInt(11);
+                    ziel.add(new WartenderPatient(rs.getLong(1), Dringlichkeit.values()[rs.getInt(2)],
+                            rs.getTimestamp(3).getTime(), p, rs.wasNull() ? null : wunsch));
+                }
+            }
+            st.executeUpdate("UPDATE aufnahme_warteschlange SET status = 'WARTEND', schalter = NULL, station_id = NULL WHERE status = 'AUFGERUFEN'");
+            return max;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Warteschlange konnte nicht geladen werden.", e);
+        }
+    }
+
+    /**
+     * Schreibt alle angefallenen Änderungen.
+     *
+     * @param bestand alle noch wartenden und aufgerufenen Einträge, für das Neuaufsetzen
+     * @return false, wenn das Schreiben fehlgeschlagen ist (die Änderungen bleiben offen)
+     */
+    synchronized boolean schreiben(Supplier<List<WartenderPatient>> bestand) {
+        for (Aenderung a; (a = neu.poll()) != null; ) offen.add(a);
+        if (offen.size() > MAX_OFFEN) {
+            LOG.warning(offen.size() + " Änderungen an der Warteschlange nicht geschrieben, "
+                    + "die Tabelle wird neu aufgesetzt, sobald die Datenbank wieder erreichbar ist.");
+            offen.clear();
+            neuAufsetzen = true;
+        }
+        if (offen.isEmpty() && !neuAufsetzen) return true;
+
+        try (Connection con = DB.getConnection()) {
+            con.setAutoCommit(false);
+            try (PreparedStatement ins = con.prepareStatement(INSERT_SQL);
+                 PreparedStatement upd = con.prepareStatement(UPDATE_SQL)) {
+
+                if (neuAufsetzen) aufsetzen(con, ins, bestand.get());
+                boolean inserts = false, updates = false;
+                for (Aenderung a : offen) {
+                    if (a.neu() != null) {
+                        bindInsert(ins, a.neu());
+                        ins.addBatch();
+                        inserts = true;
+                    }
+                }
+                for (Aenderung a : offen) {
+                    if (a.neu() == null) {
+                        bindUpdate(upd, a);
+                        upd.addBatch();
+                        updates = true;
+                    }
+                }
+                // erst alle neuen Zeilen, dann die Änderungen (auch an eben eingefügten)
+                if (inserts) ins.executeBatch();
+                if (updates) upd.executeBatch();
+                con.commit();
+                offen.clear();
+                neuAufsetzen = false;
+                if (gestoert) LOG.info("Warteschlange wird wieder in die Datenbank geschrieben.");
+                gestoert = false;
+                return true;
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            } finally {
+                con.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            // nur den Beginn einer Störung melden, nicht jeden Versuch
+            if (!gestoert) LOG.log(Level.WARNING, "Warteschlange konnte nicht geschrieben werden.", e);
+            gestoert = true;
+            return false;
+        }
+    }
+
+    /**
+     * Setzt die Tabelle aus dem Stand im Speicher neu auf (in der laufenden Transaktion).
+     * Ob offene Zeilen inzwischen aufgenommen wurden, ist verloren; sie gelten als abgebrochen.
+     */
+    private static void aufsetzen(Connection con, PreparedStatement ins, List<WartenderPatient> bestand)
+            throws SQLException {
+        try (PreparedStatement abbrechen = con.prepareStatement(ABBRECHEN_SQL);
+             PreparedStatement wartend = con.prepareStatement(WARTEND_SQL)) {
+            abbrechen.setTimestamp(1, new Timestamp(System.currentTimeMillis()));
+            abbrechen.executeUpdate();
+            for (WartenderPatient w : bestand) {
+                bindInsert(ins, w);
+                ins.addBatch();
+                wartend.setLong(1, w.getNr());
+                wartend.addBatch();
+            }
+            if (!bestand.isEmpty()) {
+                ins.executeBatch();
+                wartend.executeBatch();
+            }
+        }
+    }
+
+    private static void bindInsert(PreparedStatement ps, WartenderPatient w) throws SQLException {
+        Patient p = w.getDaten();
+        ps.setLong(1, w.getNr());
+        ps.setInt(2, w.getDringlichkeit().ordinal());
+        ps.setTimestamp(3, new Timestamp(w.getAnkunft()));
+        ps.setString(4, p.getFirstName());
+        ps.setString(5, p.getLastName());
+        ps.setDate(6, p.getBirthDate() == null ? null : Date.valueOf(p.getBirthDate()));
+        ps.setString(7, p.getSvnr());
+        ps.setString(8, p.getPhone());
+        ps.setString(9, p.getAddress());
+        ps.setString(10, p.getReason());
+        if (w.getWunschStation() == null) ps.setNull(11, Types.INTEGER);
+        else ps.setInt(11, w.getWunschStation());
+    }
+
+    private static void bindUpdate(PreparedStatement ps, Aenderung a) throws SQLException {
+        Timestamp zeit = new Timestamp(a.zeit());
+        ps.setString(1, a.status().name());
+        ps.setString(2, a.schalter());
+        if (a.station() == null) ps.setNull(3, Types.INTEGER);
+        else ps.setInt(3, a.station());
+        if (a.patientId() == null) ps.setNull(4, Types.INTEGER);
+        else ps.setInt(4, a.patientId());
+        ps.setString(5, a.status().name());
+        ps.setTimestamp(6, zeit);
+        ps.setString(7, a.status().name());
+        ps.setTimestamp(8, zeit);
+        ps.setLong(9, a.nr());
+    }
+}
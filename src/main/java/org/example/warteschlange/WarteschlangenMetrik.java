@@ -0,0 +1,118 @@
+package org.example.warteschlange;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Kennzahlen der Warteschlange: Wartezeit und Durchsatz pro Station und pro Dringlichkeit.
+ * Die Zähler sind {@link LongAdder}, damit sich mehrere Schalter beim Mitzählen nicht
+ * gegenseitig ausbremsen; gelesen wird nur für die Anzeige.
+ */
+public class WarteschlangenMetrik {
+
+    /**
+     * Schlüssel für Aufnahmen ohne freie Station.
+     */
+    public static final int OHNE_STATION = -1;
+
+    /**
+     * Kennzahlen einer Gruppe (Station oder Dringlichkeit).
+     *
+     * @param aufgenommen Anzahl aufgerufener Patienten
+     * @param mittlereWartezeitMs durchschnittliche Wartezeit bis zum Aufruf
+     * @param maxWartezeitMs längste Wartezeit
+     * @param ueberschritten Aufrufe nach der vorgesehenen Wartezeit der Dringlichkeit
+     * @param proStunde Aufrufe pro Stunde seit dem Start
+     */
+    public record Kennzahlen(long aufgenommen, long mittlereWartezeitMs, long maxWartezeitMs,
+                             long ueberschritten, double proStunde) { }
+
+    /**
+     * Zähler einer Gruppe.
+     */
+    private static final class Zaehler {
+        final LongAdder anzahl = new LongAdder();
+        final LongAdder warteSumme = new LongAdder();
+        final LongAccumulator warteMax = new LongAccumulator(Math::max, 0);
+        final LongAdder ueberschritten = new LongAdder();
+
+        void zaehlen(long warteMs, boolean zuLange) {
+            anzahl.increment();
+            warteSumme.add(warteMs);
+            warteMax.accumulate(warteMs);
+            if (zuLange) ueberschritten.increment();
+        }
+
+        Kennzahlen kennzahlen(long laufzeitMs) {
+            long n = anzahl.sum();
+            double stunden = Math.max(laufzeitMs, 1) / 3_600_000.0;
+            return new Kennzahlen(n, n == 0 ? 0 : warteSumme.sum() / n, warteMax.get(), ueberschritten.sum(), n / stunden);
+        }
+    }
+
+    private final long start = System.currentTimeMillis();
+    private final Map<Integer, Zaehler> proStation = new ConcurrentHashMap<>();
+    private final Map<Dringlichkeit, Zaehler> proDringlichkeit = new EnumMap<>(Dringlichkeit.class);
+    private final Map<Dringlichkeit, LongAdder> wartend = new EnumMap<>(Dringlichkeit.class);
+
+    WarteschlangenMetrik() {
+        for (Dringlichkeit d : Dringlichkeit.values()) {
+            proDringlichkeit.put(d, new Zaehler());
+            wartend.put(d, new LongAdder());
+        }
+    }
+
+    void eingereiht(Dringlichkeit d) {
+        wartend.get(d).increment();
+    }
+
+    void entnommen(Dringlichkeit d) {
+        wartend.get(d).decrement();
+    }
+
+    void aufgerufen(Aufruf a) {
+        Dringlichkeit d = a.patient().getDringlichkeit();
+        long warte = a.getWartezeit();
+        boolean zuLange = warte > TimeUnit.MINUTES.toMillis(d.getMaxWarteMinuten());
+        proDringlichkeit.get(d).zaehlen(warte, zuLange);
+        int station = a.station() == null ? OHNE_STATION : a.station();
+        proStation.computeIfAbsent(station, k -> new Zaehler()).zaehlen(warte, zuLange);
+    }
+
+    /**
+     * Gibt die Kennzahlen pro Station zurück.
+     * @return Raumnummer ({@link #OHNE_STATION} für Aufrufe ohne freies Bett) → Kennzahlen
+     */
+    public Map<Integer, Kennzahlen> getProStation() {
+        long laufzeit = System.currentTimeMillis() - start;
+        Map<Integer, Kennzahlen> out = new TreeMap<>();
+        proStation.forEach((k, v) -> out.put(k, v.kennzahlen(laufzeit)));
+        return out;
+    }
+
+    /**
+     * Gibt die Kennzahlen pro Dringlichkeit zurück.
+     * @return Dringlichkeit → Kennzahlen
+     */
+    public Map<Dringlichkeit, Kennzahlen> getProDringlichkeit() {
+        long laufzeit = System.currentTimeMillis() - start;
+        Map<Dringlichkeit, Kennzahlen> out = new EnumMap<>(Dringlichkeit.class);
+        proDringlichkeit.forEach((k, v) -> out.put(k, v.kennzahlen(laufzeit)));
+        return out;
+    }
+
+    /**
+     * Gibt die Anzahl Wartender pro Dringlichkeit zurück.
+     * @return Dringlichkeit → Anzahl
+     */
+    public Map<Dringlichkeit, Long> getWartend() {
+        Map<Dringlichkeit, Long> out = new EnumMap<>(Dringlichkeit.class);
+        wartend.forEach((k, v) -> out.put(k, v.sum()));
+        return out;
+    }
+}
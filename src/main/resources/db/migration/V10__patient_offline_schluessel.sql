@@ -0,0 +1,7 @@
+-- Schlüssel offline angelegter Patienten (OfflineSpeicher): jeder Journaleintrag trägt eine UUID,
+-- der eindeutige Index verhindert, dass ein wiederholter Eintrag den Patienten ein zweites Mal anlegt.
+-- Online angelegte Patienten haben keinen Schlüssel.
+
+ALTER TABLE patient
+    ADD COLUMN offline_schluessel CHAR(36) NULL,
+    ADD UNIQUE INDEX uq_patient_offline_schluessel (offline_schluessel);
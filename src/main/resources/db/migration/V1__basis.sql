@@ -0,0 +1,20 @@
+-- Ausgangsstand: Stationen und Patienten wie ursprünglich angelegt.
+-- Bestehende Datenbanken haben diese Tabellen schon (deshalb IF NOT EXISTS).
+
+CREATE TABLE IF NOT EXISTS station (
+    Raum INT PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    max_betten INT NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS patient (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    first_name VARCHAR(100),
+    last_name VARCHAR(100),
+    birth_date DATE,
+    svnr VARCHAR(10),
+    phone VARCHAR(20),
+    address VARCHAR(255),
+    reason VARCHAR(255),
+    station_id INT NULL
+);
@@ -0,0 +1,6 @@
+-- Optimistisches Sperren (version) sowie weiches Löschen und Entlassen.
+
+ALTER TABLE patient
+    ADD COLUMN version INT NOT NULL DEFAULT 0,
+    ADD COLUMN deleted_at DATETIME NULL,
+    ADD COLUMN discharged_at DATETIME NULL;
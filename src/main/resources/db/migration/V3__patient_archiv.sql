@@ -0,0 +1,16 @@
+-- Archiv für entlassene Patienten (siehe PatientArchivCrud).
+
+CREATE TABLE IF NOT EXISTS patient_archive (
+    id INT PRIMARY KEY,
+    first_name VARCHAR(100),
+    last_name VARCHAR(100),
+    birth_date DATE,
+    svnr VARCHAR(10),
+    phone VARCHAR(20),
+    address VARCHAR(255),
+    reason VARCHAR(255),
+    station_id INT NULL,
+    version INT NOT NULL DEFAULT 0,
+    discharged_at DATETIME NULL,
+    archived_at DATETIME NOT NULL
+);
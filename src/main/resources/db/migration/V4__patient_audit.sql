@@ -0,0 +1,12 @@
+-- Auditprotokoll (siehe AuditLog).
+
+CREATE TABLE IF NOT EXISTS patient_audit (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    zeit DATETIME(3) NOT NULL,
+    aktion VARCHAR(16) NOT NULL,
+    patient_id INT NOT NULL,
+    benutzer VARCHAR(64),
+    arbeitsplatz VARCHAR(64),
+    felder VARCHAR(255),
+    INDEX idx_audit_patient (patient_id, zeit)
+);
@@ -0,0 +1,4 @@
+-- Zeitpunkt der letzten Änderung für den Abgleich der Liste (PatientCrud.findListChangedSince).
+
+ALTER TABLE patient
+    ADD COLUMN updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3);
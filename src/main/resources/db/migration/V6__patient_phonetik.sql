@@ -0,0 +1,7 @@
+-- Kölner-Phonetik-Codes der Namen für die unscharfe Suche (PatientCrud.searchPhonetic).
+-- Die Codes bestehender Zeilen trägt PhonetikNachtrag nach, den SchemaMigration direkt nach
+-- dieser Migration startet.
+
+ALTER TABLE patient
+    ADD COLUMN first_name_phon VARCHAR(64) NULL,
+    ADD COLUMN last_name_phon VARCHAR(64) NULL;
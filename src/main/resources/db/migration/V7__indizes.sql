@@ -0,0 +1,11 @@
+-- Indizes für die Abfragen in PatientCrud und PatientArchivCrud.
+
+CREATE INDEX idx_patient_svnr ON patient (svnr);
+CREATE INDEX idx_patient_phone ON patient (phone);
+CREATE INDEX idx_patient_name ON patient (last_name, first_name);
+CREATE INDEX idx_patient_status ON patient (deleted_at, discharged_at);
+CREATE INDEX idx_patient_entlassen ON patient (discharged_at);
+CREATE INDEX idx_patient_updated ON patient (updated_at);
+CREATE INDEX idx_patient_vn_phon ON patient (first_name_phon);
+CREATE INDEX idx_patient_nn_phon ON patient (last_name_phon);
+CREATE INDEX idx_patient_station ON patient (station_id);
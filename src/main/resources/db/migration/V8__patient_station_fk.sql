@@ -0,0 +1,7 @@
+-- Station eines Patienten muss existieren. Verweise auf nicht vorhandene Stationen werden
+-- nicht stillschweigend geleert: SchemaMigration prüft vorher und bricht mit einer Liste der
+-- betroffenen Patienten ab, die von Hand einer Station zugeordnet (oder geleert) werden müssen.
+
+ALTER TABLE patient
+    ADD CONSTRAINT fk_patient_station FOREIGN KEY (station_id) REFERENCES station (Raum)
+    ON UPDATE CASCADE ON DELETE SET NULL;
@@ -0,0 +1,22 @@
+-- Warteschlange für Aufnahmen (siehe AufnahmeWarteschlange).
+
+CREATE TABLE IF NOT EXISTS aufnahme_warteschlange (
+    id BIGINT PRIMARY KEY,
+    dringlichkeit TINYINT NOT NULL,
+    ankunft DATETIME(3) NOT NULL,
+    first_name VARCHAR(100),
+    last_name VARCHAR(100),
+    birth_date DATE,
+    svnr VARCHAR(10),
+    phone VARCHAR(20),
+    address VARCHAR(255),
+    reason VARCHAR(255),
+    wunsch_station INT,
+    status VARCHAR(12) NOT NULL,
+    schalter VARCHAR(64),
+    station_id INT,
+    patient_id INT,
+    aufgerufen_at DATETIME(3),
+    erledigt_at DATETIME(3),
+    INDEX idx_warteschlange_status (status)
+);
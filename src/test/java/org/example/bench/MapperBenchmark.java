@@ -0,0 +1,153 @@
+package org.example.bench;
+
+import org.example.crud.PatientMapper;
+import org.example.model.Patient;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Kleiner Benchmark für das Mapping von Patientenzeilen (ohne Datenbank).
+ * Vergleicht das frühere Lesen über Spaltennamen ({@code rs.getString("first_name")} usw.)
+ * mit dem {@link PatientMapper}, der die Spaltenpositionen einmal pro ResultSet bestimmt.
+ * Gelesen wird aus einem {@link CachedRowSet} mit Zeilen im Speicher, also ohne Netzwerk, aber
+ * über eine echte ResultSet-Implementierung statt eines Proxys, dessen Reflexion das Ergebnis verzerrt.
+ * Liegt unter {@code src/test}, damit er nicht mit ausgeliefert wird.
+ *
+ * <pre>java -cp target/classes:target/test-classes org.example.bench.MapperBenchmark [zeilen] [durchläufe]</pre>
+ */
+public class MapperBenchmark {
+
+    private static final String[] SPALTEN = {
+            "id", "first_name", "last_name", "birth_date", "svnr", "phone", "address", "reason", "station_id", "version"
+    };
+
+    private static final int[] TYPEN = {
+            Types.INTEGER, Types.VARCHAR, Types.VARCHAR, Types.DATE, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+            Types.VARCHAR, Types.INTEGER, Types.INTEGER
+    };
+
+    /**
+     * Startet den Benchmark und gibt die Zeit pro 100.000 Zeilen aus.
+     *
+     * @param args optional Anzahl Zeilen (Standard 100.000) und Durchläufe (Standard 20)
+     * @throws SQLException wenn das RowSet nicht befüllt werden kann
+     */
+    public static void main(String[] args) throws SQLException {
+        int zeilen = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int runden = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        CachedRowSet rs = resultSet(erzeugeZeilen(zeilen));
+
+        long blackhole = 0;
+        for (int i = 0; i < 5; i++) {
+            rs.beforeFirst();
+            blackhole += nachName(rs);
+            rs.beforeFirst();
+            blackhole += nachIndex(rs);
+        }
+
+        long vorher = Long.MAX_VALUE, nachher = Long.MAX_VALUE;
+        for (int i = 0; i < runden; i++) {
+            rs.beforeFirst();
+            long t0 = System.nanoTime();
+            blackhole += nachName(rs);
+            long t1 = System.nanoTime();
+            rs.beforeFirst();
+            blackhole += nachIndex(rs);
+            long t2 = System.nanoTime();
+            vorher = Math.min(vorher, t1 - t0);
+            nachher = Math.min(nachher, t2 - t1);
+        }
+
+        double faktor = 100_000.0 / zeilen / 1_000_000.0;
+        System.out.printf(Locale.ROOT, "Zeilen: %d, Durchläufe: %d (bester Lauf)%n", zeilen, runden);
+        System.out.printf(Locale.ROOT, "über Spaltennamen:   %8.2f ms pro 100k Zeilen%n", vorher * faktor);
+        System.out.printf(Locale.ROOT, "über Spaltenindex:   %8.2f ms pro 100k Zeilen%n", nachher * faktor);
+        System.out.println("(Prüfsumme " + blackhole + ")");
+    }
+
+    /**
+     * Mapping wie früher in {@code PatientCrud.mapRow}: jede Zelle über ihren Namen.
+     */
+    private static long nachName(ResultSet rs) throws SQLException {
+        long sum = 0;
+        while (rs.next()) {
+            Patient p = new Patient();
+            p.setId(rs.getInt("id"));
+            p.setFirstName(rs.getString("first_name"));
+            p.setLastName(rs.getString("last_name"));
+            Date bd = rs.getDate("birth_date");
+            p.setBirthDate(bd == null ? null : bd.toLocalDate());
+            p.setSvnr(rs.getString("svnr"));
+            p.setPhone(rs.getString("phone"));
+            p.setAddress(rs.getString("address"));
+            p.setReason(rs.getString("reason"));
+            int st = rs.getInt("station_id");
+            p.setStationId(rs.wasNull() ? null : st);
+            p.setVersion(rs.getInt("version"));
+            p.markClean();
+            sum += p.getId();
+        }
+        return sum;
+    }
+
+    /**
+     * Mapping über den {@link PatientMapper}.
+     */
+    private static long nachIndex(ResultSet rs) throws SQLException {
+        long sum = 0;
+        PatientMapper.Spalten s = PatientMapper.spalten(rs);
+        while (rs.next()) sum += PatientMapper.map(rs, s).getId();
+        return sum;
+    }
+
+    private static Object[][] erzeugeZeilen(int n) {
+        Object[][] out = new Object[n][];
+        for (int i = 0; i < n; i++) {
+            LocalDate bd = LocalDate.of(1950 + i % 60, 1 + i % 12, 1 + i % 28);
+            out[i] = new Object[]{
+                    i + 1, "Vorname" + i, "Nachname" + i, Date.valueOf(bd),
+                    String.format("%04d%02d%02d%02d", i % 10_000, bd.getDayOfMonth(), bd.getMonthValue(), bd.getYear() % 100),
+                    "+43660" + (1_000_000 + i), "Straße " + i, "Grund", i % 7 == 0 ? null : 100 + i % 10, 0
+            };
+        }
+        return out;
+    }
+
+    /**
+     * Legt die Zeilen in ein {@link CachedRowSet} (die ResultSet-Implementierung des JDK,
+     * Spaltennamen werden dort wie bei Connector/J über eine Suche in den Metadaten aufgelöst).
+     */
+    private static CachedRowSet resultSet(Object[][] daten) throws SQLException {
+        RowSetMetaDataImpl md = new RowSetMetaDataImpl();
+        md.setColumnCount(SPALTEN.length);
+        for (int i = 0; i < SPALTEN.length; i++) {
+            md.setColumnName(i + 1, SPALTEN[i]);
+            md.setColumnLabel(i + 1, SPALTEN[i]);
+            md.setColumnType(i + 1, TYPEN[i]);
+            md.setNullable(i + 1, ResultSetMetaData.columnNullable);
+        }
+
+        CachedRowSet rs = RowSetProvider.newFactory().createCachedRowSet();
+        rs.setMetaData(md);
+        rs.moveToInsertRow();
+        for (Object[] zeile : daten) {
+            for (int i = 0; i < zeile.length; i++) {
+                if (zeile[i] == null) rs.updateNull(i + 1);
+                else rs.updateObject(i + 1, zeile[i]);
+            }
+            rs.insertRow();
+        }
+        rs.moveToCurrentRow();
+        rs.beforeFirst();
+        return rs;
+    }
+}
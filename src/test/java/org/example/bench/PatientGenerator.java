@@ -0,0 +1,464 @@
+package org.example.bench;
+
+import org.example.DB;
+import org.example.Konfiguration;
+import org.example.crud.PatientMapper;
+import org.example.crud.PatientRepository;
+import org.example.crud.Repositories;
+import org.example.model.Patient;
+import org.example.model.Station;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Erzeugt synthetische Patienten für Lasttests (Suche, Tabelle, Importe mit Millionen Zeilen).
+ * Jeder Datensatz ist gültig im Sinne von {@code checkPatient}: die SVNR hat eine korrekte
+ * Prüfziffer und endet auf das Geburtsdatum (TTMMJJ), Telefonnummern haben die Form {@code +43...},
+ * Namen, Adressen und Gründe sind schon normalisiert (erster Buchstabe groß, Rest klein).
+ * <p>
+ * Der Datensatz Nr. {@code i} hängt nur vom Seed und von {@code i} ab, nicht von der Anzahl Threads
+ * oder der Batchgröße: zwei Läufe mit demselben Seed liefern dieselben Daten (in der Datenbank
+ * können sich nur die vergebenen IDs unterscheiden).
+ * <p>
+ * In die Datenbank wird direkt über JDBC-Batches geschrieben, jeder Thread mit einer eigenen
+ * Verbindung; mit {@code rewriteBatchedStatements} (Standard in {@link DB}) werden daraus
+ * mehrzeilige INSERTs. Das Audit-Protokoll wird dabei bewusst umgangen. Mit dem Speicher-Backend
+ * ({@code patienten.backend=memory}) gehen die Patienten über {@link PatientRepository#insertBatch(List)}.
+ *
+ * Liegt unter {@code src/test}, damit er nicht mit ausgeliefert wird.
+ *
+ * <pre>java -cp target/classes:target/test-classes org.example.bench.PatientGenerator [anzahl] [seed]</pre>
+ *
+ * Weitere Einstellungen über {@link Konfiguration} (z.B. {@code -Dpatienten.generator.threads=8}):
+ * <ul>
+ *     <li>{@code generator.ziel}: {@code db} (Standard) oder {@code csv}</li>
+ *     <li>{@code generator.datei}: CSV-Datei (Standard {@code patienten.csv})</li>
+ *     <li>{@code generator.threads}: Standard Anzahl Prozessoren</li>
+ *     <li>{@code generator.batch}: Zeilen pro Batch und Transaktion (Standard 2000)</li>
+ *     <li>{@code generator.alter.mittel}, {@code generator.alter.streuung}: Normalverteilung des
+ *         Alters in Jahren (Standard 48 und 22, begrenzt auf 0 bis 104)</li>
+ *     <li>{@code generator.stichtag}: Bezugsdatum für das Alter (Standard 2025-01-01)</li>
+ *     <li>{@code generator.namen.zipf}, {@code generator.gruende.zipf}: Exponent der Zipf-Verteilung
+ *         über die Namens- bzw. Gründeliste (0 = gleichverteilt, Standard 1.0 bzw. 1.2)</li>
+ *     <li>{@code generator.stationen}: Raumnummern mit Gewicht, z.B. {@code 101:3,102:1};
+ *         ohne Eintrag alle vorhandenen Stationen, gewichtet nach Bettenanzahl</li>
+ * </ul>
+ */
+public class PatientGenerator {
+
+    private static final String[] VORNAMEN = {
+            "Anna", "Maria", "Lukas", "David", "Sarah", "Julia", "Elias", "Jakob", "Laura", "Lena",
+            "Tobias", "Paul", "Sophie", "Felix", "Emma", "Maximilian", "Hannah", "Johanna", "Florian", "Lisa",
+            "Katharina", "Michael", "Thomas", "Andreas", "Stefan", "Christian", "Martin", "Markus", "Daniel", "Alexander",
+            "Elisabeth", "Helga", "Monika", "Sabine", "Claudia", "Andrea", "Barbara", "Petra", "Gerhard", "Franz",
+            "Johann", "Josef", "Karl", "Wolfgang", "Herbert", "Helmut", "Manfred", "Ingrid", "Gertrude", "Theresa",
+            "Valentina", "Leonie", "Noah", "Simon", "Fabian", "Matthias", "Sebastian", "Magdalena", "Viktoria", "Clara"
+    };
+
+    private static final String[] NACHNAMEN = {
+            "Gruber", "Huber", "Bauer", "Wagner", "Müller", "Pichler", "Steiner", "Moser", "Mayer", "Hofer",
+            "Leitner", "Berger", "Fuchs", "Eder", "Fischer", "Schmid", "Winkler", "Weber", "Schwarz", "Maier",
+            "Schneider", "Reiter", "Mayr", "Schmidt", "Wimmer", "Egger", "Brunner", "Lang", "Baumgartner", "Auer",
+            "Binder", "Lechner", "Wolf", "Wallner", "Aigner", "Ebner", "Koller", "Lehner", "Haas", "Schuster",
+            "Holzer", "Wieser", "Mair", "Strasser", "Haider", "Lindner", "Hoffmann", "Kaiser", "Stadler", "Graf",
+            "Weiss", "Brandstätter", "Hofmann", "Riegler", "Böhm", "Kern", "Posch", "Zimmermann", "Fink", "Ortner",
+            "Hackl", "Kraus", "Winter", "Hartl", "Neubauer", "Hauser", "Horvath", "Thaler", "Friedl", "Kogler",
+            "Schober", "Mühlbacher", "Resch", "Seidl", "Wurm", "Rainer", "Kofler", "Gasser", "Nagl", "Unger"
+    };
+
+    private static final String[] STRASSEN = {
+            "Hauptstraße", "Bahnhofstraße", "Kirchengasse", "Schulgasse", "Dorfstraße", "Wienerstraße",
+            "Linzerstraße", "Grazerstraße", "Gartengasse", "Feldweg", "Lindenweg", "Bergstraße",
+            "Mühlgasse", "Rathausplatz", "Hauptplatz", "Waldstraße", "Parkstraße", "Ringstraße",
+            "Sonnenweg", "Rosengasse", "Angergasse", "Bachgasse", "Friedhofstraße", "Industriestraße",
+            "Marktplatz", "Wiesenweg", "Kaiserstraße", "Schillerstraße", "Mozartgasse", "Stadtplatz"
+    };
+
+    private static final String[] ORTE = {
+            "1010 wien", "1100 wien", "1210 wien", "1220 wien", "8010 graz", "4020 linz", "5020 salzburg",
+            "6020 innsbruck", "9020 klagenfurt", "3100 st. pölten", "6900 bregenz", "7000 eisenstadt",
+            "9500 villach", "4600 wels", "2700 wiener neustadt", "4400 steyr", "6850 dornbirn", "3500 krems",
+            "8700 leoben", "2500 baden", "2340 mödling", "5400 hallein", "8020 graz", "4040 linz"
+    };
+
+    private static final String[] GRUENDE = {
+            "Grippe", "Beinbruch", "Lungenentzündung", "Herzinfarkt", "Schlaganfall", "Blinddarmentzündung",
+            "Gehirnerschütterung", "Armbruch", "Hüftoperation", "Knieoperation", "Gallensteine", "Nierensteine",
+            "Diabetes", "Bluthochdruck", "Asthma", "Bronchitis", "Sepsis", "Herzinsuffizienz", "Thrombose",
+            "Allergie", "Geburt", "Beobachtung", "Rehabilitation", "Dehydrierung", "Verbrennung"
+    };
+
+    private static final String[] VORWAHLEN = {"650", "660", "664", "676", "680", "699"};
+
+    /**
+     * Zeilen pro Block beim Schreiben der CSV-Datei.
+     */
+    private static final int CSV_BLOCK = 10_000;
+
+    /**
+     * Schritt zwischen den Seeds zweier Datensätze (goldener Schnitt, wie in {@link SplittableRandom}).
+     */
+    private static final long SCHRITT = 0x9E3779B97F4A7C15L;
+
+    private final long seed;
+    private final LocalDate stichtag;
+    private final double alterMittel;
+    private final double alterStreuung;
+    private final Verteilung vornamen;
+    private final Verteilung nachnamen;
+    private final Verteilung gruende;
+    private final int[] stationen;
+    private final Verteilung stationGewichte;
+
+    /**
+     * Legt einen Generator an.
+     *
+     * @param seed Startwert; gleicher Seed ergibt dieselben Datensätze
+     * @param stichtag Bezugsdatum für das Alter
+     * @param alterMittel mittleres Alter in Jahren
+     * @param alterStreuung Standardabweichung des Alters in Jahren
+     * @param namenZipf Zipf-Exponent für Vor- und Nachnamen
+     * @param gruendeZipf Zipf-Exponent für die Aufenthaltsgründe
+     * @param stationen Raumnummern der Stationen
+     * @param gewichte Gewicht je Station (gleiche Länge wie {@code stationen})
+     * @throws IllegalArgumentException wenn keine Station angegeben ist
+     */
+    public PatientGenerator(long seed, LocalDate stichtag, double alterMittel, double alterStreuung,
+                            double namenZipf, double gruendeZipf, int[] stationen, double[] gewichte) {
+        if (stationen.length == 0 || stationen.length != gewichte.length) {
+            throw new IllegalArgumentException("Für den Generator wird mindestens eine Station mit Gewicht benötigt.");
+        }
+        this.seed = seed;
+        this.stichtag = stichtag;
+        this.alterMittel = alterMittel;
+        this.alterStreuung = alterStreuung;
+        this.vornamen = Verteilung.zipf(VORNAMEN.length, namenZipf);
+        this.nachnamen = Verteilung.zipf(NACHNAMEN.length, namenZipf);
+        this.gruende = Verteilung.zipf(GRUENDE.length, gruendeZipf);
+        this.stationen = stationen.clone();
+        this.stationGewichte = new Verteilung(gewichte);
+    }
+
+    /**
+     * Erzeugt den Datensatz mit der angegebenen Nummer.
+     *
+     * @param nr laufende Nummer ab 0
+     * @return neuer Patient (ohne ID)
+     */
+    public Patient erzeuge(long nr) {
+        SplittableRandom r = new SplittableRandom(seed + nr * SCHRITT);
+        Patient p = new Patient();
+        p.setFirstName(VORNAMEN[vornamen.ziehe(r)]);
+        p.setLastName(NACHNAMEN[nachnamen.ziehe(r)]);
+        LocalDate geb = geburtsdatum(r);
+        p.setBirthDate(geb);
+        p.setSvnr(svnr(r, geb));
+        p.setPhone("+43" + VORWAHLEN[r.nextInt(VORWAHLEN.length)] + (1_000_000 + r.nextInt(9_000_000)));
+        p.setAddress(STRASSEN[r.nextInt(STRASSEN.length)] + " " + (1 + r.nextInt(150)) + ", " + ORTE[r.nextInt(ORTE.length)]);
+        p.setReason(GRUENDE[gruende.ziehe(r)]);
+        p.setStationId(stationen[stationGewichte.ziehe(r)]);
+        return p;
+    }
+
+    private LocalDate geburtsdatum(SplittableRandom r) {
+        double alter = alterMittel + r.nextGaussian() * alterStreuung;
+        alter = Math.max(0, Math.min(104.99, alter));
+        return stichtag.minusDays((long) (alter * 365.2425));
+    }
+
+    /**
+     * Österreichische SVNR: dreistellige laufende Nummer (100–999), Prüfziffer, Geburtsdatum TTMMJJ.
+     * Prüfziffer = gewichtete Summe mit 3,7,9 | 5,8,4,2,1,6 modulo 11; ergibt das 10, ist die
+     * laufende Nummer nicht vergeben und es wird eine andere gezogen.
+     */
+    static String svnr(SplittableRandom r, LocalDate geb) {
+        int t = geb.getDayOfMonth(), m = geb.getMonthValue(), j = geb.getYear() % 100;
+        int datum = 5 * (t / 10) + 8 * (t % 10) + 4 * (m / 10) + 2 * (m % 10) + (j / 10) + 6 * (j % 10);
+        while (true) {
+            int lfd = 100 + r.nextInt(900);
+            int pruef = (3 * (lfd / 100) + 7 * (lfd / 10 % 10) + 9 * (lfd % 10) + datum) % 11;
+            if (pruef == 10) continue;
+            return new String(new char[]{
+                    ziffer(lfd / 100), ziffer(lfd / 10 % 10), ziffer(lfd % 10), ziffer(pruef),
+                    ziffer(t / 10), ziffer(t % 10), ziffer(m / 10), ziffer(m % 10), ziffer(j / 10), ziffer(j % 10)
+            });
+        }
+    }
+
+    private static char ziffer(int i) {
+        return (char) ('0' + i);
+    }
+
+    /**
+     * Schreibt die Datensätze {@code 0..anzahl-1} als CSV (Trennzeichen {@code ;}, UTF-8, mit Kopfzeile).
+     * Die Blöcke werden parallel erzeugt und in der richtigen Reihenfolge geschrieben, es sind
+     * höchstens zwei Blöcke pro Thread gleichzeitig im Speicher. Die Werte enthalten weder
+     * {@code ;} noch Anführungszeichen und werden deshalb nicht maskiert.
+     *
+     * @param anzahl Anzahl Datensätze
+     * @param datei Zieldatei (wird überschrieben)
+     * @param threads Anzahl Threads
+     * @param fortschritt wird mit der Anzahl fertiger Zeilen mitgezählt
+     * @throws IOException wenn die Datei nicht geschrieben werden kann
+     */
+    public void alsCsv(long anzahl, Path datei, int threads, AtomicLong fortschritt) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (Writer w = Files.newBufferedWriter(datei, StandardCharsets.UTF_8)) {
+            w.write("first_name;last_name;birth_date;svnr;phone;address;reason;station_id\n");
+            Deque<Future<String>> offen = new ArrayDeque<>();
+            long naechster = 0;
+            while (naechster < anzahl || !offen.isEmpty()) {
+                while (naechster < anzahl && offen.size() < 2 * threads) {
+                    long von = naechster, bis = Math.min(anzahl, von + CSV_BLOCK);
+                    offen.add(pool.submit(() -> csvBlock(von, bis)));
+                    naechster = bis;
+                }
+                w.write(warte(offen.poll()));
+                fortschritt.addAndGet(Math.min(CSV_BLOCK, anzahl - fortschritt.get()));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private String csvBlock(long von, long bis) {
+        StringBuilder sb = new StringBuilder((int) (bis - von) * 120);
+        for (long i = von; i < bis; i++) {
+            Patient p = erzeuge(i);
+            sb.append(p.getFirstName()).append(';').append(p.getLastName()).append(';')
+                    .append(p.getBirthDate()).append(';').append(p.getSvnr()).append(';')
+                    .append(p.getPhone()).append(';').append(p.getAddress()).append(';')
+                    .append(p.getReason()).append(';').append(p.getStationId()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Schreibt die Datensätze {@code 0..anzahl-1} in die Datenbank bzw. das Speicher-Backend.
+     * Jeder Thread holt sich den nächsten freien Block von {@code batch} Nummern, schreibt ihn als
+     * einen JDBC-Batch und bestätigt ihn in einer eigenen Transaktion. Scheitert ein Block, hören
+     * alle Threads nach ihrem laufenden Block auf; bereits bestätigte Blöcke bleiben stehen.
+     *
+     * @param anzahl Anzahl Datensätze
+     * @param threads Anzahl Threads (= Datenbankverbindungen)
+     * @param batch Zeilen pro Batch und Transaktion
+     * @param fortschritt wird mit der Anzahl geschriebener Zeilen mitgezählt
+     * @throws RuntimeException wenn ein Block nicht geschrieben werden kann
+     */
+    public void inDatenbank(long anzahl, int threads, int batch, AtomicLong fortschritt) {
+        AtomicLong naechster = new AtomicLong();
+        PatientRepository speicher = Repositories.istSpeicher() ? Repositories.patienten() : null;
+        Callable<Void> arbeit = () -> {
+            try {
+                if (speicher != null) inSpeicher(speicher, anzahl, batch, naechster, fortschritt);
+                else perJdbc(anzahl, batch, naechster, fortschritt);
+            } catch (RuntimeException | SQLException e) {
+                naechster.set(Long.MAX_VALUE / 2);
+                throw e;
+            }
+            return null;
+        };
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Void>> laeufe = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) laeufe.add(pool.submit(arbeit));
+            for (Future<Void> f : laeufe) warte(f);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void perJdbc(long anzahl, int batch, AtomicLong naechster, AtomicLong fortschritt) throws SQLException {
+        try (Connection con = DB.getConnection();
+             PreparedStatement ps = DB.prepare(con, PatientMapper.INSERT_SQL)) {
+            con.setAutoCommit(false);
+            long von;
+            while ((von = naechster.getAndAdd(batch)) < anzahl) {
+                long bis = Math.min(anzahl, von + batch);
+                for (long i = von; i < bis; i++) {
+                    Patient p = erzeuge(i);
+                    int idx = PatientMapper.bindAll(ps, 1, p);
+                    PatientMapper.bindPhonetik(ps, idx, PatientMapper.PHONETIK, p);
+                    ps.addBatch();
+                }
+                try {
+                    ps.executeBatch();
+                    con.commit();
+                } catch (SQLException e) {
+                    con.rollback();
+                    throw e;
+                }
+                fortschritt.addAndGet(bis - von);
+            }
+        }
+    }
+
+    private void inSpeicher(PatientRepository repo, long anzahl, int batch, AtomicLong naechster, AtomicLong fortschritt) {
+        long von;
+        while ((von = naechster.getAndAdd(batch)) < anzahl) {
+            long bis = Math.min(anzahl, von + batch);
+            List<Patient> block = new ArrayList<>((int) (bis - von));
+            for (long i = von; i < bis; i++) block.add(erzeuge(i));
+            repo.insertBatch(block);
+            fortschritt.addAndGet(bis - von);
+        }
+    }
+
+    private static <T> T warte(Future<T> f) {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Generator wurde unterbrochen.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new RuntimeException("Testdaten konnten nicht geschrieben werden.", e.getCause());
+        }
+    }
+
+    /**
+     * Startet den Generator und gibt alle 5 Sekunden den Fortschritt aus, am Ende Zeilen pro Sekunde.
+     *
+     * @param args optional Anzahl Datensätze (Standard 1.000.000) und Seed (Standard 42)
+     * @throws IOException wenn die CSV-Datei nicht geschrieben werden kann
+     */
+    public static void main(String[] args) throws IOException {
+        Konfiguration k = Konfiguration.get();
+        long anzahl = args.length > 0 ? Long.parseLong(args[0]) : k.getLong("generator.anzahl", 1_000_000);
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : k.getLong("generator.seed", 42);
+        int threads = k.getInt("generator.threads", Runtime.getRuntime().availableProcessors());
+        int batch = k.getInt("generator.batch", 2000);
+        boolean csv = k.get("generator.ziel", "db").equalsIgnoreCase("csv");
+
+        if (!csv && !Repositories.istSpeicher()) DB.init();
+        int[][] st = stationen(k);
+        double[] gewichte = Arrays.stream(st[1]).asDoubleStream().toArray();
+        PatientGenerator g = new PatientGenerator(seed,
+                LocalDate.parse(k.get("generator.stichtag", "2025-01-01")),
+                zahl(k, "generator.alter.mittel", 48), zahl(k, "generator.alter.streuung", 22),
+                zahl(k, "generator.namen.zipf", 1.0), zahl(k, "generator.gruende.zipf", 1.2),
+                st[0], gewichte);
+
+        AtomicLong fertig = new AtomicLong();
+        long t0 = System.nanoTime();
+        ExecutorService lauf = Executors.newSingleThreadExecutor();
+        Future<?> f = lauf.submit(() -> {
+            if (csv) {
+                g.alsCsv(anzahl, Path.of(k.get("generator.datei", "patienten.csv")), threads, fertig);
+            } else {
+                g.inDatenbank(anzahl, threads, batch, fertig);
+            }
+            return null;
+        });
+        lauf.shutdown();
+        while (true) {
+            try {
+                f.get(5, TimeUnit.SECONDS);
+                break;
+            } catch (TimeoutException e) {
+                ausgabe("Fortschritt", fertig.get(), anzahl, System.nanoTime() - t0);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Generator abgebrochen nach " + fertig.get() + " Zeilen.", e.getCause());
+            }
+        }
+        ausgabe("Fertig", fertig.get(), anzahl, System.nanoTime() - t0);
+    }
+
+    private static void ausgabe(String was, long fertig, long anzahl, long nanos) {
+        double s = nanos / 1e9;
+        System.out.printf(Locale.ROOT, "%s: %d von %d Zeilen in %.1f s (%.0f Zeilen/s)%n", was, fertig, anzahl, s, fertig / s);
+    }
+
+    private static double zahl(Konfiguration k, String schluessel, double standard) {
+        String v = k.get(schluessel, null);
+        return v == null || v.isEmpty() ? standard : Double.parseDouble(v);
+    }
+
+    /**
+     * Liest {@code generator.stationen} ("Raum:Gewicht,..."; ohne Gewicht zählt 1) oder nimmt
+     * alle vorhandenen Stationen mit ihrer Bettenanzahl als Gewicht.
+     *
+     * @return [0] Raumnummern, [1] Gewichte
+     */
+    private static int[][] stationen(Konfiguration k) {
+        String v = k.get("generator.stationen", "");
+        if (!v.isEmpty()) {
+            String[] teile = v.split(",");
+            int[][] out = new int[2][teile.length];
+            for (int i = 0; i < teile.length; i++) {
+                String[] rg = teile[i].strip().split(":");
+                out[0][i] = Integer.parseInt(rg[0].strip());
+                out[1][i] = rg.length > 1 ? Integer.parseInt(rg[1].strip()) : 1;
+            }
+            return out;
+        }
+        List<Station> alle = Repositories.stationen().findAll();
+        int[][] out = new int[2][alle.size()];
+        for (int i = 0; i < alle.size(); i++) {
+            out[0][i] = alle.get(i).getRaum();
+            out[1][i] = Math.max(1, alle.get(i).getMaxBetten());
+        }
+        return out;
+    }
+
+    /**
+     * Diskrete Verteilung über die Indizes {@code 0..n-1}, gezogen über die kumulierten Gewichte.
+     */
+    private static final class Verteilung {
+
+        private final double[] kumuliert;
+
+        Verteilung(double[] gewichte) {
+            kumuliert = new double[gewichte.length];
+            double summe = 0;
+            for (int i = 0; i < gewichte.length; i++) {
+                summe += gewichte[i];
+                kumuliert[i] = summe;
+            }
+            if (!(summe > 0)) throw new IllegalArgumentException("Die Summe der Gewichte muss größer als 0 sein.");
+        }
+
+        /**
+         * Zipf-Verteilung: Index {@code i} hat das Gewicht {@code 1 / (i+1)^s}.
+         */
+        static Verteilung zipf(int n, double s) {
+            double[] g = new double[n];
+            for (int i = 0; i < n; i++) g[i] = 1.0 / Math.pow(i + 1, s);
+            return new Verteilung(g);
+        }
+
+        int ziehe(SplittableRandom r) {
+            double x = r.nextDouble() * kumuliert[kumuliert.length - 1];
+            int i = Arrays.binarySearch(kumuliert, x);
+            i = i < 0 ? -i - 1 : i + 1;
+            return Math.min(i, kumuliert.length - 1);
+        }
+    }
+}